@@ -0,0 +1,312 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ObjectFactory;
+import javolution.util.FastTable;
+import javolution.util.Index;
+import org.jscience.mathematics.number.ModuloInteger;
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents the fraction-free (Bareiss) elimination of a
+ *     square {@link Matrix matrix}.</p>
+ *
+ * <p> Unlike the {@link LUDecomposition}, each elimination step
+ *     <code>a[i][j] = (a[k][k]·a[i][j] - a[i][k]·a[k][j]) / a[k-1][k-1]</code>
+ *     keeps the intermediate elements equal to minors of the source matrix
+ *     (the division is exact). For exact elements such as
+ *     {@link Rational} or {@link ModuloInteger} the size of the intermediate
+ *     results stays bounded, the diagonal element <code>a[k][k]</code>
+ *     being the determinant of the leading <code>(k+1)x(k+1)</code>
+ *     sub-matrix (<code>O(n³)</code> operations).</p>
+ *
+ * <p> Pivoting is only performed to avoid zero pivots (the
+ *     elements are supposed exact); the elements multiplication
+ *     is supposed commutative.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Bareiss_algorithm">
+ *      Wikipedia: Bareiss algorithm</a>
+ */
+public final class BareissDecomposition<F extends Field<F>> implements Solver<F> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<BareissDecomposition> FACTORY = new ObjectFactory<BareissDecomposition>() {
+
+        protected BareissDecomposition create() {
+            return new BareissDecomposition();
+        }
+
+        @Override
+        protected void cleanup(BareissDecomposition bd) {
+            bd._M = null;
+            bd._zero = null;
+        }
+    };
+
+    /**
+     * Holds the dimension of the square matrix source.
+     */
+    private int _n;
+
+    /**
+     * Holds the eliminated matrix (upper part) and the elimination
+     * multipliers (strict lower part).
+     */
+    private DenseMatrixImpl<F> _M;
+
+    /**
+     * Holds the pivots indexes.
+     */
+    private final FastTable<Index> _pivots = new FastTable<Index>();
+
+    /**
+     * Holds the number of permutation performed.
+     */
+    private int _permutationCount;
+
+    /**
+     * Holds the rank of the matrix source.
+     */
+    private int _rank;
+
+    /**
+     * Holds the additive identity.
+     */
+    private F _zero;
+
+    /**
+     * Default constructor.
+     */
+    private BareissDecomposition() {
+    }
+
+    /**
+     * Returns the fraction-free decomposition of the specified matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the fraction-free decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static <F extends Field<F>> BareissDecomposition<F> valueOf(
+            Matrix<F> source) {
+        if (!source.isSquare())
+            throw new DimensionException("Matrix is not square");
+        BareissDecomposition bd = FACTORY.object();
+        bd._n = source.getNumberOfRows();
+        bd._permutationCount = 0;
+        bd.construct(source);
+        return bd;
+    }
+
+    /**
+     * Indicates if the elements of the specified matrix are exact (for which
+     * fraction-free elimination should be preferred to LU decomposition).
+     *
+     * @param  matrix the matrix to test.
+     * @return <code>true</code> if the elements are {@link Rational} or
+     *         {@link ModuloInteger}; <code>false</code> otherwise.
+     */
+    static boolean isExact(Matrix<?> matrix) {
+        if ((matrix.getNumberOfRows() == 0) || (matrix.getNumberOfColumns() == 0))
+            return false;
+        Object e = matrix.get(0, 0);
+        return (e instanceof Rational) || (e instanceof ModuloInteger);
+    }
+
+    /**
+     * Constructs the decomposition of the specified matrix.
+     */
+    private void construct(Matrix<F> source) {
+        _M = source instanceof DenseMatrixImpl ? ((DenseMatrixImpl<F>) source).copy()
+                : DenseMatrixImpl.valueOf(source).copy();
+        F e = _M.get(0, 0);
+        _zero = e.plus(e.opposite());
+        _pivots.clear();
+        for (int i = 0; i < _n; i++) {
+            _pivots.add(Index.valueOf(i));
+        }
+        final int n = _n;
+        F previous = null; // One.
+        for (int k = 0; k < n; k++) {
+            // Searches for a non-zero pivot.
+            int pivot = k;
+            while ((pivot < n) && isZero(_M.get(pivot, k))) {
+                pivot++;
+            }
+            if (pivot == n) { // Singular.
+                _rank = k;
+                return;
+            }
+            if (pivot != k) { // Exchanges.
+                for (int j = 0; j < n; j++) {
+                    F tmp = _M.get(pivot, j);
+                    _M.set(pivot, j, _M.get(k, j));
+                    _M.set(k, j, tmp);
+                }
+                Index tmp = _pivots.get(pivot);
+                _pivots.set(pivot, _pivots.get(k));
+                _pivots.set(k, tmp);
+                _permutationCount++;
+            }
+            F akk = _M.get(k, k);
+            F previousInv = (previous == null) ? null : previous.inverse();
+            for (int i = k + 1; i < n; i++) {
+                F aik = _M.get(i, k); // Kept as multiplier.
+                for (int j = k + 1; j < n; j++) {
+                    F aij = akk.times(_M.get(i, j)).plus(aik.times(_M.get(k, j)).opposite());
+                    _M.set(i, j, (previousInv == null) ? aij : aij.times(previousInv));
+                }
+            }
+            previous = akk;
+        }
+        _rank = n;
+    }
+
+    /**
+     * Indicates if the specified element is zero.
+     */
+    private static <F extends Field<F>> boolean isZero(F e) {
+        return e.equals(e.plus(e));
+    }
+
+    /**
+     * Indicates if the matrix source is singular.
+     *
+     * @return <code>determinant() == 0</code>
+     */
+    public boolean isSingular() {
+        return _rank < _n;
+    }
+
+    /**
+     * Returns the number of pivots found before the elimination stopped
+     * (the dimension of the matrix source if not singular).
+     *
+     * @return the rank of the matrix source if it is not singular.
+     */
+    public int getRank() {
+        return _rank;
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition.
+     *
+     * @return the determinant of the matrix source.
+     */
+    public F determinant() {
+        if (isSingular())
+            return _zero;
+        F det = _M.get(_n - 1, _n - 1);
+        return ((_permutationCount & 1) == 0) ? det : det.opposite();
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.bareiss()</code> (the forward elimination is replayed
+     * on B then back substitution is performed).
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     * @throws ArithmeticException if the matrix source is singular.
+     */
+    public DenseMatrix<F> solve(Matrix<F> B) {
+        if (_n != B.getNumberOfRows())
+            throw new DimensionException("Input vector has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        if (isSingular())
+            throw new ArithmeticException("Matrix is singular");
+        final int n = _n;
+        final int p = B.getNumberOfColumns();
+
+        // Copies B with pivoting.
+        DenseMatrixImpl<F> X = DenseMatrixImpl.FACTORY.object();
+        for (int i = 0; i < n; i++) {
+            DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
+            int row = _pivots.get(i).intValue();
+            for (int j = 0; j < p; j++) {
+                V._elements.add(B.get(row, j));
+            }
+            X._rows.add(V);
+        }
+
+        // Replays the fraction-free elimination.
+        F previous = null;
+        for (int k = 0; k < n; k++) {
+            F akk = _M.get(k, k);
+            F previousInv = (previous == null) ? null : previous.inverse();
+            for (int i = k + 1; i < n; i++) {
+                F aik = _M.get(i, k);
+                for (int j = 0; j < p; j++) {
+                    F xij = akk.times(X.get(i, j)).plus(aik.times(X.get(k, j)).opposite());
+                    X.set(i, j, (previousInv == null) ? xij : xij.times(previousInv));
+                }
+            }
+            previous = akk;
+        }
+
+        // Back substitution.
+        for (int k = n - 1; k >= 0; k--) {
+            F akkInv = _M.get(k, k).inverse();
+            for (int j = 0; j < p; j++) {
+                F sum = X.get(k, j);
+                for (int i = k + 1; i < n; i++) {
+                    sum = sum.plus(_M.get(k, i).times(X.get(i, j)).opposite());
+                }
+                X.set(k, j, sum.times(akkInv));
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.bareiss()</code>.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     * @throws ArithmeticException if the matrix source is singular.
+     */
+    public DenseVector<F> solve(Vector<F> y) {
+        DenseMatrix<F> Y = DenseMatrix.valueOf(y).transpose();
+        return solve(Y).getColumn(0);
+    }
+
+    /**
+     * Returns the inverse of the matrix source.
+     *
+     * @return <code>this.solve(Identity)</code>
+     * @throws ArithmeticException if the matrix source is singular.
+     */
+    public DenseMatrix<F> inverse() {
+        if (isSingular())
+            throw new ArithmeticException("Matrix is singular");
+        F e = _M.get(0, 0);
+        return solve(DiagonalMatrix.valueOf(_n, e.times(e.inverse())));
+    }
+
+    /**
+     * Returns the adjoint (adjugate) of the matrix source.
+     *
+     * @return <code>determinant() · inverse()</code>
+     * @throws ArithmeticException if the matrix source is singular.
+     */
+    public DenseMatrix<F> adjoint() {
+        return inverse().times(determinant());
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ObjectFactory;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents a sparse matrix stored in compressed sparse
+ *     column (CSC) format: column pointers, row indices and elements held
+ *     in arrays.</p>
+ *
+ * <p> Columns are accessed in <code>O(nnz)</code> of the column, elements
+ *     and rows through a binary search of the row indices.
+ *     The {@link #transpose transpose} of a CSR matrix is a
+ *     {@link CSRMatrix} sharing the same arrays (<code>O(1)</code>),
+ *     the conversion between both formats is performed in
+ *     <code>O(nnz)</code> (counting sort).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Sparse_matrix#Compressed_sparse_column_.28CSC_or_CCS.29">
+ *      Wikipedia: Compressed sparse column</a>
+ */
+public final class CSCMatrix<F extends Field<F>> extends CompressedSparseMatrix<F> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<CSCMatrix> FACTORY = new ObjectFactory<CSCMatrix>() {
+
+        @Override
+        protected CSCMatrix create() {
+            return new CSCMatrix();
+        }
+
+        @Override
+        protected void cleanup(CSCMatrix matrix) {
+            matrix._pointers = null;
+            matrix._indices = null;
+            matrix._values = null;
+            matrix._zero = null;
+        }
+    };
+
+    /**
+     * Holds the elements in storage order.
+     */
+    Object[] _values;
+
+    /**
+     * Holds the zero element.
+     */
+    F _zero;
+
+    /**
+     * Default constructor.
+     */
+    private CSCMatrix() {
+    }
+
+    /**
+     * Returns the CSC form of the specified matrix. Sparse matrices are
+     * converted in <code>O(nnz)</code> (plus the sorting of the map-based
+     * columns), the zero elements of dense matrices are not stored.
+     *
+     * @param that the matrix to convert.
+     * @return <code>that</code> or its CSC form.
+     */
+    public static <F extends Field<F>> CSCMatrix<F> valueOf(Matrix<F> that) {
+        if (that instanceof CSCMatrix)
+            return (CSCMatrix<F>) that;
+        CSCMatrix<F> M = FACTORY.object();
+        if (that instanceof CSRMatrix) {
+            CSRMatrix<F> csr = (CSRMatrix<F>) that;
+            int[] permutation = M.transposeStructure(csr);
+            M._values = CSRMatrix.permute(csr._values, permutation);
+            M._zero = csr._zero;
+            return M;
+        }
+        if (that instanceof SparseMatrixImpl) // Map-based rows.
+            return CSCMatrix.valueOf(CSRMatrix.valueOf(that));
+        M._values = M.compress(that, false);
+        M._zero = CSRMatrix.zeroOf(that);
+        return M;
+    }
+
+    @Override
+    boolean isRowCompressed() {
+        return false;
+    }
+
+    @Override
+    F valueAt(int k) {
+        return (F) _values[k];
+    }
+
+    @Override
+    F getZero() {
+        return _zero;
+    }
+
+    @Override
+    public CSCMatrix<F> opposite() {
+        CSCMatrix<F> M = share();
+        for (int k = 0; k < M._values.length; k++) {
+            M._values[k] = ((F) _values[k]).opposite();
+        }
+        return M;
+    }
+
+    @Override
+    public CSCMatrix<F> times(F k) {
+        CSCMatrix<F> M = share();
+        for (int i = 0; i < M._values.length; i++) {
+            M._values[i] = ((F) _values[i]).times(k);
+        }
+        return M;
+    }
+
+    // Returns a matrix sharing the structure of this matrix (immutable).
+    private CSCMatrix<F> share() {
+        CSCMatrix<F> M = FACTORY.object();
+        M._m = _m;
+        M._n = _n;
+        M._pointers = _pointers;
+        M._indices = _indices;
+        M._values = new Object[_values.length];
+        M._zero = _zero;
+        return M;
+    }
+
+    /**
+     * Returns the product of this matrix by the specified column vector
+     * (columns scattered).
+     *
+     * @param  v the column vector.
+     * @return <code>this · v</code>
+     * @throws DimensionException if <code>
+     *         v.getDimension() != this.getNumberOfColumns()<code>
+     */
+    @Override
+    public DenseVector<F> times(Vector<F> v) {
+        if (v.getDimension() != _n)
+            throw new DimensionException();
+        Object[] sums = new Object[_m];
+        for (int j = 0; j < _n; j++) {
+            F vj = v.get(j);
+            for (int k = _pointers[j], end = _pointers[j + 1]; k < end; k++) {
+                F product = ((F) _values[k]).times(vj);
+                int i = _indices[k];
+                sums[i] = (sums[i] == null) ? product : ((F) sums[i]).plus(product);
+            }
+        }
+        DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
+        for (int i = 0; i < _m; i++) {
+            V._elements.add((sums[i] == null) ? _zero : (F) sums[i]);
+        }
+        return V;
+    }
+
+    /**
+     * Returns the product of this matrix with the one specified; the
+     * product of sparse matrices is a {@link CSCMatrix}
+     * (<code>(this · that)' = that' · this'</code> on the CSR arrays of
+     * the transposes).
+     *
+     * @param  that the matrix multiplier.
+     * @return <code>this · that</code>.
+     * @throws DimensionException if <code>
+     *         this.getNumberOfColumns() != that.getNumberOfRows()</code>.
+     */
+    @Override
+    public Matrix<F> times(Matrix<F> that) {
+        if (that.getNumberOfRows() != _n)
+            throw new DimensionException();
+        if (!(that instanceof SparseMatrix))
+            return super.times(that);
+        CSCMatrix<F> B = CSCMatrix.valueOf(that);
+        return CSRMatrix.multiply(B._n, _m, B._pointers, B._indices, B._values,
+                _pointers, _indices, _values, _zero).transpose();
+    }
+
+    @Override
+    public CSRMatrix<F> transpose() {
+        CSRMatrix<F> M = CSRMatrix.FACTORY.object();
+        M._m = _n;
+        M._n = _m;
+        M._pointers = _pointers;
+        M._indices = _indices;
+        M._values = _values;
+        M._zero = _zero;
+        return M;
+    }
+
+    @Override
+    public CSCMatrix<F> copy() {
+        CSCMatrix<F> M = share();
+        for (int k = 0; k < M._values.length; k++) {
+            M._values[k] = ((F) _values[k]).copy();
+        }
+        return M;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
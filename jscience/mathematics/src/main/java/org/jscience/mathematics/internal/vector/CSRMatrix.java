@@ -0,0 +1,280 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents a sparse matrix stored in compressed sparse
+ *     row (CSR) format: row pointers, column indices and elements held
+ *     in arrays.</p>
+ *
+ * <p> Rows are accessed in <code>O(nnz)</code> of the row, elements and
+ *     columns through a binary search of the column indices.
+ *     The {@link #transpose transpose} of a CSR matrix is a
+ *     {@link CSCMatrix} sharing the same arrays (<code>O(1)</code>),
+ *     the conversion between both formats is performed in
+ *     <code>O(nnz)</code> (counting sort).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Sparse_matrix#Compressed_sparse_row_.28CSR.2C_CRS_or_Yale_format.29">
+ *      Wikipedia: Compressed sparse row</a>
+ */
+public final class CSRMatrix<F extends Field<F>> extends CompressedSparseMatrix<F> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<CSRMatrix> FACTORY = new ObjectFactory<CSRMatrix>() {
+
+        @Override
+        protected CSRMatrix create() {
+            return new CSRMatrix();
+        }
+
+        @Override
+        protected void cleanup(CSRMatrix matrix) {
+            matrix._pointers = null;
+            matrix._indices = null;
+            matrix._values = null;
+            matrix._zero = null;
+        }
+    };
+
+    /**
+     * Holds the elements in storage order.
+     */
+    Object[] _values;
+
+    /**
+     * Holds the zero element.
+     */
+    F _zero;
+
+    /**
+     * Default constructor.
+     */
+    private CSRMatrix() {
+    }
+
+    /**
+     * Returns the CSR form of the specified matrix. Sparse matrices are
+     * converted in <code>O(nnz)</code> (plus the sorting of the map-based
+     * rows), the zero elements of dense matrices are not stored.
+     *
+     * @param that the matrix to convert.
+     * @return <code>that</code> or its CSR form.
+     */
+    public static <F extends Field<F>> CSRMatrix<F> valueOf(Matrix<F> that) {
+        if (that instanceof CSRMatrix)
+            return (CSRMatrix<F>) that;
+        CSRMatrix<F> M = FACTORY.object();
+        if (that instanceof CSCMatrix) {
+            CSCMatrix<F> csc = (CSCMatrix<F>) that;
+            int[] permutation = M.transposeStructure(csc);
+            M._values = permute(csc._values, permutation);
+            M._zero = csc._zero;
+            return M;
+        }
+        if (that instanceof SparseMatrixImpl.TransposedView) // Map-based columns.
+            return CSRMatrix.valueOf(CSCMatrix.valueOf(that));
+        M._values = M.compress(that, true);
+        M._zero = zeroOf(that);
+        return M;
+    }
+
+    // Returns the zero element of the specified matrix.
+    static <F extends Field<F>> F zeroOf(Matrix<F> that) {
+        if (that instanceof SparseMatrix)
+            return ((SparseMatrix<F>) that).getRow(0).getZero();
+        F e = that.get(0, 0);
+        return e.plus(e.opposite());
+    }
+
+    // Returns the elements reordered (values[permutation[k]]).
+    static Object[] permute(Object[] values, int[] permutation) {
+        Object[] tmp = new Object[permutation.length];
+        for (int k = 0; k < tmp.length; k++) {
+            tmp[k] = values[permutation[k]];
+        }
+        return tmp;
+    }
+
+    @Override
+    boolean isRowCompressed() {
+        return true;
+    }
+
+    @Override
+    F valueAt(int k) {
+        return (F) _values[k];
+    }
+
+    @Override
+    F getZero() {
+        return _zero;
+    }
+
+    @Override
+    public CSRMatrix<F> opposite() {
+        CSRMatrix<F> M = share();
+        for (int k = 0; k < M._values.length; k++) {
+            M._values[k] = ((F) _values[k]).opposite();
+        }
+        return M;
+    }
+
+    @Override
+    public CSRMatrix<F> times(F k) {
+        CSRMatrix<F> M = share();
+        for (int i = 0; i < M._values.length; i++) {
+            M._values[i] = ((F) _values[i]).times(k);
+        }
+        return M;
+    }
+
+    // Returns a matrix sharing the structure of this matrix (immutable).
+    private CSRMatrix<F> share() {
+        CSRMatrix<F> M = FACTORY.object();
+        M._m = _m;
+        M._n = _n;
+        M._pointers = _pointers;
+        M._indices = _indices;
+        M._values = new Object[_values.length];
+        M._zero = _zero;
+        return M;
+    }
+
+    /**
+     * Returns the product of this matrix by the specified column vector.
+     *
+     * @param  v the column vector.
+     * @return <code>this · v</code>
+     * @throws DimensionException if <code>
+     *         v.getDimension() != this.getNumberOfColumns()<code>
+     */
+    @Override
+    public DenseVector<F> times(Vector<F> v) {
+        if (v.getDimension() != _n)
+            throw new DimensionException();
+        DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
+        for (int i = 0; i < _m; i++) {
+            F sum = _zero;
+            for (int k = _pointers[i], end = _pointers[i + 1]; k < end; k++) {
+                sum = sum.plus(((F) _values[k]).times(v.get(_indices[k])));
+            }
+            V._elements.add(sum);
+        }
+        return V;
+    }
+
+    /**
+     * Returns the product of this matrix with the one specified; the
+     * product of sparse matrices is a {@link CSRMatrix} (Gustavson's
+     * algorithm, the zero elements of the result are not stored).
+     *
+     * @param  that the matrix multiplier.
+     * @return <code>this · that</code>.
+     * @throws DimensionException if <code>
+     *         this.getNumberOfColumns() != that.getNumberOfRows()</code>.
+     */
+    @Override
+    public Matrix<F> times(Matrix<F> that) {
+        if (that.getNumberOfRows() != _n)
+            throw new DimensionException();
+        if (!(that instanceof SparseMatrix))
+            return super.times(that);
+        CSRMatrix<F> B = CSRMatrix.valueOf(that);
+        return CSRMatrix.multiply(_m, B._n, _pointers, _indices, _values,
+                B._pointers, B._indices, B._values, _zero);
+    }
+
+    /**
+     * Returns the product of two matrices given by their CSR arrays
+     * (Gustavson's algorithm: rows of B scaled by the elements of a row of
+     * A are accumulated into a dense row).
+     */
+    static <F extends Field<F>> CSRMatrix<F> multiply(int m, int n, int[] aPointers,
+            int[] aIndices, Object[] aValues, int[] bPointers, int[] bIndices,
+            Object[] bValues, F zero) {
+        final int[] pointers = new int[m + 1];
+        int[] indices = new int[m + 16];
+        Object[] values = new Object[indices.length];
+        final int[] marker = new int[n]; // Holds row + 1.
+        final int[] columns = new int[n];
+        final Object[] accumulator = new Object[n];
+        int nnz = 0;
+        for (int i = 0; i < m; i++) {
+            int count = 0;
+            for (int ka = aPointers[i], ea = aPointers[i + 1]; ka < ea; ka++) {
+                final F aik = (F) aValues[ka];
+                final int row = aIndices[ka];
+                for (int kb = bPointers[row], eb = bPointers[row + 1]; kb < eb; kb++) {
+                    final int j = bIndices[kb];
+                    F product = aik.times((F) bValues[kb]);
+                    if (marker[j] != i + 1) {
+                        marker[j] = i + 1;
+                        columns[count++] = j;
+                        accumulator[j] = product;
+                    } else {
+                        accumulator[j] = ((F) accumulator[j]).plus(product);
+                    }
+                }
+            }
+            Arrays.sort(columns, 0, count);
+            if (nnz + count > indices.length) {
+                int capacity = Math.max(indices.length * 2, nnz + count);
+                indices = CompressedSparseMatrix.resize(indices, capacity);
+                values = CompressedSparseMatrix.resize(values, capacity);
+            }
+            for (int q = 0; q < count; q++) {
+                final int j = columns[q];
+                if (zero.equals(accumulator[j]))
+                    continue;
+                indices[nnz] = j;
+                values[nnz++] = accumulator[j];
+            }
+            pointers[i + 1] = nnz;
+        }
+        CSRMatrix<F> C = FACTORY.object();
+        C._m = m;
+        C._n = n;
+        C._pointers = pointers;
+        C._indices = CompressedSparseMatrix.resize(indices, nnz);
+        C._values = CompressedSparseMatrix.resize(values, nnz);
+        C._zero = zero;
+        return C;
+    }
+
+    @Override
+    public CSCMatrix<F> transpose() {
+        CSCMatrix<F> M = CSCMatrix.FACTORY.object();
+        M._m = _n;
+        M._n = _m;
+        M._pointers = _pointers;
+        M._indices = _indices;
+        M._values = _values;
+        M._zero = _zero;
+        return M;
+    }
+
+    @Override
+    public CSRMatrix<F> copy() {
+        CSRMatrix<F> M = share();
+        for (int k = 0; k < M._values.length; k++) {
+            M._values[k] = ((F) _values[k]).copy();
+        }
+        return M;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
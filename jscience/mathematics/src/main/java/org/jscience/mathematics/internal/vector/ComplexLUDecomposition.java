@@ -0,0 +1,362 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import javolution.util.FastTable;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Complex;
+
+/**
+ * <p> This class represents the {@link LUDecomposition LU decomposition}
+ *     of a complex {@link Matrix matrix} performed directly on the
+ *     interleaved <code>double[]</code> buffer of a {@link ComplexMatrix}
+ *     (no {@link Complex} instance is created).</p>
+ *
+ * <p> The decomposition is blocked the same way as the
+ *     {@link Float64LUDecomposition}: each panel of {@link #BLOCK_SIZE}
+ *     columns is factored with partial pivoting (largest
+ *     <code>|re| + |im|</code>), then the trailing sub-matrix is updated
+ *     through a complex matrix product.</p>
+ *
+ * <p> Singular matrices are decomposed without error (zero pivot);
+ *     their {@link #determinant determinant} is zero and solving returns
+ *     non-finite values.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public final class ComplexLUDecomposition implements Solver<Complex> {
+
+    /**
+     * Holds the number of columns of the panels factored at once.
+     */
+    static final int BLOCK_SIZE = 32;
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<ComplexLUDecomposition> FACTORY = new ObjectFactory<ComplexLUDecomposition>() {
+
+        protected ComplexLUDecomposition create() {
+            return new ComplexLUDecomposition();
+        }
+
+        @Override
+        protected void cleanup(ComplexLUDecomposition lu) {
+            lu._LU = null;
+        }
+    };
+
+    /**
+     * Holds the dimension of the square matrix source.
+     */
+    private int _n;
+
+    /**
+     * Holds the lower/upper decomposition (contiguous, <code>ld == 2 * n</code>).
+     */
+    private ComplexMatrix _LU;
+
+    /**
+     * Holds the pivots (row indices after permutation).
+     */
+    private int[] _pivots = new int[0];
+
+    /**
+     * Holds the number of permutation performed.
+     */
+    private int _permutationCount;
+
+    /**
+     * Default constructor.
+     */
+    private ComplexLUDecomposition() {
+    }
+
+    /**
+     * Returns the lower/upper decomposition of the specified matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the lower/upper decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static ComplexLUDecomposition valueOf(Matrix<Complex> source) {
+        if (!source.isSquare())
+            throw new DimensionException("Matrix is not square");
+        ComplexLUDecomposition lu = FACTORY.object();
+        lu._n = source.getNumberOfRows();
+        lu._permutationCount = 0;
+        lu.construct(ComplexMatrix.valueOfMatrix(source).copy());
+        return lu;
+    }
+
+    /**
+     * Constructs the decomposition (in place).
+     */
+    private void construct(ComplexMatrix LU) {
+        _LU = LU;
+        final int n = _n;
+        final int ld = 2 * n;
+        final double[] a = LU._values;
+        if (_pivots.length < n) {
+            _pivots = new int[n];
+        }
+        for (int i = 0; i < n; i++) {
+            _pivots[i] = i;
+        }
+        for (int k = 0; k < n; k += BLOCK_SIZE) {
+            final int nb = MathLib.min(BLOCK_SIZE, n - k);
+
+            // Factors the panel (columns k to k + nb).
+            for (int j = k; j < k + nb; j++) {
+                int pivot = j;
+                double max = MathLib.abs(a[j * ld + 2 * j]) + MathLib.abs(a[j * ld + 2 * j + 1]);
+                for (int i = j + 1; i < n; i++) {
+                    double abs = MathLib.abs(a[i * ld + 2 * j]) + MathLib.abs(a[i * ld + 2 * j + 1]);
+                    if (abs > max) {
+                        max = abs;
+                        pivot = i;
+                    }
+                }
+                if (pivot != j) { // Exchanges (whole rows).
+                    swapRows(a, ld, pivot, j);
+                    int tmp = _pivots[pivot];
+                    _pivots[pivot] = _pivots[j];
+                    _pivots[j] = tmp;
+                    _permutationCount++;
+                }
+                if (max == 0.0)
+                    continue; // Singular (the column below is zero).
+                final double ar = a[j * ld + 2 * j];
+                final double ai = a[j * ld + 2 * j + 1];
+                final double d = ar * ar + ai * ai;
+                final double invRe = ar / d, invIm = -ai / d;
+                final int w = k + nb - j - 1; // Remaining panel columns.
+                for (int i = j + 1; i < n; i++) {
+                    final int ij = i * ld + 2 * j;
+                    final double xr = a[ij], xi = a[ij + 1];
+                    final double lr = xr * invRe - xi * invIm;
+                    final double li = xr * invIm + xi * invRe;
+                    a[ij] = lr;
+                    a[ij + 1] = li;
+                    if ((w > 0) && ((lr != 0.0) || (li != 0.0))) {
+                        Float64Kernels.axpyComplex(w, -lr, -li, a, j * ld + 2 * (j + 1), 2,
+                                a, ij + 2, 2);
+                    }
+                }
+            }
+
+            final int n2 = n - k - nb; // Trailing dimension.
+            if (n2 == 0)
+                break;
+
+            // U12 = inv(L11) · A12
+            for (int r = k + 1; r < k + nb; r++) {
+                for (int q = k; q < r; q++) {
+                    Float64Kernels.axpyComplex(n2, -a[r * ld + 2 * q], -a[r * ld + 2 * q + 1],
+                            a, q * ld + 2 * (k + nb), 2, a, r * ld + 2 * (k + nb), 2);
+                }
+            }
+
+            // A22 = A22 - L21 · U12
+            Float64Kernels.gemmComplex(n2, n2, nb, -1.0, a, (k + nb) * ld + 2 * k, ld, 2, false,
+                    a, k * ld + 2 * (k + nb), ld, 2, false, a, (k + nb) * ld + 2 * (k + nb), ld);
+        }
+    }
+
+    // Exchanges the rows i and j of the matrix a (row stride ld).
+    private static void swapRows(double[] a, int ld, int i, int j) {
+        for (int c = 0, ri = i * ld, rj = j * ld; c < ld; c++) {
+            double tmp = a[ri + c];
+            a[ri + c] = a[rj + c];
+            a[rj + c] = tmp;
+        }
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public ComplexMatrix solve(Matrix<Complex> B) {
+        if (_n != B.getNumberOfRows())
+            throw new DimensionException("Input vector has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        final int n = _n;
+        final int p = B.getNumberOfColumns();
+        ComplexMatrix T = ComplexMatrix.valueOfMatrix(B);
+        ComplexMatrix X = ComplexMatrix.newInstance(n, p);
+        for (int i = 0; i < n; i++) { // Copies B with pivoting.
+            System.arraycopy(T._values, T._offset + _pivots[i] * T._ld, X._values, i * 2 * p, 2 * p);
+        }
+        substitute(X._values, p);
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public ComplexVector solve(Vector<Complex> y) {
+        if (_n != y.getDimension())
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + _n);
+        ComplexVector T = ComplexVector.valueOfVector(y);
+        ComplexVector x = ComplexVector.newInstance(_n);
+        for (int i = 0; i < _n; i++) {
+            final int k = T._offset + _pivots[i] * T._stride;
+            x._values[2 * i] = T._values[k];
+            x._values[2 * i + 1] = T._values[k + 1];
+        }
+        substitute(x._values, 1);
+        return x;
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = Identity  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    public ComplexMatrix inverse() {
+        final int n = _n;
+        ComplexMatrix X = ComplexMatrix.newInstance(n, n);
+        Arrays.fill(X._values, 0, 2 * n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            X._values[i * 2 * n + 2 * _pivots[i]] = 1.0;
+        }
+        substitute(X._values, n);
+        return X;
+    }
+
+    /**
+     * Solves <code>L·U·X = B</code> in place (B being the n-by-p
+     * contiguous interleaved matrix x), by blocks of rows.
+     */
+    private void substitute(double[] x, int p) {
+        final int n = _n;
+        final int ld = 2 * n;
+        final int ldx = 2 * p;
+        final double[] a = _LU._values;
+
+        // Solves L * Y = pivot(B)
+        for (int b = 0; b < n; b += BLOCK_SIZE) {
+            final int nb = MathLib.min(BLOCK_SIZE, n - b);
+            if (b > 0) { // Y[b:b+nb] -= L[b:b+nb, 0:b] · Y[0:b]
+                Float64Kernels.gemmComplex(nb, p, b, -1.0, a, b * ld, ld, 2, false,
+                        x, 0, ldx, 2, false, x, b * ldx, ldx);
+            }
+            for (int i = b + 1; i < b + nb; i++) {
+                for (int q = b; q < i; q++) {
+                    Float64Kernels.axpyComplex(p, -a[i * ld + 2 * q], -a[i * ld + 2 * q + 1],
+                            x, q * ldx, 2, x, i * ldx, 2);
+                }
+            }
+        }
+
+        // Solves U * X = Y;
+        for (int e = n; e > 0; e -= BLOCK_SIZE) {
+            final int b = MathLib.max(0, e - BLOCK_SIZE);
+            if (e < n) { // X[b:e] -= U[b:e, e:n] · X[e:n]
+                Float64Kernels.gemmComplex(e - b, p, n - e, -1.0, a, b * ld + 2 * e, ld, 2, false,
+                        x, e * ldx, ldx, 2, false, x, b * ldx, ldx);
+            }
+            for (int i = e - 1; i >= b; i--) {
+                for (int q = i + 1; q < e; q++) {
+                    Float64Kernels.axpyComplex(p, -a[i * ld + 2 * q], -a[i * ld + 2 * q + 1],
+                            x, q * ldx, 2, x, i * ldx, 2);
+                }
+                final double ur = a[i * ld + 2 * i], ui = a[i * ld + 2 * i + 1];
+                final double d = ur * ur + ui * ui;
+                Float64Kernels.scaleComplex(p, ur / d, -ui / d, x, i * ldx, 2, x, i * ldx, 2);
+            }
+        }
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition.
+     *
+     * @return the determinant of the matrix source.
+     */
+    public Complex determinant() {
+        final double[] a = _LU._values;
+        double re = 1.0, im = 0.0;
+        for (int i = 0, k = 0; i < _n; i++, k += 2 * _n + 2) {
+            final double r = re * a[k] - im * a[k + 1];
+            im = re * a[k + 1] + im * a[k];
+            re = r;
+        }
+        return ((_permutationCount & 1) == 0) ? Complex.valueOf(re, im)
+                : Complex.valueOf(-re, -im);
+    }
+
+    /**
+     * Returns the lower matrix decomposition (<code>L</code>) with unit
+     * diagonal elements.
+     *
+     * @return the lower matrix.
+     */
+    public ComplexMatrix getLower() {
+        final int ld = 2 * _n;
+        ComplexMatrix L = _LU.copy();
+        for (int i = 0; i < _n; i++) {
+            L._values[i * ld + 2 * i] = 1.0;
+            Arrays.fill(L._values, i * ld + 2 * i + 1, (i + 1) * ld, 0.0);
+        }
+        return L;
+    }
+
+    /**
+     * Returns the upper matrix decomposition (<code>U</code>).
+     *
+     * @return the upper matrix.
+     */
+    public ComplexMatrix getUpper() {
+        final int ld = 2 * _n;
+        ComplexMatrix U = _LU.copy();
+        for (int i = 0; i < _n; i++) {
+            Arrays.fill(U._values, i * ld, i * ld + 2 * i, 0.0);
+        }
+        return U;
+    }
+
+    /**
+     * Returns the lower/upper decomposition in one single matrix.
+     *
+     * @return the lower/upper matrix merged in a single matrix.
+     */
+    public ComplexMatrix getLU() {
+        return _LU;
+    }
+
+    /**
+     * Returns the pivots elements of this decomposition.
+     *
+     * @return the row indices after permutation.
+     */
+    public FastTable<Index> getPivots() {
+        FastTable<Index> pivots = FastTable.newInstance();
+        for (int i = 0; i < _n; i++) {
+            pivots.add(Index.valueOf(_pivots[i]));
+        }
+        return pivots;
+    }
+
+}
@@ -0,0 +1,742 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import java.util.List;
+import javolution.context.ArrayFactory;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Complex;
+
+/**
+ * <p> This class represents a dense matrix of complex elements.</p>
+ *
+ * <p> The elements are stored interleaved (the real part of each element
+ *     followed by its imaginary part) in a single <code>double[]</code>
+ *     buffer, row-major order. The real part of the element
+ *     <code>[i,j]</code> is located at <code>offset + i * ld + 2 * j</code>
+ *     where <code>ld</code> (the leading dimension, counted in
+ *     <code>double</code>) is the distance between two consecutive rows.
+ *     No {@link Complex} instance is created by arithmetic operations;
+ *     products are performed by a blocked complex GEMM and solving through
+ *     the {@link ComplexLUDecomposition}.</p>
+ *
+ * <p> The {@link #getRow rows}, {@link #getColumn columns},
+ *     {@link #getDiagonal diagonal}, {@link #getSubMatrix(int, int, int, int)
+ *     sub-matrices}, {@link #transpose transpose} and
+ *     {@link #conjugateTranspose conjugate transpose} of this matrix are
+ *     views sharing the matrix buffer (no copy is performed). Products
+ *     with transposed or conjugate transposed views read the buffer
+ *     through exchanged strides.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public class ComplexMatrix extends DenseMatrix<Complex> {
+
+    /**
+     * Holds factory for matrices with variable size buffers.
+     */
+    static final ArrayFactory<ComplexMatrix> FACTORY = new ArrayFactory<ComplexMatrix>() {
+
+        @Override
+        protected ComplexMatrix create(int capacity) {
+            return new ComplexMatrix(capacity);
+        }
+    };
+
+    /**
+     * Holds factory for matrices viewing an external buffer.
+     */
+    static final ObjectFactory<ComplexMatrix> VIEW_FACTORY = new ObjectFactory<ComplexMatrix>() {
+
+        @Override
+        protected ComplexMatrix create() {
+            return new ComplexMatrix();
+        }
+
+        @Override
+        protected void cleanup(ComplexMatrix matrix) {
+            matrix._values = null;
+        }
+    };
+
+    /**
+     * Holds the interleaved elements (row-major).
+     */
+    double[] _values;
+
+    /**
+     * Holds the index of the real part of the element <code>[0,0]</code>.
+     */
+    int _offset;
+
+    /**
+     * Holds the number of rows.
+     */
+    int _m;
+
+    /**
+     * Holds the number of columns.
+     */
+    int _n;
+
+    /**
+     * Holds the leading dimension (distance between consecutive rows).
+     */
+    int _ld;
+
+    /**
+     * Holds the transposed view of this matrix.
+     */
+    private final TransposedView _transposedView = new TransposedView(false);
+
+    /**
+     * Holds the conjugate transposed view of this matrix.
+     */
+    private final TransposedView _conjugateTransposedView = new TransposedView(true);
+
+    /**
+     * Creates a matrix of specified capacity (in <code>double</code>).
+     */
+    private ComplexMatrix(int capacity) {
+        _values = new double[capacity];
+    }
+
+    /**
+     * Creates a matrix view (buffer set by the caller).
+     */
+    private ComplexMatrix() {
+    }
+
+    /**
+     * Returns a m-by-n matrix view over the specified buffer.
+     *
+     * @param values the buffer (shared).
+     * @param offset the index of the real part of the element <code>[0,0]</code>.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param ld the distance between consecutive rows.
+     * @return the corresponding view.
+     */
+    static ComplexMatrix viewOf(double[] values, int offset, int m, int n, int ld) {
+        ComplexMatrix M = VIEW_FACTORY.object();
+        M._values = values;
+        M._offset = offset;
+        M._m = m;
+        M._n = n;
+        M._ld = ld;
+        return M;
+    }
+
+    /**
+     * Returns a new m-by-n matrix whose elements are not initialized.
+     *
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @return a contiguous matrix with <code>ld == 2 * n</code>.
+     */
+    static ComplexMatrix newInstance(int m, int n) {
+        ComplexMatrix M = FACTORY.array(2 * m * n);
+        M._offset = 0;
+        M._m = m;
+        M._n = n;
+        M._ld = 2 * n;
+        return M;
+    }
+
+    // See parent static method.
+    public static ComplexMatrix valueOfList(List<? extends Vector<Complex>> rows) {
+        final int m = rows.size();
+        final int n = rows.get(0).getDimension();
+        ComplexMatrix M = ComplexMatrix.newInstance(m, n);
+        for (int i = 0; i < m; i++) {
+            Vector<Complex> row = rows.get(i);
+            if (row.getDimension() != n)
+                throw new DimensionException();
+            M.setRow(i, ComplexVector.valueOfVector(row));
+        }
+        return M;
+    }
+
+    // See parent static method.
+    public static ComplexMatrix valueOfMatrix(Matrix<Complex> that) {
+        if (that instanceof ComplexMatrix)
+            return (ComplexMatrix) that;
+        final int m = that.getNumberOfRows();
+        final int n = that.getNumberOfColumns();
+        ComplexMatrix M = ComplexMatrix.newInstance(m, n);
+        for (int i = 0; i < m; i++) {
+            M.setRow(i, ComplexVector.valueOfVector(that.getRow(i)));
+        }
+        return M;
+    }
+
+    // See parent static method.
+    public static ComplexMatrix valueOf(Complex[][] elements) {
+        final int m = elements.length;
+        final int n = elements[0].length;
+        ComplexMatrix M = ComplexMatrix.newInstance(m, n);
+        for (int i = 0; i < m; i++) {
+            if (elements[i].length != n)
+                throw new DimensionException();
+            for (int j = 0, k = i * M._ld; j < n; j++, k += 2) {
+                M._values[k] = elements[i][j].getReal();
+                M._values[k + 1] = elements[i][j].getImaginary();
+            }
+        }
+        return M;
+    }
+
+    /**
+     * Returns a m-by-n matrix holding the specified interleaved values in
+     * row-major order (the values are copied).
+     *
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param values the interleaved values, <code>values[2 * (i * n + j)]</code>
+     *        and <code>values[2 * (i * n + j) + 1]</code> being the real
+     *        and imaginary parts of the element at <code>[i,j]</code>.
+     * @return the corresponding matrix.
+     * @throws DimensionException if <code>values.length != 2 * m * n</code>
+     */
+    public static ComplexMatrix valueOf(int m, int n, double... values) {
+        if (values.length != 2 * m * n)
+            throw new DimensionException(values.length + " values for a "
+                    + m + "x" + n + " complex matrix");
+        ComplexMatrix M = ComplexMatrix.newInstance(m, n);
+        System.arraycopy(values, 0, M._values, 0, 2 * m * n);
+        return M;
+    }
+
+    // See parent static method.
+    public static ComplexMatrix valueOfVector(Vector<Complex>... rows) {
+        return ComplexMatrix.valueOfList(Arrays.asList(rows));
+    }
+
+    /**
+     * Returns the real part of a single element of this matrix (fast).
+     *
+     * @param  i the row index.
+     * @param  j the column index.
+     * @return <code>get(i, j).getReal()</code>.
+     * @throws IndexOutOfBoundsException <code>
+     *         ((i &lt; 0) || (i &gt;= m)) || ((j &lt; 0) || (j &gt;= n))</code>
+     */
+    public double getRealValue(int i, int j) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        return _values[_offset + i * _ld + 2 * j];
+    }
+
+    /**
+     * Returns the imaginary part of a single element of this matrix (fast).
+     *
+     * @param  i the row index.
+     * @param  j the column index.
+     * @return <code>get(i, j).getImaginary()</code>.
+     * @throws IndexOutOfBoundsException <code>
+     *         ((i &lt; 0) || (i &gt;= m)) || ((j &lt; 0) || (j &gt;= n))</code>
+     */
+    public double getImaginaryValue(int i, int j) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        return _values[_offset + i * _ld + 2 * j + 1];
+    }
+
+    @Override
+    public int getNumberOfRows() {
+        return _m;
+    }
+
+    @Override
+    public int getNumberOfColumns() {
+        return _n;
+    }
+
+    @Override
+    public Complex get(int i, int j) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        final int k = _offset + i * _ld + 2 * j;
+        return Complex.valueOf(_values[k], _values[k + 1]);
+    }
+
+    @Override
+    void set(int i, int j, Complex e) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        final int k = _offset + i * _ld + 2 * j;
+        _values[k] = e.getReal();
+        _values[k + 1] = e.getImaginary();
+    }
+
+    @Override
+    public ComplexVector getRow(int i) {
+        if ((i < 0) || (i >= _m))
+            throw new IndexOutOfBoundsException();
+        return ComplexVector.viewOf(_values, _offset + i * _ld, 2, _n);
+    }
+
+    @Override
+    public ComplexVector getColumn(int j) {
+        if ((j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        return ComplexVector.viewOf(_values, _offset + 2 * j, _ld, _m);
+    }
+
+    @Override
+    public ComplexVector getDiagonal() {
+        return ComplexVector.viewOf(_values, _offset, _ld + 2, MathLib.min(_m, _n));
+    }
+
+    /**
+     * Returns the sub-matrix formed by the specified rows and columns.
+     * If the columns are contiguous and the rows equally spaced, the
+     * sub-matrix is a {@link ComplexMatrix} sharing this matrix buffer;
+     * otherwise it is a view reading through this matrix.
+     *
+     * @param  rows the row indices.
+     * @param  columns the column indices.
+     * @return the corresponding sub-matrix view.
+     * @throws IndexOutOfBoundsException if any of the indices is outside
+     *         this matrix.
+     */
+    @Override
+    public DenseMatrix<Complex> getSubMatrix(List<Index> rows, List<Index> columns) {
+        final int[] r = Matrix.indicesOf(rows, _m);
+        final int[] c = Matrix.indicesOf(columns, _n);
+        if ((r.length == 0) || (c.length == 0))
+            return ComplexMatrix.newInstance(r.length, c.length);
+        boolean strided = (r.length == 1) || (r[1] > r[0]);
+        for (int i = 2; strided && (i < r.length); i++) {
+            strided = (r[i] - r[i - 1] == r[1] - r[0]);
+        }
+        for (int j = 1; strided && (j < c.length); j++) {
+            strided = (c[j] == c[0] + j);
+        }
+        if (!strided)
+            return DenseSubMatrix.valueOf(this, r, c);
+        final int step = (r.length == 1) ? 1 : r[1] - r[0];
+        return ComplexMatrix.viewOf(_values, _offset + r[0] * _ld + 2 * c[0],
+                r.length, c.length, _ld * step);
+    }
+
+    /**
+     * Returns the sub-matrix formed by the elements in the specified ranges
+     * of rows and columns; the sub-matrix shares this matrix buffer.
+     *
+     * @param  fromRow the first row (inclusive).
+     * @param  toRow the last row (exclusive).
+     * @param  fromColumn the first column (inclusive).
+     * @param  toColumn the last column (exclusive).
+     * @return the corresponding view.
+     * @throws IndexOutOfBoundsException if any of the ranges is outside
+     *         this matrix.
+     */
+    @Override
+    public ComplexMatrix getSubMatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        if ((fromRow < 0) || (toRow > _m) || (fromRow > toRow) || (fromColumn < 0)
+                || (toColumn > _n) || (fromColumn > toColumn))
+            throw new IndexOutOfBoundsException();
+        return ComplexMatrix.viewOf(_values, _offset + fromRow * _ld + 2 * fromColumn,
+                toRow - fromRow, toColumn - fromColumn, _ld);
+    }
+
+    @Override
+    public ComplexMatrix opposite() {
+        return times(-1.0, 0.0);
+    }
+
+    @Override
+    public ComplexMatrix plus(Matrix<Complex> that) {
+        return ComplexMatrix.axpy(1.0, ComplexMatrix.valueOfMatrix(that), this,
+                ComplexMatrix.newInstance(_m, _n));
+    }
+
+    @Override
+    public ComplexMatrix minus(Matrix<Complex> that) {
+        return ComplexMatrix.axpy(-1.0, ComplexMatrix.valueOfMatrix(that), this,
+                ComplexMatrix.newInstance(_m, _n));
+    }
+
+    @Override
+    public void plusInPlace(Matrix<Complex> that) {
+        ComplexMatrix.axpy(1.0, ComplexMatrix.valueOfMatrix(that), this, this);
+    }
+
+    @Override
+    public void axpy(Complex a, Matrix<Complex> x) {
+        ComplexMatrix X = ComplexMatrix.valueOfMatrix(x);
+        if ((X._m != _m) || (X._n != _n))
+            throw new DimensionException();
+        for (int i = 0; i < _m; i++) {
+            Float64Kernels.axpyComplex(_n, a.getReal(), a.getImaginary(),
+                    X._values, X._offset + i * X._ld, 2, _values, _offset + i * _ld, 2);
+        }
+    }
+
+    // Sets out to a · x + y (out may be x or y).
+    private static ComplexMatrix axpy(double a, ComplexMatrix x, ComplexMatrix y,
+            ComplexMatrix out) {
+        final int m = y._m;
+        final int n = y._n;
+        if ((x._m != m) || (x._n != n) || (out._m != m) || (out._n != n))
+            throw new DimensionException();
+        for (int i = 0; i < m; i++) {
+            Float64Kernels.axpy(2 * n, a, x._values, x._offset + i * x._ld, 1,
+                    y._values, y._offset + i * y._ld, 1, out._values, out._offset + i * out._ld);
+        }
+        return out;
+    }
+
+    @Override
+    public ComplexMatrix times(Complex k) {
+        return times(k.getReal(), k.getImaginary());
+    }
+
+    /**
+     * Equivalent to <code>this.times(Complex.valueOf(re, im))</code>
+     *
+     * @param re the real part of the coefficient.
+     * @param im the imaginary part of the coefficient.
+     * @return <code>this * (re + im·i)</code>
+     */
+    public ComplexMatrix times(double re, double im) {
+        ComplexMatrix M = ComplexMatrix.newInstance(_m, _n);
+        for (int i = 0; i < _m; i++) {
+            Float64Kernels.scaleComplex(_n, re, im, _values, _offset + i * _ld, 2,
+                    M._values, i * M._ld, 2);
+        }
+        return M;
+    }
+
+    @Override
+    public void timesInPlace(Complex k) {
+        for (int i = 0; i < _m; i++) {
+            Float64Kernels.scaleComplex(_n, k.getReal(), k.getImaginary(),
+                    _values, _offset + i * _ld, 2, _values, _offset + i * _ld, 2);
+        }
+    }
+
+    @Override
+    public ComplexMatrix times(Matrix<Complex> that) {
+        return ComplexMatrix.product(this, false, false, that);
+    }
+
+    // Returns op(A) · that, op(A) being A, its transpose or conjugate transpose.
+    private static ComplexMatrix product(ComplexMatrix A, boolean transposed, boolean conjugate,
+            Matrix<Complex> that) {
+        final int aRs = transposed ? 2 : A._ld;
+        final int aCs = transposed ? A._ld : 2;
+        final int m = transposed ? A._n : A._m;
+        final int k = transposed ? A._m : A._n;
+        if (k != that.getNumberOfRows())
+            throw new DimensionException();
+        final int p = that.getNumberOfColumns();
+        ComplexMatrix B;
+        int bRs, bCs;
+        boolean bConj;
+        if (that instanceof TransposedView) { // Reads the transposed buffer.
+            TransposedView T = (TransposedView) that;
+            B = T.getMatrix();
+            bRs = 2;
+            bCs = B._ld;
+            bConj = T._conjugate;
+        } else {
+            B = ComplexMatrix.valueOfMatrix(that);
+            bRs = B._ld;
+            bCs = 2;
+            bConj = false;
+        }
+        ComplexMatrix C = ComplexMatrix.newInstance(m, p);
+        Arrays.fill(C._values, 0, 2 * m * p, 0.0);
+        Float64Kernels.gemmComplex(m, p, k, 1.0, A._values, A._offset, aRs, aCs, conjugate,
+                B._values, B._offset, bRs, bCs, bConj, C._values, 0, C._ld);
+        return C;
+    }
+
+    @Override
+    public ComplexVector times(Vector<Complex> v) {
+        ComplexVector V = ComplexVector.valueOfVector(v);
+        if (V._dimension != _n)
+            throw new DimensionException();
+        ComplexVector y = ComplexVector.newInstance(_m);
+        Arrays.fill(y._values, 0, 2 * _m, 0.0);
+        Float64Kernels.gemmComplex(_m, 1, _n, 1.0, _values, _offset, _ld, 2, false,
+                V._values, V._offset, V._stride, 0, false, y._values, 0, 2);
+        return y;
+    }
+
+    /**
+     * Returns the inverse of this matrix (must be square).
+     *
+     * @return <code>ComplexLUDecomposition.valueOf(this).inverse()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public ComplexMatrix inverse() {
+        return ComplexLUDecomposition.valueOf(this).inverse();
+    }
+
+    /**
+     * Returns the determinant of this matrix.
+     *
+     * @return <code>ComplexLUDecomposition.valueOf(this).determinant()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Complex determinant() {
+        return ComplexLUDecomposition.valueOf(this).determinant();
+    }
+
+    /**
+     * Solves this matrix for the specified matrix.
+     *
+     * @return <code>ComplexLUDecomposition.valueOf(this).solve(y)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public ComplexMatrix solve(Matrix<Complex> y) {
+        return ComplexLUDecomposition.valueOf(this).solve(y);
+    }
+
+    /**
+     * Solves this matrix for the specified vector.
+     *
+     * @return <code>ComplexLUDecomposition.valueOf(this).solve(y)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public ComplexVector solve(Vector<Complex> y) {
+        return ComplexLUDecomposition.valueOf(this).solve(y);
+    }
+
+    /**
+     * Returns the LU decomposition of this matrix, to be reused for
+     * solving this matrix with many right-hand sides.
+     *
+     * @return <code>ComplexLUDecomposition.valueOf(this)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public ComplexLUDecomposition factorize() {
+        return ComplexLUDecomposition.valueOf(this);
+    }
+
+    /**
+     * Returns the inverse or pseudo-inverse if this matrix if not square
+     * (the normal equations are formed with the conjugate transpose).
+     *
+     * @return the inverse or pseudo-inverse of this matrix.
+     */
+    @Override
+    public ComplexMatrix pseudoInverse() {
+        if (isSquare())
+            return this.inverse();
+        if (_m < _n) // Right inverse A^H·(A·A^H)⁻¹
+            return ComplexMatrix.product(this, true, true,
+                    times(_conjugateTransposedView).inverse());
+        return ComplexMatrix.product(this, true, true, this).inverse().times(_conjugateTransposedView);
+    }
+
+    @Override
+    public DenseMatrix<Complex> transpose() {
+        return _transposedView;
+    }
+
+    /**
+     * Returns the conjugate transpose (Hermitian transpose) of this matrix.
+     * The matrix returned is a view over this matrix elements.
+     *
+     * @return <code>A<sup>H</sup></code>
+     */
+    public DenseMatrix<Complex> conjugateTranspose() {
+        return _conjugateTransposedView;
+    }
+
+    /**
+     * Returns the conjugate of this matrix.
+     *
+     * @return the matrix whose elements are the conjugates of this matrix
+     *         elements.
+     */
+    public ComplexMatrix conjugate() {
+        ComplexMatrix M = copy();
+        for (int k = 1, n = 2 * _m * _n; k < n; k += 2) {
+            M._values[k] = -M._values[k];
+        }
+        return M;
+    }
+
+    @Override
+    public ComplexMatrix copy() {
+        ComplexMatrix M = ComplexMatrix.newInstance(_m, _n);
+        for (int i = 0; i < _m; i++) {
+            System.arraycopy(_values, _offset + i * _ld, M._values, i * M._ld, 2 * _n);
+        }
+        return M;
+    }
+
+    // For internal use only (copies the specified vector into row i).
+    private void setRow(int i, ComplexVector row) {
+        for (int j = 0, k = _offset + i * _ld, l = row._offset; j < _n; j++, k += 2, l += row._stride) {
+            _values[k] = row._values[l];
+            _values[k + 1] = row._values[l + 1];
+        }
+    }
+
+    /**
+     * Represents a transposed (or conjugate transposed) view of the outer
+     * matrix.
+     */
+    private class TransposedView extends DenseMatrix<Complex> {
+
+        /**
+         * Indicates if the elements are conjugated.
+         */
+        final boolean _conjugate;
+
+        TransposedView(boolean conjugate) {
+            _conjugate = conjugate;
+        }
+
+        // Returns the outer matrix.
+        ComplexMatrix getMatrix() {
+            return ComplexMatrix.this;
+        }
+
+        // Returns the same view of the specified matrix.
+        private DenseMatrix<Complex> viewOf(ComplexMatrix that) {
+            return _conjugate ? that._conjugateTransposedView : that._transposedView;
+        }
+
+        @Override
+        public int getNumberOfRows() {
+            return ComplexMatrix.this._n;
+        }
+
+        @Override
+        public int getNumberOfColumns() {
+            return ComplexMatrix.this._m;
+        }
+
+        @Override
+        public Complex get(int i, int j) {
+            Complex e = ComplexMatrix.this.get(j, i);
+            return _conjugate ? e.conjugate() : e;
+        }
+
+        @Override
+        void set(int i, int j, Complex e) {
+            ComplexMatrix.this.set(j, i, _conjugate ? e.conjugate() : e);
+        }
+
+        @Override
+        public ComplexVector getRow(int i) {
+            ComplexVector V = ComplexMatrix.this.getColumn(i);
+            return _conjugate ? V.conjugate() : V;
+        }
+
+        @Override
+        public ComplexVector getColumn(int j) {
+            ComplexVector V = ComplexMatrix.this.getRow(j);
+            return _conjugate ? V.conjugate() : V;
+        }
+
+        @Override
+        public ComplexVector getDiagonal() {
+            ComplexVector V = ComplexMatrix.this.getDiagonal();
+            return _conjugate ? V.conjugate() : V;
+        }
+
+        @Override
+        public DenseMatrix<Complex> getSubMatrix(List<Index> rows, List<Index> columns) {
+            return DenseSubMatrix.valueOf(this, rows, columns);
+        }
+
+        @Override
+        public DenseMatrix<Complex> opposite() {
+            return viewOf(ComplexMatrix.this.opposite());
+        }
+
+        @Override
+        public ComplexMatrix plus(Matrix<Complex> that) {
+            return copy().plus(that);
+        }
+
+        @Override
+        public DenseMatrix<Complex> times(Complex k) {
+            return viewOf(ComplexMatrix.this.times(_conjugate ? k.conjugate() : k));
+        }
+
+        @Override
+        public void timesInPlace(Complex k) {
+            ComplexMatrix.this.timesInPlace(_conjugate ? k.conjugate() : k);
+        }
+
+        @Override
+        public ComplexMatrix times(Matrix<Complex> that) {
+            return ComplexMatrix.product(ComplexMatrix.this, true, _conjugate, that);
+        }
+
+        @Override
+        public ComplexVector times(Vector<Complex> v) {
+            final ComplexMatrix A = ComplexMatrix.this;
+            ComplexVector V = ComplexVector.valueOfVector(v);
+            if (V._dimension != A._m)
+                throw new DimensionException();
+            ComplexVector y = ComplexVector.newInstance(A._n);
+            Arrays.fill(y._values, 0, 2 * A._n, 0.0);
+            Float64Kernels.gemmComplex(A._n, 1, A._m, 1.0, A._values, A._offset, 2, A._ld,
+                    _conjugate, V._values, V._offset, V._stride, 0, false, y._values, 0, 2);
+            return y;
+        }
+
+        @Override
+        public DenseMatrix<Complex> inverse() {
+            return viewOf(ComplexMatrix.this.inverse());
+        }
+
+        @Override
+        public Complex determinant() {
+            Complex det = ComplexMatrix.this.determinant();
+            return _conjugate ? det.conjugate() : det;
+        }
+
+        @Override
+        public ComplexLUDecomposition factorize() {
+            return ComplexLUDecomposition.valueOf(this);
+        }
+
+        @Override
+        public DenseMatrix<Complex> transpose() {
+            return _conjugate ? ComplexMatrix.this.conjugate() : ComplexMatrix.this;
+        }
+
+        @Override
+        public ComplexMatrix copy() {
+            final ComplexMatrix A = ComplexMatrix.this;
+            final double sign = _conjugate ? -1.0 : 1.0;
+            ComplexMatrix M = ComplexMatrix.newInstance(A._n, A._m);
+            for (int i = 0; i < A._m; i++) {
+                for (int j = 0, k = A._offset + i * A._ld; j < A._n; j++, k += 2) {
+                    M._values[j * M._ld + 2 * i] = A._values[k];
+                    M._values[j * M._ld + 2 * i + 1] = sign * A._values[k + 1];
+                }
+            }
+            return M;
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+}
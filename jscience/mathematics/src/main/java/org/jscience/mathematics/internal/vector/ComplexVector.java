@@ -0,0 +1,410 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.List;
+import javolution.context.ArrayFactory;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import javolution.util.FastTable;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Complex;
+import org.jscience.mathematics.structure.VectorSpaceNormed;
+
+/**
+ * <p> This class represents an optimized {@link DenseVector}
+ *     implementation for complex elements.</p>
+ *
+ * <p> The elements are held interleaved in a <code>double[]</code> buffer
+ *     (the real part of each element followed by its imaginary part),
+ *     starting at a given offset and separated by a constant stride (both
+ *     counted in <code>double</code>, the stride of contiguous vectors
+ *     being <code>2</code>). No {@link Complex} instance is created by
+ *     arithmetic operations. Vectors returned by {@link ComplexMatrix#getRow}
+ *     or {@link ComplexMatrix#getColumn} are views sharing the matrix
+ *     buffer (no copy is performed).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public class ComplexVector extends DenseVector<Complex> implements
+        VectorSpaceNormed<Vector<Complex>, Complex> {
+
+    /**
+     * Holds factory for vectors with variable size arrays.
+     */
+    static final ArrayFactory<ComplexVector> FACTORY = new ArrayFactory<ComplexVector>() {
+
+        @Override
+        protected ComplexVector create(int capacity) {
+            return new ComplexVector(capacity);
+        }
+    };
+
+    /**
+     * Holds factory for vectors viewing an external buffer.
+     */
+    static final ObjectFactory<ComplexVector> VIEW_FACTORY = new ObjectFactory<ComplexVector>() {
+
+        @Override
+        protected ComplexVector create() {
+            return new ComplexVector();
+        }
+
+        @Override
+        protected void cleanup(ComplexVector vector) {
+            vector._values = null;
+        }
+    };
+
+    /**
+     * Holds the dimension.
+     */
+    int _dimension;
+
+    /**
+     * Holds the interleaved values (possibly shared with other vectors or
+     * matrices).
+     */
+    double[] _values;
+
+    /**
+     * Holds the index of the real part of the first element in the buffer.
+     */
+    int _offset;
+
+    /**
+     * Holds the distance between two consecutive elements in the buffer.
+     */
+    int _stride = 2;
+
+    /**
+     * Creates a vector of specified capacity (in <code>double</code>).
+     */
+    private ComplexVector(int capacity) {
+        _values = new double[capacity];
+    }
+
+    /**
+     * Creates a vector view (buffer set by the caller).
+     */
+    private ComplexVector() {
+    }
+
+    /**
+     * Returns a new contiguous vector whose elements are not initialized.
+     *
+     * @param n the dimension.
+     * @return a vector with <code>stride == 2</code>.
+     */
+    static ComplexVector newInstance(int n) {
+        ComplexVector V = FACTORY.array(2 * n);
+        V._dimension = n;
+        return V;
+    }
+
+    /**
+     * Returns a new vector holding the specified real and imaginary parts.
+     *
+     * @param real the real parts of the elements.
+     * @param imaginary the imaginary parts of the elements.
+     * @return the vector having the specified elements.
+     * @throws DimensionException if <code>real.length != imaginary.length</code>
+     */
+    public static ComplexVector valueOf(double[] real, double[] imaginary) {
+        final int n = real.length;
+        if (imaginary.length != n)
+            throw new DimensionException();
+        ComplexVector V = ComplexVector.newInstance(n);
+        for (int i = 0; i < n; i++) {
+            V._values[2 * i] = real[i];
+            V._values[2 * i + 1] = imaginary[i];
+        }
+        return V;
+    }
+
+    /**
+     * Returns a new vector holding the specified complex elements.
+     *
+     * @param elements the vector elements.
+     * @return the vector having the specified elements.
+     */
+    public static ComplexVector valueOf(Complex... elements) {
+        final int n = elements.length;
+        ComplexVector V = ComplexVector.newInstance(n);
+        for (int i = 0; i < n; i++) {
+            V._values[2 * i] = elements[i].getReal();
+            V._values[2 * i + 1] = elements[i].getImaginary();
+        }
+        return V;
+    }
+
+    /**
+     * Returns a {@link ComplexVector} instance equivalent to the
+     * specified vector.
+     *
+     * @param that the vector to convert.
+     * @return <code>that</code> or new equivalent ComplexVector.
+     */
+    public static ComplexVector valueOfVector(Vector<Complex> that) {
+        if (that instanceof ComplexVector)
+            return (ComplexVector) that;
+        final int n = that.getDimension();
+        ComplexVector V = ComplexVector.newInstance(n);
+        for (int i = 0; i < n; i++) {
+            Complex e = that.get(i);
+            V._values[2 * i] = e.getReal();
+            V._values[2 * i + 1] = e.getImaginary();
+        }
+        return V;
+    }
+
+    /**
+     * Returns a new vector holding the elements from the specified
+     * collection.
+     *
+     * @param elements the collection of complex numbers.
+     * @return the vector having the specified elements.
+     */
+    public static ComplexVector valueOfList(List<Complex> elements) {
+        final int n = elements.size();
+        ComplexVector V = ComplexVector.newInstance(n);
+        for (int i = 0; i < n; i++) {
+            Complex e = elements.get(i);
+            V._values[2 * i] = e.getReal();
+            V._values[2 * i + 1] = e.getImaginary();
+        }
+        return V;
+    }
+
+    /**
+     * Returns a vector view over the specified buffer (the values are not
+     * copied).
+     *
+     * @param values the buffer holding the interleaved elements.
+     * @param offset the index of the real part of the first element.
+     * @param stride the distance between consecutive elements.
+     * @param dimension the vector dimension.
+     * @return the corresponding vector view.
+     */
+    static ComplexVector viewOf(double[] values, int offset, int stride, int dimension) {
+        ComplexVector V = VIEW_FACTORY.object();
+        V._values = values;
+        V._offset = offset;
+        V._stride = stride;
+        V._dimension = dimension;
+        return V;
+    }
+
+    /**
+     * Returns the real part of a single element of this vector (fast).
+     *
+     * @param  i the element index.
+     * @return <code>get(i).getReal()</code>.
+     * @throws IndexOutOfBoundsException <code>(i &lt; 0) || (i &gt;= dimension())</code>
+     */
+    public double getRealValue(int i) {
+        if ((i < 0) || (i >= _dimension))
+            throw new IndexOutOfBoundsException();
+        return _values[_offset + i * _stride];
+    }
+
+    /**
+     * Returns the imaginary part of a single element of this vector (fast).
+     *
+     * @param  i the element index.
+     * @return <code>get(i).getImaginary()</code>.
+     * @throws IndexOutOfBoundsException <code>(i &lt; 0) || (i &gt;= dimension())</code>
+     */
+    public double getImaginaryValue(int i) {
+        if ((i < 0) || (i >= _dimension))
+            throw new IndexOutOfBoundsException();
+        return _values[_offset + i * _stride + 1];
+    }
+
+    /**
+     * Returns the Euclidian norm of this vector (square root of the sum
+     * of the squared magnitudes of its elements).
+     *
+     * @return <code>sqrt(this · conjugate(this))</code> (real).
+     */
+    public Complex norm() {
+        return Complex.valueOf(normValue(), 0.0);
+    }
+
+    /**
+     * Returns the {@link #norm()} value of this vector.
+     *
+     * @return <code>this.norm().getReal()</code>.
+     */
+    public double normValue() {
+        return MathLib.sqrt(Float64Kernels.sumOfSquares(_dimension, _values, _offset, _stride)
+                + Float64Kernels.sumOfSquares(_dimension, _values, _offset + 1, _stride));
+    }
+
+    @Override
+    public List<Complex> asList() {
+        FastTable<Complex> list = FastTable.newInstance();
+        for (int i = 0, k = _offset; i < _dimension; i++, k += _stride) {
+            list.add(Complex.valueOf(_values[k], _values[k + 1]));
+        }
+        return list.unmodifiable();
+    }
+
+    @Override
+    public int getDimension() {
+        return _dimension;
+    }
+
+    @Override
+    public Complex get(int i) {
+        if ((i < 0) || (i >= _dimension))
+            throw new IndexOutOfBoundsException();
+        final int k = _offset + i * _stride;
+        return Complex.valueOf(_values[k], _values[k + 1]);
+    }
+
+    @Override
+    public ComplexVector getSubVector(List<Index> indices) {
+        final int n = indices.size();
+        ComplexVector V = ComplexVector.newInstance(n);
+        for (int i = 0; i < n; i++) {
+            final int k = _offset + indices.get(i).intValue() * _stride;
+            V._values[2 * i] = _values[k];
+            V._values[2 * i + 1] = _values[k + 1];
+        }
+        return V;
+    }
+
+    @Override
+    public ComplexVector opposite() {
+        return times(-1.0, 0.0);
+    }
+
+    @Override
+    public ComplexVector plus(Vector<Complex> that) {
+        return ComplexVector.axpy(1.0, ComplexVector.valueOfVector(that), this,
+                ComplexVector.newInstance(_dimension));
+    }
+
+    @Override
+    public ComplexVector minus(Vector<Complex> that) {
+        return ComplexVector.axpy(-1.0, ComplexVector.valueOfVector(that), this,
+                ComplexVector.newInstance(_dimension));
+    }
+
+    @Override
+    public ComplexVector times(Complex k) {
+        return times(k.getReal(), k.getImaginary());
+    }
+
+    /**
+     * Equivalent to <code>this.times(Complex.valueOf(re, im))</code>
+     *
+     * @param re the real part of the coefficient.
+     * @param im the imaginary part of the coefficient.
+     * @return <code>this * (re + im·i)</code>
+     */
+    public ComplexVector times(double re, double im) {
+        ComplexVector V = ComplexVector.newInstance(_dimension);
+        Float64Kernels.scaleComplex(_dimension, re, im, _values, _offset, _stride,
+                V._values, 0, 2);
+        return V;
+    }
+
+    @Override
+    public void plusInPlace(Vector<Complex> that) {
+        ComplexVector.axpy(1.0, ComplexVector.valueOfVector(that), this, this);
+    }
+
+    @Override
+    public void timesInPlace(Complex k) {
+        Float64Kernels.scaleComplex(_dimension, k.getReal(), k.getImaginary(),
+                _values, _offset, _stride, _values, _offset, _stride);
+    }
+
+    @Override
+    public void axpy(Complex a, Vector<Complex> x) {
+        ComplexVector X = ComplexVector.valueOfVector(x);
+        if (X._dimension != _dimension)
+            throw new DimensionException();
+        Float64Kernels.axpyComplex(_dimension, a.getReal(), a.getImaginary(),
+                X._values, X._offset, X._stride, _values, _offset, _stride);
+    }
+
+    // Sets out to a · x + y (out may be x or y).
+    private static ComplexVector axpy(double a, ComplexVector x, ComplexVector y,
+            ComplexVector out) {
+        final int n = y._dimension;
+        if ((x._dimension != n) || (out._dimension != n))
+            throw new DimensionException();
+        for (int i = 0, j = x._offset, k = y._offset, l = out._offset; i < n;
+                i++, j += x._stride, k += y._stride, l += out._stride) {
+            out._values[l] = y._values[k] + a * x._values[j];
+            out._values[l + 1] = y._values[k + 1] + a * x._values[j + 1];
+        }
+        return out;
+    }
+
+    /**
+     * Returns the dot product of this vector with the one specified
+     * (the elements are not conjugated).
+     *
+     * @param  that the vector multiplier.
+     * @return <code>this · that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    @Override
+    public Complex times(Vector<Complex> that) {
+        ComplexVector T = ComplexVector.valueOfVector(that);
+        if (T._dimension != _dimension)
+            throw new DimensionException();
+        double re = 0.0, im = 0.0;
+        for (int i = 0, j = _offset, k = T._offset; i < _dimension;
+                i++, j += _stride, k += T._stride) {
+            final double xr = _values[j], xi = _values[j + 1];
+            final double yr = T._values[k], yi = T._values[k + 1];
+            re += xr * yr - xi * yi;
+            im += xr * yi + xi * yr;
+        }
+        return Complex.valueOf(re, im);
+    }
+
+    /**
+     * Returns the conjugate of this vector.
+     *
+     * @return the vector whose elements are the conjugates of this vector
+     *         elements.
+     */
+    public ComplexVector conjugate() {
+        ComplexVector V = ComplexVector.newInstance(_dimension);
+        for (int i = 0, k = _offset; i < _dimension; i++, k += _stride) {
+            V._values[2 * i] = _values[k];
+            V._values[2 * i + 1] = -_values[k + 1];
+        }
+        return V;
+    }
+
+    @Override
+    public ComplexVector copy() {
+        ComplexVector V = ComplexVector.newInstance(_dimension);
+        if (_stride == 2) {
+            System.arraycopy(_values, _offset, V._values, 0, 2 * _dimension);
+        } else {
+            for (int i = 0, k = _offset; i < _dimension; i++, k += _stride) {
+                V._values[2 * i] = _values[k];
+                V._values[2 * i + 1] = _values[k + 1];
+            }
+        }
+        return V;
+    }
+
+    private static final long serialVersionUID = 1L;
+
+}
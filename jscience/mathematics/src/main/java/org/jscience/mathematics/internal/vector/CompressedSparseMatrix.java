@@ -0,0 +1,322 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javolution.util.Index;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents a sparse matrix whose non-zero elements are
+ *     stored in compressed form: by rows ({@link CSRMatrix},
+ *     {@link Float64CSRMatrix}) or by columns ({@link CSCMatrix},
+ *     {@link Float64CSCMatrix}).</p>
+ *
+ * <p> The elements of the major line <code>l</code> (row or column) are
+ *     located in the range <code>[pointers[l], pointers[l+1][</code>, their
+ *     minor index (column or row) being held by the <code>indices</code>
+ *     array in increasing order. The compressed form of a matrix by rows
+ *     is also the compressed form of its transpose by columns; transposed
+ *     matrices share their arrays (the matrices are immutable).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+abstract class CompressedSparseMatrix<F extends Field<F>> extends SparseMatrix<F> {
+
+    /**
+     * Holds the number of rows.
+     */
+    int _m;
+
+    /**
+     * Holds the number of columns.
+     */
+    int _n;
+
+    /**
+     * Holds the start of each major line (length: major dimension + 1).
+     */
+    int[] _pointers;
+
+    /**
+     * Holds the minor index of each element.
+     */
+    int[] _indices;
+
+    /**
+     * Default constructor.
+     */
+    CompressedSparseMatrix() {
+    }
+
+    /**
+     * Indicates if the elements are compressed by rows.
+     *
+     * @return <code>true</code> for CSR storage; <code>false</code> for CSC.
+     */
+    abstract boolean isRowCompressed();
+
+    /**
+     * Returns the element stored at the specified position.
+     *
+     * @param k the position of the element in the indices array.
+     * @return the corresponding element.
+     */
+    abstract F valueAt(int k);
+
+    /**
+     * Returns the element used for the elements not stored.
+     *
+     * @return the zero element.
+     */
+    abstract F getZero();
+
+    /**
+     * Returns the number of major lines (rows for CSR, columns for CSC).
+     *
+     * @return the major dimension.
+     */
+    final int getMajorDimension() {
+        return isRowCompressed() ? _m : _n;
+    }
+
+    /**
+     * Returns the number of elements stored (explicit zeros included).
+     *
+     * @return the number of non-zero elements.
+     */
+    public int getNumberOfNonZeros() {
+        return _pointers[getMajorDimension()];
+    }
+
+    /**
+     * Returns the position of the specified element in the indices array
+     * or <code>-1</code> if this element is not stored (binary search).
+     *
+     * @param major the major line index.
+     * @param minor the minor index.
+     * @return the position or <code>-1</code>
+     */
+    final int find(int major, int minor) {
+        int low = _pointers[major];
+        int high = _pointers[major + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = _indices[mid];
+            if (index < minor) {
+                low = mid + 1;
+            } else if (index > minor) {
+                high = mid - 1;
+            } else
+                return mid;
+        }
+        return -1;
+    }
+
+    @Override
+    public int getNumberOfRows() {
+        return _m;
+    }
+
+    @Override
+    public int getNumberOfColumns() {
+        return _n;
+    }
+
+    @Override
+    public F get(int i, int j) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        int k = isRowCompressed() ? find(i, j) : find(j, i);
+        return (k < 0) ? getZero() : valueAt(k);
+    }
+
+    @Override
+    public SparseVector<F> getRow(int i) {
+        if ((i < 0) || (i >= _m))
+            throw new IndexOutOfBoundsException();
+        return isRowCompressed() ? line(i, _n) : gather(i, _n);
+    }
+
+    @Override
+    public SparseVector<F> getColumn(int j) {
+        if ((j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        return isRowCompressed() ? gather(j, _m) : line(j, _m);
+    }
+
+    // Returns the specified major line (O(nnz of the line)).
+    private SparseVectorImpl<F> line(int major, int dimension) {
+        SparseVectorImpl<F> V = SparseVectorImpl.FACTORY.object();
+        V._dimension = dimension;
+        V._zero = getZero();
+        for (int k = _pointers[major], end = _pointers[major + 1]; k < end; k++) {
+            V._elements.put(Index.valueOf(_indices[k]), valueAt(k));
+        }
+        return V;
+    }
+
+    // Returns the specified minor line (binary search in each major line).
+    private SparseVectorImpl<F> gather(int minor, int dimension) {
+        SparseVectorImpl<F> V = SparseVectorImpl.FACTORY.object();
+        V._dimension = dimension;
+        V._zero = getZero();
+        for (int major = 0; major < dimension; major++) {
+            int k = find(major, minor);
+            if (k >= 0) {
+                V._elements.put(Index.valueOf(major), valueAt(k));
+            }
+        }
+        return V;
+    }
+
+    @Override
+    public SparseMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns) {
+        SparseMatrixImpl<F> M = SparseMatrixImpl.FACTORY.object();
+        for (int i = 0, m = rows.size(); i < m; i++) {
+            int row = rows.get(i).intValue();
+            if ((row < 0) || (row >= _m))
+                throw new IndexOutOfBoundsException();
+            SparseVectorImpl<F> V = isRowCompressed() ? line(row, _n) : gather(row, _n);
+            M._rows.add(V.getSubVector(columns));
+        }
+        return M;
+    }
+
+    @Override
+    public Matrix<F> plus(Matrix<F> that) {
+        return SparseMatrixImpl.valueOf(this).plus(that);
+    }
+
+    @Override
+    public Matrix<F> times(Matrix<F> that) {
+        return SparseMatrixImpl.valueOf(this).times(that);
+    }
+
+    /**
+     * Sets the structure of this matrix from the rows (or columns) of the
+     * specified matrix and returns the elements stored (the zero elements
+     * of dense lines are not stored).
+     *
+     * @param that the matrix to compress.
+     * @param byRows <code>true</code> to compress the rows of that matrix;
+     *        <code>false</code> to compress its columns.
+     * @return the elements in storage order.
+     */
+    final Object[] compress(Matrix<F> that, boolean byRows) {
+        _m = that.getNumberOfRows();
+        _n = that.getNumberOfColumns();
+        final int majors = byRows ? _m : _n;
+        final int minors = byRows ? _n : _m;
+        _pointers = new int[majors + 1];
+        int[] indices = new int[majors + 16];
+        Object[] values = new Object[indices.length];
+        long[] keys = new long[16];
+        Object[] tmp = new Object[16];
+        int nnz = 0;
+        for (int major = 0; major < majors; major++) {
+            _pointers[major] = nnz;
+            Vector<F> line = byRows ? that.getRow(major) : that.getColumn(major);
+            if (line instanceof SparseVector) { // Sorts the map entries.
+                Map<Index, F> elements = ((SparseVector<F>) line).getElements();
+                final int count = elements.size();
+                if (nnz + count > indices.length) {
+                    int capacity = Math.max(indices.length * 2, nnz + count);
+                    indices = resize(indices, capacity);
+                    values = resize(values, capacity);
+                }
+                if (keys.length < count) {
+                    keys = new long[count * 2];
+                    tmp = new Object[count * 2];
+                }
+                int c = 0;
+                for (Map.Entry<Index, F> e : elements.entrySet()) {
+                    keys[c] = ((long) e.getKey().intValue() << 32) | c;
+                    tmp[c++] = e.getValue();
+                }
+                Arrays.sort(keys, 0, count);
+                for (int q = 0; q < count; q++) {
+                    indices[nnz] = (int) (keys[q] >>> 32);
+                    values[nnz++] = tmp[(int) keys[q]];
+                }
+            } else {
+                for (int minor = 0; minor < minors; minor++) {
+                    F e = line.get(minor);
+                    if (e.equals(e.plus(e)))
+                        continue; // Zero.
+                    if (nnz == indices.length) {
+                        indices = resize(indices, nnz * 2);
+                        values = resize(values, nnz * 2);
+                    }
+                    indices[nnz] = minor;
+                    values[nnz++] = e;
+                }
+            }
+        }
+        _pointers[majors] = nnz;
+        _indices = resize(indices, nnz);
+        return resize(values, nnz);
+    }
+
+    // Returns a copy of the specified array with the specified length.
+    static int[] resize(int[] array, int length) {
+        int[] tmp = new int[length];
+        System.arraycopy(array, 0, tmp, 0, Math.min(array.length, length));
+        return tmp;
+    }
+
+    // Returns a copy of the specified array with the specified length.
+    static Object[] resize(Object[] array, int length) {
+        Object[] tmp = new Object[length];
+        System.arraycopy(array, 0, tmp, 0, Math.min(array.length, length));
+        return tmp;
+    }
+
+    /**
+     * Sets the structure of this matrix to the compressed form of the
+     * specified matrix along its other dimension (counting sort in
+     * <code>O(nnz)</code>) and returns the permutation of the elements.
+     *
+     * @param that the matrix whose structure is transposed.
+     * @return <code>permutation[k]</code> the position in that matrix of
+     *         the element at position <code>k</code> in this matrix.
+     */
+    final int[] transposeStructure(CompressedSparseMatrix<F> that) {
+        final int majors = that.getMajorDimension();
+        final int minors = that.isRowCompressed() ? that._n : that._m;
+        final int nnz = that.getNumberOfNonZeros();
+        final int[] pointers = new int[minors + 1];
+        final int[] indices = new int[nnz];
+        final int[] permutation = new int[nnz];
+        for (int k = 0; k < nnz; k++) { // Counts.
+            pointers[that._indices[k] + 1]++;
+        }
+        for (int l = 0; l < minors; l++) {
+            pointers[l + 1] += pointers[l];
+        }
+        final int[] next = resize(pointers, minors);
+        for (int major = 0; major < majors; major++) {
+            for (int k = that._pointers[major], end = that._pointers[major + 1]; k < end; k++) {
+                int position = next[that._indices[k]]++;
+                indices[position] = major;
+                permutation[position] = k;
+            }
+        }
+        _m = that._m;
+        _n = that._n;
+        _pointers = pointers;
+        _indices = indices;
+        return permutation;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
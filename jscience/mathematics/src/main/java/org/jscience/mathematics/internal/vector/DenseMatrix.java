@@ -10,6 +10,7 @@ package org.jscience.mathematics.internal.vector;
 
 import java.util.List;
 
+import javolution.lang.Configurable;
 import javolution.util.FastTable;
 import javolution.util.Index;
 import javolution.xml.XMLFormat;
@@ -79,6 +80,22 @@ public abstract class DenseMatrix<F extends Field<F>> extends Matrix<F> {
         }
     };
 
+    /**
+     * Holds the dimension at or above which the product of generic dense
+     * matrices is performed using the Strassen-Winograd algorithm
+     * (default <code>64</code>). This algorithm trades element multiplications
+     * (<code>O(n<sup>2.81</sup>)</code> instead of <code>O(n³)</code>) for
+     * additions; it is only used when multiplying elements is much more
+     * expensive than adding them (e.g. rational numbers, large integers,
+     * high precision reals). Matrices of {@link
+     * org.jscience.mathematics.number.Float64 Float64} elements are
+     * multiplied through {@link Float64Matrix} instead.
+     * The value {@link Integer#MAX_VALUE} disables the algorithm.
+     */
+    public static final Configurable<Integer> STRASSEN_THRESHOLD = new Configurable<Integer>(
+            64) {
+    };
+
     /**
      * Returns a dense matrix holding the row vectors from the specified
      * collection (column vectors if {@link #transpose transposed}).
@@ -144,6 +161,11 @@ public abstract class DenseMatrix<F extends Field<F>> extends Matrix<F> {
     @Override
     public abstract DenseMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns);
 
+    @Override
+    public DenseMatrix<F> getSubMatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        return (DenseMatrix<F>) super.getSubMatrix(fromRow, toRow, fromColumn, toColumn);
+    }
+
     @Override
     public abstract DenseMatrix<F> opposite();
 
@@ -158,45 +180,93 @@ public abstract class DenseMatrix<F extends Field<F>> extends Matrix<F> {
     @Override
     public abstract DenseMatrix<F> times(F k);
 
+    /**
+     * Adds the specified matrix to this matrix (in place, no matrix is
+     * allocated). Views sharing the elements of this matrix (rows, columns,
+     * sub-matrices) see the update; the matrix added should not be an
+     * other view over the elements of this matrix (e.g. its transpose).
+     * The default implementation sets the elements of this matrix to
+     * <code>this.plus(that)</code>.
+     *
+     * @param that the matrix to be added.
+     * @throws DimensionException if the dimensions are different.
+     * @throws UnsupportedOperationException if this matrix is read-only
+     *         (e.g. a view over a structured matrix).
+     */
+    public void plusInPlace(Matrix<F> that) {
+        setAll(this.plus(that));
+    }
+
+    /**
+     * Multiplies this matrix by the specified factor (in place).
+     * The default implementation sets the elements of this matrix to
+     * <code>this.times(k)</code>.
+     *
+     * @param k the coefficient multiplier.
+     * @throws UnsupportedOperationException if this matrix is read-only.
+     */
+    public void timesInPlace(F k) {
+        setAll(this.times(k));
+    }
+
+    /**
+     * Adds the specified matrix multiplied by the specified factor to this
+     * matrix (in place): <code>this = a · x + this</code>.
+     * The default implementation sets the elements of this matrix to
+     * <code>this.plus(x.times(a))</code>.
+     *
+     * @param a the coefficient multiplier of x.
+     * @param x the matrix to be added.
+     * @throws DimensionException if the dimensions are different.
+     * @throws UnsupportedOperationException if this matrix is read-only.
+     */
+    public void axpy(F a, Matrix<F> x) {
+        setAll(this.plus(x.times(a)));
+    }
+
+    // Sets the elements of this matrix to the elements of the specified
+    // matrix (same dimensions).
+    final void setAll(Matrix<F> that) {
+        for (int i = 0, m = getNumberOfRows(); i < m; i++) {
+            for (int j = 0, n = getNumberOfColumns(); j < n; j++) {
+                set(i, j, that.get(i, j));
+            }
+        }
+    }
+
+    // For internal use only (writable matrices and views override).
+    void set(int i, int j, F e) {
+        throw new UnsupportedOperationException("Read-only matrix");
+    }
+
     @Override
     public abstract DenseMatrix<F> times(Matrix<F> that);
 
     /**
      * Returns the inverse of this matrix (must be square).
      * The default implementation returns
-     * <code>LUDecomposition.valueOf(this).inverse()</code>
+     * <code>this.factorize().inverse()</code> (dense for dense matrices).
      *
      * @return <code>1 / this</code>
      * @throws DimensionException if this matrix is not square.
      */
     @Override
     public DenseMatrix<F> inverse() {
-        return LUDecomposition.valueOf(this).inverse();
-    }
-
-    /**
-     * Returns the determinant of this matrix. The default implementation
-     * for {@link DenseMatrix} uses the LU decomposition.
-     *
-     * @return <code>LUDecomposition.valueOf(this).determinant()</code>
-     * @throws DimensionException if this matrix is not square.
-     */
-    @Override
-    public F determinant() {
-        return LUDecomposition.valueOf(this).determinant();
+        return (DenseMatrix<F>) factorize().inverse();
     }
 
     /**
      * Solves this matrix for the specified matrix (returns <code>x</code>
      * such as <code>this · x = y</code>). The default implementation
-     * for {@link DenseMatrix} uses the LU decomposition.
+     * returns <code>this.factorize().solve(y)</code> (dense for dense
+     * matrices).
      *
-     * @return <code>LUDecomposition.valueOf(this).solve(y)</code>
+     * @return <code>this.factorize().solve(y)</code>
      * @throws DimensionException if this matrix is not square.
      */
     @Override
     public DenseMatrix<F> solve(Matrix<F> y) {
-        return LUDecomposition.valueOf(this).solve(y);
+        return (DenseMatrix<F>) factorize().solve(y);
     }
 
     @Override
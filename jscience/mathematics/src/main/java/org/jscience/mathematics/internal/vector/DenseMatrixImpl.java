@@ -10,14 +10,31 @@ package org.jscience.mathematics.internal.vector;
 
 import java.util.Arrays;
 import java.util.List;
+import javolution.context.ConcurrentContext;
 import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
 import javolution.util.FastTable;
 import javolution.util.Index;
+import org.jscience.mathematics.function.Polynomial;
+import org.jscience.mathematics.function.RationalFunction;
+import org.jscience.mathematics.number.Complex;
+import org.jscience.mathematics.number.Decimal;
+import org.jscience.mathematics.number.FixedPoint;
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.LargeInteger;
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.number.Real;
 import org.jscience.mathematics.structure.Field;
 
 /**
  * <p> This class represents the dense matrix default implementation.</p>
  *
+ * <p> Sums, opposite, scaling and products are performed by blocks of rows
+ *     executed concurrently (see {@link ConcurrentContext}, concurrent
+ *     executions inherit the context of the calling thread) when their
+ *     estimated cost (number of element operations weighted by the
+ *     estimated cost of an element operation) is large enough.</p>
+ *
  * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 5.0, December 12, 2007
  */
@@ -39,6 +56,19 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
         }
     };
 
+    /**
+     * Holds the estimated cost (in multiply-add of <code>double</code>)
+     * above which operations are performed concurrently.
+     */
+    static final int CONCURRENT_THRESHOLD = 1 << 16;
+
+    /**
+     * Holds the estimated element cost (see {@link #costOf}) at or above
+     * which inexact elements are multiplied using the Strassen-Winograd
+     * algorithm (multiplication quadratic in the number of words).
+     */
+    static final int STRASSEN_COST = 32;
+
     /**
      * Holds this matrix rows.
      */
@@ -56,7 +86,7 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
         for (Vector<F> row : rows) {
             if (row.getDimension() != n)
                 throw new DimensionException();
-            M._rows.add(DenseVectorImpl.valueOf(row));
+            M._rows.add(rowOf(row));
         }
         return M;
     }
@@ -67,7 +97,7 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
             return (DenseMatrixImpl) that;
         DenseMatrixImpl<F> M = DenseMatrixImpl.FACTORY.object();
         for (int i = 0, m = that.getNumberOfRows(); i < m; i++) {
-            M._rows.add(DenseVectorImpl.valueOf(that.getRow(i)));
+            M._rows.add(rowOf(that.getRow(i)));
         }
         return M;
     }
@@ -87,6 +117,16 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
         return DenseMatrixImpl.valueOf(Arrays.asList(rows));
     }
 
+    // Returns a new row holding the elements of the specified vector; rows
+    // are updated in place and must not be shared with the caller.
+    private static <F extends Field<F>> DenseVectorImpl<F> rowOf(Vector<F> that) {
+        DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
+        for (int i = 0, n = that.getDimension(); i < n; i++) {
+            V._elements.add(that.get(i));
+        }
+        return V;
+    }
+
     @Override
     public int getNumberOfRows() {
         return _rows.size();
@@ -108,52 +148,57 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
     }
 
     @Override
-    public DenseVectorImpl<F> getColumn(int j) {
-        DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
-        for (int i = 0, m = _rows.size(); i < m; i++) {
-            V._elements.add(_rows.get(i).get(j));
-        }
-        return V;
+    public DenseSubVector<F> getColumn(int j) {
+        return DenseSubVector.columnOf(this, j, null); // View.
     }
 
     @Override
-    public DenseMatrixImpl<F> getSubMatrix(List<Index> rows, List<Index> columns) {
-        DenseMatrixImpl<F> M = FACTORY.object();
-        for (int i = 0; i < rows.size(); i++) {
-            DenseVectorImpl<F> row = this.getRow(rows.get(i).intValue());
-            M._rows.add(row.getSubVector(columns));
-        }
-        return M;
+    public DenseSubMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns) {
+        return DenseSubMatrix.valueOf(this, rows, columns); // View.
     }
 
     @Override
     public DenseMatrixImpl<F> opposite() {
-        DenseMatrixImpl<F> M = FACTORY.object();
-        for (int i = 0, m = _rows.size(); i < m; i++) {
-            M._rows.add(_rows.get(i).opposite());
-        }
-        return M;
+        return rowOperation(RowOperation.OPPOSITE, null, null, null);
     }
 
     @Override
     public DenseMatrixImpl<F> plus(Matrix<F> that) {
-        DenseMatrixImpl<F> M = FACTORY.object();
+        if (that.getNumberOfRows() != _rows.size())
+            throw new DimensionException();
+        return rowOperation(RowOperation.PLUS, that, null, null);
+    }
+
+    @Override
+    public DenseMatrixImpl<F> times(F k) {
+        return rowOperation(RowOperation.TIMES, null, k, null);
+    }
+
+    @Override
+    public void plusInPlace(Matrix<F> that) {
         final int m = _rows.size();
         if (that.getNumberOfRows() != m)
             throw new DimensionException();
         for (int i = 0; i < m; i++) {
-            M._rows.add(_rows.get(i).plus(that.getRow(i)));
+            _rows.get(i).plusInPlace(that.getRow(i));
         }
-        return M;
     }
 
     @Override
-    public DenseMatrixImpl<F> times(F k) {
-        DenseMatrixImpl<F> M = FACTORY.object();
+    public void timesInPlace(F k) {
         for (int i = 0, m = _rows.size(); i < m; i++) {
-            M._rows.add(_rows.get(i).times(k));
+            _rows.get(i).timesInPlace(k);
+        }
+    }
+
+    @Override
+    public void axpy(F a, Matrix<F> x) {
+        final int m = _rows.size();
+        if (x.getNumberOfRows() != m)
+            throw new DimensionException();
+        for (int i = 0; i < m; i++) {
+            _rows.get(i).axpy(a, x.getRow(i));
         }
-        return M;
     }
 
     @Override
@@ -164,18 +209,89 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
         final int p = that.getNumberOfColumns(); // Number of columns of that.
         if (n != that.getNumberOfRows())
             throw new DimensionException();
+        final F e = get(0, 0);
+        if (e instanceof Float64) // Blocked kernels on double[] storage.
+            return DenseMatrixImpl.valueOf((Matrix<F>) (Matrix) Float64Matrix.valueOfMatrix(
+                    (Matrix<Float64>) (Matrix) this).times((Matrix<Float64>) (Matrix) that));
+        final int threshold = STRASSEN_THRESHOLD.get();
+        if ((m >= threshold) && (n >= threshold) && (p >= threshold) && isStrassenWorthy(e))
+            return StrassenMultiplication.times(this, that, threshold);
+        final Vector<F>[] columns = new Vector[p];
+        for (int j = 0; j < p; j++) {
+            columns[j] = that.getColumn(j);
+        }
+        return rowOperation(RowOperation.PRODUCT, that, null, columns);
+    }
+
+    // Performs the specified operation by blocks of rows, concurrently if
+    // the estimated cost is large enough.
+    private DenseMatrixImpl<F> rowOperation(int type, Matrix<F> that, F k, Vector<F>[] columns) {
+        final int m = _rows.size();
+        long cost = (long) m * getNumberOfColumns() * costOf(get(0, 0));
+        if (columns != null) { // Product.
+            cost *= columns.length;
+        }
+        final int tasks = (cost < CONCURRENT_THRESHOLD) ? 1
+                : MathLib.min(m, ConcurrentContext.getConcurrency() + 1);
+        final DenseVectorImpl<F>[] rows = new DenseVectorImpl[m];
+        if (tasks <= 1) {
+            new RowOperation(type, 0, m, that, k, columns, rows).run();
+        } else {
+            ConcurrentContext.enter();
+            try {
+                for (int t = 0; t < tasks; t++) {
+                    ConcurrentContext.execute(new RowOperation(type, (int) ((long) m * t / tasks),
+                            (int) ((long) m * (t + 1) / tasks), that, k, columns, rows));
+                }
+            } finally {
+                ConcurrentContext.exit();
+            }
+        }
         DenseMatrixImpl<F> M = FACTORY.object();
         for (int i = 0; i < m; i++) {
-            DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
-            for (int j = 0; j < p; j++) {
-                F element = _rows.get(i).times(that.getColumn(j));
-                V._elements.add(element);
-            }
-            M._rows.add(V);
+            M._rows.add(rows[i]);
         }
         return M;
     }
 
+    /**
+     * Returns the estimated cost of an operation on the specified element
+     * (in multiply-add of <code>double</code>).
+     */
+    static int costOf(Object element) {
+        if ((element instanceof Float64) || (element instanceof Complex))
+            return 1;
+        if (element instanceof Rational)
+            return costOf(((Rational) element).getDividend().bitLength()
+                    + ((Rational) element).getDivisor().bitLength());
+        if (element instanceof Real)
+            return costOf(((Real) element).getSignificand().bitLength());
+        if (element instanceof Decimal)
+            return costOf(((Decimal) element).getSignificand().bitLength());
+        if (element instanceof FixedPoint)
+            return costOf(((FixedPoint) element).getSignificand().bitLength());
+        return 16; // Generic elements (at least one allocation per operation).
+    }
+
+    // Returns the estimated cost of an operation on numbers of the specified bit length.
+    private static int costOf(int bitLength) {
+        final int words = (bitLength >> 6) + 1;
+        return 16 + words * words;
+    }
+
+    /**
+     * Indicates if the product of matrices having the specified element
+     * should use the Strassen-Winograd algorithm: exact elements (rational
+     * numbers, large integers, rational functions) or elements whose
+     * multiplication is much more expensive than their addition.
+     */
+    static boolean isStrassenWorthy(Object element) {
+        if ((element instanceof Rational) || (element instanceof LargeInteger)
+                || (element instanceof Polynomial) || (element instanceof RationalFunction))
+            return true;
+        return costOf(element) >= STRASSEN_COST;
+    }
+
     @Override
     public DenseMatrix<F> transpose() {
         return _transposedView;
@@ -196,7 +312,7 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
     private class TransposedView extends DenseMatrix<F> {
 
         @Override
-        public DenseVectorImpl<F> getRow(int i) {
+        public DenseSubVector<F> getRow(int i) {
             return DenseMatrixImpl.this.getColumn(i);
         }
 
@@ -207,7 +323,7 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
 
         @Override
         public DenseMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns) {
-            return DenseMatrixImpl.this.getSubMatrix(columns, rows)._transposedView;
+            return DenseMatrixImpl.this.getSubMatrix(columns, rows).transpose();
         }
 
         @Override
@@ -225,6 +341,21 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
             return DenseMatrixImpl.this.times(k)._transposedView;
         }
 
+        @Override
+        public void plusInPlace(Matrix<F> that) {
+            DenseMatrixImpl.this.plusInPlace(that.transpose());
+        }
+
+        @Override
+        public void timesInPlace(F k) {
+            DenseMatrixImpl.this.timesInPlace(k);
+        }
+
+        @Override
+        public void axpy(F a, Matrix<F> x) {
+            DenseMatrixImpl.this.axpy(a, x.transpose());
+        }
+
         @Override
         public DenseMatrixImpl<F> times(Matrix<F> that) {
             return DenseMatrixImpl.valueOf(this).times(that);
@@ -235,6 +366,11 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
             return DenseMatrixImpl.this;
         }
 
+        @Override
+        void set(int i, int j, F e) {
+            DenseMatrixImpl.this.set(j, i, e);
+        }
+
         @Override
         public DenseMatrixImpl<F> copy() {
             return DenseMatrixImpl.valueOf(this).copy();
@@ -256,7 +392,65 @@ final class DenseMatrixImpl<F extends Field<F>> extends DenseMatrix<F> {
         }
     }
 
-    // For internal use only.
+    /**
+     * Represents an operation on a block of rows.
+     */
+    private final class RowOperation implements Runnable {
+
+        static final int OPPOSITE = 0;
+
+        static final int PLUS = 1;
+
+        static final int TIMES = 2;
+
+        static final int PRODUCT = 3;
+
+        private final int _type, _from, _to;
+
+        private final Matrix<F> _that;
+
+        private final F _k;
+
+        private final Vector<F>[] _columns;
+
+        private final DenseVectorImpl<F>[] _results;
+
+        RowOperation(int type, int from, int to, Matrix<F> that, F k,
+                Vector<F>[] columns, DenseVectorImpl<F>[] results) {
+            _type = type;
+            _from = from;
+            _to = to;
+            _that = that;
+            _k = k;
+            _columns = columns;
+            _results = results;
+        }
+
+        public void run() {
+            for (int i = _from; i < _to; i++) {
+                final DenseVectorImpl<F> row = _rows.get(i);
+                switch (_type) {
+                    case OPPOSITE:
+                        _results[i] = row.opposite();
+                        break;
+                    case PLUS:
+                        _results[i] = row.plus(_that.getRow(i));
+                        break;
+                    case TIMES:
+                        _results[i] = row.times(_k);
+                        break;
+                    default:
+                        DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
+                        for (int j = 0; j < _columns.length; j++) {
+                            V._elements.add(row.times(_columns[j]));
+                        }
+                        _results[i] = V;
+                }
+            }
+        }
+    }
+
+    @Override
     void set(int i, int j, F e) {
         _rows.get(i).set(j, e);
     }
@@ -0,0 +1,203 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.List;
+import javolution.context.ObjectFactory;
+import javolution.util.Index;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents a view over the elements of a dense matrix at
+ *     the specified rows and columns. Elements are read through the
+ *     matrix viewed (no copy is performed), sub-matrices of views are
+ *     views of the same matrix; the {@link #copy} method returns the
+ *     materialized matrix (a {@link Float64Matrix} if the matrix viewed
+ *     is a {@link Float64Matrix}).</p>
+ *
+ * <p> Operations other than element access (e.g. products) are performed
+ *     on the materialized matrix. In-place operations write their result
+ *     through to the matrix viewed, unless that matrix is not dense
+ *     (read-only view).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+final class DenseSubMatrix<F extends Field<F>> extends DenseMatrix<F> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<DenseSubMatrix> FACTORY = new ObjectFactory<DenseSubMatrix>() {
+
+        @Override
+        protected DenseSubMatrix create() {
+            return new DenseSubMatrix();
+        }
+
+        @Override
+        protected void cleanup(DenseSubMatrix matrix) {
+            matrix._matrix = null;
+            matrix._rows = null;
+            matrix._columns = null;
+        }
+    };
+
+    /**
+     * Holds the matrix viewed.
+     */
+    Matrix<F> _matrix;
+
+    /**
+     * Holds the row indices in the matrix viewed.
+     */
+    int[] _rows;
+
+    /**
+     * Holds the column indices in the matrix viewed.
+     */
+    int[] _columns;
+
+    /**
+     * Returns the view over the specified rows and columns of a matrix.
+     *
+     * @param matrix the matrix viewed.
+     * @param rows the row indices.
+     * @param columns the column indices.
+     * @return the corresponding view.
+     * @throws IndexOutOfBoundsException if any of the indices is outside
+     *         the matrix.
+     */
+    static <F extends Field<F>> DenseSubMatrix<F> valueOf(Matrix<F> matrix,
+            List<Index> rows, List<Index> columns) {
+        return DenseSubMatrix.valueOf(matrix,
+                Matrix.indicesOf(rows, matrix.getNumberOfRows()),
+                Matrix.indicesOf(columns, matrix.getNumberOfColumns()));
+    }
+
+    static <F extends Field<F>> DenseSubMatrix<F> valueOf(Matrix<F> matrix,
+            int[] rows, int[] columns) {
+        DenseSubMatrix<F> M = FACTORY.object();
+        M._matrix = matrix;
+        M._rows = rows;
+        M._columns = columns;
+        return M;
+    }
+
+    @Override
+    public int getNumberOfRows() {
+        return _rows.length;
+    }
+
+    @Override
+    public int getNumberOfColumns() {
+        return _columns.length;
+    }
+
+    @Override
+    public F get(int i, int j) {
+        return _matrix.get(_rows[i], _columns[j]);
+    }
+
+    @Override
+    void set(int i, int j, F e) {
+        if (!(_matrix instanceof DenseMatrix))
+            throw new UnsupportedOperationException("Read-only matrix");
+        ((DenseMatrix<F>) _matrix).set(_rows[i], _columns[j], e);
+    }
+
+    @Override
+    public DenseSubVector<F> getRow(int i) {
+        return DenseSubVector.rowOf(_matrix, _rows[i], _columns);
+    }
+
+    @Override
+    public DenseSubVector<F> getColumn(int j) {
+        return DenseSubVector.columnOf(_matrix, _columns[j], _rows);
+    }
+
+    @Override
+    public DenseSubMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns) {
+        int[] r = Matrix.indicesOf(rows, _rows.length);
+        int[] c = Matrix.indicesOf(columns, _columns.length);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = _rows[r[i]];
+        }
+        for (int j = 0; j < c.length; j++) {
+            c[j] = _columns[c[j]];
+        }
+        return DenseSubMatrix.valueOf(_matrix, r, c);
+    }
+
+    @Override
+    public DenseMatrix<F> opposite() {
+        return copy().opposite();
+    }
+
+    @Override
+    public DenseMatrix<F> plus(Matrix<F> that) {
+        return copy().plus(that);
+    }
+
+    @Override
+    public DenseMatrix<F> times(F k) {
+        return copy().times(k);
+    }
+
+    @Override
+    public DenseMatrix<F> times(Matrix<F> that) {
+        return copy().times(that);
+    }
+
+    @Override
+    public Vector<F> times(Vector<F> v) {
+        return copy().times(v);
+    }
+
+    @Override
+    public DenseMatrix<F> inverse() {
+        return copy().inverse();
+    }
+
+    @Override
+    public F determinant() {
+        return copy().determinant();
+    }
+
+    @Override
+    public DenseMatrix<F> solve(Matrix<F> y) {
+        return copy().solve(y);
+    }
+
+    @Override
+    public Solver<F> factorize() {
+        return copy().factorize();
+    }
+
+    @Override
+    public DenseSubMatrix<F> transpose() {
+        return DenseSubMatrix.valueOf(_matrix.transpose(), _columns, _rows);
+    }
+
+    @Override
+    public DenseMatrix<F> copy() {
+        if (_matrix instanceof Float64Matrix) // Materialized as Float64Matrix.
+            return (DenseMatrix<F>) (DenseMatrix) ((Float64Matrix) _matrix).gather(_rows, _columns);
+        if (_matrix instanceof Float64MappedMatrix) // Copied on the heap.
+            return (DenseMatrix<F>) (DenseMatrix) ((Float64MappedMatrix) _matrix).gather(_rows, _columns);
+        if (_matrix instanceof Float64DirectMatrix) // Copied in the same arena.
+            return (DenseMatrix<F>) (DenseMatrix) ((Float64DirectMatrix) _matrix).gather(_rows, _columns);
+        if (_matrix instanceof Float64Matrix.TransposedView) // Transposed view.
+            return (DenseMatrix<F>) (DenseMatrix) ((Float64Matrix) _matrix.transpose()).gather(
+                    _columns, _rows).transpose().copy();
+        return DenseMatrixImpl.valueOf(this);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,205 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.AbstractList;
+import java.util.List;
+import javolution.context.ObjectFactory;
+import javolution.util.Index;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents a view over the elements of a row or a column
+ *     of a matrix (all of them or the ones at the specified indices).
+ *     Elements are read through the matrix (no copy is performed);
+ *     the {@link #copy} method returns the materialized vector.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+final class DenseSubVector<F extends Field<F>> extends DenseVector<F> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<DenseSubVector> FACTORY = new ObjectFactory<DenseSubVector>() {
+
+        @Override
+        protected DenseSubVector create() {
+            return new DenseSubVector();
+        }
+
+        @Override
+        protected void cleanup(DenseSubVector vector) {
+            vector._matrix = null;
+            vector._indices = null;
+        }
+    };
+
+    /**
+     * Holds the matrix viewed.
+     */
+    Matrix<F> _matrix;
+
+    /**
+     * Holds the row or column index in the matrix.
+     */
+    int _line;
+
+    /**
+     * Indicates if this vector is a row (or a column).
+     */
+    boolean _isRow;
+
+    /**
+     * Holds the indices within the line (<code>null</code> for
+     * the whole line).
+     */
+    int[] _indices;
+
+    /**
+     * Holds the dimension.
+     */
+    int _dimension;
+
+    /**
+     * Returns the view over the specified row of a matrix.
+     *
+     * @param matrix the matrix viewed.
+     * @param i the row index.
+     * @param columns the column indices or <code>null</code> for all columns.
+     * @return the corresponding view.
+     */
+    static <F extends Field<F>> DenseSubVector<F> rowOf(Matrix<F> matrix, int i, int[] columns) {
+        if ((i < 0) || (i >= matrix.getNumberOfRows()))
+            throw new IndexOutOfBoundsException();
+        return DenseSubVector.valueOf(matrix, i, true, columns,
+                (columns != null) ? columns.length : matrix.getNumberOfColumns());
+    }
+
+    /**
+     * Returns the view over the specified column of a matrix.
+     *
+     * @param matrix the matrix viewed.
+     * @param j the column index.
+     * @param rows the row indices or <code>null</code> for all rows.
+     * @return the corresponding view.
+     */
+    static <F extends Field<F>> DenseSubVector<F> columnOf(Matrix<F> matrix, int j, int[] rows) {
+        if ((j < 0) || (j >= matrix.getNumberOfColumns()))
+            throw new IndexOutOfBoundsException();
+        return DenseSubVector.valueOf(matrix, j, false, rows,
+                (rows != null) ? rows.length : matrix.getNumberOfRows());
+    }
+
+    private static <F extends Field<F>> DenseSubVector<F> valueOf(Matrix<F> matrix,
+            int line, boolean isRow, int[] indices, int dimension) {
+        DenseSubVector<F> V = FACTORY.object();
+        V._matrix = matrix;
+        V._line = line;
+        V._isRow = isRow;
+        V._indices = indices;
+        V._dimension = dimension;
+        return V;
+    }
+
+    // Returns the index in the line of the specified element.
+    private int indexOf(int i) {
+        if ((i < 0) || (i >= _dimension))
+            throw new IndexOutOfBoundsException();
+        return (_indices != null) ? _indices[i] : i;
+    }
+
+    @Override
+    public int getDimension() {
+        return _dimension;
+    }
+
+    @Override
+    public F get(int i) {
+        return _isRow ? _matrix.get(_line, indexOf(i)) : _matrix.get(indexOf(i), _line);
+    }
+
+    @Override
+    void set(int i, F e) {
+        if (!(_matrix instanceof DenseMatrix))
+            throw new UnsupportedOperationException("Read-only vector");
+        if (_isRow) {
+            ((DenseMatrix<F>) _matrix).set(_line, indexOf(i), e);
+        } else {
+            ((DenseMatrix<F>) _matrix).set(indexOf(i), _line, e);
+        }
+    }
+
+    @Override
+    public List<F> asList() {
+        return new AbstractList<F>() {
+
+            @Override
+            public F get(int index) {
+                return DenseSubVector.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return _dimension;
+            }
+        };
+    }
+
+    @Override
+    public DenseSubVector<F> getSubVector(List<Index> indices) {
+        int[] tmp = Matrix.indicesOf(indices, _dimension);
+        for (int k = 0; k < tmp.length; k++) {
+            tmp[k] = indexOf(tmp[k]);
+        }
+        return DenseSubVector.valueOf(_matrix, _line, _isRow, tmp, tmp.length);
+    }
+
+    @Override
+    public DenseVector<F> opposite() {
+        return copy().opposite();
+    }
+
+    @Override
+    public DenseVector<F> plus(Vector<F> that) {
+        return copy().plus(that);
+    }
+
+    @Override
+    public DenseVector<F> times(F k) {
+        return copy().times(k);
+    }
+
+    @Override
+    public F times(Vector<F> that) {
+        return copy().times(that);
+    }
+
+    @Override
+    public DenseVector<F> copy() {
+        if (_matrix instanceof Float64Matrix) { // Materialized as Float64Vector.
+            Float64Matrix M = (Float64Matrix) _matrix;
+            Float64Vector V = Float64Vector.FACTORY.array(_dimension);
+            V._dimension = _dimension;
+            for (int i = 0; i < _dimension; i++) {
+                V._values[i] = _isRow ? M.getValue(_line, indexOf(i))
+                        : M.getValue(indexOf(i), _line);
+            }
+            return (DenseVector<F>) (DenseVector) V;
+        }
+        DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
+        for (int i = 0; i < _dimension; i++) {
+            V._elements.add(get(i));
+        }
+        return V;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -131,6 +131,62 @@ public abstract class DenseVector<F extends Field<F>> extends Vector<F> {
     @Override
     public abstract DenseVector<F> times(F k);
 
+    /**
+     * Adds the specified vector to this vector (in place, no vector is
+     * allocated). Vectors and matrices sharing the elements of this vector
+     * (e.g. the matrix this vector is a row of) see the update.
+     * The default implementation sets the elements of this vector to
+     * <code>this.plus(that)</code>.
+     *
+     * @param that the vector to be added.
+     * @throws DimensionException if the dimensions are different.
+     * @throws UnsupportedOperationException if this vector is read-only
+     *         (e.g. a row of a structured matrix).
+     */
+    public void plusInPlace(Vector<F> that) {
+        setAll(this.plus(that));
+    }
+
+    /**
+     * Multiplies this vector by the specified factor (in place).
+     * The default implementation sets the elements of this vector to
+     * <code>this.times(k)</code>.
+     *
+     * @param k the coefficient multiplier.
+     * @throws UnsupportedOperationException if this vector is read-only.
+     */
+    public void timesInPlace(F k) {
+        setAll(this.times(k));
+    }
+
+    /**
+     * Adds the specified vector multiplied by the specified factor to this
+     * vector (in place): <code>this = a · x + this</code>.
+     * The default implementation sets the elements of this vector to
+     * <code>this.plus(x.times(a))</code>.
+     *
+     * @param a the coefficient multiplier of x.
+     * @param x the vector to be added.
+     * @throws DimensionException if the dimensions are different.
+     * @throws UnsupportedOperationException if this vector is read-only.
+     */
+    public void axpy(F a, Vector<F> x) {
+        setAll(this.plus(x.times(a)));
+    }
+
+    // Sets the elements of this vector to the elements of the specified
+    // vector (same dimension).
+    final void setAll(Vector<F> that) {
+        for (int i = 0, n = getDimension(); i < n; i++) {
+            set(i, that.get(i));
+        }
+    }
+
+    // For internal use only (writable vectors and views override).
+    void set(int i, F e) {
+        throw new UnsupportedOperationException("Read-only vector");
+    }
+
     @Override
     public abstract DenseVector<F> copy();
     private static final long serialVersionUID = 1L;
@@ -128,6 +128,33 @@ final class DenseVectorImpl<F extends Field<F>> extends DenseVector<F> {
         return V;
     }
 
+    @Override
+    public void plusInPlace(Vector<F> that) {
+        final int n = _elements.size();
+        if (that.getDimension() != n)
+            throw new DimensionException();
+        for (int i = 0; i < n; i++) {
+            _elements.set(i, _elements.get(i).plus(that.get(i)));
+        }
+    }
+
+    @Override
+    public void timesInPlace(F k) {
+        for (int i = 0, n = _elements.size(); i < n; i++) {
+            _elements.set(i, _elements.get(i).times(k));
+        }
+    }
+
+    @Override
+    public void axpy(F a, Vector<F> x) {
+        final int n = _elements.size();
+        if (x.getDimension() != n)
+            throw new DimensionException();
+        for (int i = 0; i < n; i++) {
+            _elements.set(i, _elements.get(i).plus(a.times(x.get(i))));
+        }
+    }
+
     @Override
     public F times(Vector<F> that) {
         final int n = _elements.size();
@@ -154,7 +181,7 @@ final class DenseVectorImpl<F extends Field<F>> extends DenseVector<F> {
         return V;
     }
 
-    // For internal use only.
+    @Override
     void set(int i, F e) {
         _elements.set(i, e);
     }
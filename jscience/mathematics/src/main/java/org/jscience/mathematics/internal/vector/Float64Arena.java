@@ -0,0 +1,288 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a memory region outside of the Java heap
+ *     (direct buffers) holding {@link Float64DirectMatrix off-heap matrices}
+ *     and {@link Float64DirectVector vectors}, which do not contribute to
+ *     garbage collection pressure (only small view objects are on
+ *     the heap).[code]
+ *         Float64Arena arena = new Float64Arena();
+ *         try {
+ *             Float64DirectMatrix A = arena.valueOf(matrix);
+ *             Float64DirectVector x = arena.newVector(n);
+ *             A.times(y, x); // Off-heap, no allocation.
+ *             ...
+ *         } finally {
+ *             arena.close(); // Matrices and vectors of the arena are no more usable.
+ *         }[/code]</p>
+ *
+ * <p> Small matrices and vectors are allocated within shared chunks,
+ *     large ones have their own buffer. The results of operations on
+ *     off-heap matrices and vectors are allocated from the arena of
+ *     the first operand. The matrices and vectors of a closed arena
+ *     (and their views) cannot be used anymore
+ *     (<code>IllegalStateException</code>).</p>
+ *
+ * <p> Closing an arena releases its off-heap memory immediately, through
+ *     the cleaner of the direct buffers (<code>sun.misc.Unsafe.invokeCleaner</code>
+ *     on Java 9 and later, <code>DirectBuffer.cleaner().clean()</code>
+ *     before). On virtual machines providing neither, the memory is
+ *     reclaimed when the buffers are garbage collected.</p>
+ *
+ * <p> Allocations are thread-safe; an arena must not be closed while its
+ *     matrices or vectors are used by other threads (their memory would
+ *     be accessed after being released).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public final class Float64Arena implements Closeable {
+
+    /**
+     * Holds the number of elements of the shared chunks (1 MB).
+     */
+    static final int CHUNK_LENGTH = 1 << 17;
+
+    /**
+     * Holds the <code>sun.misc.Unsafe</code> instance (Java 9 and later)
+     * or <code>null</code>.
+     */
+    private static final Object UNSAFE;
+
+    /**
+     * Holds the <code>sun.misc.Unsafe.invokeCleaner(ByteBuffer)</code>
+     * method (Java 9 and later) or <code>null</code>.
+     */
+    private static final Method INVOKE_CLEANER;
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> cls = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = cls.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = cls.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        } catch (Throwable error) { // Java 8 or earlier.
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Holds the double views of the buffers (<code>null</code> when closed).
+     */
+    private volatile DoubleBuffer[] _chunks = new DoubleBuffer[4];
+
+    /**
+     * Holds the direct buffers (released on close).
+     */
+    private ByteBuffer[] _buffers = new ByteBuffer[4];
+
+    /**
+     * Holds the number of buffers.
+     */
+    private int _count;
+
+    /**
+     * Holds the index of the first free element of the current chunk
+     * (<code>CHUNK_LENGTH</code> if none).
+     */
+    private int _position = CHUNK_LENGTH;
+
+    /**
+     * Holds the index of the current chunk.
+     */
+    private int _current = -1;
+
+    /**
+     * Holds the number of elements allocated.
+     */
+    private long _allocated;
+
+    /**
+     * Creates a new empty arena.
+     */
+    public Float64Arena() {
+    }
+
+    /**
+     * Returns a new zero matrix allocated from this arena.
+     *
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @return the corresponding off-heap matrix.
+     * @throws IllegalStateException if this arena is closed.
+     */
+    public Float64DirectMatrix newMatrix(int m, int n) {
+        if ((m <= 0) || (n <= 0))
+            throw new DimensionException(m + "x" + n + " matrix");
+        final long address = allocate((long) m * n);
+        return Float64DirectMatrix.valueOf(this, (int) (address >>> 32), (int) address,
+                m, n, n, 1);
+    }
+
+    /**
+     * Returns a new zero vector allocated from this arena.
+     *
+     * @param dimension the vector dimension.
+     * @return the corresponding off-heap vector.
+     * @throws IllegalStateException if this arena is closed.
+     */
+    public Float64DirectVector newVector(int dimension) {
+        if (dimension <= 0)
+            throw new DimensionException("Dimension " + dimension);
+        final long address = allocate(dimension);
+        return Float64DirectVector.valueOf(this, (int) (address >>> 32), (int) address,
+                1, dimension);
+    }
+
+    /**
+     * Returns an off-heap copy of the specified matrix.
+     *
+     * @param that the matrix to copy.
+     * @return the off-heap matrix allocated from this arena.
+     * @throws IllegalStateException if this arena is closed.
+     */
+    public Float64DirectMatrix valueOf(Matrix<Float64> that) {
+        Float64DirectMatrix M = newMatrix(that.getNumberOfRows(), that.getNumberOfColumns());
+        M.plusInPlace(that); // M is zero.
+        return M;
+    }
+
+    /**
+     * Returns an off-heap copy of the specified vector.
+     *
+     * @param that the vector to copy.
+     * @return the off-heap vector allocated from this arena.
+     * @throws IllegalStateException if this arena is closed.
+     */
+    public Float64DirectVector valueOf(Vector<Float64> that) {
+        Float64DirectVector V = newVector(that.getDimension());
+        V.plusInPlace(that); // V is zero.
+        return V;
+    }
+
+    /**
+     * Returns the number of bytes allocated from this arena.
+     *
+     * @return the off-heap memory used.
+     */
+    public synchronized long getAllocatedBytes() {
+        return _allocated * 8;
+    }
+
+    /**
+     * Indicates if this arena is closed.
+     *
+     * @return <code>true</code> if this arena is closed;
+     *         <code>false</code> otherwise.
+     */
+    public synchronized boolean isClosed() {
+        return _chunks == null;
+    }
+
+    /**
+     * Closes this arena; the memory of its buffers is released and its
+     * matrices and vectors cannot be used anymore. Does nothing if
+     * already closed.
+     */
+    public synchronized void close() {
+        if (_chunks == null)
+            return;
+        _chunks = null;
+        for (int i = 0; i < _count; i++) {
+            release(_buffers[i]);
+            _buffers[i] = null;
+        }
+        _buffers = null;
+    }
+
+    /**
+     * Releases the memory of the specified direct buffer.
+     *
+     * @param buffer the buffer returned by <code>ByteBuffer.allocateDirect</code>.
+     * @return <code>true</code> if the memory has been released;
+     *         <code>false</code> if it is left to the garbage collector.
+     */
+    static boolean release(ByteBuffer buffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return true;
+            }
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner == null)
+                return false;
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+            return true;
+        } catch (Throwable error) { // No cleaner available.
+            return false;
+        }
+    }
+
+    /**
+     * Returns the specified buffer.
+     *
+     * @throws IllegalStateException if this arena is closed.
+     */
+    DoubleBuffer buffer(int chunk) {
+        final DoubleBuffer[] chunks = _chunks; // Unsynchronized read.
+        if (chunks == null)
+            throw new IllegalStateException("Arena closed");
+        return chunks[chunk];
+    }
+
+    // Allocates the specified number of elements, returns the chunk index
+    // (high 32 bits) and the index of the first element in the chunk.
+    private synchronized long allocate(long length) {
+        if (_chunks == null)
+            throw new IllegalStateException("Arena closed");
+        if (length > (Integer.MAX_VALUE >> 3))
+            throw new IllegalArgumentException(length + " elements exceed a direct buffer capacity");
+        _allocated += length;
+        if (length > CHUNK_LENGTH / 4) // Own buffer.
+            return ((long) add((int) length)) << 32;
+        if (_position + length > CHUNK_LENGTH) {
+            _current = add(CHUNK_LENGTH);
+            _position = 0;
+        }
+        final long address = (((long) _current) << 32) | _position;
+        _position += length;
+        return address;
+    }
+
+    // Adds a new direct buffer, returns its index.
+    private int add(int length) {
+        if (_count == _chunks.length) {
+            DoubleBuffer[] tmp = new DoubleBuffer[_count * 2];
+            System.arraycopy(_chunks, 0, tmp, 0, _count);
+            _chunks = tmp;
+            ByteBuffer[] buffers = new ByteBuffer[_count * 2];
+            System.arraycopy(_buffers, 0, buffers, 0, _count);
+            _buffers = buffers;
+        }
+        _buffers[_count] = ByteBuffer.allocateDirect(length << 3);
+        _chunks[_count] = _buffers[_count].order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        return _count++;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the {@link LUDecomposition LU decomposition}
+ *     with partial pivoting of a {@link Float64BandMatrix band matrix}
+ *     of lower and upper bandwidths <code>kl</code> and <code>ku</code>.</p>
+ *
+ * <p> Partial pivoting extends the upper bandwidth of <code>U</code> to
+ *     <code>kl+ku</code>; the decomposition holds
+ *     <code>n·(2·kl+ku+1)</code> elements and costs
+ *     <code>O(n·kl·(kl+ku))</code>. Each solve costs
+ *     <code>O(n·(2·kl+ku))</code> per right-hand side.</p>
+ *
+ * <p> Singular matrices are decomposed without error (zero pivot);
+ *     their {@link #determinant determinant} is zero and solving returns
+ *     non-finite values.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public final class Float64BandLUDecomposition implements Solver<Float64> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64BandLUDecomposition> FACTORY = new ObjectFactory<Float64BandLUDecomposition>() {
+
+        protected Float64BandLUDecomposition create() {
+            return new Float64BandLUDecomposition();
+        }
+
+        @Override
+        protected void cleanup(Float64BandLUDecomposition lu) {
+            lu._values = null;
+            lu._pivots = null;
+        }
+    };
+
+    /**
+     * Holds the dimension of the matrix source.
+     */
+    private int _n;
+
+    /**
+     * Holds the lower bandwidth of the matrix source.
+     */
+    private int _kl;
+
+    /**
+     * Holds the upper bandwidth of U (<code>kl + ku</code>).
+     */
+    private int _ku;
+
+    /**
+     * Holds the multipliers and U by rows (element <code>[i,j]</code> at
+     * <code>i·(2·kl+ku+1) + j-i+kl</code>).
+     */
+    private double[] _values;
+
+    /**
+     * Holds the row exchanged with row <code>k</code> at step
+     * <code>k</code>.
+     */
+    private int[] _pivots;
+
+    /**
+     * Holds the number of permutation performed.
+     */
+    private int _permutationCount;
+
+    /**
+     * Default constructor.
+     */
+    private Float64BandLUDecomposition() {
+    }
+
+    /**
+     * Returns the lower/upper decomposition of the specified band matrix.
+     *
+     * @param  source the band matrix.
+     * @return the lower/upper decomposition of the specified matrix.
+     */
+    public static Float64BandLUDecomposition valueOf(Float64BandMatrix source) {
+        Float64BandLUDecomposition lu = FACTORY.object();
+        lu._n = source._n;
+        lu._kl = source._kl;
+        lu._ku = source._kl + source._ku;
+        lu._permutationCount = 0;
+        lu.construct(source);
+        return lu;
+    }
+
+    // Factors the band (rows copied in the wider storage).
+    private void construct(Float64BandMatrix source) {
+        final int n = _n, kl = _kl, ku = _ku, w = kl + ku + 1;
+        final int sw = source._kl + source._ku + 1;
+        final double[] a = new double[n * w];
+        for (int i = 0; i < n; i++) { // Same position within the rows.
+            System.arraycopy(source._values, i * sw, a, i * w, sw);
+        }
+        _pivots = new int[n];
+        for (int k = 0; k < n; k++) {
+            final int last = MathLib.min(n - 1, k + kl);
+            final int end = MathLib.min(n - 1, k + ku); // Last column of U row k.
+            int pivot = k;
+            double max = MathLib.abs(a[k * w + kl]);
+            for (int i = k + 1; i <= last; i++) {
+                double abs = MathLib.abs(a[i * w + k - i + kl]);
+                if (abs > max) {
+                    max = abs;
+                    pivot = i;
+                }
+            }
+            _pivots[k] = pivot;
+            if (pivot != k) { // Exchanges the columns k..end of rows k and pivot.
+                for (int j = k; j <= end; j++) {
+                    final int p = k * w + j - k + kl, q = pivot * w + j - pivot + kl;
+                    double tmp = a[p];
+                    a[p] = a[q];
+                    a[q] = tmp;
+                }
+                _permutationCount++;
+            }
+            final double ukk = a[k * w + kl];
+            if (ukk == 0.0)
+                continue; // Singular (nothing to eliminate).
+            for (int i = k + 1; i <= last; i++) {
+                final int ik = i * w + k - i + kl;
+                final double l = a[ik] / ukk;
+                a[ik] = l;
+                if (l != 0.0) { // Row i -= l · Row k (columns k+1..end)
+                    Float64Kernels.axpy(end - k, -l, a, k * w + kl + 1, 1,
+                            a, ik + 1, 1, a, ik + 1);
+                }
+            }
+        }
+        _values = a;
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Matrix solve(Matrix<Float64> B) {
+        if (_n != B.getNumberOfRows())
+            throw new DimensionException("Input matrix has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        final int p = B.getNumberOfColumns();
+        Float64Matrix T = Float64Matrix.valueOfMatrix(B);
+        Float64Matrix X = Float64Matrix.newInstance(_n, p);
+        for (int i = 0; i < _n; i++) {
+            System.arraycopy(T._values, T._offset + i * T._ld, X._values, i * p, p);
+        }
+        substitute(X._values, p);
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Vector solve(Vector<Float64> y) {
+        if (_n != y.getDimension())
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + _n);
+        Float64Vector x = Float64Vector.valueOf(Float64StructuredMatrix.valuesOf(y));
+        substitute(x._values, 1);
+        return x;
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = Identity  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    public Float64Matrix inverse() {
+        final int n = _n;
+        Float64Matrix X = Float64Matrix.newInstance(n, n);
+        Arrays.fill(X._values, 0, n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            X._values[i * n + i] = 1.0;
+        }
+        substitute(X._values, n);
+        return X;
+    }
+
+    /**
+     * Solves <code>L·U·X = B</code> in place (B being the n-by-p
+     * contiguous matrix x), exchanges being applied as during the
+     * decomposition.
+     */
+    private void substitute(double[] x, int p) {
+        final int n = _n, kl = _kl, ku = _ku, w = kl + ku + 1;
+        final double[] a = _values;
+        for (int k = 0; k < n; k++) {
+            final int pivot = _pivots[k];
+            if (pivot != k) {
+                for (int c = 0; c < p; c++) {
+                    double tmp = x[k * p + c];
+                    x[k * p + c] = x[pivot * p + c];
+                    x[pivot * p + c] = tmp;
+                }
+            }
+            for (int i = k + 1, last = MathLib.min(n - 1, k + kl); i <= last; i++) {
+                Float64Kernels.axpy(p, -a[i * w + k - i + kl], x, k * p, 1,
+                        x, i * p, 1, x, i * p);
+            }
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = i + 1, end = MathLib.min(n - 1, i + ku); j <= end; j++) {
+                Float64Kernels.axpy(p, -a[i * w + j - i + kl], x, j * p, 1,
+                        x, i * p, 1, x, i * p);
+            }
+            Float64Kernels.scale(p, 1.0 / a[i * w + kl], x, i * p, 1, x, i * p);
+        }
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition.
+     *
+     * @return the determinant of the matrix source.
+     */
+    public Float64 determinant() {
+        double product = 1.0;
+        for (int i = 0, w = _kl + _ku + 1; i < _n; i++) {
+            product *= _values[i * w + _kl];
+        }
+        return Float64.valueOf(((_permutationCount & 1) == 0) ? product : -product);
+    }
+
+    /**
+     * Returns the upper matrix decomposition (<code>U</code>, upper
+     * bandwidth <code>kl+ku</code>).
+     *
+     * @return the upper band matrix.
+     */
+    public Float64BandMatrix getUpper() {
+        final int n = _n, kl = _kl, ku = _ku, w = kl + ku + 1;
+        Float64BandMatrix U = Float64BandMatrix.newInstance(n, 0, ku);
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(_values, i * w + kl, U._values, i * (ku + 1),
+                    MathLib.min(ku, n - 1 - i) + 1);
+        }
+        return U;
+    }
+}
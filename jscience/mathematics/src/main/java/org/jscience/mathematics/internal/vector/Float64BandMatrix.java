@@ -0,0 +1,254 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a square band matrix of 64 bits floating point
+ *     elements: the elements <code>[i,j]</code> with
+ *     <code>j - i &lt; -kl</code> or <code>j - i &gt; ku</code> are zero
+ *     (<code>kl</code> and <code>ku</code> being the lower and upper
+ *     bandwidths). Only the <code>n·(kl+ku+1)</code> elements of the band
+ *     are stored, by rows.[code]
+ *         // Tridiagonal matrix (kl = ku = 1) of dimension 4.
+ *         Float64BandMatrix T = Float64BandMatrix.valueOf(4, 1, 1, new double[] {
+ *              0, 2, -1,
+ *             -1, 2, -1,
+ *             -1, 2, -1,
+ *             -1, 2, 0 });[/code]</p>
+ *
+ * <p> Products cost <code>O(n·(kl+ku))</code> and band matrices are
+ *     {@link #factorize factored} with the {@link Float64BandLUDecomposition
+ *     band LU decomposition} in <code>O(n·kl·(kl+ku))</code> (no fill-in
+ *     outside the band extended by partial pivoting).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Band_matrix">
+ *      Wikipedia: Band matrix</a>
+ */
+public final class Float64BandMatrix extends Float64StructuredMatrix {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64BandMatrix> FACTORY = new ObjectFactory<Float64BandMatrix>() {
+
+        @Override
+        protected Float64BandMatrix create() {
+            return new Float64BandMatrix();
+        }
+
+        @Override
+        protected void cleanup(Float64BandMatrix matrix) {
+            matrix._values = null;
+        }
+    };
+
+    /**
+     * Holds the band elements by rows (element <code>[i,j]</code> at
+     * <code>i·(kl+ku+1) + j-i+kl</code>, positions outside the matrix
+     * being zero).
+     */
+    double[] _values;
+
+    /**
+     * Holds the lower bandwidth.
+     */
+    int _kl;
+
+    /**
+     * Holds the upper bandwidth.
+     */
+    int _ku;
+
+    /**
+     * Default constructor.
+     */
+    private Float64BandMatrix() {
+    }
+
+    /**
+     * Returns the band matrix holding the specified band elements by
+     * rows (copied).
+     *
+     * @param n the dimension of the matrix.
+     * @param kl the lower bandwidth.
+     * @param ku the upper bandwidth.
+     * @param values the elements <code>[i, i-kl..i+ku]</code> of each row
+     *        <code>i</code> (positions outside the matrix are ignored).
+     * @return the corresponding matrix.
+     * @throws DimensionException if <code>values.length != n·(kl+ku+1)</code>
+     */
+    public static Float64BandMatrix valueOf(int n, int kl, int ku, double... values) {
+        if ((kl < 0) || (ku < 0))
+            throw new IllegalArgumentException("Negative bandwidth");
+        if (values.length != n * (kl + ku + 1))
+            throw new DimensionException(values.length
+                    + " band elements instead of " + (n * (kl + ku + 1)));
+        Float64BandMatrix M = Float64BandMatrix.newInstance(n, kl, ku);
+        for (int i = 0, w = kl + ku + 1; i < n; i++) { // Clears outside positions.
+            final int j0 = MathLib.max(0, i - kl), j1 = MathLib.min(n - 1, i + ku);
+            System.arraycopy(values, i * w + j0 - i + kl, M._values, i * w + j0 - i + kl, j1 - j0 + 1);
+        }
+        return M;
+    }
+
+    /**
+     * Returns the band of the specified matrix (the elements outside the
+     * band are ignored).
+     *
+     * @param that the square matrix.
+     * @param kl the lower bandwidth.
+     * @param ku the upper bandwidth.
+     * @return the corresponding band matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static Float64BandMatrix valueOf(Matrix<Float64> that, int kl, int ku) {
+        if (!that.isSquare())
+            throw new DimensionException("Matrix is not square");
+        if ((kl < 0) || (ku < 0))
+            throw new IllegalArgumentException("Negative bandwidth");
+        final int n = that.getNumberOfRows();
+        Float64BandMatrix M = Float64BandMatrix.newInstance(n, kl, ku);
+        Float64Matrix A = Float64Matrix.valueOfMatrix(that);
+        for (int i = 0, w = kl + ku + 1; i < n; i++) {
+            final int j0 = MathLib.max(0, i - kl), j1 = MathLib.min(n - 1, i + ku);
+            System.arraycopy(A._values, A._offset + i * A._ld + j0,
+                    M._values, i * w + j0 - i + kl, j1 - j0 + 1);
+        }
+        return M;
+    }
+
+    // Returns a zero band matrix.
+    static Float64BandMatrix newInstance(int n, int kl, int ku) {
+        Float64BandMatrix M = FACTORY.object();
+        M._n = n;
+        M._kl = kl;
+        M._ku = ku;
+        M._values = new double[n * (kl + ku + 1)];
+        return M;
+    }
+
+    /**
+     * Returns the lower bandwidth of this matrix.
+     *
+     * @return the number of diagonals below the main diagonal.
+     */
+    public int getLowerBandwidth() {
+        return _kl;
+    }
+
+    /**
+     * Returns the upper bandwidth of this matrix.
+     *
+     * @return the number of diagonals above the main diagonal.
+     */
+    public int getUpperBandwidth() {
+        return _ku;
+    }
+
+    @Override
+    public double getValue(int i, int j) {
+        final int d = j - i;
+        return ((d < -_kl) || (d > _ku)) ? 0.0 : _values[i * (_kl + _ku + 1) + d + _kl];
+    }
+
+    /**
+     * Returns the sum of this matrix with the one specified; the sum of
+     * band matrices is a band matrix.
+     *
+     * @param   that the matrix to be added.
+     * @return  <code>this + that</code>.
+     * @throws  DimensionException matrices's dimensions are different.
+     */
+    @Override
+    public Matrix<Float64> plus(Matrix<Float64> that) {
+        if (!(that instanceof Float64BandMatrix))
+            return super.plus(that);
+        Float64BandMatrix B = (Float64BandMatrix) that;
+        if (B._n != _n)
+            throw new DimensionException();
+        Float64BandMatrix M = Float64BandMatrix.newInstance(_n,
+                MathLib.max(_kl, B._kl), MathLib.max(_ku, B._ku));
+        M.add(this);
+        M.add(B);
+        return M;
+    }
+
+    // Adds the specified band matrix (bandwidths not larger).
+    private void add(Float64BandMatrix B) {
+        final int w = _kl + _ku + 1, bw = B._kl + B._ku + 1;
+        for (int i = 0; i < _n; i++) {
+            Float64Kernels.axpy(bw, 1.0, B._values, i * bw, 1,
+                    _values, i * w + _kl - B._kl, 1, _values, i * w + _kl - B._kl);
+        }
+    }
+
+    @Override
+    public Float64BandMatrix times(double k) {
+        Float64BandMatrix M = Float64BandMatrix.newInstance(_n, _kl, _ku);
+        Float64Kernels.scale(_values.length, k, _values, 0, 1, M._values, 0);
+        return M;
+    }
+
+    // Implements Float64LinearOperator.
+    public void times(double[] x, double[] y) {
+        final int n = _n, kl = _kl, ku = _ku, w = kl + ku + 1;
+        for (int i = 0; i < n; i++) {
+            final int j0 = MathLib.max(0, i - kl), j1 = MathLib.min(n - 1, i + ku);
+            y[i] = Float64Kernels.dot(j1 - j0 + 1, _values, i * w + j0 - i + kl, 1, x, j0, 1);
+        }
+    }
+
+    /**
+     * Returns the determinant of this matrix.
+     *
+     * @return <code>factorize().determinant()</code>
+     */
+    @Override
+    public Float64 determinant() {
+        return factorize().determinant();
+    }
+
+    /**
+     * Returns the band LU decomposition of this matrix.
+     *
+     * @return <code>Float64BandLUDecomposition.valueOf(this)</code>
+     */
+    @Override
+    public Float64BandLUDecomposition factorize() {
+        return Float64BandLUDecomposition.valueOf(this);
+    }
+
+    @Override
+    public Float64BandMatrix transpose() {
+        final int n = _n, w = _kl + _ku + 1;
+        Float64BandMatrix M = Float64BandMatrix.newInstance(n, _ku, _kl);
+        for (int i = 0; i < n; i++) { // M[j,i] = this[i,j]
+            for (int d = -_kl; d <= _ku; d++) {
+                final int j = i + d;
+                if ((j >= 0) && (j < n)) {
+                    M._values[j * w + _ku - d] = _values[i * w + d + _kl];
+                }
+            }
+        }
+        return M;
+    }
+
+    @Override
+    public Float64BandMatrix copy() {
+        return times(1.0);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,312 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ObjectFactory;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a {@link CSCMatrix compressed sparse column}
+ *     matrix of 64 bits floating point elements held in a
+ *     <code>double[]</code> array.</p>
+ *
+ * <p> The {@link #transpose transpose} of this matrix is a
+ *     {@link Float64CSRMatrix} sharing the same arrays.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public final class Float64CSCMatrix extends CompressedSparseMatrix<Float64>
+        implements Float64LinearOperator {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64CSCMatrix> FACTORY = new ObjectFactory<Float64CSCMatrix>() {
+
+        @Override
+        protected Float64CSCMatrix create() {
+            return new Float64CSCMatrix();
+        }
+
+        @Override
+        protected void cleanup(Float64CSCMatrix matrix) {
+            matrix._pointers = null;
+            matrix._indices = null;
+            matrix._values = null;
+        }
+    };
+
+    /**
+     * Holds the elements in storage order.
+     */
+    double[] _values;
+
+    /**
+     * Default constructor.
+     */
+    private Float64CSCMatrix() {
+    }
+
+    /**
+     * Returns the CSC matrix holding the specified arrays (copied).
+     *
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param rowPointers the start of each row (length <code>m + 1</code>).
+     * @param columnIndices the column indices, increasing within each row.
+     * @param values the elements in storage order.
+     * @return the corresponding matrix.
+     * @throws IllegalArgumentException if the arrays are not a valid
+     *         CSC structure.
+     */
+    public static Float64CSCMatrix valueOf(int m, int n, int[] columnPointers,
+            int[] rowIndices, double[] values) {
+        Float64CSCMatrix M = FACTORY.object();
+        M._m = m;
+        M._n = n;
+        M._pointers = Float64CSRMatrix.check(n, m, columnPointers, rowIndices, values);
+        M._indices = CompressedSparseMatrix.resize(rowIndices, M._pointers[n]);
+        M._values = Float64CSRMatrix.resize(values, M._pointers[n]);
+        return M;
+    }
+
+    /**
+     * Returns the CSC form of the specified matrix (zero elements of dense
+     * matrices are not stored).
+     *
+     * @param that the matrix to convert.
+     * @return <code>that</code> or its CSC form.
+     */
+    public static Float64CSCMatrix valueOfMatrix(Matrix<Float64> that) {
+        if (that instanceof Float64CSCMatrix)
+            return (Float64CSCMatrix) that;
+        Float64CSCMatrix M = FACTORY.object();
+        if (that instanceof Float64CSRMatrix) {
+            Float64CSRMatrix csr = (Float64CSRMatrix) that;
+            M._values = Float64CSRMatrix.permute(csr._values, M.transposeStructure(csr));
+            return M;
+        }
+        if (that instanceof Float64Matrix) {
+            Float64Matrix A = (Float64Matrix) that;
+            M._m = A._m;
+            M._n = A._n;
+            M._values = Float64CSRMatrix.compress(M, A._values, A._offset, 1, A._ld);
+            return M;
+        }
+        if (that instanceof Float64Matrix.TransposedView) // Dense transposed view.
+            return Float64CSRMatrix.valueOfMatrix(that.transpose()).transpose();
+        if (that instanceof CSRMatrix)
+            return Float64CSCMatrix.valueOfMatrix(CSCMatrix.valueOf(that));
+        if (that instanceof SparseMatrixImpl) // Map-based rows.
+            return Float64CSCMatrix.valueOfMatrix(Float64CSRMatrix.valueOfMatrix(that));
+        Object[] values;
+        if (that instanceof CSCMatrix) { // Shares the structure.
+            CSCMatrix<Float64> csc = (CSCMatrix<Float64>) that;
+            M._m = csc._m;
+            M._n = csc._n;
+            M._pointers = csc._pointers;
+            M._indices = csc._indices;
+            values = csc._values;
+        } else {
+            values = M.compress(that, false);
+        }
+        M._values = new double[values.length];
+        for (int k = 0; k < values.length; k++) {
+            M._values[k] = ((Float64) values[k]).doubleValue();
+        }
+        return M;
+    }
+
+    /**
+     * Returns the <code>double</code> value of a single element of
+     * this matrix.
+     *
+     * @param  i the row index (range [0..m[).
+     * @param  j the column index (range [0..n[).
+     * @return the element read at [i,j].
+     * @throws IndexOutOfBoundsException <code>
+     *         ((i < 0) || (i >= m)) || ((j < 0) || (j >= n))</code>
+     */
+    public double getValue(int i, int j) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        int k = find(j, i);
+        return (k < 0) ? 0.0 : _values[k];
+    }
+
+    @Override
+    boolean isRowCompressed() {
+        return false;
+    }
+
+    @Override
+    Float64 valueAt(int k) {
+        return Float64.valueOf(_values[k]);
+    }
+
+    @Override
+    Float64 getZero() {
+        return Float64.ZERO;
+    }
+
+    @Override
+    public Float64CSCMatrix opposite() {
+        return times(-1.0);
+    }
+
+    @Override
+    public Float64CSCMatrix times(Float64 k) {
+        return times(k.doubleValue());
+    }
+
+    /**
+     * Returns the product of this matrix by the specified factor.
+     *
+     * @param k the coefficient multiplier.
+     * @return <code>this · k</code>
+     */
+    public Float64CSCMatrix times(double k) {
+        Float64CSCMatrix M = FACTORY.object();
+        M._m = _m;
+        M._n = _n;
+        M._pointers = _pointers; // Immutable structure.
+        M._indices = _indices;
+        M._values = new double[_values.length];
+        Float64Kernels.scale(_values.length, k, _values, 0, 1, M._values, 0);
+        return M;
+    }
+
+    /**
+     * Returns the product of this matrix by the specified column vector
+     * (columns scattered, concurrent tasks using their own accumulator).
+     *
+     * @param  v the column vector.
+     * @return <code>this · v</code>
+     * @throws DimensionException if <code>
+     *         v.getDimension() != this.getNumberOfColumns()<code>
+     */
+    @Override
+    public Float64Vector times(Vector<Float64> v) {
+        if (v.getDimension() != _n)
+            throw new DimensionException();
+        Float64Vector x = Float64Vector.valueOfVector(v);
+        Float64Vector y = Float64Vector.FACTORY.array(_m);
+        y._dimension = _m;
+        Float64SparseKernels.spmvTransposed(_n, _m, _pointers, _indices, _values,
+                x._values, x._offset, x._stride, y._values, 0);
+        return y;
+    }
+
+    // Implements Float64LinearOperator.
+    public void times(double[] x, double[] y) {
+        Float64SparseKernels.spmvTransposed(_n, _m, _pointers, _indices, _values,
+                x, 0, 1, y, 0);
+    }
+
+    /**
+     * Returns the product of this matrix with the one specified; the
+     * product of sparse matrices is a {@link Float64CSCMatrix}
+     * (<code>(this · that)' = that' · this'</code> on the CSR arrays of
+     * the transposes), the product with a dense matrix is a
+     * {@link Float64Matrix}.
+     *
+     * @param  that the matrix multiplier.
+     * @return <code>this · that</code>.
+     * @throws DimensionException if <code>
+     *         this.getNumberOfColumns() != that.getNumberOfRows()</code>.
+     */
+    @Override
+    public Matrix<Float64> times(Matrix<Float64> that) {
+        if (that.getNumberOfRows() != _n)
+            throw new DimensionException();
+        if (!(that instanceof SparseMatrix))
+            return Float64CSRMatrix.valueOfMatrix(this).times(that);
+        Float64CSCMatrix B = Float64CSCMatrix.valueOfMatrix(that);
+        return Float64SparseKernels.spgemm(B._n, _m, B._pointers, B._indices, B._values,
+                _pointers, _indices, _values).transpose();
+    }
+
+    /**
+     * Returns the inverse of this matrix (dense) calculated through the
+     * {@link Float64SparseLUDecomposition sparse LU decomposition}.
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this).inverse()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64Matrix inverse() {
+        return Float64SparseLUDecomposition.valueOf(this).inverse();
+    }
+
+    /**
+     * Returns the determinant of this matrix.
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this).determinant()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64 determinant() {
+        return Float64SparseLUDecomposition.valueOf(this).determinant();
+    }
+
+    /**
+     * Solves this matrix for the specified vector (the matrix is not
+     * densified).
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this).solve(y)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64Vector solve(Vector<Float64> y) {
+        return Float64SparseLUDecomposition.valueOf(this).solve(y);
+    }
+
+    /**
+     * Solves this matrix for the specified matrix (the matrix is not
+     * densified).
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this).solve(y)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64Matrix solve(Matrix<Float64> y) {
+        return Float64SparseLUDecomposition.valueOf(this).solve(y);
+    }
+
+    /**
+     * Returns the sparse LU decomposition of this matrix, to be reused for
+     * solving this matrix with many right-hand sides.
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64SparseLUDecomposition factorize() {
+        return Float64SparseLUDecomposition.valueOf(this);
+    }
+
+    @Override
+    public Float64CSRMatrix transpose() {
+        Float64CSRMatrix M = Float64CSRMatrix.FACTORY.object();
+        M._m = _n;
+        M._n = _m;
+        M._pointers = _pointers;
+        M._indices = _indices;
+        M._values = _values;
+        return M;
+    }
+
+    @Override
+    public Float64CSCMatrix copy() {
+        return times(1.0);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,396 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ObjectFactory;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a {@link CSRMatrix compressed sparse row}
+ *     matrix of 64 bits floating point elements held in a
+ *     <code>double[]</code> array.</p>
+ *
+ * <p> The {@link #transpose transpose} of this matrix is a
+ *     {@link Float64CSCMatrix} sharing the same arrays.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public final class Float64CSRMatrix extends CompressedSparseMatrix<Float64>
+        implements Float64LinearOperator {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64CSRMatrix> FACTORY = new ObjectFactory<Float64CSRMatrix>() {
+
+        @Override
+        protected Float64CSRMatrix create() {
+            return new Float64CSRMatrix();
+        }
+
+        @Override
+        protected void cleanup(Float64CSRMatrix matrix) {
+            matrix._pointers = null;
+            matrix._indices = null;
+            matrix._values = null;
+        }
+    };
+
+    /**
+     * Holds the elements in storage order.
+     */
+    double[] _values;
+
+    /**
+     * Default constructor.
+     */
+    private Float64CSRMatrix() {
+    }
+
+    /**
+     * Returns the CSR matrix holding the specified arrays (copied).
+     *
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param rowPointers the start of each row (length <code>m + 1</code>).
+     * @param columnIndices the column indices, increasing within each row.
+     * @param values the elements in storage order.
+     * @return the corresponding matrix.
+     * @throws IllegalArgumentException if the arrays are not a valid
+     *         CSR structure.
+     */
+    public static Float64CSRMatrix valueOf(int m, int n, int[] rowPointers,
+            int[] columnIndices, double[] values) {
+        Float64CSRMatrix M = FACTORY.object();
+        M._m = m;
+        M._n = n;
+        M._pointers = Float64CSRMatrix.check(m, n, rowPointers, columnIndices, values);
+        M._indices = CompressedSparseMatrix.resize(columnIndices, M._pointers[m]);
+        M._values = Float64CSRMatrix.resize(values, M._pointers[m]);
+        return M;
+    }
+
+    // Validates a compressed structure, returns a copy of the pointers.
+    static int[] check(int majors, int minors, int[] pointers, int[] indices,
+            double[] values) {
+        if ((pointers.length != majors + 1) || (pointers[0] != 0))
+            throw new IllegalArgumentException("Invalid pointers");
+        final int nnz = pointers[majors];
+        if ((indices.length < nnz) || (values.length < nnz))
+            throw new IllegalArgumentException("Arrays too short");
+        for (int l = 0; l < majors; l++) {
+            if (pointers[l] > pointers[l + 1])
+                throw new IllegalArgumentException("Decreasing pointers");
+            for (int k = pointers[l], previous = -1; k < pointers[l + 1]; k++) {
+                if ((indices[k] <= previous) || (indices[k] >= minors))
+                    throw new IllegalArgumentException("Invalid index " + indices[k]);
+                previous = indices[k];
+            }
+        }
+        return CompressedSparseMatrix.resize(pointers, majors + 1);
+    }
+
+    /**
+     * Returns the CSR form of the specified matrix (zero elements of dense
+     * matrices are not stored).
+     *
+     * @param that the matrix to convert.
+     * @return <code>that</code> or its CSR form.
+     */
+    public static Float64CSRMatrix valueOfMatrix(Matrix<Float64> that) {
+        if (that instanceof Float64CSRMatrix)
+            return (Float64CSRMatrix) that;
+        Float64CSRMatrix M = FACTORY.object();
+        if (that instanceof Float64CSCMatrix) {
+            Float64CSCMatrix csc = (Float64CSCMatrix) that;
+            M._values = permute(csc._values, M.transposeStructure(csc));
+            return M;
+        }
+        if (that instanceof Float64Matrix) {
+            Float64Matrix A = (Float64Matrix) that;
+            M._m = A._m;
+            M._n = A._n;
+            M._values = compress(M, A._values, A._offset, A._ld, 1);
+            return M;
+        }
+        if (that instanceof Float64Matrix.TransposedView) // Dense transposed view.
+            return Float64CSCMatrix.valueOfMatrix(that.transpose()).transpose();
+        if (that instanceof CSCMatrix)
+            return Float64CSRMatrix.valueOfMatrix(CSRMatrix.valueOf(that));
+        if (that instanceof SparseMatrixImpl.TransposedView) // Map-based columns.
+            return Float64CSRMatrix.valueOfMatrix(Float64CSCMatrix.valueOfMatrix(that));
+        Object[] values;
+        if (that instanceof CSRMatrix) { // Shares the structure.
+            CSRMatrix<Float64> csr = (CSRMatrix<Float64>) that;
+            M._m = csr._m;
+            M._n = csr._n;
+            M._pointers = csr._pointers;
+            M._indices = csr._indices;
+            values = csr._values;
+        } else {
+            values = M.compress(that, true);
+        }
+        M._values = new double[values.length];
+        for (int k = 0; k < values.length; k++) {
+            M._values[k] = ((Float64) values[k]).doubleValue();
+        }
+        return M;
+    }
+
+    /**
+     * Sets the structure of the specified matrix (dimensions already set)
+     * from the non-zero elements of a dense array and returns these elements.
+     *
+     * @param M the compressed matrix whose structure is set.
+     * @param elements the dense elements.
+     * @param offset the position of the first element.
+     * @param majorStride the distance between two major lines.
+     * @param minorStride the distance between two elements of a line.
+     * @return the non-zero elements in storage order.
+     */
+    static double[] compress(CompressedSparseMatrix<Float64> M, double[] elements,
+            int offset, int majorStride, int minorStride) {
+        final int majors = M.getMajorDimension();
+        final int minors = M.isRowCompressed() ? M._n : M._m;
+        M._pointers = new int[majors + 1];
+        int nnz = 0;
+        for (int l = 0; l < majors; l++) { // Counts.
+            for (int q = 0, k = offset + l * majorStride; q < minors; q++, k += minorStride) {
+                if (elements[k] != 0.0) {
+                    nnz++;
+                }
+            }
+            M._pointers[l + 1] = nnz;
+        }
+        M._indices = new int[nnz];
+        double[] values = new double[nnz];
+        nnz = 0;
+        for (int l = 0; l < majors; l++) {
+            for (int q = 0, k = offset + l * majorStride; q < minors; q++, k += minorStride) {
+                if (elements[k] != 0.0) {
+                    M._indices[nnz] = q;
+                    values[nnz++] = elements[k];
+                }
+            }
+        }
+        return values;
+    }
+
+    // Returns the elements reordered (values[permutation[k]]).
+    static double[] permute(double[] values, int[] permutation) {
+        double[] tmp = new double[permutation.length];
+        for (int k = 0; k < tmp.length; k++) {
+            tmp[k] = values[permutation[k]];
+        }
+        return tmp;
+    }
+
+    // Returns a copy of the specified array with the specified length.
+    static double[] resize(double[] array, int length) {
+        double[] tmp = new double[length];
+        System.arraycopy(array, 0, tmp, 0, Math.min(array.length, length));
+        return tmp;
+    }
+
+    /**
+     * Returns the <code>double</code> value of a single element of
+     * this matrix.
+     *
+     * @param  i the row index (range [0..m[).
+     * @param  j the column index (range [0..n[).
+     * @return the element read at [i,j].
+     * @throws IndexOutOfBoundsException <code>
+     *         ((i < 0) || (i >= m)) || ((j < 0) || (j >= n))</code>
+     */
+    public double getValue(int i, int j) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        int k = find(i, j);
+        return (k < 0) ? 0.0 : _values[k];
+    }
+
+    @Override
+    boolean isRowCompressed() {
+        return true;
+    }
+
+    @Override
+    Float64 valueAt(int k) {
+        return Float64.valueOf(_values[k]);
+    }
+
+    @Override
+    Float64 getZero() {
+        return Float64.ZERO;
+    }
+
+    @Override
+    public Float64CSRMatrix opposite() {
+        return times(-1.0);
+    }
+
+    @Override
+    public Float64CSRMatrix times(Float64 k) {
+        return times(k.doubleValue());
+    }
+
+    /**
+     * Returns the product of this matrix by the specified factor.
+     *
+     * @param k the coefficient multiplier.
+     * @return <code>this · k</code>
+     */
+    public Float64CSRMatrix times(double k) {
+        Float64CSRMatrix M = FACTORY.object();
+        M._m = _m;
+        M._n = _n;
+        M._pointers = _pointers; // Immutable structure.
+        M._indices = _indices;
+        M._values = new double[_values.length];
+        Float64Kernels.scale(_values.length, k, _values, 0, 1, M._values, 0);
+        return M;
+    }
+
+    /**
+     * Returns the product of this matrix by the specified column vector
+     * (row-parallel for large matrices).
+     *
+     * @param  v the column vector.
+     * @return <code>this · v</code>
+     * @throws DimensionException if <code>
+     *         v.getDimension() != this.getNumberOfColumns()<code>
+     */
+    @Override
+    public Float64Vector times(Vector<Float64> v) {
+        if (v.getDimension() != _n)
+            throw new DimensionException();
+        Float64Vector x = Float64Vector.valueOfVector(v);
+        Float64Vector y = Float64Vector.FACTORY.array(_m);
+        y._dimension = _m;
+        Float64SparseKernels.spmv(_m, _pointers, _indices, _values,
+                x._values, x._offset, x._stride, y._values, 0);
+        return y;
+    }
+
+    // Implements Float64LinearOperator.
+    public void times(double[] x, double[] y) {
+        Float64SparseKernels.spmv(_m, _pointers, _indices, _values, x, 0, 1, y, 0);
+    }
+
+    /**
+     * Returns the product of this matrix with the one specified; the
+     * product of sparse matrices is a {@link Float64CSRMatrix}, the
+     * product with a dense matrix is a {@link Float64Matrix}.
+     *
+     * @param  that the matrix multiplier.
+     * @return <code>this · that</code>.
+     * @throws DimensionException if <code>
+     *         this.getNumberOfColumns() != that.getNumberOfRows()</code>.
+     */
+    @Override
+    public Matrix<Float64> times(Matrix<Float64> that) {
+        if (that.getNumberOfRows() != _n)
+            throw new DimensionException();
+        final int p = that.getNumberOfColumns();
+        if (that instanceof SparseMatrix) {
+            Float64CSRMatrix B = Float64CSRMatrix.valueOfMatrix(that);
+            return Float64SparseKernels.spgemm(_m, p, _pointers, _indices, _values,
+                    B._pointers, B._indices, B._values);
+        }
+        Float64Matrix C = Float64Matrix.newInstance(_m, p);
+        if (that instanceof Float64Matrix.TransposedView) { // Dense transposed view.
+            Float64Matrix B = (Float64Matrix) that.transpose();
+            Float64SparseKernels.spmm(_m, p, _pointers, _indices, _values,
+                    B._values, B._offset, 1, B._ld, C._values, 0, p);
+        } else {
+            Float64Matrix B = Float64Matrix.valueOfMatrix(that);
+            Float64SparseKernels.spmm(_m, p, _pointers, _indices, _values,
+                    B._values, B._offset, B._ld, 1, C._values, 0, p);
+        }
+        return C;
+    }
+
+    /**
+     * Returns the inverse of this matrix (dense) calculated through the
+     * {@link Float64SparseLUDecomposition sparse LU decomposition}.
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this).inverse()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64Matrix inverse() {
+        return Float64SparseLUDecomposition.valueOf(this).inverse();
+    }
+
+    /**
+     * Returns the determinant of this matrix.
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this).determinant()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64 determinant() {
+        return Float64SparseLUDecomposition.valueOf(this).determinant();
+    }
+
+    /**
+     * Solves this matrix for the specified vector (the matrix is not
+     * densified).
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this).solve(y)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64Vector solve(Vector<Float64> y) {
+        return Float64SparseLUDecomposition.valueOf(this).solve(y);
+    }
+
+    /**
+     * Solves this matrix for the specified matrix (the matrix is not
+     * densified).
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this).solve(y)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64Matrix solve(Matrix<Float64> y) {
+        return Float64SparseLUDecomposition.valueOf(this).solve(y);
+    }
+
+    /**
+     * Returns the sparse LU decomposition of this matrix, to be reused for
+     * solving this matrix with many right-hand sides.
+     *
+     * @return <code>Float64SparseLUDecomposition.valueOf(this)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64SparseLUDecomposition factorize() {
+        return Float64SparseLUDecomposition.valueOf(this);
+    }
+
+    @Override
+    public Float64CSCMatrix transpose() {
+        Float64CSCMatrix M = Float64CSCMatrix.FACTORY.object();
+        M._m = _n;
+        M._n = _m;
+        M._pointers = _pointers;
+        M._indices = _indices;
+        M._values = _values;
+        return M;
+    }
+
+    @Override
+    public Float64CSRMatrix copy() {
+        return times(1.0);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,335 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the Cholesky decomposition of a symmetric
+ *     positive-definite 64 bits floating point {@link Matrix matrix}
+ *     <code>A</code> into the product <code>A = L·L'</code> with
+ *     <code>L</code> a {@link #getLower lower} triangular matrix.</p>
+ *
+ * <p> Only the lower triangle of the matrix source is read. The
+ *     decomposition costs about half the {@link Float64LUDecomposition LU}
+ *     decomposition (<code>n³/3</code> multiply-add); it is blocked and
+ *     the trailing sub-matrix updates (<code>A22 = A22 - L21·L21'</code>)
+ *     are executed concurrently for large matrices.</p>
+ *
+ * <p> The decomposition can be {@link #update updated} or
+ *     {@link #downdate downdated} in place for a rank-one modification
+ *     of the matrix source (<code>O(n²)</code> instead of refactoring).</p>
+ *
+ * <p> For symmetric matrices which are not positive-definite,
+ *     the {@link LDLDecomposition} should be used.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Cholesky_decomposition">
+ *      Wikipedia: Cholesky decomposition</a>
+ */
+public final class Float64CholeskyDecomposition implements Solver<Float64> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64CholeskyDecomposition> FACTORY = new ObjectFactory<Float64CholeskyDecomposition>() {
+
+        protected Float64CholeskyDecomposition create() {
+            return new Float64CholeskyDecomposition();
+        }
+
+        @Override
+        protected void cleanup(Float64CholeskyDecomposition cholesky) {
+            cholesky._L = null;
+        }
+    };
+
+    /**
+     * Holds the dimension of the square matrix source.
+     */
+    private int _n;
+
+    /**
+     * Holds the lower factor in the lower triangle (contiguous,
+     * <code>ld == n</code>); the upper triangle is undetermined.
+     */
+    private Float64Matrix _L;
+
+    /**
+     * Default constructor.
+     */
+    private Float64CholeskyDecomposition() {
+    }
+
+    /**
+     * Returns the Cholesky decomposition of the specified symmetric
+     * positive-definite matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the Cholesky decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     * @throws ArithmeticException if the specified matrix is not
+     *         positive-definite.
+     */
+    public static Float64CholeskyDecomposition valueOf(Matrix<Float64> source) {
+        if (!source.isSquare())
+            throw new DimensionException("Matrix is not square");
+        Float64CholeskyDecomposition cholesky = FACTORY.object();
+        cholesky._n = source.getNumberOfRows();
+        cholesky.construct(Float64Matrix.valueOfMatrix(source).copy());
+        return cholesky;
+    }
+
+    /**
+     * Constructs the decomposition (in place).
+     */
+    private void construct(Float64Matrix L) {
+        _L = L;
+        final int n = _n;
+        final double[] a = L._values;
+        for (int k = 0; k < n; k += Float64LUDecomposition.BLOCK_SIZE) {
+            final int nb = MathLib.min(Float64LUDecomposition.BLOCK_SIZE, n - k);
+
+            // Factors the diagonal block.
+            for (int j = k; j < k + nb; j++) {
+                double d = a[j * n + j] - Float64Kernels.sumOfSquares(j - k, a, j * n + k, 1);
+                if (!(d > 0.0))
+                    throw new ArithmeticException("Matrix is not positive-definite");
+                final double ljj = MathLib.sqrt(d);
+                a[j * n + j] = ljj;
+                for (int i = j + 1; i < k + nb; i++) {
+                    a[i * n + j] = (a[i * n + j] - Float64Kernels.dot(j - k,
+                            a, i * n + k, 1, a, j * n + k, 1)) / ljj;
+                }
+            }
+
+            final int n2 = n - k - nb; // Trailing dimension.
+            if (n2 == 0)
+                break;
+
+            // L21 = A21 · inv(L11')
+            for (int i = k + nb; i < n; i++) {
+                for (int j = k; j < k + nb; j++) {
+                    a[i * n + j] = (a[i * n + j] - Float64Kernels.dot(j - k,
+                            a, i * n + k, 1, a, j * n + k, 1)) / a[j * n + j];
+                }
+            }
+
+            // A22 = A22 - L21 · L21' (lower triangle)
+            Float64Kernels.syrkLower(n2, nb, -1.0, a, (k + nb) * n + k, n,
+                    a, (k + nb) * n + k + nb, n);
+        }
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.cholesky()</code> using forward and back substitutions.
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Matrix solve(Matrix<Float64> B) {
+        if (_n != B.getNumberOfRows())
+            throw new DimensionException("Input vector has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        final int p = B.getNumberOfColumns();
+        Float64Matrix X = Float64Matrix.valueOfMatrix(B).copy();
+        substitute(X._values, p);
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.cholesky()</code> using forward and back substitutions.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Vector solve(Vector<Float64> y) {
+        if (_n != y.getDimension())
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + _n);
+        Float64Vector x = Float64Vector.valueOfVector(y).copy();
+        substitute(x._values, 1);
+        return x;
+    }
+
+    /**
+     * Returns the inverse of the matrix source.
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    public Float64Matrix inverse() {
+        final int n = _n;
+        Float64Matrix X = Float64Matrix.newInstance(n, n);
+        Arrays.fill(X._values, 0, n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            X._values[i * n + i] = 1.0;
+        }
+        substitute(X._values, n);
+        return X;
+    }
+
+    /**
+     * Solves <code>L·L'·X = B</code> in place (B being the n-by-p
+     * contiguous matrix x), by blocks of rows.
+     */
+    private void substitute(double[] x, int p) {
+        final int n = _n;
+        final double[] a = _L._values;
+        final int nb = Float64LUDecomposition.BLOCK_SIZE;
+
+        // Solves L * Y = B
+        for (int b = 0; b < n; b += nb) {
+            final int e = MathLib.min(b + nb, n);
+            if (b > 0) { // Y[b:e] -= L[b:e, 0:b] · Y[0:b]
+                Float64Kernels.gemm(e - b, p, b, -1.0, a, b * n, n, 1,
+                        x, 0, p, 1, x, b * p, p);
+            }
+            for (int i = b; i < e; i++) {
+                for (int q = b; q < i; q++) {
+                    Float64Kernels.axpy(p, -a[i * n + q], x, q * p, 1,
+                            x, i * p, 1, x, i * p);
+                }
+                Float64Kernels.scale(p, 1.0 / a[i * n + i], x, i * p, 1, x, i * p);
+            }
+        }
+
+        // Solves L' * X = Y (L' read through exchanged strides).
+        for (int e = n; e > 0; e -= nb) {
+            final int b = MathLib.max(0, e - nb);
+            if (e < n) { // X[b:e] -= L'[b:e, e:n] · X[e:n]
+                Float64Kernels.gemm(e - b, p, n - e, -1.0, a, e * n + b, 1, n,
+                        x, e * p, p, 1, x, b * p, p);
+            }
+            for (int i = e - 1; i >= b; i--) {
+                for (int q = i + 1; q < e; q++) {
+                    Float64Kernels.axpy(p, -a[q * n + i], x, q * p, 1,
+                            x, i * p, 1, x, i * p);
+                }
+                Float64Kernels.scale(p, 1.0 / a[i * n + i], x, i * p, 1, x, i * p);
+            }
+        }
+    }
+
+    /**
+     * Updates this decomposition to the decomposition of
+     * <code>A + x·x'</code> (rank-one update in <code>O(n²)</code>).
+     *
+     * @param x the update vector.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public void update(Vector<Float64> x) {
+        rankOne(valuesOf(x), false);
+    }
+
+    /**
+     * Updates this decomposition to the decomposition of
+     * <code>A - x·x'</code> (rank-one downdate in <code>O(n²)</code>).
+     *
+     * @param x the downdate vector.
+     * @throws DimensionException if the dimensions do not match.
+     * @throws ArithmeticException if <code>A - x·x'</code> is not
+     *         positive-definite (this decomposition is then unchanged).
+     */
+    public void downdate(Vector<Float64> x) {
+        final double[] w = valuesOf(x);
+        final int n = _n;
+        final double[] a = _L._values;
+        final double[] p = w.clone(); // p = inv(L)·x
+        for (int i = 0; i < n; i++) {
+            p[i] = (p[i] - Float64Kernels.dot(i, a, i * n, 1, p, 0, 1)) / a[i * n + i];
+        }
+        if (!(Float64Kernels.sumOfSquares(n, p, 0, 1) < 1.0))
+            throw new ArithmeticException("Matrix is not positive-definite");
+        rankOne(w, true);
+    }
+
+    // Returns the elements of the specified vector (copy).
+    private double[] valuesOf(Vector<Float64> x) {
+        if (x.getDimension() != _n)
+            throw new DimensionException("Vector has " + x.getDimension()
+                    + " elements instead of " + _n);
+        Float64Vector X = Float64Vector.valueOfVector(x);
+        final double[] w = new double[_n];
+        for (int i = 0; i < _n; i++) {
+            w[i] = X._values[X._offset + i * X._stride];
+        }
+        return w;
+    }
+
+    // Performs the rank-one update (or downdate) of L (w is overwritten).
+    private void rankOne(double[] w, boolean downdate) {
+        final int n = _n;
+        final double[] a = _L._values;
+        final double sign = downdate ? -1.0 : 1.0;
+        for (int k = 0; k < n; k++) {
+            final double lkk = a[k * n + k];
+            final double r = MathLib.sqrt(lkk * lkk + sign * w[k] * w[k]);
+            final double c = r / lkk;
+            final double s = w[k] / lkk;
+            a[k * n + k] = r;
+            for (int i = k + 1; i < n; i++) {
+                final double lik = (a[i * n + k] + sign * s * w[i]) / c;
+                a[i * n + k] = lik;
+                w[i] = c * w[i] - s * lik;
+            }
+        }
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition.
+     *
+     * @return the determinant of the matrix source.
+     */
+    public Float64 determinant() {
+        final double[] a = _L._values;
+        double product = 1.0;
+        for (int i = 0; i < _n; i++) {
+            product *= a[i * _n + i];
+        }
+        return Float64.valueOf(product * product);
+    }
+
+    /**
+     * Returns the natural logarithm of the determinant of the {@link Matrix}
+     * having this decomposition (no overflow for large matrices).
+     *
+     * @return <code>log(determinant())</code>
+     */
+    public double logDeterminant() {
+        final double[] a = _L._values;
+        double sum = 0.0;
+        for (int i = 0; i < _n; i++) {
+            sum += MathLib.log(a[i * _n + i]);
+        }
+        return 2.0 * sum;
+    }
+
+    /**
+     * Returns the lower matrix decomposition (<code>L</code>).
+     *
+     * @return the lower matrix.
+     */
+    public Float64Matrix getLower() {
+        Float64Matrix L = _L.copy();
+        for (int i = 0; i < _n; i++) {
+            Arrays.fill(L._values, i * _n + i + 1, (i + 1) * _n, 0.0);
+        }
+        return L;
+    }
+
+}
@@ -0,0 +1,310 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ObjectFactory;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a circulant matrix of 64 bits floating point
+ *     elements, each column being the previous one rotated down by one
+ *     (element <code>[i,j] = c[(i-j) mod n]</code>, <code>c</code> being
+ *     the first column). Only the first column and the eigenvalues are
+ *     stored.</p>
+ *
+ * <p> Circulant matrices are diagonalized by the discrete Fourier
+ *     transform (their eigenvalues are the transform of the first column):
+ *     products and solving cost <code>O(n·log(n))</code> through the
+ *     {@link Float64FFT FFT} and circulant matrices are their own
+ *     {@link Solver}. Sums, products and inverses of circulant matrices
+ *     are circulant.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Circulant_matrix">
+ *      Wikipedia: Circulant matrix</a>
+ */
+public final class Float64CirculantMatrix extends Float64StructuredMatrix
+        implements Solver<Float64> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64CirculantMatrix> FACTORY = new ObjectFactory<Float64CirculantMatrix>() {
+
+        @Override
+        protected Float64CirculantMatrix create() {
+            return new Float64CirculantMatrix();
+        }
+
+        @Override
+        protected void cleanup(Float64CirculantMatrix matrix) {
+            matrix._values = null;
+            matrix._eigenRe = null;
+            matrix._eigenIm = null;
+        }
+    };
+
+    /**
+     * Holds the first column.
+     */
+    double[] _values;
+
+    /**
+     * Holds the real parts of the eigenvalues.
+     */
+    private double[] _eigenRe;
+
+    /**
+     * Holds the imaginary parts of the eigenvalues.
+     */
+    private double[] _eigenIm;
+
+    /**
+     * Default constructor.
+     */
+    private Float64CirculantMatrix() {
+    }
+
+    /**
+     * Returns the circulant matrix having the specified first column
+     * (copied).
+     *
+     * @param column the first column.
+     * @return the corresponding matrix.
+     */
+    public static Float64CirculantMatrix valueOf(double... column) {
+        return Float64CirculantMatrix.newInstance(column.clone());
+    }
+
+    /**
+     * Returns the circulant matrix having the first column of the
+     * specified matrix (the other columns are ignored).
+     *
+     * @param that the square matrix.
+     * @return <code>that</code> or the corresponding circulant matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static Float64CirculantMatrix valueOf(Matrix<Float64> that) {
+        if (that instanceof Float64CirculantMatrix)
+            return (Float64CirculantMatrix) that;
+        if (!that.isSquare())
+            throw new DimensionException("Matrix is not square");
+        return Float64CirculantMatrix.newInstance(
+                Float64StructuredMatrix.valuesOf(that.getColumn(0)));
+    }
+
+    // Returns a circulant matrix holding the specified column.
+    static Float64CirculantMatrix newInstance(double[] column) {
+        final int n = column.length;
+        Float64CirculantMatrix M = FACTORY.object();
+        M._n = n;
+        M._values = column;
+        M._eigenRe = column.clone();
+        M._eigenIm = new double[n];
+        Float64FFT.transform(n, M._eigenRe, M._eigenIm, false);
+        return M;
+    }
+
+    /**
+     * Returns the first column of this matrix.
+     *
+     * @return the first column.
+     */
+    public Float64Vector getFirstColumn() {
+        return Float64Vector.valueOf(_values);
+    }
+
+    @Override
+    public double getValue(int i, int j) {
+        final int k = i - j;
+        return _values[(k < 0) ? k + _n : k];
+    }
+
+    @Override
+    public Matrix<Float64> plus(Matrix<Float64> that) {
+        if (!(that instanceof Float64CirculantMatrix))
+            return super.plus(that);
+        Float64CirculantMatrix C = (Float64CirculantMatrix) that;
+        if (C._n != _n)
+            throw new DimensionException();
+        final double[] column = new double[_n];
+        Float64Kernels.axpy(_n, 1.0, C._values, 0, 1, _values, 0, 1, column, 0);
+        return Float64CirculantMatrix.newInstance(column);
+    }
+
+    @Override
+    public Float64CirculantMatrix times(double k) {
+        final double[] column = new double[_n];
+        Float64Kernels.scale(_n, k, _values, 0, 1, column, 0);
+        return Float64CirculantMatrix.newInstance(column);
+    }
+
+    // Implements Float64LinearOperator.
+    public void times(double[] x, double[] y) {
+        apply(x, y, false);
+    }
+
+    /**
+     * Returns the product of this matrix with the one specified; the
+     * product of circulant matrices is circulant.
+     *
+     * @param  that the matrix multiplier.
+     * @return <code>this · that</code>.
+     * @throws DimensionException if <code>
+     *         this.getNumberOfColumns() != that.getNumberOfRows()</code>.
+     */
+    @Override
+    public Matrix<Float64> times(Matrix<Float64> that) {
+        if (!(that instanceof Float64CirculantMatrix))
+            return super.times(that);
+        Float64CirculantMatrix C = (Float64CirculantMatrix) that;
+        if (C._n != _n)
+            throw new DimensionException();
+        final double[] column = new double[_n];
+        apply(C._values, column, false); // First column of the product.
+        return Float64CirculantMatrix.newInstance(column);
+    }
+
+    /**
+     * Sets y to the product (or solution) of this matrix with x through
+     * the Fourier transform.
+     */
+    private void apply(double[] x, double[] y, boolean solve) {
+        final int n = _n;
+        final double[] re = new double[n];
+        final double[] im = new double[n];
+        System.arraycopy(x, 0, re, 0, n);
+        Float64FFT.transform(n, re, im, false);
+        for (int k = 0; k < n; k++) {
+            final double lr = _eigenRe[k], li = _eigenIm[k];
+            if (solve) { // Division by the eigenvalue.
+                final double d = lr * lr + li * li;
+                final double r = (re[k] * lr + im[k] * li) / d;
+                im[k] = (im[k] * lr - re[k] * li) / d;
+                re[k] = r;
+            } else {
+                final double r = re[k] * lr - im[k] * li;
+                im[k] = re[k] * li + im[k] * lr;
+                re[k] = r;
+            }
+        }
+        Float64FFT.transform(n, re, im, true);
+        for (int i = 0; i < n; i++) {
+            y[i] = re[i] / n;
+        }
+    }
+
+    /**
+     * Returns the solution X of the equation: this * X = B (each column
+     * solved through the Fourier transform).
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / this) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    @Override
+    public Float64Matrix solve(Matrix<Float64> B) {
+        if (B.getNumberOfRows() != _n)
+            throw new DimensionException("Input matrix has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        final int n = _n;
+        final int p = B.getNumberOfColumns();
+        Float64Matrix T = Float64Matrix.valueOfMatrix(B);
+        Float64Matrix X = Float64Matrix.newInstance(n, p);
+        final double[] y = new double[n];
+        final double[] x = new double[n];
+        for (int j = 0; j < p; j++) {
+            for (int i = 0; i < n; i++) {
+                y[i] = T._values[T._offset + i * T._ld + j];
+            }
+            apply(y, x, true);
+            for (int i = 0; i < n; i++) {
+                X._values[i * p + j] = x[i];
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: this * x = y
+     * (through the Fourier transform).
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / this) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    @Override
+    public Float64Vector solve(Vector<Float64> y) {
+        if (y.getDimension() != _n)
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + _n);
+        Float64Vector x = Float64Vector.FACTORY.array(_n);
+        x._dimension = _n;
+        apply(Float64StructuredMatrix.valuesOf(y), x._values, true);
+        return x;
+    }
+
+    /**
+     * Returns the inverse of this matrix (circulant).
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    @Override
+    public Float64CirculantMatrix inverse() {
+        final double[] e0 = new double[_n];
+        e0[0] = 1.0;
+        final double[] column = new double[_n];
+        apply(e0, column, true);
+        return Float64CirculantMatrix.newInstance(column);
+    }
+
+    /**
+     * Returns the determinant of this matrix (product of its eigenvalues).
+     *
+     * @return this matrix determinant.
+     */
+    @Override
+    public Float64 determinant() {
+        double re = 1.0, im = 0.0;
+        for (int k = 0; k < _n; k++) {
+            final double r = re * _eigenRe[k] - im * _eigenIm[k];
+            im = re * _eigenIm[k] + im * _eigenRe[k];
+            re = r;
+        }
+        return Float64.valueOf(re); // Conjugate eigenvalues (real product).
+    }
+
+    /**
+     * Returns this matrix (circulant matrices are solved through the
+     * Fourier transform).
+     *
+     * @return <code>this</code>
+     */
+    @Override
+    public Float64CirculantMatrix factorize() {
+        return this;
+    }
+
+    @Override
+    public Float64CirculantMatrix transpose() {
+        final double[] column = new double[_n];
+        for (int k = 0; k < _n; k++) { // First row of this matrix.
+            column[k] = _values[(_n - k) % _n];
+        }
+        return Float64CirculantMatrix.newInstance(column);
+    }
+
+    @Override
+    public Float64CirculantMatrix copy() {
+        return times(1.0);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,226 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.nio.DoubleBuffer;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class holds the {@link Float64Kernels} counterparts operating
+ *     on <code>DoubleBuffer</code> (direct buffers for off-heap matrices
+ *     and vectors, or wrapped <code>double[]</code>). Elements are
+ *     accessed by index (absolute get/put), products are performed by
+ *     blocks packed on the heap and multiplied through
+ *     {@link Float64Kernels#gemm}.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+final class Float64DirectKernels {
+
+    /**
+     * Holds the dimension of the blocks packed for products.
+     */
+    static final int BLOCK_SIZE = 256;
+
+    /**
+     * Default constructor (static methods only).
+     */
+    private Float64DirectKernels() {
+    }
+
+    /**
+     * Holds the elements of an operand (off-heap or on the heap).
+     */
+    static final class Operand {
+
+        /**
+         * Holds the buffer.
+         */
+        DoubleBuffer _buffer;
+
+        /**
+         * Holds the index of the first element.
+         */
+        int _offset;
+
+        /**
+         * Holds the row stride (or the stride of vectors).
+         */
+        int _rowStride;
+
+        /**
+         * Holds the column stride.
+         */
+        int _columnStride;
+    }
+
+    /**
+     * Returns the operand holding the elements of the specified matrix
+     * (copied only if neither off-heap nor a {@link Float64Matrix}).
+     */
+    static Operand operandOf(Matrix<Float64> matrix) {
+        Operand op = new Operand();
+        if (matrix instanceof Float64DirectMatrix) {
+            Float64DirectMatrix M = (Float64DirectMatrix) matrix;
+            op._buffer = M._arena.buffer(M._chunk);
+            op._offset = M._offset;
+            op._rowStride = M._rowStride;
+            op._columnStride = M._columnStride;
+        } else if (matrix instanceof Float64Matrix.TransposedView) { // Transposed view.
+            Float64Matrix M = (Float64Matrix) matrix.transpose();
+            op._buffer = DoubleBuffer.wrap(M._values);
+            op._offset = M._offset;
+            op._rowStride = 1;
+            op._columnStride = M._ld;
+        } else {
+            Float64Matrix M = Float64Matrix.valueOfMatrix(matrix);
+            op._buffer = DoubleBuffer.wrap(M._values);
+            op._offset = M._offset;
+            op._rowStride = M._ld;
+            op._columnStride = 1;
+        }
+        return op;
+    }
+
+    /**
+     * Returns the operand holding the elements of the specified vector
+     * (copied only if neither off-heap nor a {@link Float64Vector}).
+     */
+    static Operand operandOf(Vector<Float64> vector) {
+        Operand op = new Operand();
+        if (vector instanceof Float64DirectVector) {
+            Float64DirectVector V = (Float64DirectVector) vector;
+            op._buffer = V._arena.buffer(V._chunk);
+            op._offset = V._offset;
+            op._rowStride = V._stride;
+        } else {
+            Float64Vector V = Float64Vector.valueOfVector(vector);
+            op._buffer = DoubleBuffer.wrap(V._values);
+            op._offset = V._offset;
+            op._rowStride = V._stride;
+        }
+        return op;
+    }
+
+    /**
+     * Returns the dot product <code>x · y</code>.
+     */
+    static double dot(int n, DoubleBuffer x, int xOff, int incX,
+            DoubleBuffer y, int yOff, int incY) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0; // Independent accumulators.
+        int i = 0;
+        for (; i + 3 < n; i += 4, xOff += 4 * incX, yOff += 4 * incY) {
+            s0 += x.get(xOff) * y.get(yOff);
+            s1 += x.get(xOff + incX) * y.get(yOff + incY);
+            s2 += x.get(xOff + 2 * incX) * y.get(yOff + 2 * incY);
+            s3 += x.get(xOff + 3 * incX) * y.get(yOff + 3 * incY);
+        }
+        for (; i < n; i++, xOff += incX, yOff += incY) {
+            s0 += x.get(xOff) * y.get(yOff);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Performs <code>z = alpha · x + y</code>. The destination may be
+     * x or y (same elements).
+     */
+    static void axpy(int n, double alpha, DoubleBuffer x, int xOff, int incX,
+            DoubleBuffer y, int yOff, int incY, DoubleBuffer z, int zOff, int incZ) {
+        for (int i = 0; i < n; i++, xOff += incX, yOff += incY, zOff += incZ) {
+            z.put(zOff, y.get(yOff) + alpha * x.get(xOff));
+        }
+    }
+
+    /**
+     * Performs <code>z = alpha · x</code>. The destination may be x
+     * (same elements).
+     */
+    static void scale(int n, double alpha, DoubleBuffer x, int xOff, int incX,
+            DoubleBuffer z, int zOff, int incZ) {
+        for (int i = 0; i < n; i++, xOff += incX, zOff += incZ) {
+            z.put(zOff, alpha * x.get(xOff));
+        }
+    }
+
+    /**
+     * Performs <code>C += alpha · A · B</code> where A is m-by-k, B is
+     * k-by-n and C is m-by-n (any strides). Blocks of A, B and C are
+     * copied into heap buffers, multiplied and C blocks written back.
+     * C should not share elements with A or B.
+     */
+    static void gemm(int m, int n, int k, double alpha,
+            DoubleBuffer a, int aOff, int aRs, int aCs,
+            DoubleBuffer b, int bOff, int bRs, int bCs,
+            DoubleBuffer c, int cOff, int cRs, int cCs) {
+        if ((m == 0) || (n == 0) || (k == 0) || (alpha == 0.0))
+            return;
+        final int bs = BLOCK_SIZE;
+        final double[] ap = new double[MathLib.min(bs, m) * MathLib.min(bs, k)];
+        final double[] bp = new double[MathLib.min(bs, k) * MathLib.min(bs, n)];
+        final double[] cp = new double[MathLib.min(bs, m) * MathLib.min(bs, n)];
+        for (int i0 = 0; i0 < m; i0 += bs) {
+            final int mb = MathLib.min(bs, m - i0);
+            for (int j0 = 0; j0 < n; j0 += bs) {
+                final int nb = MathLib.min(bs, n - j0);
+                final int cBlock = cOff + i0 * cRs + j0 * cCs;
+                for (int r = 0; r < mb; r++) {
+                    read(c, cBlock + r * cRs, cCs, cp, r * nb, nb);
+                }
+                for (int p0 = 0; p0 < k; p0 += bs) {
+                    final int kb = MathLib.min(bs, k - p0);
+                    for (int r = 0; r < mb; r++) {
+                        read(a, aOff + (i0 + r) * aRs + p0 * aCs, aCs, ap, r * kb, kb);
+                    }
+                    for (int r = 0; r < kb; r++) {
+                        read(b, bOff + (p0 + r) * bRs + j0 * bCs, bCs, bp, r * nb, nb);
+                    }
+                    Float64Kernels.gemm(mb, nb, kb, alpha, ap, 0, kb, 1, bp, 0, nb, 1, cp, 0, nb);
+                }
+                for (int r = 0; r < mb; r++) {
+                    write(cp, r * nb, nb, c, cBlock + r * cRs, cCs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the specified elements of a buffer into an array.
+     */
+    static void read(DoubleBuffer src, int index, int stride,
+            double[] dst, int dstOff, int length) {
+        if (stride == 1) { // Bulk transfer.
+            DoubleBuffer tmp = src.duplicate();
+            tmp.position(index);
+            tmp.get(dst, dstOff, length);
+            return;
+        }
+        for (int i = 0; i < length; i++, index += stride) {
+            dst[dstOff + i] = src.get(index);
+        }
+    }
+
+    /**
+     * Copies the specified elements of an array into a buffer.
+     */
+    static void write(double[] src, int srcOff, int length,
+            DoubleBuffer dst, int index, int stride) {
+        if (stride == 1) { // Bulk transfer.
+            DoubleBuffer tmp = dst.duplicate();
+            tmp.position(index);
+            tmp.put(src, srcOff, length);
+            return;
+        }
+        for (int i = 0; i < length; i++, index += stride) {
+            dst.put(index, src[srcOff + i]);
+        }
+    }
+}
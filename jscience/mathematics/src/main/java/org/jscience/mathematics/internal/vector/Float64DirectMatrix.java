@@ -0,0 +1,497 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.nio.DoubleBuffer;
+import java.util.List;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a 64 bits floating point dense matrix held
+ *     outside of the Java heap, in a {@link Float64Arena}.</p>
+ *
+ * <p> The elements are held in a direct buffer of the arena with
+ *     arbitrary row and column strides; rows, columns, the diagonal,
+ *     ranges of rows and columns and the transpose are views sharing the
+ *     elements of this matrix (no copy is performed). Sums, products and
+ *     scaling operate directly on the off-heap elements (products by
+ *     blocks packed on the heap, see {@link Float64Kernels#gemm});
+ *     matrices returned are allocated from the arena of this matrix,
+ *     the destination-passing and in-place variants do not allocate.
+ *     Operands on the heap ({@link Float64Matrix}) are read in place.</p>
+ *
+ * <p> The inverse, determinant and solutions are calculated on a heap copy
+ *     through the {@link Float64LUDecomposition LU decomposition}.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public final class Float64DirectMatrix extends DenseMatrix<Float64> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64DirectMatrix> FACTORY = new ObjectFactory<Float64DirectMatrix>() {
+
+        @Override
+        protected Float64DirectMatrix create() {
+            return new Float64DirectMatrix();
+        }
+
+        @Override
+        protected void cleanup(Float64DirectMatrix matrix) {
+            matrix._arena = null;
+        }
+    };
+
+    /**
+     * Holds the arena holding the elements.
+     */
+    Float64Arena _arena;
+
+    /**
+     * Holds the index of the arena buffer.
+     */
+    int _chunk;
+
+    /**
+     * Holds the index of the element <code>[0,0]</code> in the buffer.
+     */
+    int _offset;
+
+    /**
+     * Holds the number of rows.
+     */
+    int _m;
+
+    /**
+     * Holds the number of columns.
+     */
+    int _n;
+
+    /**
+     * Holds the distance between two consecutive rows in the buffer.
+     */
+    int _rowStride;
+
+    /**
+     * Holds the distance between two consecutive columns in the buffer.
+     */
+    int _columnStride;
+
+    /**
+     * Default constructor.
+     */
+    private Float64DirectMatrix() {
+    }
+
+    /**
+     * Returns the matrix over the specified elements of an arena buffer.
+     */
+    static Float64DirectMatrix valueOf(Float64Arena arena, int chunk, int offset,
+            int m, int n, int rowStride, int columnStride) {
+        Float64DirectMatrix M = FACTORY.object();
+        M._arena = arena;
+        M._chunk = chunk;
+        M._offset = offset;
+        M._m = m;
+        M._n = n;
+        M._rowStride = rowStride;
+        M._columnStride = columnStride;
+        return M;
+    }
+
+    /**
+     * Returns the arena holding the elements of this matrix.
+     *
+     * @return the arena of this matrix.
+     */
+    public Float64Arena getArena() {
+        return _arena;
+    }
+
+    /**
+     * Returns the value of the element at the specified position (fast).
+     *
+     * @param i the row index.
+     * @param j the column index.
+     * @return the element value.
+     * @throws IllegalStateException if the arena is closed.
+     */
+    public double getValue(int i, int j) {
+        checkIndices(i, j);
+        return _arena.buffer(_chunk).get(_offset + i * _rowStride + j * _columnStride);
+    }
+
+    /**
+     * Sets the value of the element at the specified position.
+     *
+     * @param i the row index.
+     * @param j the column index.
+     * @param value the element value.
+     * @throws IllegalStateException if the arena is closed.
+     */
+    public void setValue(int i, int j, double value) {
+        checkIndices(i, j);
+        _arena.buffer(_chunk).put(_offset + i * _rowStride + j * _columnStride, value);
+    }
+
+    // Checks that the element (i, j) is in this matrix.
+    private void checkIndices(int i, int j) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException("(" + i + ", " + j + ") outside "
+                    + _m + "x" + _n + " matrix");
+    }
+
+    @Override
+    public int getNumberOfRows() {
+        return _m;
+    }
+
+    @Override
+    public int getNumberOfColumns() {
+        return _n;
+    }
+
+    @Override
+    public Float64 get(int i, int j) {
+        return Float64.valueOf(getValue(i, j));
+    }
+
+    @Override
+    void set(int i, int j, Float64 e) {
+        setValue(i, j, e.doubleValue());
+    }
+
+    @Override
+    public Float64DirectVector getRow(int i) {
+        if ((i < 0) || (i >= _m))
+            throw new IndexOutOfBoundsException();
+        return Float64DirectVector.valueOf(_arena, _chunk, _offset + i * _rowStride,
+                _columnStride, _n);
+    }
+
+    @Override
+    public Float64DirectVector getColumn(int j) {
+        if ((j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        return Float64DirectVector.valueOf(_arena, _chunk, _offset + j * _columnStride,
+                _rowStride, _m);
+    }
+
+    @Override
+    public Float64DirectVector getDiagonal() {
+        return Float64DirectVector.valueOf(_arena, _chunk, _offset,
+                _rowStride + _columnStride, MathLib.min(_m, _n));
+    }
+
+    @Override
+    public DenseSubMatrix<Float64> getSubMatrix(List<Index> rows, List<Index> columns) {
+        return DenseSubMatrix.valueOf(this, rows, columns); // View.
+    }
+
+    @Override
+    public Float64DirectMatrix getSubMatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        if ((fromRow < 0) || (toRow > _m) || (fromRow >= toRow)
+                || (fromColumn < 0) || (toColumn > _n) || (fromColumn >= toColumn))
+            throw new IndexOutOfBoundsException();
+        return Float64DirectMatrix.valueOf(_arena, _chunk,
+                _offset + fromRow * _rowStride + fromColumn * _columnStride,
+                toRow - fromRow, toColumn - fromColumn, _rowStride, _columnStride);
+    }
+
+    /**
+     * Returns the elements at the specified rows and columns (copied in
+     * the arena of this matrix).
+     */
+    Float64DirectMatrix gather(int[] rows, int[] columns) {
+        Float64DirectMatrix M = _arena.newMatrix(rows.length, columns.length);
+        final DoubleBuffer a = _arena.buffer(_chunk);
+        final DoubleBuffer c = M._arena.buffer(M._chunk);
+        for (int i = 0, k = M._offset; i < rows.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                checkIndices(rows[i], columns[j]);
+                c.put(k++, a.get(_offset + rows[i] * _rowStride + columns[j] * _columnStride));
+            }
+        }
+        return M;
+    }
+
+    @Override
+    public Float64DirectMatrix opposite() {
+        return times(-1.0);
+    }
+
+    @Override
+    public Float64DirectMatrix plus(Matrix<Float64> that) {
+        if ((that.getNumberOfRows() != _m) || (that.getNumberOfColumns() != _n))
+            throw new DimensionException();
+        return plus(that, _arena.newMatrix(_m, _n));
+    }
+
+    /**
+     * Sets the specified destination to the sum of this matrix with the
+     * one specified. The destination may be one of the operands.
+     *
+     * @param that the matrix to be added.
+     * @param out the destination matrix.
+     * @return <code>out = this + that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64DirectMatrix plus(Matrix<Float64> that, Float64DirectMatrix out) {
+        return axpy(1.0, that, out);
+    }
+
+    @Override
+    public void plusInPlace(Matrix<Float64> that) {
+        axpy(1.0, that, this);
+    }
+
+    @Override
+    public void axpy(Float64 a, Matrix<Float64> x) {
+        axpy(a.doubleValue(), x, this);
+    }
+
+    /**
+     * Equivalent to <code>this.axpy(Float64.valueOf(a), x)</code>
+     *
+     * @param a the coefficient multiplier of x.
+     * @param x the matrix to be added.
+     * @throws DimensionException if the dimensions are different.
+     */
+    public void axpy(double a, Matrix<Float64> x) {
+        axpy(a, x, this);
+    }
+
+    // Sets out to a · x + this (out may be x or this).
+    private Float64DirectMatrix axpy(double a, Matrix<Float64> x, Float64DirectMatrix out) {
+        if ((x.getNumberOfRows() != _m) || (x.getNumberOfColumns() != _n)
+                || (out._m != _m) || (out._n != _n))
+            throw new DimensionException();
+        final Float64DirectKernels.Operand X = Float64DirectKernels.operandOf(x);
+        final DoubleBuffer y = _arena.buffer(_chunk);
+        final DoubleBuffer z = out._arena.buffer(out._chunk);
+        for (int i = 0; i < _m; i++) {
+            Float64DirectKernels.axpy(_n, a, X._buffer, X._offset + i * X._rowStride,
+                    X._columnStride, y, _offset + i * _rowStride, _columnStride,
+                    z, out._offset + i * out._rowStride, out._columnStride);
+        }
+        return out;
+    }
+
+    @Override
+    public Float64DirectMatrix times(Float64 k) {
+        return times(k.doubleValue());
+    }
+
+    /**
+     * Equivalent to <code>this.times(Float64.valueOf(k))</code>
+     *
+     * @param k the coefficient.
+     * @return <code>this * k</code>
+     */
+    public Float64DirectMatrix times(double k) {
+        return times(k, _arena.newMatrix(_m, _n));
+    }
+
+    /**
+     * Sets the specified destination to the product of this matrix by the
+     * specified factor. The destination may be this matrix.
+     *
+     * @param k the coefficient.
+     * @param out the destination matrix.
+     * @return <code>out = this * k</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64DirectMatrix times(double k, Float64DirectMatrix out) {
+        if ((out._m != _m) || (out._n != _n))
+            throw new DimensionException();
+        final DoubleBuffer x = _arena.buffer(_chunk);
+        final DoubleBuffer z = out._arena.buffer(out._chunk);
+        for (int i = 0; i < _m; i++) {
+            Float64DirectKernels.scale(_n, k, x, _offset + i * _rowStride, _columnStride,
+                    z, out._offset + i * out._rowStride, out._columnStride);
+        }
+        return out;
+    }
+
+    @Override
+    public void timesInPlace(Float64 k) {
+        times(k.doubleValue(), this);
+    }
+
+    /**
+     * Equivalent to <code>this.timesInPlace(Float64.valueOf(k))</code>
+     *
+     * @param k the coefficient.
+     */
+    public void timesInPlace(double k) {
+        times(k, this);
+    }
+
+    @Override
+    public Float64DirectMatrix times(Matrix<Float64> that) {
+        if (_n != that.getNumberOfRows())
+            throw new DimensionException();
+        return times(that, _arena.newMatrix(_m, that.getNumberOfColumns()));
+    }
+
+    /**
+     * Sets the specified destination to the product of this matrix with the
+     * one specified (off-heap or on the heap).
+     *
+     * @param that the matrix multiplier.
+     * @param out the destination matrix (not sharing elements with the
+     *        operands).
+     * @return <code>out = this · that</code>
+     * @throws DimensionException if the dimensions are not compatible.
+     * @throws IllegalArgumentException if the destination shares elements
+     *         with the operands.
+     */
+    public Float64DirectMatrix times(Matrix<Float64> that, Float64DirectMatrix out) {
+        final int p = that.getNumberOfColumns();
+        if ((_n != that.getNumberOfRows()) || (out._m != _m) || (out._n != p))
+            throw new DimensionException();
+        if (out.overlaps(this) || ((that instanceof Float64DirectMatrix)
+                && out.overlaps((Float64DirectMatrix) that)))
+            throw new IllegalArgumentException("Destination shares elements with the operands");
+        final Float64DirectKernels.Operand B = Float64DirectKernels.operandOf(that);
+        final DoubleBuffer c = out._arena.buffer(out._chunk);
+        for (int i = 0; i < _m; i++) { // C = 0
+            Float64DirectKernels.scale(p, 0.0, c, out._offset + i * out._rowStride,
+                    out._columnStride, c, out._offset + i * out._rowStride, out._columnStride);
+        }
+        Float64DirectKernels.gemm(_m, p, _n, 1.0, _arena.buffer(_chunk), _offset, _rowStride,
+                _columnStride, B._buffer, B._offset, B._rowStride, B._columnStride,
+                c, out._offset, out._rowStride, out._columnStride);
+        return out;
+    }
+
+    // Indicates if the elements of this matrix and the one specified may overlap.
+    private boolean overlaps(Float64DirectMatrix that) {
+        if ((that._arena != _arena) || (that._chunk != _chunk))
+            return false;
+        return (_offset <= that.lastIndex()) && (that._offset <= lastIndex());
+    }
+
+    // Returns the index of the last element (positive strides).
+    private int lastIndex() {
+        return _offset + (_m - 1) * _rowStride + (_n - 1) * _columnStride;
+    }
+
+    @Override
+    public Float64DirectVector times(Vector<Float64> v) {
+        return times(v, _arena.newVector(_m));
+    }
+
+    /**
+     * Sets the specified destination to the product of this matrix by the
+     * specified column vector. The destination should not share elements
+     * with the operands.
+     *
+     * @param v the column vector.
+     * @param out the destination vector.
+     * @return <code>out = this · v</code>
+     * @throws DimensionException if the dimensions are not compatible.
+     */
+    public Float64DirectVector times(Vector<Float64> v, Float64DirectVector out) {
+        if ((v.getDimension() != _n) || (out._dimension != _m))
+            throw new DimensionException();
+        final Float64DirectKernels.Operand X = Float64DirectKernels.operandOf(v);
+        final DoubleBuffer a = _arena.buffer(_chunk);
+        final DoubleBuffer y = out._arena.buffer(out._chunk);
+        for (int i = 0, k = out._offset; i < _m; i++, k += out._stride) {
+            y.put(k, Float64DirectKernels.dot(_n, a, _offset + i * _rowStride, _columnStride,
+                    X._buffer, X._offset, X._rowStride));
+        }
+        return out;
+    }
+
+    /**
+     * Returns a copy of this matrix on the heap.
+     */
+    Float64Matrix toHeap() {
+        Float64Matrix M = Float64Matrix.newInstance(_m, _n);
+        final DoubleBuffer a = _arena.buffer(_chunk);
+        for (int i = 0; i < _m; i++) {
+            Float64DirectKernels.read(a, _offset + i * _rowStride, _columnStride,
+                    M._values, i * _n, _n);
+        }
+        return M;
+    }
+
+    /**
+     * Returns the inverse of this matrix (calculated on the heap, the
+     * result is allocated from the arena of this matrix).
+     *
+     * @return <code>1 / this</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64DirectMatrix inverse() {
+        return _arena.valueOf(Float64LUDecomposition.valueOf(toHeap()).inverse());
+    }
+
+    @Override
+    public Float64 determinant() {
+        return Float64LUDecomposition.valueOf(toHeap()).determinant();
+    }
+
+    /**
+     * Solves this matrix for the specified matrix (calculated on the heap,
+     * the result is allocated from the arena of this matrix).
+     *
+     * @param y the matrix for which the solution is calculated.
+     * @return <code>x</code> such as <code>this · x = y</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64DirectMatrix solve(Matrix<Float64> y) {
+        return _arena.valueOf(Float64LUDecomposition.valueOf(toHeap()).solve(y));
+    }
+
+    /**
+     * Returns the LU decomposition of this matrix (calculated on a heap
+     * copy), to be reused for solving this matrix with many right-hand
+     * sides.
+     *
+     * @return <code>Float64LUDecomposition.valueOf(this)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64LUDecomposition factorize() {
+        return Float64LUDecomposition.valueOf(toHeap());
+    }
+
+    /**
+     * Returns the transpose of this matrix (view).
+     *
+     * @return <code>this'</code>
+     */
+    @Override
+    public Float64DirectMatrix transpose() {
+        return Float64DirectMatrix.valueOf(_arena, _chunk, _offset, _n, _m,
+                _columnStride, _rowStride);
+    }
+
+    /**
+     * Returns a copy of this matrix allocated from the same arena.
+     *
+     * @return the copy of this matrix.
+     */
+    @Override
+    public Float64DirectMatrix copy() {
+        return _arena.valueOf(this);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,325 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a 64 bits floating point vector held outside
+ *     of the Java heap, in a {@link Float64Arena}.</p>
+ *
+ * <p> The elements are held in a direct buffer of the arena starting at
+ *     a given offset and separated by a constant stride; rows, columns and
+ *     diagonals of {@link Float64DirectMatrix off-heap matrices} are views
+ *     sharing the matrix elements. Operations are performed directly on the
+ *     off-heap elements; vectors returned are allocated from the arena of
+ *     this vector, the destination-passing and in-place variants do not
+ *     allocate.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public final class Float64DirectVector extends DenseVector<Float64> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64DirectVector> FACTORY = new ObjectFactory<Float64DirectVector>() {
+
+        @Override
+        protected Float64DirectVector create() {
+            return new Float64DirectVector();
+        }
+
+        @Override
+        protected void cleanup(Float64DirectVector vector) {
+            vector._arena = null;
+        }
+    };
+
+    /**
+     * Holds the arena holding the elements.
+     */
+    Float64Arena _arena;
+
+    /**
+     * Holds the index of the arena buffer.
+     */
+    int _chunk;
+
+    /**
+     * Holds the index of the first element in the buffer.
+     */
+    int _offset;
+
+    /**
+     * Holds the distance between two consecutive elements in the buffer.
+     */
+    int _stride;
+
+    /**
+     * Holds the dimension.
+     */
+    int _dimension;
+
+    /**
+     * Default constructor.
+     */
+    private Float64DirectVector() {
+    }
+
+    /**
+     * Returns the vector over the specified elements of an arena buffer.
+     */
+    static Float64DirectVector valueOf(Float64Arena arena, int chunk, int offset,
+            int stride, int dimension) {
+        Float64DirectVector V = FACTORY.object();
+        V._arena = arena;
+        V._chunk = chunk;
+        V._offset = offset;
+        V._stride = stride;
+        V._dimension = dimension;
+        return V;
+    }
+
+    /**
+     * Returns the arena holding the elements of this vector.
+     *
+     * @return the arena of this vector.
+     */
+    public Float64Arena getArena() {
+        return _arena;
+    }
+
+    /**
+     * Returns the value of a floating point number from this vector (fast).
+     *
+     * @param  i the floating point number index.
+     * @return the value of the floating point number at <code>i</code>.
+     * @throws IndexOutOfBoundsException <code>(i &lt; 0) || (i &gt;= dimension())</code>
+     * @throws IllegalStateException if the arena is closed.
+     */
+    public double getValue(int i) {
+        if ((i < 0) || (i >= _dimension))
+            throw new IndexOutOfBoundsException();
+        return _arena.buffer(_chunk).get(_offset + i * _stride);
+    }
+
+    /**
+     * Sets the value of a floating point number of this vector.
+     *
+     * @param  i the floating point number index.
+     * @param value the new value.
+     * @throws IndexOutOfBoundsException <code>(i &lt; 0) || (i &gt;= dimension())</code>
+     * @throws IllegalStateException if the arena is closed.
+     */
+    public void setValue(int i, double value) {
+        if ((i < 0) || (i >= _dimension))
+            throw new IndexOutOfBoundsException();
+        _arena.buffer(_chunk).put(_offset + i * _stride, value);
+    }
+
+    /**
+     * Returns the Euclidian norm of this vector.
+     *
+     * @return <code>sqrt(this · this)</code>.
+     */
+    public double normValue() {
+        final DoubleBuffer x = _arena.buffer(_chunk);
+        return MathLib.sqrt(Float64DirectKernels.dot(_dimension, x, _offset, _stride,
+                x, _offset, _stride));
+    }
+
+    @Override
+    public List<Float64> asList() {
+        return new AbstractList<Float64>() {
+
+            @Override
+            public Float64 get(int index) {
+                return Float64DirectVector.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return _dimension;
+            }
+        };
+    }
+
+    @Override
+    public int getDimension() {
+        return _dimension;
+    }
+
+    @Override
+    public Float64 get(int i) {
+        return Float64.valueOf(getValue(i));
+    }
+
+    @Override
+    public Float64DirectVector getSubVector(List<Index> indices) {
+        final int dimension = indices.size();
+        final DoubleBuffer x = _arena.buffer(_chunk);
+        Float64DirectVector V = _arena.newVector(dimension);
+        final DoubleBuffer v = V._arena.buffer(V._chunk);
+        for (int i = 0; i < dimension; i++) {
+            int index = indices.get(i).intValue();
+            if ((index < 0) || (index >= _dimension))
+                throw new IndexOutOfBoundsException();
+            v.put(V._offset + i, x.get(_offset + index * _stride));
+        }
+        return V;
+    }
+
+    @Override
+    public Float64DirectVector opposite() {
+        return times(-1.0);
+    }
+
+    @Override
+    public Float64DirectVector plus(Vector<Float64> that) {
+        return plus(that, _arena.newVector(_dimension));
+    }
+
+    /**
+     * Sets the specified destination to the sum of this vector with the
+     * one specified. The destination may be one of the operands.
+     *
+     * @param that the vector to be added.
+     * @param out the destination vector.
+     * @return <code>out = this + that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64DirectVector plus(Vector<Float64> that, Float64DirectVector out) {
+        return axpy(1.0, that, out);
+    }
+
+    @Override
+    public Float64DirectVector minus(Vector<Float64> that) {
+        return minus(that, _arena.newVector(_dimension));
+    }
+
+    /**
+     * Sets the specified destination to the difference of this vector with
+     * the one specified. The destination may be one of the operands.
+     *
+     * @param that the vector to be subtracted.
+     * @param out the destination vector.
+     * @return <code>out = this - that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64DirectVector minus(Vector<Float64> that, Float64DirectVector out) {
+        return axpy(-1.0, that, out);
+    }
+
+    @Override
+    public void plusInPlace(Vector<Float64> that) {
+        axpy(1.0, that, this);
+    }
+
+    @Override
+    public void axpy(Float64 a, Vector<Float64> x) {
+        axpy(a.doubleValue(), x, this);
+    }
+
+    /**
+     * Equivalent to <code>this.axpy(Float64.valueOf(a), x)</code>
+     *
+     * @param a the coefficient multiplier of x.
+     * @param x the vector to be added.
+     * @throws DimensionException if the dimensions are different.
+     */
+    public void axpy(double a, Vector<Float64> x) {
+        axpy(a, x, this);
+    }
+
+    // Sets out to a · x + this (out may be x or this).
+    private Float64DirectVector axpy(double a, Vector<Float64> x, Float64DirectVector out) {
+        if ((x.getDimension() != _dimension) || (out._dimension != _dimension))
+            throw new DimensionException();
+        Float64DirectKernels.Operand X = Float64DirectKernels.operandOf(x);
+        Float64DirectKernels.axpy(_dimension, a, X._buffer, X._offset, X._rowStride,
+                _arena.buffer(_chunk), _offset, _stride,
+                out._arena.buffer(out._chunk), out._offset, out._stride);
+        return out;
+    }
+
+    @Override
+    public Float64DirectVector times(Float64 k) {
+        return times(k.doubleValue());
+    }
+
+    /**
+     * Equivalent to <code>this.times(Float64.valueOf(k))</code>
+     *
+     * @param k the coefficient.
+     * @return <code>this * k</code>
+     */
+    public Float64DirectVector times(double k) {
+        return times(k, _arena.newVector(_dimension));
+    }
+
+    /**
+     * Sets the specified destination to the product of this vector by the
+     * specified factor. The destination may be this vector.
+     *
+     * @param k the coefficient.
+     * @param out the destination vector.
+     * @return <code>out = this * k</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64DirectVector times(double k, Float64DirectVector out) {
+        if (out._dimension != _dimension)
+            throw new DimensionException();
+        Float64DirectKernels.scale(_dimension, k, _arena.buffer(_chunk), _offset, _stride,
+                out._arena.buffer(out._chunk), out._offset, out._stride);
+        return out;
+    }
+
+    @Override
+    public void timesInPlace(Float64 k) {
+        times(k.doubleValue(), this);
+    }
+
+    /**
+     * Equivalent to <code>this.timesInPlace(Float64.valueOf(k))</code>
+     *
+     * @param k the coefficient.
+     */
+    public void timesInPlace(double k) {
+        times(k, this);
+    }
+
+    @Override
+    public Float64 times(Vector<Float64> that) {
+        if (that.getDimension() != _dimension)
+            throw new DimensionException();
+        Float64DirectKernels.Operand Y = Float64DirectKernels.operandOf(that);
+        return Float64.valueOf(Float64DirectKernels.dot(_dimension, _arena.buffer(_chunk),
+                _offset, _stride, Y._buffer, Y._offset, Y._rowStride));
+    }
+
+    /**
+     * Returns a copy of this vector allocated from the same arena.
+     *
+     * @return the copy of this vector.
+     */
+    @Override
+    public Float64DirectVector copy() {
+        return _arena.valueOf(this);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,404 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ConcurrentContext;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the eigen decomposition of a symmetric 64 bits
+ *     floating point {@link Matrix matrix} <code>A</code> into the product
+ *     <code>A = V·D·V'</code> with <code>D</code> the diagonal matrix of
+ *     the {@link #getEigenvalues eigenvalues} and <code>V</code> the
+ *     orthogonal matrix whose columns are the corresponding
+ *     {@link #getEigenvectors eigenvectors}.</p>
+ *
+ * <p> The matrix is first reduced to a tridiagonal form (Householder
+ *     transformations), the tridiagonal matrix is then diagonalized using
+ *     the implicit QL algorithm. The rotations of each QL iteration are
+ *     applied to the rows of the eigenvectors matrix concurrently
+ *     for large matrices.</p>
+ *
+ * <p> Only the lower triangle of the matrix source is read.
+ *     Eigenvalues are sorted in ascending order.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Eigendecomposition_of_a_matrix">
+ *      Wikipedia: Eigen decomposition</a>
+ */
+public final class Float64EigenDecomposition {
+
+    /**
+     * Holds the minimum number of rotations times rows for which the
+     * rotations are applied concurrently.
+     */
+    private static final int CONCURRENT_THRESHOLD = 1 << 15;
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64EigenDecomposition> FACTORY = new ObjectFactory<Float64EigenDecomposition>() {
+
+        protected Float64EigenDecomposition create() {
+            return new Float64EigenDecomposition();
+        }
+
+        @Override
+        protected void cleanup(Float64EigenDecomposition eigen) {
+            eigen._V = null;
+            eigen._d = null;
+        }
+    };
+
+    /**
+     * Holds the dimension.
+     */
+    private int _n;
+
+    /**
+     * Holds the eigenvectors (columns).
+     */
+    private Float64Matrix _V;
+
+    /**
+     * Holds the eigenvalues.
+     */
+    private double[] _d;
+
+    /**
+     * Default constructor.
+     */
+    private Float64EigenDecomposition() {
+    }
+
+    /**
+     * Returns the eigen decomposition of the specified symmetric matrix.
+     *
+     * @param  source the symmetric matrix for which the decomposition is
+     *         calculated.
+     * @return the eigen decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static Float64EigenDecomposition valueOf(Matrix<Float64> source) {
+        if (!source.isSquare())
+            throw new DimensionException("Matrix is not square");
+        Float64EigenDecomposition eigen = FACTORY.object();
+        final int n = source.getNumberOfRows();
+        eigen._n = n;
+        eigen._V = Float64Matrix.valueOfMatrix(source).copy();
+        eigen._d = new double[n];
+        double[] e = new double[n];
+        tridiagonalize(eigen._V._values, n, eigen._d, e);
+        diagonalize(eigen._V._values, n, eigen._d, e);
+        return eigen;
+    }
+
+    /**
+     * Reduces the symmetric matrix v to a tridiagonal form (diagonal d,
+     * sub-diagonal e) and replaces v by the orthogonal transformation.
+     */
+    private static void tridiagonalize(double[] v, int n, double[] d, double[] e) {
+        for (int j = 0; j < n; j++) {
+            d[j] = v[(n - 1) * n + j];
+        }
+        for (int i = n - 1; i > 0; i--) {
+            // Scales to avoid under/overflow.
+            double scale = 0.0;
+            double h = 0.0;
+            for (int k = 0; k < i; k++) {
+                scale += MathLib.abs(d[k]);
+            }
+            if (scale == 0.0) {
+                e[i] = d[i - 1];
+                for (int j = 0; j < i; j++) {
+                    d[j] = v[(i - 1) * n + j];
+                    v[i * n + j] = 0.0;
+                    v[j * n + i] = 0.0;
+                }
+            } else { // Generates the Householder vector.
+                for (int k = 0; k < i; k++) {
+                    d[k] /= scale;
+                    h += d[k] * d[k];
+                }
+                double f = d[i - 1];
+                double g = MathLib.sqrt(h);
+                if (f > 0) {
+                    g = -g;
+                }
+                e[i] = scale * g;
+                h = h - f * g;
+                d[i - 1] = f - g;
+                for (int j = 0; j < i; j++) {
+                    e[j] = 0.0;
+                }
+                // Applies the similarity transformation to the remaining columns.
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    v[j * n + i] = f;
+                    g = e[j] + v[j * n + j] * f;
+                    for (int k = j + 1; k <= i - 1; k++) {
+                        g += v[k * n + j] * d[k];
+                        e[k] += v[k * n + j] * f;
+                    }
+                    e[j] = g;
+                }
+                f = 0.0;
+                for (int j = 0; j < i; j++) {
+                    e[j] /= h;
+                    f += e[j] * d[j];
+                }
+                final double hh = f / (h + h);
+                for (int j = 0; j < i; j++) {
+                    e[j] -= hh * d[j];
+                }
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    g = e[j];
+                    for (int k = j; k <= i - 1; k++) {
+                        v[k * n + j] -= (f * e[k] + g * d[k]);
+                    }
+                    d[j] = v[(i - 1) * n + j];
+                    v[i * n + j] = 0.0;
+                }
+            }
+            d[i] = h;
+        }
+
+        // Accumulates the transformations.
+        for (int i = 0; i < n - 1; i++) {
+            v[(n - 1) * n + i] = v[i * n + i];
+            v[i * n + i] = 1.0;
+            final double h = d[i + 1];
+            if (h != 0.0) {
+                for (int k = 0; k <= i; k++) {
+                    d[k] = v[k * n + i + 1] / h;
+                }
+                for (int j = 0; j <= i; j++) {
+                    double g = 0.0;
+                    for (int k = 0; k <= i; k++) {
+                        g += v[k * n + i + 1] * v[k * n + j];
+                    }
+                    for (int k = 0; k <= i; k++) {
+                        v[k * n + j] -= g * d[k];
+                    }
+                }
+            }
+            for (int k = 0; k <= i; k++) {
+                v[k * n + i + 1] = 0.0;
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            d[j] = v[(n - 1) * n + j];
+            v[(n - 1) * n + j] = 0.0;
+        }
+        v[(n - 1) * n + n - 1] = 1.0;
+        e[0] = 0.0;
+    }
+
+    /**
+     * Diagonalizes the symmetric tridiagonal matrix (d, e) using the
+     * implicit QL algorithm, the rotations being applied to v.
+     */
+    private static void diagonalize(double[] v, int n, double[] d, double[] e) {
+        for (int i = 1; i < n; i++) {
+            e[i - 1] = e[i];
+        }
+        if (n > 0) {
+            e[n - 1] = 0.0;
+        }
+        final double eps = MathLib.pow(2.0, -52.0);
+        final double[] cs = new double[2 * n]; // Rotations of one iteration.
+        double f = 0.0;
+        double tst1 = 0.0;
+        for (int l = 0; l < n; l++) {
+            // Finds small sub-diagonal element.
+            tst1 = MathLib.max(tst1, MathLib.abs(d[l]) + MathLib.abs(e[l]));
+            int m = l;
+            while (m < n) {
+                if (MathLib.abs(e[m]) <= eps * tst1)
+                    break;
+                m++;
+            }
+            if (m > l) { // Iterates.
+                do {
+                    // Computes the implicit shift.
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2.0 * e[l]);
+                    double r = hypot(p, 1.0);
+                    if (p < 0) {
+                        r = -r;
+                    }
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    final double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) {
+                        d[i] -= h;
+                    }
+                    f = f + h;
+
+                    // Implicit QL transformation.
+                    p = d[m];
+                    double c = 1.0;
+                    double c2 = c;
+                    double c3 = c;
+                    final double el1 = e[l + 1];
+                    double s = 0.0;
+                    double s2 = 0.0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+                        cs[2 * (m - 1 - i)] = c;
+                        cs[2 * (m - 1 - i) + 1] = s;
+                    }
+                    rotate(v, n, l, m, cs);
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+
+                } while (MathLib.abs(e[l]) > eps * tst1);
+            }
+            d[l] = d[l] + f;
+            e[l] = 0.0;
+        }
+
+        // Sorts eigenvalues and corresponding vectors (ascending).
+        for (int i = 0; i < n - 1; i++) {
+            int k = i;
+            double p = d[i];
+            for (int j = i + 1; j < n; j++) {
+                if (d[j] < p) {
+                    k = j;
+                    p = d[j];
+                }
+            }
+            if (k != i) {
+                d[k] = d[i];
+                d[i] = p;
+                for (int j = 0; j < n; j++) {
+                    p = v[j * n + i];
+                    v[j * n + i] = v[j * n + k];
+                    v[j * n + k] = p;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the rotations (columns i and i+1, for i from m-1 down to l)
+     * to all the rows of v (concurrently for large matrices).
+     */
+    private static void rotate(double[] v, int n, int l, int m, double[] cs) {
+        final int count = m - l;
+        final int tasks = ((long) count * n < CONCURRENT_THRESHOLD) ? 1
+                : MathLib.min(n, ConcurrentContext.getConcurrency() + 1);
+        if (tasks == 1) {
+            new Rotations(v, n, l, m, cs, 0, n).run();
+            return;
+        }
+        ConcurrentContext.enter();
+        try { // Each task rotates its own rows.
+            for (int t = 0; t < tasks; t++) {
+                ConcurrentContext.execute(new Rotations(v, n, l, m, cs,
+                        n * t / tasks, n * (t + 1) / tasks));
+            }
+        } finally {
+            ConcurrentContext.exit();
+        }
+    }
+
+    /**
+     * Returns <code>sqrt(x² + y²)</code> without undue overflow or underflow.
+     */
+    private static double hypot(double x, double y) {
+        final double ax = MathLib.abs(x);
+        final double ay = MathLib.abs(y);
+        final double max = MathLib.max(ax, ay);
+        if (max == 0.0)
+            return 0.0;
+        final double min = MathLib.min(ax, ay) / max;
+        return max * MathLib.sqrt(1.0 + min * min);
+    }
+
+    /**
+     * Returns the eigenvalues (ascending order).
+     *
+     * @return the diagonal of <code>D</code>.
+     */
+    public Float64Vector getEigenvalues() {
+        return Float64Vector.valueOf(_d);
+    }
+
+    /**
+     * Returns the eigenvectors (the column j is the eigenvector for the
+     * eigenvalue j).
+     *
+     * @return the orthogonal matrix <code>V</code>.
+     */
+    public Float64Matrix getEigenvectors() {
+        return _V;
+    }
+
+    /**
+     * Returns the dimension of the matrix source.
+     *
+     * @return the number of eigenvalues.
+     */
+    public int getDimension() {
+        return _n;
+    }
+
+    /**
+     * Applies a sequence of rotations to the rows [first, last[.
+     */
+    private static final class Rotations implements Runnable {
+
+        private final double[] _v;
+
+        private final int _n, _l, _m, _first, _last;
+
+        private final double[] _cs;
+
+        Rotations(double[] v, int n, int l, int m, double[] cs, int first, int last) {
+            _v = v;
+            _n = n;
+            _l = l;
+            _m = m;
+            _cs = cs;
+            _first = first;
+            _last = last;
+        }
+
+        public void run() {
+            final double[] v = _v;
+            for (int k = _first; k < _last; k++) {
+                final int row = k * _n;
+                for (int i = _m - 1, r = 0; i >= _l; i--, r += 2) {
+                    final double c = _cs[r];
+                    final double s = _cs[r + 1];
+                    final double h = v[row + i + 1];
+                    v[row + i + 1] = s * v[row + i] + c * h;
+                    v[row + i] = c * v[row + i] - s * h;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ConcurrentContext;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a lazy element-wise expression over 64 bits
+ *     floating point matrices and vectors. Operations build an expression
+ *     tree; nothing is calculated until the expression is evaluated, in a
+ *     single pass and without intermediate matrices:[code]
+ *         // D = (A + B) · k - C, one pass, no temporary matrix.
+ *         Float64Matrix D = Float64Expression.valueOf(A).plus(Float64Expression.valueOf(B))
+ *             .times(k).minus(Float64Expression.valueOf(C)).toMatrix();
+ *     [/code]</p>
+ *
+ * <p> The evaluation proceeds by blocks of elements small enough to stay
+ *     in the processor cache; large expressions are evaluated concurrently
+ *     (see {@link ConcurrentContext}). Vectors are column expressions
+ *     (n-by-1). {@link Float64Matrix} operands, their transposed views
+ *     and {@link Float64Vector} operands are read through; other operands
+ *     (e.g. sub-matrix views) are copied once when the expression is
+ *     built. Expressions may be reused, they are re-evaluated from the
+ *     current values of the operands read through.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public abstract class Float64Expression {
+
+    /**
+     * Holds the number of elements evaluated at once.
+     */
+    static final int BLOCK_SIZE = 256;
+
+    /**
+     * Holds the number of rows.
+     */
+    final int _m;
+
+    /**
+     * Holds the number of columns.
+     */
+    final int _n;
+
+    /**
+     * Creates an expression of specified dimensions.
+     */
+    Float64Expression(int m, int n) {
+        _m = m;
+        _n = n;
+    }
+
+    /**
+     * Returns the expression whose value is the specified matrix.
+     *
+     * @param matrix the matrix operand (read at evaluation if it is a
+     *        {@link Float64Matrix} or its transposed view, copied otherwise).
+     * @return the corresponding expression.
+     */
+    public static Float64Expression valueOf(Matrix<Float64> matrix) {
+        if (matrix instanceof Float64Matrix.TransposedView) {
+            Float64Matrix M = (Float64Matrix) matrix.transpose();
+            return new Operand(M._n, M._m, M._values, M._offset, 1, M._ld);
+        }
+        Float64Matrix M = Float64Matrix.valueOfMatrix(matrix);
+        return new Operand(M._m, M._n, M._values, M._offset, M._ld, 1);
+    }
+
+    /**
+     * Returns the column expression whose value is the specified vector.
+     *
+     * @param vector the vector operand (read at evaluation if it is a
+     *        {@link Float64Vector}, copied otherwise).
+     * @return the corresponding n-by-1 expression.
+     */
+    public static Float64Expression valueOf(Vector<Float64> vector) {
+        Float64Vector V = Float64Vector.valueOfVector(vector);
+        return new Operand(V._dimension, 1, V._values, V._offset, V._stride, 0);
+    }
+
+    /**
+     * Returns the number of rows of this expression.
+     *
+     * @return the number of rows.
+     */
+    public int getNumberOfRows() {
+        return _m;
+    }
+
+    /**
+     * Returns the number of columns of this expression (1 for vectors).
+     *
+     * @return the number of columns.
+     */
+    public int getNumberOfColumns() {
+        return _n;
+    }
+
+    /**
+     * Returns the element-wise sum of this expression with the one specified.
+     *
+     * @param that the expression to be added.
+     * @return <code>this + that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64Expression plus(Float64Expression that) {
+        return new Combination(this, that, Combination.PLUS);
+    }
+
+    /**
+     * Returns the element-wise difference of this expression with the one
+     * specified.
+     *
+     * @param that the expression to be subtracted.
+     * @return <code>this - that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64Expression minus(Float64Expression that) {
+        return new Combination(this, that, Combination.MINUS);
+    }
+
+    /**
+     * Returns the element-wise product of this expression with the one
+     * specified (Hadamard product).
+     *
+     * @param that the expression multiplier.
+     * @return <code>[this(i,j) · that(i,j)]</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64Expression timesElementwise(Float64Expression that) {
+        return new Combination(this, that, Combination.TIMES);
+    }
+
+    /**
+     * Returns the product of this expression by the specified factor.
+     *
+     * @param k the coefficient multiplier.
+     * @return <code>this · k</code>
+     */
+    public Float64Expression times(double k) {
+        return new Affine(this, k, 0.0);
+    }
+
+    /**
+     * Returns this expression with the specified constant added to all
+     * its elements.
+     *
+     * @param c the constant to add.
+     * @return <code>[this(i,j) + c]</code>
+     */
+    public Float64Expression plus(double c) {
+        return new Affine(this, 1.0, c);
+    }
+
+    /**
+     * Returns the negation of this expression.
+     *
+     * @return <code>-this</code>
+     */
+    public Float64Expression opposite() {
+        return new Affine(this, -1.0, 0.0);
+    }
+
+    /**
+     * Evaluates this expression into a new matrix.
+     *
+     * @return the matrix value of this expression.
+     */
+    public Float64Matrix toMatrix() {
+        Float64Matrix M = Float64Matrix.newInstance(_m, _n);
+        evaluate(M._values, 0, _n);
+        return M;
+    }
+
+    /**
+     * Evaluates this column expression into a new vector.
+     *
+     * @return the vector value of this expression.
+     * @throws DimensionException if this expression has more than one
+     *         column.
+     */
+    public Float64Vector toVector() {
+        if (_n != 1)
+            throw new DimensionException("Expression has " + _n + " columns");
+        Float64Vector V = Float64Vector.FACTORY.array(_m);
+        V._dimension = _m;
+        evaluate(V._values, 0, 1);
+        return V;
+    }
+
+    /**
+     * Evaluates this expression into the specified row-major buffer.
+     * The destination may hold an operand (e.g. <code>A = A + B</code>),
+     * elements being written after all the elements at the same position
+     * are read; it should not overlap operands otherwise (e.g. transposed
+     * or shifted views of the destination).
+     *
+     * @param destination the destination buffer.
+     * @param offset the index of the element <code>[0,0]</code>.
+     * @param ld the distance between two consecutive rows.
+     */
+    public void evaluate(double[] destination, int offset, int ld) {
+        final int size = _m * _n;
+        final int tasks = (size < Float64Kernels.VECTOR_CONCURRENT_THRESHOLD) ? 1
+                : MathLib.min(size / (Float64Kernels.VECTOR_CONCURRENT_THRESHOLD / 2),
+                ConcurrentContext.getConcurrency() + 1);
+        if (tasks <= 1) {
+            new Evaluation(this, 0, size, destination, offset, ld).run();
+            return;
+        }
+        ConcurrentContext.enter();
+        try {
+            for (int t = 0; t < tasks; t++) {
+                ConcurrentContext.execute(new Evaluation(this, (int) ((long) size * t / tasks),
+                        (int) ((long) size * (t + 1) / tasks), destination, offset, ld));
+            }
+        } finally {
+            ConcurrentContext.exit();
+        }
+    }
+
+    /**
+     * Evaluates the specified line segment of this expression (at most
+     * {@link #BLOCK_SIZE} elements) into a contiguous buffer.
+     *
+     * @param i the row of the first element.
+     * @param j the column of the first element.
+     * @param length the number of elements.
+     * @param down indicates if the segment is along a column (or a row).
+     * @param dst the destination buffer.
+     * @param dstOff the index of the first element in dst.
+     * @param scratch the buffer for sub-expressions values.
+     * @param scratchOff the first index available in scratch.
+     */
+    abstract void evaluate(int i, int j, int length, boolean down,
+            double[] dst, int dstOff, double[] scratch, int scratchOff);
+
+    /**
+     * Returns the number of blocks of scratch space required.
+     *
+     * @return the depth of the sub-expressions held in scratch.
+     */
+    abstract int depth();
+
+    /**
+     * Evaluates the elements [first, last[ (in row-major order, or
+     * column-major order for column expressions).
+     */
+    private static final class Evaluation implements Runnable {
+
+        private final Float64Expression _expression;
+
+        private final int _first, _last;
+
+        private final double[] _dst;
+
+        private final int _offset, _ld;
+
+        Evaluation(Float64Expression expression, int first, int last,
+                double[] dst, int offset, int ld) {
+            _expression = expression;
+            _first = first;
+            _last = last;
+            _dst = dst;
+            _offset = offset;
+            _ld = ld;
+        }
+
+        public void run() {
+            final Float64Expression e = _expression;
+            final boolean down = (e._n == 1); // Column expression.
+            final int lineLength = down ? e._m : e._n;
+            final double[] scratch = new double[BLOCK_SIZE * (e.depth() + 1)];
+            final double[] block = down ? new double[BLOCK_SIZE] : null;
+            for (int k = _first; k < _last;) {
+                final int line = k / lineLength, start = k % lineLength;
+                final int length = MathLib.min(BLOCK_SIZE,
+                        MathLib.min(lineLength - start, _last - k));
+                if (down) { // Column: block scattered with stride ld.
+                    e.evaluate(start, 0, length, true, block, 0, scratch, 0);
+                    for (int p = 0, q = _offset + start * _ld; p < length; p++, q += _ld) {
+                        _dst[q] = block[p];
+                    }
+                } else {
+                    e.evaluate(line, start, length, false, _dst,
+                            _offset + line * _ld + start, scratch, 0);
+                }
+                k += length;
+            }
+        }
+    }
+
+    /**
+     * An operand (matrix or vector buffer).
+     */
+    private static final class Operand extends Float64Expression {
+
+        private final double[] _values;
+
+        private final int _offset, _rowStride, _columnStride;
+
+        Operand(int m, int n, double[] values, int offset, int rowStride, int columnStride) {
+            super(m, n);
+            _values = values;
+            _offset = offset;
+            _rowStride = rowStride;
+            _columnStride = columnStride;
+        }
+
+        void evaluate(int i, int j, int length, boolean down,
+                double[] dst, int dstOff, double[] scratch, int scratchOff) {
+            final int stride = down ? _rowStride : _columnStride;
+            int k = _offset + i * _rowStride + j * _columnStride;
+            if (stride == 1) {
+                System.arraycopy(_values, k, dst, dstOff, length);
+            } else {
+                for (int p = 0; p < length; p++, k += stride) {
+                    dst[dstOff + p] = _values[k];
+                }
+            }
+        }
+
+        int depth() {
+            return 0;
+        }
+    }
+
+    /**
+     * The element-wise combination of two expressions.
+     */
+    private static final class Combination extends Float64Expression {
+
+        static final int PLUS = 0, MINUS = 1, TIMES = 2;
+
+        private final Float64Expression _left, _right;
+
+        private final int _operation;
+
+        private final int _depth;
+
+        Combination(Float64Expression left, Float64Expression right, int operation) {
+            super(left._m, left._n);
+            if ((right._m != left._m) || (right._n != left._n))
+                throw new DimensionException(left._m + "x" + left._n
+                        + " and " + right._m + "x" + right._n + " expressions");
+            _left = left;
+            _right = right;
+            _operation = operation;
+            _depth = MathLib.max(left.depth(), right.depth()) + 1;
+        }
+
+        void evaluate(int i, int j, int length, boolean down,
+                double[] dst, int dstOff, double[] scratch, int scratchOff) {
+            // Right operand first, the destination is written last (in-place).
+            _right.evaluate(i, j, length, down, scratch, scratchOff,
+                    scratch, scratchOff + BLOCK_SIZE);
+            _left.evaluate(i, j, length, down, dst, dstOff,
+                    scratch, scratchOff + BLOCK_SIZE);
+            if (_operation == PLUS) {
+                for (int p = 0; p < length; p++) {
+                    dst[dstOff + p] += scratch[scratchOff + p];
+                }
+            } else if (_operation == MINUS) {
+                for (int p = 0; p < length; p++) {
+                    dst[dstOff + p] -= scratch[scratchOff + p];
+                }
+            } else { // TIMES
+                for (int p = 0; p < length; p++) {
+                    dst[dstOff + p] *= scratch[scratchOff + p];
+                }
+            }
+        }
+
+        int depth() {
+            return _depth;
+        }
+    }
+
+    /**
+     * The expression <code>a · x + b</code> (element-wise).
+     */
+    private static final class Affine extends Float64Expression {
+
+        private final Float64Expression _x;
+
+        private final double _a, _b;
+
+        Affine(Float64Expression x, double a, double b) {
+            super(x._m, x._n);
+            if (x instanceof Affine) { // Merges consecutive affine functions.
+                Affine that = (Affine) x;
+                _x = that._x;
+                _a = a * that._a;
+                _b = a * that._b + b;
+            } else {
+                _x = x;
+                _a = a;
+                _b = b;
+            }
+        }
+
+        void evaluate(int i, int j, int length, boolean down,
+                double[] dst, int dstOff, double[] scratch, int scratchOff) {
+            _x.evaluate(i, j, length, down, dst, dstOff, scratch, scratchOff);
+            for (int p = 0; p < length; p++) {
+                dst[dstOff + p] = _a * dst[dstOff + p] + _b;
+            }
+        }
+
+        int depth() {
+            return _x.depth();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.lang.MathLib;
+
+/**
+ * <p> This class holds the discrete Fourier transform of complex
+ *     sequences (separate real and imaginary <code>double[]</code>) used by
+ *     the {@link Float64CirculantMatrix circulant} and
+ *     {@link Float64ToeplitzMatrix Toeplitz} matrices.</p>
+ *
+ * <p> Power of two lengths are transformed in place by the iterative
+ *     radix-2 algorithm; other lengths through Bluestein's chirp-z
+ *     convolution (of power of two length), all in
+ *     <code>O(n·log(n))</code>.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Fast_Fourier_transform">
+ *      Wikipedia: Fast Fourier transform</a>
+ */
+final class Float64FFT {
+
+    /**
+     * Default constructor (static methods only).
+     */
+    private Float64FFT() {
+    }
+
+    /**
+     * Transforms in place the sequence of the specified length (forward
+     * <code>X[k] = sum(x[j]·exp(-2πi·jk/n))</code>, or inverse with the
+     * opposite exponent and without the <code>1/n</code> normalization).
+     *
+     * @param n the length of the sequence.
+     * @param re the real parts.
+     * @param im the imaginary parts.
+     * @param inverse indicates if the inverse transform is performed.
+     */
+    static void transform(int n, double[] re, double[] im, boolean inverse) {
+        if ((n & (n - 1)) == 0) {
+            radix2(n, re, im, inverse);
+        } else {
+            bluestein(n, re, im, inverse);
+        }
+    }
+
+    // Returns the smallest power of two greater or equal to n.
+    static int powerOfTwo(int n) {
+        int m = 1;
+        while (m < n) {
+            m <<= 1;
+        }
+        return m;
+    }
+
+    // Iterative radix-2 transform (n power of two).
+    private static void radix2(int n, double[] re, double[] im, boolean inverse) {
+        for (int i = 1, j = 0; i < n; i++) { // Bit reversal permutation.
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j |= bit;
+            if (i < j) {
+                double tmp = re[i];
+                re[i] = re[j];
+                re[j] = tmp;
+                tmp = im[i];
+                im[i] = im[j];
+                im[j] = tmp;
+            }
+        }
+        final double sign = inverse ? 1.0 : -1.0;
+        for (int len = 2; len <= n; len <<= 1) {
+            final int half = len >> 1;
+            final double angle = sign * 2 * MathLib.PI / len;
+            for (int k = 0; k < half; k++) {
+                final double wr = MathLib.cos(angle * k);
+                final double wi = MathLib.sin(angle * k);
+                for (int i = k; i < n; i += len) {
+                    final int j = i + half;
+                    final double tr = re[j] * wr - im[j] * wi;
+                    final double ti = re[j] * wi + im[j] * wr;
+                    re[j] = re[i] - tr;
+                    im[j] = im[i] - ti;
+                    re[i] += tr;
+                    im[i] += ti;
+                }
+            }
+        }
+    }
+
+    // Bluestein: X[k] = w[k]·sum(x[j]·w[j]·conj(w[k-j])), w[k] = exp(-πi·k²/n)
+    private static void bluestein(int n, double[] re, double[] im, boolean inverse) {
+        final int m = powerOfTwo(2 * n - 1);
+        final double sign = inverse ? 1.0 : -1.0;
+        final double[] wr = new double[n];
+        final double[] wi = new double[n];
+        for (int k = 0; k < n; k++) { // k² mod 2n avoids large angles.
+            final double angle = sign * MathLib.PI * (((long) k * k) % (2L * n)) / n;
+            wr[k] = MathLib.cos(angle);
+            wi[k] = MathLib.sin(angle);
+        }
+        final double[] ar = new double[m], ai = new double[m];
+        final double[] br = new double[m], bi = new double[m];
+        for (int k = 0; k < n; k++) {
+            ar[k] = re[k] * wr[k] - im[k] * wi[k];
+            ai[k] = re[k] * wi[k] + im[k] * wr[k];
+        }
+        br[0] = wr[0];
+        bi[0] = -wi[0];
+        for (int k = 1; k < n; k++) {
+            br[k] = br[m - k] = wr[k];
+            bi[k] = bi[m - k] = -wi[k];
+        }
+        radix2(m, ar, ai, false);
+        radix2(m, br, bi, false);
+        for (int k = 0; k < m; k++) {
+            final double r = ar[k] * br[k] - ai[k] * bi[k];
+            ai[k] = ar[k] * bi[k] + ai[k] * br[k];
+            ar[k] = r;
+        }
+        radix2(m, ar, ai, true);
+        for (int k = 0; k < n; k++) {
+            final double r = ar[k] / m, i = ai[k] / m;
+            re[k] = r * wr[k] - i * wi[k];
+            im[k] = r * wi[k] + i * wr[k];
+        }
+    }
+}
@@ -0,0 +1,649 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a Krylov subspace solver of the linear system
+ *     <code>A · x = b</code>, the matrix <code>A</code> being only accessed
+ *     through its {@link Float64LinearOperator action} on vectors (sparse
+ *     matrices, matrix-free operators).</p>
+ *
+ * <p> The following methods are available:<ul>
+ *     <li>{@link #conjugateGradient Conjugate gradient}: symmetric
+ *         positive-definite matrices.</li>
+ *     <li>{@link #minres MINRES}: symmetric (possibly indefinite)
+ *         matrices.</li>
+ *     <li>{@link #gmres GMRES(m)}: general matrices, restarted every
+ *         <code>m</code> iterations.</li>
+ *     <li>{@link #bicgstab BiCGSTAB}: general matrices, short
+ *         recurrences.</li></ul>
+ *     An optional {@link Float64Preconditioner preconditioner} can be
+ *     specified (symmetric positive-definite for conjugate gradient and
+ *     MINRES, applied on the right for GMRES and BiCGSTAB).</p>
+ *
+ * <p> Iterations stop when the residual norm relative to the norm of
+ *     <code>b</code> is less than the {@link #setTolerance tolerance},
+ *     when the {@link #setMaximumIterations maximum number of iterations}
+ *     is reached or when the {@link Monitor monitor} returns
+ *     <code>false</code>. The solution found is returned in all cases,
+ *     {@link #hasConverged} indicates if the tolerance was met.
+ *     Vector operations on long vectors are executed concurrently.</p>
+ *
+ * <p> Solvers hold the state of their last resolution and should not be
+ *     shared between threads.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Krylov_subspace">
+ *      Wikipedia: Krylov subspace</a>
+ */
+public abstract class Float64IterativeSolver {
+
+    /**
+     * This interface represents the monitor of the convergence of an
+     * iterative solver.
+     */
+    public interface Monitor {
+
+        /**
+         * Notifies the completion of an iteration.
+         *
+         * @param iteration the number of iterations performed.
+         * @param residual the residual norm relative to the norm of
+         *        <code>b</code> (estimated for GMRES and MINRES).
+         * @return <code>true</code> to continue; <code>false</code> to stop.
+         */
+        boolean iterationPerformed(int iteration, double residual);
+
+    }
+
+    /**
+     * Holds the relative tolerance.
+     */
+    private double _tolerance = 1e-10;
+
+    /**
+     * Holds the maximum number of iterations (<code>0</code> for
+     * ten times the dimension).
+     */
+    private int _maximumIterations;
+
+    /**
+     * Holds the preconditioner or <code>null</code>.
+     */
+    private Float64Preconditioner _preconditioner;
+
+    /**
+     * Holds the monitor or <code>null</code>.
+     */
+    private Monitor _monitor;
+
+    /**
+     * Holds the number of iterations of the last resolution.
+     */
+    int _iterations;
+
+    /**
+     * Holds the relative residual of the last resolution.
+     */
+    double _residual;
+
+    /**
+     * Indicates if the last resolution has converged.
+     */
+    boolean _converged;
+
+    /**
+     * Default constructor.
+     */
+    Float64IterativeSolver() {
+    }
+
+    /**
+     * Returns a conjugate gradient solver (symmetric positive-definite
+     * matrices).
+     *
+     * @return a new conjugate gradient solver.
+     * @see <a href="http://en.wikipedia.org/wiki/Conjugate_gradient_method">
+     *      Wikipedia: Conjugate gradient method</a>
+     */
+    public static Float64IterativeSolver conjugateGradient() {
+        return new ConjugateGradient();
+    }
+
+    /**
+     * Returns a MINRES solver (symmetric matrices).
+     *
+     * @return a new minimal residual solver.
+     * @see <a href="http://en.wikipedia.org/wiki/Minimal_residual_method">
+     *      Wikipedia: Minimal residual method</a>
+     */
+    public static Float64IterativeSolver minres() {
+        return new MinimumResidual();
+    }
+
+    /**
+     * Returns a restarted GMRES solver (general matrices).
+     *
+     * @param restart the dimension of the Krylov subspace before restart.
+     * @return a new generalized minimal residual solver.
+     * @see <a href="http://en.wikipedia.org/wiki/Generalized_minimal_residual_method">
+     *      Wikipedia: Generalized minimal residual method</a>
+     */
+    public static Float64IterativeSolver gmres(int restart) {
+        if (restart < 1)
+            throw new IllegalArgumentException("Restart: " + restart);
+        return new GeneralizedMinimumResidual(restart);
+    }
+
+    /**
+     * Returns a BiCGSTAB solver (general matrices).
+     *
+     * @return a new biconjugate gradient stabilized solver.
+     * @see <a href="http://en.wikipedia.org/wiki/Biconjugate_gradient_stabilized_method">
+     *      Wikipedia: Biconjugate gradient stabilized method</a>
+     */
+    public static Float64IterativeSolver bicgstab() {
+        return new BiConjugateGradientStabilized();
+    }
+
+    /**
+     * Sets the tolerance on the residual norm relative to the norm of
+     * <code>b</code> (default <code>1e-10</code>).
+     *
+     * @param tolerance the relative tolerance.
+     * @return <code>this</code>
+     */
+    public Float64IterativeSolver setTolerance(double tolerance) {
+        _tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of iterations (default ten times the
+     * dimension of the system).
+     *
+     * @param maximumIterations the maximum number of iterations.
+     * @return <code>this</code>
+     */
+    public Float64IterativeSolver setMaximumIterations(int maximumIterations) {
+        _maximumIterations = maximumIterations;
+        return this;
+    }
+
+    /**
+     * Sets the preconditioner (default <code>null</code>, no
+     * preconditioning).
+     *
+     * @param preconditioner the preconditioner or <code>null</code>.
+     * @return <code>this</code>
+     */
+    public Float64IterativeSolver setPreconditioner(Float64Preconditioner preconditioner) {
+        _preconditioner = preconditioner;
+        return this;
+    }
+
+    /**
+     * Sets the convergence monitor (default <code>null</code>).
+     *
+     * @param monitor the monitor notified after each iteration.
+     * @return <code>this</code>
+     */
+    public Float64IterativeSolver setMonitor(Monitor monitor) {
+        _monitor = monitor;
+        return this;
+    }
+
+    /**
+     * Returns the solution of <code>A · x = b</code> starting from
+     * <code>x = 0</code>.
+     *
+     * @param A the matrix of the system.
+     * @param b the right-hand side.
+     * @return the solution found.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Vector solve(Matrix<Float64> A, Vector<Float64> b) {
+        return solve(operatorOf(A), b, null);
+    }
+
+    /**
+     * Returns the solution of <code>A · x = b</code> starting from the
+     * specified initial guess.
+     *
+     * @param A the linear operator of the system.
+     * @param b the right-hand side.
+     * @param x0 the initial guess or <code>null</code> for zero.
+     * @return the solution found.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Vector solve(Float64LinearOperator A, Vector<Float64> b,
+            Vector<Float64> x0) {
+        final int n = A.getNumberOfRows();
+        if (A.getNumberOfColumns() != n)
+            throw new DimensionException("Operator is not square");
+        if ((b.getDimension() != n) || ((x0 != null) && (x0.getDimension() != n)))
+            throw new DimensionException();
+        final double[] rhs = toArray(b);
+        final double[] x = (x0 == null) ? new double[n] : toArray(x0);
+        _iterations = 0;
+        _residual = 0;
+        _converged = false;
+        final double bNorm = MathLib.sqrt(Float64Kernels.dotConcurrent(n, rhs, rhs));
+        if (bNorm == 0.0) { // x = 0
+            Arrays.fill(x, 0.0);
+            _converged = true;
+        } else {
+            iterate(A, rhs, x, bNorm, (_maximumIterations > 0) ? _maximumIterations : 10 * n);
+        }
+        return Float64Vector.valueOf(x);
+    }
+
+    /**
+     * Returns the number of iterations performed by the last resolution.
+     *
+     * @return the number of iterations.
+     */
+    public int getIterations() {
+        return _iterations;
+    }
+
+    /**
+     * Returns the relative residual norm of the last resolution.
+     *
+     * @return the residual norm divided by the norm of <code>b</code>.
+     */
+    public double getResidual() {
+        return _residual;
+    }
+
+    /**
+     * Indicates if the last resolution has met the tolerance.
+     *
+     * @return <code>true</code> if the solution has converged.
+     */
+    public boolean hasConverged() {
+        return _converged;
+    }
+
+    /**
+     * Performs the iterations (x holds the initial guess and receives the
+     * solution).
+     *
+     * @param A the operator.
+     * @param b the right-hand side.
+     * @param x the solution.
+     * @param bNorm the norm of b (non-zero).
+     * @param maxIterations the maximum number of iterations.
+     */
+    abstract void iterate(Float64LinearOperator A, double[] b, double[] x,
+            double bNorm, int maxIterations);
+
+    /**
+     * Records the completion of an iteration and returns <code>true</code>
+     * if the iterations should stop.
+     */
+    final boolean stop(double residual, int maxIterations) {
+        _iterations++;
+        _residual = residual;
+        _converged = residual <= _tolerance;
+        if ((_monitor != null) && !_monitor.iterationPerformed(_iterations, residual))
+            return true;
+        return _converged || (_iterations >= maxIterations);
+    }
+
+    /**
+     * Returns the tolerance.
+     */
+    final double getTolerance() {
+        return _tolerance;
+    }
+
+    /**
+     * Solves <code>M · z = r</code> (copy if no preconditioner).
+     */
+    final void precondition(double[] r, double[] z) {
+        if (_preconditioner == null) {
+            System.arraycopy(r, 0, z, 0, r.length);
+        } else {
+            _preconditioner.solve(r, z);
+        }
+    }
+
+    /**
+     * Indicates if a preconditioner is set.
+     */
+    final boolean isPreconditioned() {
+        return _preconditioner != null;
+    }
+
+    /**
+     * Sets <code>r = b - A · x</code>.
+     */
+    static void residual(Float64LinearOperator A, double[] b, double[] x, double[] r) {
+        A.times(x, r);
+        Float64Kernels.axpy(b.length, -1.0, r, 0, 1, b, 0, 1, r, 0);
+    }
+
+    // Returns the elements of the specified vector as a new array.
+    private static double[] toArray(Vector<Float64> v) {
+        final int n = v.getDimension();
+        double[] values = new double[n];
+        if (v instanceof Float64Vector) {
+            Float64Vector V = (Float64Vector) v;
+            for (int i = 0, k = V._offset; i < n; i++, k += V._stride) {
+                values[i] = V._values[k];
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                values[i] = v.get(i).doubleValue();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the linear operator for the specified matrix.
+     *
+     * @param A the matrix.
+     * @return the matrix itself or an operator applying it.
+     */
+    static Float64LinearOperator operatorOf(final Matrix<Float64> A) {
+        if (A instanceof Float64LinearOperator)
+            return (Float64LinearOperator) A;
+        if (A instanceof SparseMatrix)
+            return Float64CSRMatrix.valueOfMatrix(A);
+        return new Float64LinearOperator() {
+
+            public int getNumberOfRows() {
+                return A.getNumberOfRows();
+            }
+
+            public int getNumberOfColumns() {
+                return A.getNumberOfColumns();
+            }
+
+            public void times(double[] x, double[] y) {
+                Vector<Float64> v = A.times(Float64Vector.valueOf(x));
+                for (int i = 0; i < y.length; i++) {
+                    y[i] = v.get(i).doubleValue();
+                }
+            }
+        };
+    }
+
+    /**
+     * Preconditioned conjugate gradient.
+     */
+    private static final class ConjugateGradient extends Float64IterativeSolver {
+
+        void iterate(Float64LinearOperator A, double[] b, double[] x, double bNorm,
+                int maxIterations) {
+            final int n = b.length;
+            final double[] r = new double[n];
+            final double[] z = new double[n];
+            final double[] p = new double[n];
+            final double[] q = new double[n];
+            residual(A, b, x, r);
+            double rNorm = MathLib.sqrt(Float64Kernels.dotConcurrent(n, r, r));
+            if (rNorm <= getTolerance() * bNorm) {
+                _residual = rNorm / bNorm;
+                _converged = true;
+                return;
+            }
+            precondition(r, z);
+            System.arraycopy(z, 0, p, 0, n);
+            double rz = Float64Kernels.dotConcurrent(n, r, z);
+            while (true) {
+                A.times(p, q);
+                final double pq = Float64Kernels.dotConcurrent(n, p, q);
+                if (pq <= 0.0)
+                    throw new ArithmeticException("Matrix is not positive-definite");
+                final double alpha = rz / pq;
+                Float64Kernels.axpyConcurrent(n, alpha, p, x);
+                Float64Kernels.axpyConcurrent(n, -alpha, q, r);
+                rNorm = MathLib.sqrt(Float64Kernels.dotConcurrent(n, r, r));
+                if (stop(rNorm / bNorm, maxIterations))
+                    return;
+                precondition(r, z);
+                final double rzNext = Float64Kernels.dotConcurrent(n, r, z);
+                Float64Kernels.xpayConcurrent(n, rzNext / rz, z, p); // p = z + beta · p
+                rz = rzNext;
+            }
+        }
+    }
+
+    /**
+     * Preconditioned MINRES (Paige and Saunders).
+     */
+    private static final class MinimumResidual extends Float64IterativeSolver {
+
+        void iterate(Float64LinearOperator A, double[] b, double[] x, double bNorm,
+                int maxIterations) {
+            final int n = b.length;
+            double[] r1 = new double[n];
+            double[] r2 = new double[n];
+            final double[] y = new double[n];
+            final double[] v = new double[n];
+            double[] w = new double[n];
+            double[] w1 = new double[n];
+            double[] w2 = new double[n];
+
+            // Norm of b in the preconditioner metric (for relative residuals).
+            precondition(b, y);
+            final double bNormM = isPreconditioned() ? MathLib.sqrt(
+                    Float64Kernels.dotConcurrent(n, b, y)) : bNorm;
+
+            residual(A, b, x, r1);
+            precondition(r1, y);
+            double beta1 = Float64Kernels.dotConcurrent(n, r1, y);
+            if (beta1 < 0.0)
+                throw new ArithmeticException("Preconditioner is not positive-definite");
+            beta1 = MathLib.sqrt(beta1);
+            if (beta1 <= getTolerance() * bNormM) {
+                _residual = beta1 / bNormM;
+                _converged = true;
+                return;
+            }
+            System.arraycopy(r1, 0, r2, 0, n);
+            double oldb = 0, beta = beta1, dbar = 0, epsln = 0, phibar = beta1;
+            double cs = -1, sn = 0;
+            while (true) {
+                Float64Kernels.scale(n, 1.0 / beta, y, 0, 1, v, 0); // Lanczos step.
+                A.times(v, y);
+                if (_iterations > 0) {
+                    Float64Kernels.axpyConcurrent(n, -beta / oldb, r1, y);
+                }
+                final double alfa = Float64Kernels.dotConcurrent(n, v, y);
+                Float64Kernels.axpyConcurrent(n, -alfa / beta, r2, y);
+                double[] tmp = r1;
+                r1 = r2;
+                r2 = tmp;
+                System.arraycopy(y, 0, r2, 0, n);
+                precondition(r2, y);
+                oldb = beta;
+                beta = Float64Kernels.dotConcurrent(n, r2, y);
+                if (beta < 0.0)
+                    throw new ArithmeticException("Preconditioner is not positive-definite");
+                beta = MathLib.sqrt(beta);
+
+                // Applies previous rotation, computes the next one.
+                final double oldeps = epsln;
+                final double delta = cs * dbar + sn * alfa;
+                final double gbar = sn * dbar - cs * alfa;
+                epsln = sn * beta;
+                dbar = -cs * beta;
+                final double gamma = MathLib.max(MathLib.sqrt(gbar * gbar + beta * beta),
+                        Double.MIN_VALUE);
+                cs = gbar / gamma;
+                sn = beta / gamma;
+                final double phi = cs * phibar;
+                phibar = sn * phibar;
+
+                // Updates the solution.
+                tmp = w1;
+                w1 = w2;
+                w2 = w;
+                w = tmp;
+                final double denom = 1.0 / gamma;
+                for (int i = 0; i < n; i++) {
+                    w[i] = (v[i] - oldeps * w1[i] - delta * w2[i]) * denom;
+                }
+                Float64Kernels.axpyConcurrent(n, phi, w, x);
+                if (stop(phibar / bNormM, maxIterations) || (beta == 0.0))
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Restarted GMRES with right preconditioning (modified Gram-Schmidt
+     * Arnoldi process, Givens rotations).
+     */
+    private static final class GeneralizedMinimumResidual extends Float64IterativeSolver {
+
+        private final int _restart;
+
+        GeneralizedMinimumResidual(int restart) {
+            _restart = restart;
+        }
+
+        void iterate(Float64LinearOperator A, double[] b, double[] x, double bNorm,
+                int maxIterations) {
+            final int n = b.length;
+            final int m = MathLib.min(_restart, n);
+            final double[][] V = new double[m + 1][n];
+            final double[][] H = new double[m + 1][m]; // Rotated (upper triangular).
+            final double[] cs = new double[m];
+            final double[] sn = new double[m];
+            final double[] g = new double[m + 1];
+            final double[] z = new double[n];
+            final double[] u = new double[n];
+            while (true) { // Restarts.
+                residual(A, b, x, V[0]);
+                final double beta = MathLib.sqrt(Float64Kernels.dotConcurrent(n, V[0], V[0]));
+                if (beta <= getTolerance() * bNorm) {
+                    _residual = beta / bNorm;
+                    _converged = true;
+                    return;
+                }
+                Float64Kernels.scale(n, 1.0 / beta, V[0], 0, 1, V[0], 0);
+                Arrays.fill(g, 0.0);
+                g[0] = beta;
+                int j = 0;
+                boolean stop = false;
+                while (!stop && (j < m)) {
+                    precondition(V[j], z);
+                    A.times(z, V[j + 1]);
+                    final double[] w = V[j + 1];
+                    for (int i = 0; i <= j; i++) { // Modified Gram-Schmidt.
+                        H[i][j] = Float64Kernels.dotConcurrent(n, w, V[i]);
+                        Float64Kernels.axpyConcurrent(n, -H[i][j], V[i], w);
+                    }
+                    final double h = MathLib.sqrt(Float64Kernels.dotConcurrent(n, w, w));
+                    if (h != 0.0) {
+                        Float64Kernels.scale(n, 1.0 / h, w, 0, 1, w, 0);
+                    }
+                    for (int i = 0; i < j; i++) { // Previous rotations.
+                        final double tmp = cs[i] * H[i][j] + sn[i] * H[i + 1][j];
+                        H[i + 1][j] = -sn[i] * H[i][j] + cs[i] * H[i + 1][j];
+                        H[i][j] = tmp;
+                    }
+                    final double rho = MathLib.sqrt(H[j][j] * H[j][j] + h * h);
+                    cs[j] = H[j][j] / rho;
+                    sn[j] = h / rho;
+                    H[j][j] = rho;
+                    g[j + 1] = -sn[j] * g[j];
+                    g[j] = cs[j] * g[j];
+                    j++;
+                    stop = stop(MathLib.abs(g[j]) / bNorm, maxIterations) || (h == 0.0);
+                }
+                // Solves H · y = g (back substitution, y stored in g).
+                for (int i = j - 1; i >= 0; i--) {
+                    double sum = g[i];
+                    for (int k = i + 1; k < j; k++) {
+                        sum -= H[i][k] * g[k];
+                    }
+                    g[i] = sum / H[i][i];
+                }
+                Arrays.fill(u, 0.0);
+                for (int i = 0; i < j; i++) {
+                    Float64Kernels.axpyConcurrent(n, g[i], V[i], u);
+                }
+                precondition(u, z);
+                Float64Kernels.axpyConcurrent(n, 1.0, z, x);
+                if (stop)
+                    return;
+            }
+        }
+    }
+
+    /**
+     * BiCGSTAB with right preconditioning (van der Vorst).
+     */
+    private static final class BiConjugateGradientStabilized extends Float64IterativeSolver {
+
+        void iterate(Float64LinearOperator A, double[] b, double[] x, double bNorm,
+                int maxIterations) {
+            final int n = b.length;
+            final double[] r = new double[n];
+            final double[] rHat = new double[n];
+            final double[] p = new double[n];
+            final double[] v = new double[n];
+            final double[] pHat = new double[n];
+            final double[] sHat = new double[n];
+            final double[] t = new double[n];
+            residual(A, b, x, r);
+            double rNorm = MathLib.sqrt(Float64Kernels.dotConcurrent(n, r, r));
+            if (rNorm <= getTolerance() * bNorm) {
+                _residual = rNorm / bNorm;
+                _converged = true;
+                return;
+            }
+            System.arraycopy(r, 0, rHat, 0, n);
+            double rho = 1, alpha = 1, omega = 1;
+            while (true) {
+                final double rhoNext = Float64Kernels.dotConcurrent(n, rHat, r);
+                if (rhoNext == 0.0)
+                    return; // Breakdown.
+                if (_iterations == 0) {
+                    System.arraycopy(r, 0, p, 0, n);
+                } else { // p = r + beta · (p - omega · v)
+                    final double beta = (rhoNext / rho) * (alpha / omega);
+                    Float64Kernels.axpyConcurrent(n, -omega, v, p);
+                    Float64Kernels.xpayConcurrent(n, beta, r, p);
+                }
+                rho = rhoNext;
+                precondition(p, pHat);
+                A.times(pHat, v);
+                alpha = rho / Float64Kernels.dotConcurrent(n, rHat, v);
+                Float64Kernels.axpyConcurrent(n, -alpha, v, r); // r holds s.
+                Float64Kernels.axpyConcurrent(n, alpha, pHat, x);
+                final double sNorm = MathLib.sqrt(Float64Kernels.dotConcurrent(n, r, r));
+                if (sNorm <= getTolerance() * bNorm) {
+                    stop(sNorm / bNorm, maxIterations);
+                    return;
+                }
+                precondition(r, sHat);
+                A.times(sHat, t);
+                final double tt = Float64Kernels.dotConcurrent(n, t, t);
+                omega = (tt == 0.0) ? 0.0 : Float64Kernels.dotConcurrent(n, t, r) / tt;
+                Float64Kernels.axpyConcurrent(n, omega, sHat, x);
+                Float64Kernels.axpyConcurrent(n, -omega, t, r);
+                rNorm = MathLib.sqrt(Float64Kernels.dotConcurrent(n, r, r));
+                if (stop(rNorm / bNorm, maxIterations) || (omega == 0.0))
+                    return;
+            }
+        }
+    }
+}
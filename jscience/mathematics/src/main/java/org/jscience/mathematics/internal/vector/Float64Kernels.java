@@ -0,0 +1,747 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ConcurrentContext;
+import javolution.lang.MathLib;
+
+/**
+ * <p> This class holds the computational kernels operating directly
+ *     on <code>double[]</code> buffers (used by {@link Float64Matrix} and
+ *     {@link Float64Vector}, and for complex elements stored interleaved
+ *     by {@link ComplexMatrix} and {@link ComplexVector}).</p>
+ *
+ * <p> Matrix operands are described by their buffer, the index of their
+ *     first element and their row/column strides. Row-major matrices have
+ *     a column stride of <code>1</code>, transposed views are obtained by
+ *     exchanging the strides (no copy).</p>
+ *
+ * <p> Vector kernels have a dedicated path for contiguous operands
+ *     (unit stride) written so that the loops are vectorized by the
+ *     dynamic compiler using the SIMD instructions available at run-time
+ *     (elementwise operations are kept branch free, reductions use
+ *     independent accumulators).</p>
+ *
+ * <p> The matrix product is a cache-blocked GEMM: panels of the operands
+ *     are packed in contiguous buffers sized for the L1/L2 caches and
+ *     multiplied by a register-blocked micro-kernel. Large products are
+ *     split by blocks of rows and executed concurrently through
+ *     {@link ConcurrentContext}.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://www.cs.utexas.edu/users/flame/pubs/GotoTOMS_final.pdf">
+ *      Anatomy of High-Performance Matrix Multiplication</a>
+ */
+final class Float64Kernels {
+
+    /**
+     * Holds the number of rows of the micro-kernel.
+     */
+    static final int MR = 4;
+
+    /**
+     * Holds the number of columns of the micro-kernel.
+     */
+    static final int NR = 4;
+
+    /**
+     * Holds the number of rows of a packed block of A (L2 resident).
+     */
+    static final int MC = 128;
+
+    /**
+     * Holds the depth of the packed panels (a NR-wide panel of B fits in L1).
+     */
+    static final int KC = 256;
+
+    /**
+     * Holds the number of columns of a packed block of B.
+     */
+    static final int NC = 2048;
+
+    /**
+     * Holds the number of multiply-add below which the simple loop is used.
+     */
+    static final long BLOCKED_THRESHOLD = 48L * 48L * 48L;
+
+    /**
+     * Holds the number of multiply-add below which products are sequential.
+     */
+    static final long CONCURRENT_THRESHOLD = 128L * 128L * 128L;
+
+    /**
+     * Holds the vector length below which vector kernels are sequential.
+     */
+    static final int VECTOR_CONCURRENT_THRESHOLD = 1 << 16;
+
+    /**
+     * Default constructor (private, utility class).
+     */
+    private Float64Kernels() {
+    }
+
+    /**
+     * Returns the dot product of the vectors x and y.
+     *
+     * @param n the number of elements.
+     * @param x the buffer holding x.
+     * @param xOff the index of the first element of x.
+     * @param incX the stride of x.
+     * @param y the buffer holding y.
+     * @param yOff the index of the first element of y.
+     * @param incY the stride of y.
+     * @return <code>x · y</code>
+     */
+    static double dot(int n, double[] x, int xOff, int incX, double[] y, int yOff, int incY) {
+        if ((incX != 1) || (incY != 1)) {
+            double sum = 0;
+            for (int i = 0; i < n; i++, xOff += incX, yOff += incY) {
+                sum += x[xOff] * y[yOff];
+            }
+            return sum;
+        }
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0; // Independent accumulators.
+        int i = 0;
+        for (final int n4 = n - 3; i < n4; i += 4) {
+            s0 += x[xOff + i] * y[yOff + i];
+            s1 += x[xOff + i + 1] * y[yOff + i + 1];
+            s2 += x[xOff + i + 2] * y[yOff + i + 2];
+            s3 += x[xOff + i + 3] * y[yOff + i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += x[xOff + i] * y[yOff + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the sum of the squares of the elements of x.
+     *
+     * @param n the number of elements.
+     * @param x the buffer holding x.
+     * @param xOff the index of the first element of x.
+     * @param incX the stride of x.
+     * @return <code>x · x</code>
+     */
+    static double sumOfSquares(int n, double[] x, int xOff, int incX) {
+        return dot(n, x, xOff, incX, x, xOff, incX);
+    }
+
+    /**
+     * Performs <code>z = alpha · x + y</code> (z being contiguous).
+     * The destination may be y when y is contiguous (in-place update).
+     *
+     * @param n the number of elements.
+     * @param alpha the scaling factor of x.
+     * @param x the buffer holding x.
+     * @param xOff the index of the first element of x.
+     * @param incX the stride of x.
+     * @param y the buffer holding y.
+     * @param yOff the index of the first element of y.
+     * @param incY the stride of y.
+     * @param z the destination buffer.
+     * @param zOff the index of the first element of z.
+     */
+    static void axpy(int n, double alpha, double[] x, int xOff, int incX,
+            double[] y, int yOff, int incY, double[] z, int zOff) {
+        if ((incX == 1) && (incY == 1)) {
+            if (alpha == 1.0) {
+                for (int i = 0; i < n; i++) {
+                    z[zOff + i] = y[yOff + i] + x[xOff + i];
+                }
+            } else if (alpha == -1.0) {
+                for (int i = 0; i < n; i++) {
+                    z[zOff + i] = y[yOff + i] - x[xOff + i];
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    z[zOff + i] = y[yOff + i] + alpha * x[xOff + i];
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < n; i++, xOff += incX, yOff += incY) {
+            z[zOff + i] = y[yOff] + alpha * x[xOff];
+        }
+    }
+
+    /**
+     * Performs <code>z = alpha · x</code> (z being contiguous).
+     * The destination may be x when x is contiguous (in-place update).
+     *
+     * @param n the number of elements.
+     * @param alpha the scaling factor.
+     * @param x the buffer holding x.
+     * @param xOff the index of the first element of x.
+     * @param incX the stride of x.
+     * @param z the destination buffer.
+     * @param zOff the index of the first element of z.
+     */
+    static void scale(int n, double alpha, double[] x, int xOff, int incX,
+            double[] z, int zOff) {
+        if (incX == 1) {
+            for (int i = 0; i < n; i++) {
+                z[zOff + i] = alpha * x[xOff + i];
+            }
+            return;
+        }
+        for (int i = 0; i < n; i++, xOff += incX) {
+            z[zOff + i] = alpha * x[xOff];
+        }
+    }
+
+    /**
+     * Returns the dot product of the contiguous vectors x and y
+     * (split into concurrent tasks for long vectors).
+     *
+     * @param n the number of elements.
+     * @param x the buffer holding x (starting at index 0).
+     * @param y the buffer holding y (starting at index 0).
+     * @return <code>x · y</code>
+     */
+    static double dotConcurrent(int n, double[] x, double[] y) {
+        final VectorOperation[] tasks = split(VectorOperation.DOT, n, 0.0, x, y);
+        if (tasks == null)
+            return dot(n, x, 0, 1, y, 0, 1);
+        double sum = 0; // Partial sums are added in a fixed order.
+        for (int t = 0; t < tasks.length; t++) {
+            sum += tasks[t]._result;
+        }
+        return sum;
+    }
+
+    /**
+     * Performs <code>y = alpha · x + y</code> on contiguous vectors
+     * (split into concurrent tasks for long vectors).
+     *
+     * @param n the number of elements.
+     * @param alpha the scaling factor of x.
+     * @param x the buffer holding x (starting at index 0).
+     * @param y the buffer holding y (starting at index 0).
+     */
+    static void axpyConcurrent(int n, double alpha, double[] x, double[] y) {
+        if (split(VectorOperation.AXPY, n, alpha, x, y) == null) {
+            axpy(n, alpha, x, 0, 1, y, 0, 1, y, 0);
+        }
+    }
+
+    /**
+     * Performs <code>y = x + beta · y</code> on contiguous vectors
+     * (split into concurrent tasks for long vectors).
+     *
+     * @param n the number of elements.
+     * @param beta the scaling factor of y.
+     * @param x the buffer holding x (starting at index 0).
+     * @param y the buffer holding y (starting at index 0).
+     */
+    static void xpayConcurrent(int n, double beta, double[] x, double[] y) {
+        if (split(VectorOperation.XPAY, n, beta, x, y) == null) {
+            new VectorOperation(VectorOperation.XPAY, 0, n, beta, x, y).run();
+        }
+    }
+
+    /**
+     * Executes the specified vector operation concurrently; returns
+     * <code>null</code> (nothing performed) for short vectors.
+     */
+    private static VectorOperation[] split(int operation, int n, double alpha,
+            double[] x, double[] y) {
+        if (n < VECTOR_CONCURRENT_THRESHOLD)
+            return null;
+        final int tasks = MathLib.min(n / (VECTOR_CONCURRENT_THRESHOLD / 2),
+                ConcurrentContext.getConcurrency() + 1);
+        if (tasks <= 1)
+            return null;
+        final VectorOperation[] operations = new VectorOperation[tasks];
+        ConcurrentContext.enter();
+        try {
+            for (int t = 0; t < tasks; t++) {
+                operations[t] = new VectorOperation(operation, (int) ((long) n * t / tasks),
+                        (int) ((long) n * (t + 1) / tasks), alpha, x, y);
+                ConcurrentContext.execute(operations[t]);
+            }
+        } finally {
+            ConcurrentContext.exit();
+        }
+        return operations;
+    }
+
+    /**
+     * Performs <code>C += alpha · A · B</code> where A is m-by-k,
+     * B is k-by-n and C is m-by-n (row-major).
+     *
+     * @param m the number of rows of A and C.
+     * @param n the number of columns of B and C.
+     * @param k the number of columns of A and rows of B.
+     * @param alpha the scaling factor.
+     * @param a the buffer holding A.
+     * @param aOff the index of <code>A[0,0]</code>.
+     * @param aRs the row stride of A.
+     * @param aCs the column stride of A.
+     * @param b the buffer holding B.
+     * @param bOff the index of <code>B[0,0]</code>.
+     * @param bRs the row stride of B.
+     * @param bCs the column stride of B.
+     * @param c the buffer holding C.
+     * @param cOff the index of <code>C[0,0]</code>.
+     * @param ldc the leading dimension (row stride) of C.
+     */
+    static void gemm(int m, int n, int k, double alpha,
+            double[] a, int aOff, int aRs, int aCs,
+            double[] b, int bOff, int bRs, int bCs,
+            double[] c, int cOff, int ldc) {
+        if ((m == 0) || (n == 0) || (k == 0) || (alpha == 0.0))
+            return;
+        final long work = (long) m * n * k;
+        if (work < BLOCKED_THRESHOLD) {
+            gemmSimple(m, n, k, alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, c, cOff, ldc);
+            return;
+        }
+        final int blocks = (m + MC - 1) / MC;
+        final int tasks = (work < CONCURRENT_THRESHOLD) ? 1
+                : MathLib.min(blocks, ConcurrentContext.getConcurrency() + 1);
+        final double[] bp = new double[KC * roundUp(MathLib.min(NC, n), NR)];
+        for (int jc = 0; jc < n; jc += NC) {
+            final int nc = MathLib.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                final int kc = MathLib.min(KC, k - pc);
+                packB(kc, nc, b, bOff + pc * bRs + jc * bCs, bRs, bCs, bp);
+                if (tasks == 1) {
+                    new MacroKernel(0, m, nc, kc, alpha, a, aOff + pc * aCs, aRs, aCs,
+                            bp, c, cOff + jc, ldc).run();
+                    continue;
+                }
+                ConcurrentContext.enter();
+                try { // Each task updates its own rows of C.
+                    for (int t = 0; t < tasks; t++) {
+                        int first = (blocks * t / tasks) * MC;
+                        int last = MathLib.min((blocks * (t + 1) / tasks) * MC, m);
+                        ConcurrentContext.execute(new MacroKernel(first, last, nc, kc,
+                                alpha, a, aOff + pc * aCs, aRs, aCs, bp, c, cOff + jc, ldc));
+                    }
+                } finally {
+                    ConcurrentContext.exit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs <code>C += alpha · A · A'</code> on the lower triangle of the
+     * n-by-n matrix C where A is n-by-k (row-major). Elements above the
+     * diagonal of C may also be updated within diagonal blocks.
+     *
+     * @param n the number of rows of A and the dimension of C.
+     * @param k the number of columns of A.
+     * @param alpha the scaling factor.
+     * @param a the buffer holding A.
+     * @param aOff the index of <code>A[0,0]</code>.
+     * @param lda the leading dimension (row stride) of A.
+     * @param c the buffer holding C.
+     * @param cOff the index of <code>C[0,0]</code>.
+     * @param ldc the leading dimension (row stride) of C.
+     */
+    static void syrkLower(int n, int k, double alpha, double[] a, int aOff, int lda,
+            double[] c, int cOff, int ldc) {
+        if ((n == 0) || (k == 0) || (alpha == 0.0))
+            return;
+        final long work = (long) n * n * k / 2;
+        final int blocks = (n + MC - 1) / MC;
+        final int tasks = (work < CONCURRENT_THRESHOLD) ? 1
+                : MathLib.min(blocks, ConcurrentContext.getConcurrency() + 1);
+        if (tasks == 1) {
+            new LowerUpdate(0, blocks, n, k, alpha, a, aOff, lda, c, cOff, ldc).run();
+            return;
+        }
+        ConcurrentContext.enter();
+        try { // Block rows are split for equal areas (the row i costs i).
+            int first = 0;
+            for (int t = 1; t <= tasks; t++) {
+                int last = (t == tasks) ? blocks
+                        : (int) MathLib.round(blocks * MathLib.sqrt((double) t / tasks));
+                if (last <= first)
+                    continue;
+                ConcurrentContext.execute(new LowerUpdate(first, last, n, k, alpha,
+                        a, aOff, lda, c, cOff, ldc));
+                first = last;
+            }
+        } finally {
+            ConcurrentContext.exit();
+        }
+    }
+
+    /**
+     * Performs <code>C += alpha · A · B</code> using a simple row-oriented
+     * loop (small matrices).
+     */
+    static void gemmSimple(int m, int n, int k, double alpha,
+            double[] a, int aOff, int aRs, int aCs,
+            double[] b, int bOff, int bRs, int bCs,
+            double[] c, int cOff, int ldc) {
+        for (int i = 0; i < m; i++) {
+            final int ci = cOff + i * ldc;
+            for (int p = 0; p < k; p++) {
+                final double aip = alpha * a[aOff + i * aRs + p * aCs];
+                if (aip == 0.0)
+                    continue;
+                for (int j = 0, bj = bOff + p * bRs; j < n; j++, bj += bCs) {
+                    c[ci + j] += aip * b[bj];
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs <code>C += alpha · op(A) · op(B)</code> on complex matrices
+     * stored interleaved (real part followed by the imaginary part), the
+     * operands being optionally conjugated. The strides are counted in
+     * <code>double</code> (the column stride of C is <code>2</code>).
+     * Large products are performed by the real {@link #gemm} on the
+     * real and imaginary parts of the operands read in place.
+     *
+     * @param m the number of rows of op(A) and C.
+     * @param n the number of columns of op(B) and C.
+     * @param k the number of columns of op(A) and rows of op(B).
+     * @param alpha the (real) scaling factor.
+     * @param a the buffer holding A.
+     * @param aOff the index of the real part of <code>A[0,0]</code>.
+     * @param aRs the row stride of A.
+     * @param aCs the column stride of A.
+     * @param aConj indicates if A is conjugated.
+     * @param b the buffer holding B.
+     * @param bOff the index of the real part of <code>B[0,0]</code>.
+     * @param bRs the row stride of B.
+     * @param bCs the column stride of B.
+     * @param bConj indicates if B is conjugated.
+     * @param c the buffer holding C.
+     * @param cOff the index of the real part of <code>C[0,0]</code>.
+     * @param ldc the leading dimension (row stride) of C.
+     */
+    static void gemmComplex(int m, int n, int k, double alpha,
+            double[] a, int aOff, int aRs, int aCs, boolean aConj,
+            double[] b, int bOff, int bRs, int bCs, boolean bConj,
+            double[] c, int cOff, int ldc) {
+        if ((m == 0) || (n == 0) || (k == 0) || (alpha == 0.0))
+            return;
+        final double sa = aConj ? -1.0 : 1.0;
+        final double sb = bConj ? -1.0 : 1.0;
+        if (4L * m * n * k < BLOCKED_THRESHOLD) {
+            for (int i = 0; i < m; i++) {
+                final int ci = cOff + i * ldc;
+                for (int p = 0; p < k; p++) {
+                    final int aip = aOff + i * aRs + p * aCs;
+                    final double ar = alpha * a[aip];
+                    final double ai = alpha * sa * a[aip + 1];
+                    if ((ar == 0.0) && (ai == 0.0))
+                        continue;
+                    for (int j = 0, bj = bOff + p * bRs, cj = ci; j < n; j++, bj += bCs, cj += 2) {
+                        final double br = b[bj];
+                        final double bi = sb * b[bj + 1];
+                        c[cj] += ar * br - ai * bi;
+                        c[cj + 1] += ar * bi + ai * br;
+                    }
+                }
+            }
+            return;
+        }
+        final double[] re = new double[m * n];
+        final double[] im = new double[m * n];
+        gemm(m, n, k, 1.0, a, aOff, aRs, aCs, b, bOff, bRs, bCs, re, 0, n);
+        gemm(m, n, k, -sa * sb, a, aOff + 1, aRs, aCs, b, bOff + 1, bRs, bCs, re, 0, n);
+        gemm(m, n, k, sb, a, aOff, aRs, aCs, b, bOff + 1, bRs, bCs, im, 0, n);
+        gemm(m, n, k, sa, a, aOff + 1, aRs, aCs, b, bOff, bRs, bCs, im, 0, n);
+        for (int i = 0; i < m; i++) {
+            for (int j = 0, cj = cOff + i * ldc, l = i * n; j < n; j++, cj += 2, l++) {
+                c[cj] += alpha * re[l];
+                c[cj + 1] += alpha * im[l];
+            }
+        }
+    }
+
+    /**
+     * Performs <code>y += alpha · x</code> on interleaved complex vectors
+     * (strides counted in <code>double</code>).
+     *
+     * @param n the number of complex elements.
+     * @param alphaRe the real part of the scaling factor.
+     * @param alphaIm the imaginary part of the scaling factor.
+     * @param x the buffer holding x.
+     * @param xOff the index of the real part of the first element of x.
+     * @param incX the stride of x.
+     * @param y the buffer holding y (updated).
+     * @param yOff the index of the real part of the first element of y.
+     * @param incY the stride of y.
+     */
+    static void axpyComplex(int n, double alphaRe, double alphaIm,
+            double[] x, int xOff, int incX, double[] y, int yOff, int incY) {
+        for (int i = 0, j = xOff, k = yOff; i < n; i++, j += incX, k += incY) {
+            final double xr = x[j], xi = x[j + 1];
+            y[k] += alphaRe * xr - alphaIm * xi;
+            y[k + 1] += alphaRe * xi + alphaIm * xr;
+        }
+    }
+
+    /**
+     * Sets <code>y = alpha · x</code> on interleaved complex vectors
+     * (y may be x).
+     *
+     * @param n the number of complex elements.
+     * @param alphaRe the real part of the scaling factor.
+     * @param alphaIm the imaginary part of the scaling factor.
+     * @param x the buffer holding x.
+     * @param xOff the index of the real part of the first element of x.
+     * @param incX the stride of x.
+     * @param y the buffer holding y.
+     * @param yOff the index of the real part of the first element of y.
+     * @param incY the stride of y.
+     */
+    static void scaleComplex(int n, double alphaRe, double alphaIm,
+            double[] x, int xOff, int incX, double[] y, int yOff, int incY) {
+        for (int i = 0, j = xOff, k = yOff; i < n; i++, j += incX, k += incY) {
+            final double xr = x[j], xi = x[j + 1];
+            y[k] = alphaRe * xr - alphaIm * xi;
+            y[k + 1] = alphaRe * xi + alphaIm * xr;
+        }
+    }
+
+    /**
+     * Packs the kc-by-nc block of B into panels of NR columns
+     * (zero padded).
+     */
+    private static void packB(int kc, int nc, double[] b, int bOff, int bRs, int bCs,
+            double[] bp) {
+        int index = 0;
+        for (int jr = 0; jr < nc; jr += NR) {
+            final int nr = MathLib.min(NR, nc - jr);
+            for (int p = 0; p < kc; p++) {
+                final int bpj = bOff + p * bRs + jr * bCs;
+                int q = 0;
+                for (; q < nr; q++) {
+                    bp[index++] = b[bpj + q * bCs];
+                }
+                for (; q < NR; q++) {
+                    bp[index++] = 0.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs the mc-by-kc block of A (scaled by alpha) into panels of MR rows
+     * (zero padded).
+     */
+    private static void packA(int mc, int kc, double alpha, double[] a, int aOff, int aRs, int aCs,
+            double[] ap) {
+        int index = 0;
+        for (int ir = 0; ir < mc; ir += MR) {
+            final int mr = MathLib.min(MR, mc - ir);
+            for (int p = 0; p < kc; p++) {
+                final int aip = aOff + ir * aRs + p * aCs;
+                int r = 0;
+                for (; r < mr; r++) {
+                    ap[index++] = alpha * a[aip + r * aRs];
+                }
+                for (; r < MR; r++) {
+                    ap[index++] = 0.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Multiplies a MR-by-kc panel of A with a kc-by-NR panel of B and
+     * adds the mr-by-nr upper left corner of the result to C.
+     */
+    private static void microKernel(int kc, double[] ap, int aIndex, double[] bp, int bIndex,
+            double[] c, int cIndex, int ldc, int mr, int nr) {
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        for (int p = 0; p < kc; p++, aIndex += MR, bIndex += NR) {
+            final double b0 = bp[bIndex];
+            final double b1 = bp[bIndex + 1];
+            final double b2 = bp[bIndex + 2];
+            final double b3 = bp[bIndex + 3];
+            double ai = ap[aIndex];
+            c00 += ai * b0; c01 += ai * b1; c02 += ai * b2; c03 += ai * b3;
+            ai = ap[aIndex + 1];
+            c10 += ai * b0; c11 += ai * b1; c12 += ai * b2; c13 += ai * b3;
+            ai = ap[aIndex + 2];
+            c20 += ai * b0; c21 += ai * b1; c22 += ai * b2; c23 += ai * b3;
+            ai = ap[aIndex + 3];
+            c30 += ai * b0; c31 += ai * b1; c32 += ai * b2; c33 += ai * b3;
+        }
+        if ((mr == MR) && (nr == NR)) { // Full tile.
+            c[cIndex] += c00; c[cIndex + 1] += c01; c[cIndex + 2] += c02; c[cIndex + 3] += c03;
+            cIndex += ldc;
+            c[cIndex] += c10; c[cIndex + 1] += c11; c[cIndex + 2] += c12; c[cIndex + 3] += c13;
+            cIndex += ldc;
+            c[cIndex] += c20; c[cIndex + 1] += c21; c[cIndex + 2] += c22; c[cIndex + 3] += c23;
+            cIndex += ldc;
+            c[cIndex] += c30; c[cIndex + 1] += c31; c[cIndex + 2] += c32; c[cIndex + 3] += c33;
+            return;
+        }
+        // Edge tile.
+        final double[] tile = { c00, c01, c02, c03, c10, c11, c12, c13,
+                c20, c21, c22, c23, c30, c31, c32, c33 };
+        for (int i = 0; i < mr; i++, cIndex += ldc) {
+            for (int j = 0; j < nr; j++) {
+                c[cIndex + j] += tile[i * NR + j];
+            }
+        }
+    }
+
+    /**
+     * Returns the specified value rounded up to a multiple of the specified
+     * factor.
+     */
+    private static int roundUp(int value, int factor) {
+        return ((value + factor - 1) / factor) * factor;
+    }
+
+    /**
+     * Updates the blocks of rows [first, last[ of the lower triangle of C
+     * (<code>C += alpha · A · A'</code>).
+     */
+    private static final class LowerUpdate implements Runnable {
+
+        private final int _first, _last, _n, _k;
+
+        private final double _alpha;
+
+        private final double[] _a;
+
+        private final int _aOff, _lda;
+
+        private final double[] _c;
+
+        private final int _cOff, _ldc;
+
+        LowerUpdate(int first, int last, int n, int k, double alpha,
+                double[] a, int aOff, int lda, double[] c, int cOff, int ldc) {
+            _first = first;
+            _last = last;
+            _n = n;
+            _k = k;
+            _alpha = alpha;
+            _a = a;
+            _aOff = aOff;
+            _lda = lda;
+            _c = c;
+            _cOff = cOff;
+            _ldc = ldc;
+        }
+
+        public void run() {
+            for (int block = _first; block < _last; block++) {
+                final int i = block * MC;
+                final int mc = MathLib.min(MC, _n - i);
+                // C[i:i+mc, 0:i+mc] += alpha · A[i:i+mc, :] · A[0:i+mc, :]'
+                gemm(mc, i + mc, _k, _alpha, _a, _aOff + i * _lda, _lda, 1,
+                        _a, _aOff, 1, _lda, _c, _cOff + i * _ldc, _ldc);
+            }
+        }
+    }
+
+    /**
+     * Multiplies the packed block of B by the rows [first, last[ of A
+     * (packed MC rows at a time into a task-local buffer).
+     */
+    private static final class MacroKernel implements Runnable {
+
+        private final int _first, _last, _nc, _kc;
+
+        private final double _alpha;
+
+        private final double[] _a;
+
+        private final int _aOff, _aRs, _aCs;
+
+        private final double[] _bp;
+
+        private final double[] _c;
+
+        private final int _cOff, _ldc;
+
+        MacroKernel(int first, int last, int nc, int kc, double alpha,
+                double[] a, int aOff, int aRs, int aCs, double[] bp,
+                double[] c, int cOff, int ldc) {
+            _first = first;
+            _last = last;
+            _nc = nc;
+            _kc = kc;
+            _alpha = alpha;
+            _a = a;
+            _aOff = aOff;
+            _aRs = aRs;
+            _aCs = aCs;
+            _bp = bp;
+            _c = c;
+            _cOff = cOff;
+            _ldc = ldc;
+        }
+
+        public void run() {
+            final double[] ap = new double[roundUp(MathLib.min(MC, _last - _first), MR) * _kc];
+            for (int ic = _first; ic < _last; ic += MC) {
+                final int mc = MathLib.min(MC, _last - ic);
+                packA(mc, _kc, _alpha, _a, _aOff + ic * _aRs, _aRs, _aCs, ap);
+                for (int jr = 0; jr < _nc; jr += NR) {
+                    final int nr = MathLib.min(NR, _nc - jr);
+                    for (int ir = 0; ir < mc; ir += MR) {
+                        final int mr = MathLib.min(MR, mc - ir);
+                        microKernel(_kc, ap, ir * _kc, _bp, jr * _kc,
+                                _c, _cOff + (ic + ir) * _ldc + jr, _ldc, mr, nr);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs a vector operation on the elements [first, last[.
+     */
+    private static final class VectorOperation implements Runnable {
+
+        static final int DOT = 0, AXPY = 1, XPAY = 2;
+
+        private final int _operation, _first, _last;
+
+        private final double _alpha;
+
+        private final double[] _x, _y;
+
+        private double _result;
+
+        VectorOperation(int operation, int first, int last, double alpha,
+                double[] x, double[] y) {
+            _operation = operation;
+            _first = first;
+            _last = last;
+            _alpha = alpha;
+            _x = x;
+            _y = y;
+        }
+
+        public void run() {
+            final int n = _last - _first;
+            if (_operation == DOT) {
+                _result = dot(n, _x, _first, 1, _y, _first, 1);
+            } else if (_operation == AXPY) {
+                axpy(n, _alpha, _x, _first, 1, _y, _first, 1, _y, _first);
+            } else { // XPAY
+                for (int i = _first; i < _last; i++) {
+                    _y[i] = _x[i] + _alpha * _y[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import javolution.util.FastTable;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the {@link LUDecomposition LU decomposition}
+ *     of a 64 bits floating point {@link Matrix matrix} performed directly
+ *     on the <code>double[]</code> buffer of a {@link Float64Matrix}
+ *     (no {@link Float64} instance is created).</p>
+ *
+ * <p> The decomposition is right-looking and blocked: each panel of
+ *     {@link #BLOCK_SIZE} columns is factored with partial pivoting, then
+ *     the trailing sub-matrix is updated through a matrix product
+ *     (<code>A22 = A22 - L21·U12</code>) which is executed concurrently
+ *     for large matrices. Solving and inversion are blocked the same way.</p>
+ *
+ * <p> A rank-one modification <code>A + u·v'</code> of the matrix source
+ *     can be applied to the decomposition in <code>O(n²)</code>
+ *     (see {@link #update}); should the update break down, the modified
+ *     matrix is refactored. For modifications of higher rank,
+ *     {@link Float64WoodburySolver} solves with the modified matrix
+ *     without refactoring.</p>
+ *
+ * <p> Singular matrices are decomposed without error (zero pivot);
+ *     their {@link #determinant determinant} is zero and solving returns
+ *     non-finite values.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/LU_decomposition">
+ *      Wikipedia: LU decomposition</a>
+ */
+public final class Float64LUDecomposition implements Solver<Float64> {
+
+    /**
+     * Holds the number of columns of the panels factored at once.
+     */
+    static final int BLOCK_SIZE = 64;
+
+    /**
+     * Holds the relative breakdown tolerance of the rank-one {@link #update
+     * update}: an updated pivot smaller than this fraction of the magnitude
+     * of its terms is considered cancelled.
+     */
+    private static final double UPDATE_TOLERANCE = 1e-12;
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64LUDecomposition> FACTORY = new ObjectFactory<Float64LUDecomposition>() {
+
+        protected Float64LUDecomposition create() {
+            return new Float64LUDecomposition();
+        }
+
+        @Override
+        protected void cleanup(Float64LUDecomposition lu) {
+            lu._LU = null;
+        }
+    };
+
+    /**
+     * Holds the dimension of the square matrix source.
+     */
+    private int _n;
+
+    /**
+     * Holds the lower/upper decomposition (contiguous, <code>ld == n</code>).
+     */
+    private Float64Matrix _LU;
+
+    /**
+     * Holds the pivots (row indices after permutation).
+     */
+    private int[] _pivots = new int[0];
+
+    /**
+     * Holds the number of permutation performed.
+     */
+    private int _permutationCount;
+
+    /**
+     * Default constructor.
+     */
+    private Float64LUDecomposition() {
+    }
+
+    /**
+     * Returns the lower/upper decomposition of the specified matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the lower/upper decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static Float64LUDecomposition valueOf(Matrix<Float64> source) {
+        if (!source.isSquare())
+            throw new DimensionException("Matrix is not square");
+        Float64LUDecomposition lu = FACTORY.object();
+        lu._n = source.getNumberOfRows();
+        lu._permutationCount = 0;
+        lu.construct(Float64Matrix.valueOfMatrix(source).copy());
+        return lu;
+    }
+
+    /**
+     * Constructs the decomposition (in place).
+     */
+    private void construct(Float64Matrix LU) {
+        _LU = LU;
+        final int n = _n;
+        final double[] a = LU._values;
+        if (_pivots.length < n) {
+            _pivots = new int[n];
+        }
+        for (int i = 0; i < n; i++) {
+            _pivots[i] = i;
+        }
+        for (int k = 0; k < n; k += BLOCK_SIZE) {
+            final int nb = MathLib.min(BLOCK_SIZE, n - k);
+
+            // Factors the panel (columns k to k + nb).
+            for (int j = k; j < k + nb; j++) {
+                int pivot = j;
+                double max = MathLib.abs(a[j * n + j]);
+                for (int i = j + 1; i < n; i++) {
+                    double abs = MathLib.abs(a[i * n + j]);
+                    if (abs > max) {
+                        max = abs;
+                        pivot = i;
+                    }
+                }
+                if (pivot != j) { // Exchanges (whole rows).
+                    swapRows(a, n, pivot, j);
+                    int tmp = _pivots[pivot];
+                    _pivots[pivot] = _pivots[j];
+                    _pivots[j] = tmp;
+                    _permutationCount++;
+                }
+                final double ajj = a[j * n + j];
+                if (ajj == 0.0)
+                    continue; // Singular (the column below is zero).
+                final double ajjInv = 1.0 / ajj;
+                final int w = k + nb - j - 1; // Remaining panel columns.
+                for (int i = j + 1; i < n; i++) {
+                    final double lij = a[i * n + j] *= ajjInv;
+                    if ((w > 0) && (lij != 0.0)) {
+                        Float64Kernels.axpy(w, -lij, a, j * n + j + 1, 1,
+                                a, i * n + j + 1, 1, a, i * n + j + 1);
+                    }
+                }
+            }
+
+            final int n2 = n - k - nb; // Trailing dimension.
+            if (n2 == 0)
+                break;
+
+            // U12 = inv(L11) · A12
+            for (int r = k + 1; r < k + nb; r++) {
+                for (int q = k; q < r; q++) {
+                    Float64Kernels.axpy(n2, -a[r * n + q], a, q * n + k + nb, 1,
+                            a, r * n + k + nb, 1, a, r * n + k + nb);
+                }
+            }
+
+            // A22 = A22 - L21 · U12
+            Float64Kernels.gemm(n2, n2, nb, -1.0, a, (k + nb) * n + k, n, 1,
+                    a, k * n + k + nb, n, 1, a, (k + nb) * n + k + nb, n);
+        }
+    }
+
+    // Exchanges the rows i and j of the n-by-n matrix a.
+    private static void swapRows(double[] a, int n, int i, int j) {
+        for (int c = 0, ri = i * n, rj = j * n; c < n; c++) {
+            double tmp = a[ri + c];
+            a[ri + c] = a[rj + c];
+            a[rj + c] = tmp;
+        }
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Matrix solve(Matrix<Float64> B) {
+        if (_n != B.getNumberOfRows())
+            throw new DimensionException("Input vector has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        final int n = _n;
+        final int p = B.getNumberOfColumns();
+        Float64Matrix T = Float64Matrix.valueOfMatrix(B);
+        Float64Matrix X = Float64Matrix.newInstance(n, p);
+        for (int i = 0; i < n; i++) { // Copies B with pivoting.
+            System.arraycopy(T._values, T._offset + _pivots[i] * T._ld, X._values, i * p, p);
+        }
+        substitute(X._values, p);
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Vector solve(Vector<Float64> y) {
+        if (_n != y.getDimension())
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + _n);
+        Float64Vector T = Float64Vector.valueOfVector(y);
+        Float64Vector x = Float64Vector.FACTORY.array(_n);
+        x._dimension = _n;
+        for (int i = 0; i < _n; i++) {
+            x._values[i] = T._values[T._offset + _pivots[i] * T._stride];
+        }
+        substitute(x._values, 1);
+        return x;
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = Identity  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    public Float64Matrix inverse() {
+        final int n = _n;
+        Float64Matrix X = Float64Matrix.newInstance(n, n);
+        Arrays.fill(X._values, 0, n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            X._values[i * n + _pivots[i]] = 1.0;
+        }
+        substitute(X._values, n);
+        return X;
+    }
+
+    /**
+     * Solves <code>L·U·X = B</code> in place (B being the n-by-p
+     * contiguous matrix x), by blocks of rows.
+     */
+    private void substitute(double[] x, int p) {
+        final int n = _n;
+        final double[] a = _LU._values;
+
+        // Solves L * Y = pivot(B)
+        for (int b = 0; b < n; b += BLOCK_SIZE) {
+            final int nb = MathLib.min(BLOCK_SIZE, n - b);
+            if (b > 0) { // Y[b:b+nb] -= L[b:b+nb, 0:b] · Y[0:b]
+                Float64Kernels.gemm(nb, p, b, -1.0, a, b * n, n, 1,
+                        x, 0, p, 1, x, b * p, p);
+            }
+            for (int i = b + 1; i < b + nb; i++) {
+                for (int q = b; q < i; q++) {
+                    Float64Kernels.axpy(p, -a[i * n + q], x, q * p, 1,
+                            x, i * p, 1, x, i * p);
+                }
+            }
+        }
+
+        // Solves U * X = Y;
+        for (int e = n; e > 0; e -= BLOCK_SIZE) {
+            final int b = MathLib.max(0, e - BLOCK_SIZE);
+            if (e < n) { // X[b:e] -= U[b:e, e:n] · X[e:n]
+                Float64Kernels.gemm(e - b, p, n - e, -1.0, a, b * n + e, n, 1,
+                        x, e * p, p, 1, x, b * p, p);
+            }
+            for (int i = e - 1; i >= b; i--) {
+                for (int q = i + 1; q < e; q++) {
+                    Float64Kernels.axpy(p, -a[i * n + q], x, q * p, 1,
+                            x, i * p, 1, x, i * p);
+                }
+                Float64Kernels.scale(p, 1.0 / a[i * n + i], x, i * p, 1, x, i * p);
+            }
+        }
+    }
+
+    /**
+     * Updates this decomposition to the decomposition of
+     * <code>A + u·v'</code> in <code>O(n²)</code> (Bennett's algorithm,
+     * the row permutation being kept). If the update breaks down (zero or
+     * cancelled pivot), <code>A + u·v'</code> is rebuilt from the current
+     * factors and refactored with partial pivoting in <code>O(n³)</code>.
+     *
+     * @param u the column vector.
+     * @param v the row vector.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public void update(Vector<Float64> u, Vector<Float64> v) {
+        final int n = _n;
+        if ((u.getDimension() != n) || (v.getDimension() != n))
+            throw new DimensionException("Update vectors dimensions "
+                    + u.getDimension() + ", " + v.getDimension()
+                    + " instead of " + n);
+        Float64Vector U = Float64Vector.valueOfVector(u);
+        Float64Vector V = Float64Vector.valueOfVector(v);
+        final double[] w = new double[n]; // w = P·u
+        final double[] z = new double[n]; // z = v
+        for (int i = 0; i < n; i++) {
+            w[i] = U._values[U._offset + _pivots[i] * U._stride];
+            z[i] = V._values[V._offset + i * V._stride];
+        }
+        Float64Matrix LU = _LU.copy(); // Replaces the current one on success.
+        final double[] a = LU._values;
+        for (int j = 0; j < n; j++) {
+            final int rj = j * n;
+            final double d = a[rj + j];
+            final double wz = w[j] * z[j];
+            final double dd = d + wz;
+            if (!(MathLib.abs(dd) > UPDATE_TOLERANCE * (MathLib.abs(d) + MathLib.abs(wz)))) {
+                refactor(U, V); // Breakdown.
+                return;
+            }
+            a[rj + j] = dd;
+            final double wj = w[j];
+            final double zj = z[j] / dd;
+            for (int k = j + 1; k < n; k++) { // Row j of U.
+                final double ujk = a[rj + k] + wj * z[k];
+                a[rj + k] = ujk;
+                z[k] -= zj * ujk;
+            }
+            for (int i = j + 1; i < n; i++) { // Column j of L.
+                final double lij = a[i * n + j];
+                a[i * n + j] = (lij * d + w[i] * z[j]) / dd;
+                w[i] -= wj * lij;
+            }
+        }
+        _LU = LU;
+    }
+
+    // Refactors A + u·v', A being rebuilt from the current factors
+    // (row i of L·U is row _pivots[i] of A).
+    private void refactor(Float64Vector u, Float64Vector v) {
+        final int n = _n;
+        final double[] a = _LU._values;
+        Float64Matrix A = Float64Matrix.newInstance(n, n);
+        final double[] b = A._values;
+        for (int i = 0; i < n; i++) {
+            final int ri = _pivots[i] * n;
+            final double ui = u._values[u._offset + _pivots[i] * u._stride];
+            for (int j = 0; j < n; j++) {
+                final int e = MathLib.min(i, j);
+                double sum = (i <= j) ? a[i * n + j] : a[i * n + j] * a[j * n + j];
+                for (int k = 0; k < e; k++) {
+                    sum += a[i * n + k] * a[k * n + j];
+                }
+                b[ri + j] = sum + ui * v._values[v._offset + j * v._stride];
+            }
+        }
+        _permutationCount = 0;
+        construct(A);
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition.
+     *
+     * @return the determinant of the matrix source.
+     */
+    public Float64 determinant() {
+        final double[] a = _LU._values;
+        double product = 1.0;
+        for (int i = 0; i < _n; i++) {
+            product *= a[i * _n + i];
+        }
+        return Float64.valueOf(((_permutationCount & 1) == 0) ? product : -product);
+    }
+
+    /**
+     * Returns the lower matrix decomposition (<code>L</code>) with unit
+     * diagonal elements.
+     *
+     * @return the lower matrix.
+     */
+    public Float64Matrix getLower() {
+        Float64Matrix L = _LU.copy();
+        for (int i = 0; i < _n; i++) {
+            L._values[i * _n + i] = 1.0;
+            Arrays.fill(L._values, i * _n + i + 1, (i + 1) * _n, 0.0);
+        }
+        return L;
+    }
+
+    /**
+     * Returns the upper matrix decomposition (<code>U</code>).
+     *
+     * @return the upper matrix.
+     */
+    public Float64Matrix getUpper() {
+        Float64Matrix U = _LU.copy();
+        for (int i = 0; i < _n; i++) {
+            Arrays.fill(U._values, i * _n, i * _n + i, 0.0);
+        }
+        return U;
+    }
+
+    /**
+     * Returns the lower/upper decomposition in one single matrix.
+     *
+     * @return a copy of the lower/upper matrix merged in a single matrix.
+     */
+    public Float64Matrix getLU() {
+        return _LU.copy();
+    }
+
+    /**
+     * Returns the pivots elements of this decomposition.
+     *
+     * @return the row indices after permutation.
+     */
+    public FastTable<Index> getPivots() {
+        FastTable<Index> pivots = FastTable.newInstance();
+        for (int i = 0; i < _n; i++) {
+            pivots.add(Index.valueOf(_pivots[i]));
+        }
+        return pivots;
+    }
+
+}
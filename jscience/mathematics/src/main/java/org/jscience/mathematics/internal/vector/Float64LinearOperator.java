@@ -0,0 +1,52 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+/**
+ * <p> This interface represents a linear operator on 64 bits floating
+ *     point vectors, known only by its action <code>y = A · x</code>
+ *     (matrix-free). It is implemented by {@link Float64Matrix},
+ *     {@link Float64CSRMatrix}, {@link Float64CSCMatrix} and the structured
+ *     matrices ({@link Float64BandMatrix}, {@link Float64ToeplitzMatrix},
+ *     ...); applications
+ *     may implement it for operators never stored explicitly (stencils,
+ *     products of matrices, ...).</p>
+ *
+ * <p> Operators are used by {@link Float64IterativeSolver iterative solvers}
+ *     and are applied on contiguous <code>double[]</code> buffers to avoid
+ *     allocations at each iteration.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public interface Float64LinearOperator {
+
+    /**
+     * Returns the dimension of the range of this operator.
+     *
+     * @return the number of rows.
+     */
+    int getNumberOfRows();
+
+    /**
+     * Returns the dimension of the domain of this operator.
+     *
+     * @return the number of columns.
+     */
+    int getNumberOfColumns();
+
+    /**
+     * Performs <code>y = this · x</code>.
+     *
+     * @param x the input vector (length: number of columns).
+     * @param y the output vector (length: number of rows), distinct from x.
+     */
+    void times(double[] x, double[] y);
+
+}
@@ -0,0 +1,394 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import javolution.lang.MathLib;
+import javolution.util.FastTable;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the {@link LUDecomposition LU decomposition}
+ *     of a {@link Float64MappedMatrix mapped matrix} (out-of-core).</p>
+ *
+ * <p> The decomposition is left-looking by columns of tiles: each column
+ *     of tiles is loaded on the heap, updated with the columns of tiles
+ *     previously factored (streamed tile by tile through the blocked matrix
+ *     product), factored with partial pivoting and written back. Only one
+ *     column of tiles (<code>n · TILE_SIZE</code> elements) and one tile
+ *     are on the heap at once. The factors are held in a temporary
+ *     mapped matrix, released when this decomposition is {@link #close
+ *     closed}.</p>
+ *
+ * <p> Singular matrices are decomposed without error (zero pivot);
+ *     their {@link #determinant determinant} is zero and solving returns
+ *     non-finite values.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/LU_decomposition">
+ *      Wikipedia: LU decomposition</a>
+ */
+public final class Float64MappedLUDecomposition implements Closeable, Solver<Float64> {
+
+    // Tiles of the mapped matrices.
+    private static final int TILE_SHIFT = Float64MappedMatrix.TILE_SHIFT;
+
+    private static final int TILE_SIZE = Float64MappedMatrix.TILE_SIZE;
+
+    private static final int TILE_LENGTH = Float64MappedMatrix.TILE_LENGTH;
+
+    /**
+     * Holds the dimension of the square matrix source.
+     */
+    private final int _n;
+
+    /**
+     * Holds the lower/upper decomposition.
+     */
+    private final Float64MappedMatrix _LU;
+
+    /**
+     * Holds the pivots (row indices after permutation).
+     */
+    private final int[] _pivots;
+
+    /**
+     * Holds the row exchanged with each row during the factorization.
+     */
+    private final int[] _exchanges;
+
+    /**
+     * Holds the number of permutation performed.
+     */
+    private int _permutationCount;
+
+    /**
+     * Creates the decomposition of the specified matrix (copied).
+     */
+    private Float64MappedLUDecomposition(Float64MappedMatrix LU) {
+        _n = LU._m;
+        _LU = LU;
+        _pivots = new int[_n];
+        _exchanges = new int[_n];
+        construct();
+    }
+
+    /**
+     * Returns the lower/upper decomposition of the specified matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated
+     *         (mapped or not).
+     * @return the lower/upper decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static Float64MappedLUDecomposition valueOf(Matrix<Float64> source) {
+        if (!source.isSquare())
+            throw new DimensionException("Matrix is not square");
+        Float64MappedMatrix LU = Float64MappedMatrix.newTemporary(
+                source.getNumberOfRows(), source.getNumberOfColumns());
+        LU.plus(source, LU); // Copy (LU is zero).
+        return new Float64MappedLUDecomposition(LU);
+    }
+
+    /**
+     * Constructs the decomposition (in place).
+     */
+    private void construct() {
+        final int n = _n;
+        final Float64MappedMatrix A = _LU;
+        final int nt = A._tileRows;
+        for (int i = 0; i < n; i++) {
+            _pivots[i] = i;
+        }
+        final double[] tile = new double[TILE_LENGTH];
+        final double[] panel = new double[(nt << TILE_SHIFT) * TILE_SIZE];
+        for (int K = 0; K < nt; K++) {
+            final int c0 = K << TILE_SHIFT;
+            final int w = MathLib.min(TILE_SIZE, n - c0);
+
+            // Loads the column of tiles K (n-by-w, ld = w) with previous pivoting.
+            for (int I = 0; I < nt; I++) {
+                A.readTile(I, K, tile);
+                final int mi = MathLib.min(TILE_SIZE, n - (I << TILE_SHIFT));
+                for (int r = 0; r < mi; r++) {
+                    System.arraycopy(tile, r << TILE_SHIFT, panel, ((I << TILE_SHIFT) + r) * w, w);
+                }
+            }
+            for (int j = 0; j < c0; j++) {
+                if (_exchanges[j] != j) {
+                    swapRows(panel, w, j, _exchanges[j]);
+                }
+            }
+
+            // Updates with the previous columns of tiles (left-looking).
+            for (int J = 0; J < K; J++) {
+                final int j0 = J << TILE_SHIFT;
+                A.readTile(J, J, tile); // U(J,K) = inv(L(J,J)) · A(J,K)
+                for (int r = 1; r < TILE_SIZE; r++) {
+                    for (int q = 0; q < r; q++) {
+                        Float64Kernels.axpy(w, -tile[(r << TILE_SHIFT) + q], panel, (j0 + q) * w, 1,
+                                panel, (j0 + r) * w, 1, panel, (j0 + r) * w);
+                    }
+                }
+                for (int I = J + 1; I < nt; I++) { // A(I,K) -= L(I,J) · U(J,K)
+                    final int i0 = I << TILE_SHIFT;
+                    A.readTile(I, J, tile);
+                    Float64Kernels.gemm(MathLib.min(TILE_SIZE, n - i0), w, TILE_SIZE, -1.0,
+                            tile, 0, TILE_SIZE, 1, panel, j0 * w, w, 1, panel, i0 * w, w);
+                }
+            }
+
+            // Factors the panel (rows c0 to n) with partial pivoting.
+            for (int j = 0; j < w; j++) {
+                final int jj = c0 + j;
+                int pivot = jj;
+                double max = MathLib.abs(panel[jj * w + j]);
+                for (int i = jj + 1; i < n; i++) {
+                    double abs = MathLib.abs(panel[i * w + j]);
+                    if (abs > max) {
+                        max = abs;
+                        pivot = i;
+                    }
+                }
+                _exchanges[jj] = pivot;
+                if (pivot != jj) {
+                    swapRows(panel, w, pivot, jj);
+                    int tmp = _pivots[pivot];
+                    _pivots[pivot] = _pivots[jj];
+                    _pivots[jj] = tmp;
+                    _permutationCount++;
+                }
+                final double ajj = panel[jj * w + j];
+                if (ajj == 0.0)
+                    continue; // Singular (the column below is zero).
+                final double ajjInv = 1.0 / ajj;
+                final int remaining = w - j - 1;
+                for (int i = jj + 1; i < n; i++) {
+                    final double lij = panel[i * w + j] *= ajjInv;
+                    if ((remaining > 0) && (lij != 0.0)) {
+                        Float64Kernels.axpy(remaining, -lij, panel, jj * w + j + 1, 1,
+                                panel, i * w + j + 1, 1, panel, i * w + j + 1);
+                    }
+                }
+            }
+
+            // Writes back the column of tiles.
+            Arrays.fill(tile, 0.0);
+            for (int I = 0; I < nt; I++) {
+                final int mi = MathLib.min(TILE_SIZE, n - (I << TILE_SHIFT));
+                for (int r = 0; r < mi; r++) {
+                    System.arraycopy(panel, ((I << TILE_SHIFT) + r) * w, tile, r << TILE_SHIFT, w);
+                }
+                A.writeTile(I, K, tile);
+            }
+
+            // Applies the panel exchanges to the previous columns (L factors).
+            for (int j = c0; (j < c0 + w) && (c0 > 0); j++) {
+                final int p = _exchanges[j];
+                if (p == j)
+                    continue;
+                for (int c = 0; c < c0; c++) {
+                    double tmp = A.getValue(j, c);
+                    A.setValue(j, c, A.getValue(p, c));
+                    A.setValue(p, c, tmp);
+                }
+            }
+        }
+    }
+
+    // Exchanges the rows i and j of the specified matrix (ld = w).
+    private static void swapRows(double[] a, int w, int i, int j) {
+        for (int c = 0, ri = i * w, rj = j * w; c < w; c++) {
+            double tmp = a[ri + c];
+            a[ri + c] = a[rj + c];
+            a[rj + c] = tmp;
+        }
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @param  B the input matrix (on the heap).
+     * @return the solution X = (1 / A) * B (on the heap).
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Matrix solve(Matrix<Float64> B) {
+        if (_n != B.getNumberOfRows())
+            throw new DimensionException("Input vector has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        final int n = _n;
+        final int p = B.getNumberOfColumns();
+        Float64Matrix T = Float64Matrix.valueOfMatrix(B);
+        double[] x = new double[(_LU._tileRows << TILE_SHIFT) * p]; // Padded.
+        for (int i = 0; i < n; i++) { // Copies B with pivoting.
+            System.arraycopy(T._values, T._offset + _pivots[i] * T._ld, x, i * p, p);
+        }
+        substitute(x, p);
+        Float64Matrix X = Float64Matrix.newInstance(n, p);
+        System.arraycopy(x, 0, X._values, 0, n * p);
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Vector solve(Vector<Float64> y) {
+        if (_n != y.getDimension())
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + _n);
+        Float64Vector T = Float64Vector.valueOfVector(y);
+        double[] x = new double[_LU._tileRows << TILE_SHIFT]; // Padded.
+        for (int i = 0; i < _n; i++) {
+            x[i] = T._values[T._offset + _pivots[i] * T._stride];
+        }
+        substitute(x, 1);
+        Float64Vector V = Float64Vector.FACTORY.array(_n);
+        V._dimension = _n;
+        System.arraycopy(x, 0, V._values, 0, _n);
+        return V;
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = Identity  with
+     * <code>this = A.lu()</code>, calculated by columns of tiles into
+     * a temporary mapped matrix.
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    public Float64MappedMatrix inverse() {
+        final int n = _n;
+        final int nt = _LU._tileRows;
+        Float64MappedMatrix X = Float64MappedMatrix.newTemporary(n, n);
+        final double[] tile = new double[TILE_LENGTH];
+        final double[] x = new double[(nt << TILE_SHIFT) * TILE_SIZE];
+        for (int K = 0; K < nt; K++) {
+            final int c0 = K << TILE_SHIFT;
+            final int w = MathLib.min(TILE_SIZE, n - c0);
+            Arrays.fill(x, 0.0);
+            for (int i = 0; i < n; i++) { // Columns c0 to c0 + w of pivoted identity.
+                final int c = _pivots[i] - c0;
+                if ((c >= 0) && (c < w)) {
+                    x[i * w + c] = 1.0;
+                }
+            }
+            substitute(x, w);
+            Arrays.fill(tile, 0.0);
+            for (int I = 0; I < nt; I++) {
+                final int mi = MathLib.min(TILE_SIZE, n - (I << TILE_SHIFT));
+                for (int r = 0; r < mi; r++) {
+                    System.arraycopy(x, ((I << TILE_SHIFT) + r) * w, tile, r << TILE_SHIFT, w);
+                }
+                X.writeTile(I, K, tile);
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Solves <code>L·U·X = B</code> in place (B being the n-by-p
+     * contiguous matrix x, with rows padded to a multiple of the tile
+     * size), by rows of tiles.
+     */
+    private void substitute(double[] x, int p) {
+        final int n = _n;
+        final int nt = _LU._tileRows;
+        final double[] a = new double[TILE_LENGTH];
+
+        // Solves L * Y = pivot(B)
+        for (int I = 0; I < nt; I++) {
+            final int i0 = I << TILE_SHIFT;
+            final int mi = MathLib.min(TILE_SIZE, n - i0);
+            for (int J = 0; J < I; J++) { // Y(I) -= L(I,J) · Y(J)
+                _LU.readTile(I, J, a);
+                Float64Kernels.gemm(mi, p, TILE_SIZE, -1.0, a, 0, TILE_SIZE, 1,
+                        x, (J << TILE_SHIFT) * p, p, 1, x, i0 * p, p);
+            }
+            _LU.readTile(I, I, a);
+            for (int r = 1; r < mi; r++) {
+                for (int q = 0; q < r; q++) {
+                    Float64Kernels.axpy(p, -a[(r << TILE_SHIFT) + q], x, (i0 + q) * p, 1,
+                            x, (i0 + r) * p, 1, x, (i0 + r) * p);
+                }
+            }
+        }
+
+        // Solves U * X = Y;
+        for (int I = nt - 1; I >= 0; I--) {
+            final int i0 = I << TILE_SHIFT;
+            final int mi = MathLib.min(TILE_SIZE, n - i0);
+            for (int J = I + 1; J < nt; J++) { // X(I) -= U(I,J) · X(J)
+                _LU.readTile(I, J, a);
+                Float64Kernels.gemm(mi, p, MathLib.min(TILE_SIZE, n - (J << TILE_SHIFT)), -1.0,
+                        a, 0, TILE_SIZE, 1, x, (J << TILE_SHIFT) * p, p, 1, x, i0 * p, p);
+            }
+            _LU.readTile(I, I, a);
+            for (int r = mi - 1; r >= 0; r--) {
+                for (int q = r + 1; q < mi; q++) {
+                    Float64Kernels.axpy(p, -a[(r << TILE_SHIFT) + q], x, (i0 + q) * p, 1,
+                            x, (i0 + r) * p, 1, x, (i0 + r) * p);
+                }
+                Float64Kernels.scale(p, 1.0 / a[(r << TILE_SHIFT) + r], x, (i0 + r) * p, 1,
+                        x, (i0 + r) * p);
+            }
+        }
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition.
+     *
+     * @return the determinant of the matrix source.
+     */
+    public Float64 determinant() {
+        double product = 1.0;
+        for (int i = 0; i < _n; i++) {
+            product *= _LU.getValue(i, i);
+        }
+        return Float64.valueOf(((_permutationCount & 1) == 0) ? product : -product);
+    }
+
+    /**
+     * Returns the lower/upper decomposition in one single mapped matrix
+     * (temporary, valid until this decomposition is closed).
+     *
+     * @return the lower/upper matrix merged in a single matrix.
+     */
+    public Float64MappedMatrix getLU() {
+        return _LU;
+    }
+
+    /**
+     * Returns the pivots elements of this decomposition.
+     *
+     * @return the row indices after permutation.
+     */
+    public FastTable<Index> getPivots() {
+        FastTable<Index> pivots = FastTable.newInstance();
+        for (int i = 0; i < _n; i++) {
+            pivots.add(Index.valueOf(_pivots[i]));
+        }
+        return pivots;
+    }
+
+    /**
+     * Releases the temporary file holding the factors.
+     */
+    public void close() {
+        _LU.release();
+    }
+}
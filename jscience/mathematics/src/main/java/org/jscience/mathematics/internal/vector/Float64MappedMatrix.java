@@ -0,0 +1,805 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import javolution.lang.MathLib;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a 64 bits floating point dense matrix held
+ *     in a file mapped into memory (out-of-core), for matrices too large
+ *     to fit in the heap.</p>
+ *
+ * <p> The elements are stored by square tiles of {@link #TILE_SIZE}
+ *     rows and columns (tiles are row-major and stored in row-major order,
+ *     edge tiles are zero padded); the file is mapped by regions of at most
+ *     1 GB, matrices larger than 2 GB being supported. Products, sums and
+ *     transposition stream the tiles through memory (only a few tiles
+ *     are on the heap at once); the {@link Float64MappedLUDecomposition LU
+ *     decomposition} requires one column of tiles on the heap. Results of
+ *     operations returning matrices are held in temporary files (deleted
+ *     when {@link #close closed} or on exit); the destination-passing
+ *     variants write into an existing mapped matrix.[code]
+ *         Float64MappedMatrix A = Float64MappedMatrix.create(new File("A.mat"), 100000, 100000);
+ *         ... // Sets the elements (setValue, setSubMatrix).
+ *         Float64MappedMatrix B = Float64MappedMatrix.open(new File("B.mat"));
+ *         Float64MappedMatrix C = Float64MappedMatrix.create(new File("C.mat"), 100000, B.getNumberOfColumns());
+ *         A.times(B, C); // Tile-wise product.
+ *         C.close();
+ *     [/code]</p>
+ *
+ * <p> Rows and columns are copied on the heap; sub-matrices are views.
+ *     Mapped matrices can be updated in place ({@link #setValue},
+ *     {@link #plusInPlace}...), the updates are written to the file
+ *     by the operating system (see {@link #force}).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public class Float64MappedMatrix extends DenseMatrix<Float64> implements Closeable {
+
+    /**
+     * Holds the binary logarithm of the tile size.
+     */
+    static final int TILE_SHIFT = 8;
+
+    /**
+     * Holds the number of rows and columns of the tiles.
+     */
+    public static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+    /**
+     * Holds the mask of the element position within a tile.
+     */
+    static final int TILE_MASK = TILE_SIZE - 1;
+
+    /**
+     * Holds the number of elements of a tile.
+     */
+    static final int TILE_LENGTH = TILE_SIZE * TILE_SIZE;
+
+    /**
+     * Holds the number of tiles per mapped region (1 GB).
+     */
+    static final int TILES_PER_MAPPING = (1 << 30) / (TILE_LENGTH * 8);
+
+    /**
+     * Holds the file header size (magic number, rows, columns, byte order).
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * Holds the file magic number.
+     */
+    static final int MAGIC = 0x4A534D4D;
+
+    /**
+     * Holds the file.
+     */
+    private transient File _file;
+
+    /**
+     * Holds the random access file (closed when this matrix is closed).
+     */
+    private transient RandomAccessFile _raf;
+
+    /**
+     * Holds the mapped regions.
+     */
+    private transient MappedByteBuffer[] _regions;
+
+    /**
+     * Holds the elements of the mapped regions.
+     */
+    private transient DoubleBuffer[] _mappings;
+
+    /**
+     * Indicates if the file is deleted when closed.
+     */
+    private boolean _isTemporary;
+
+    /**
+     * Holds the number of rows.
+     */
+    final int _m;
+
+    /**
+     * Holds the number of columns.
+     */
+    final int _n;
+
+    /**
+     * Holds the number of rows of tiles.
+     */
+    final int _tileRows;
+
+    /**
+     * Holds the number of columns of tiles.
+     */
+    final int _tileColumns;
+
+    /**
+     * Maps the specified file (header already written).
+     */
+    private Float64MappedMatrix(File file, RandomAccessFile raf, int m, int n,
+            ByteOrder order) throws IOException {
+        _file = file;
+        _raf = raf;
+        _m = m;
+        _n = n;
+        _tileRows = (m + TILE_MASK) >> TILE_SHIFT;
+        _tileColumns = (n + TILE_MASK) >> TILE_SHIFT;
+        final long tiles = (long) _tileRows * _tileColumns;
+        final int count = (int) ((tiles + TILES_PER_MAPPING - 1) / TILES_PER_MAPPING);
+        _regions = new MappedByteBuffer[count];
+        _mappings = new DoubleBuffer[count];
+        final FileChannel channel = raf.getChannel();
+        for (int k = 0; k < count; k++) {
+            final long first = (long) k * TILES_PER_MAPPING;
+            final long size = MathLib.min(TILES_PER_MAPPING, tiles - first) * TILE_LENGTH * 8;
+            _regions[k] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + first * TILE_LENGTH * 8, size);
+            _regions[k].order(order);
+            _mappings[k] = _regions[k].asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Creates a new zero matrix held in the specified file (overwritten
+     * if it exists).
+     *
+     * @param file the file holding the matrix.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @return the corresponding zero matrix.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    public static Float64MappedMatrix create(File file, int m, int n) throws IOException {
+        if ((m <= 0) || (n <= 0))
+            throw new DimensionException(m + "x" + n + " matrix");
+        final long tiles = (long) ((m + TILE_MASK) >> TILE_SHIFT) * ((n + TILE_MASK) >> TILE_SHIFT);
+        final ByteOrder order = ByteOrder.nativeOrder();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0); // Elements are zero.
+            raf.setLength(HEADER_SIZE + tiles * TILE_LENGTH * 8);
+            raf.writeInt(MAGIC);
+            raf.writeInt(m);
+            raf.writeInt(n);
+            raf.writeInt((order == ByteOrder.BIG_ENDIAN) ? 0 : 1);
+            return new Float64MappedMatrix(file, raf, m, n, order);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the matrix held in the specified file.
+     *
+     * @param file the file holding the matrix.
+     * @return the corresponding matrix.
+     * @throws IOException if the file cannot be read or does not hold
+     *         a mapped matrix.
+     */
+    public static Float64MappedMatrix open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if ((raf.length() < HEADER_SIZE) || (raf.readInt() != MAGIC))
+                throw new IOException(file + " does not hold a mapped matrix");
+            final int m = raf.readInt();
+            final int n = raf.readInt();
+            final ByteOrder order = (raf.readInt() == 0) ? ByteOrder.BIG_ENDIAN
+                    : ByteOrder.LITTLE_ENDIAN;
+            final long tiles = (long) ((m + TILE_MASK) >> TILE_SHIFT) * ((n + TILE_MASK) >> TILE_SHIFT);
+            if (raf.length() < HEADER_SIZE + tiles * TILE_LENGTH * 8)
+                throw new IOException(file + " is truncated");
+            return new Float64MappedMatrix(file, raf, m, n, order);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a new matrix held in the specified file and having the
+     * same elements as the matrix specified.
+     *
+     * @param file the file holding the matrix (overwritten if it exists).
+     * @param that the matrix to copy.
+     * @return the corresponding mapped matrix.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    public static Float64MappedMatrix valueOf(File file, Matrix<Float64> that) throws IOException {
+        Float64MappedMatrix M = Float64MappedMatrix.create(file,
+                that.getNumberOfRows(), that.getNumberOfColumns());
+        M.copyFrom(that);
+        return M;
+    }
+
+    /**
+     * Returns a new zero matrix held in a temporary file.
+     */
+    static Float64MappedMatrix newTemporary(int m, int n) {
+        try {
+            File file = File.createTempFile("jscience", ".matrix");
+            file.deleteOnExit();
+            Float64MappedMatrix M = Float64MappedMatrix.create(file, m, n);
+            M._isTemporary = true;
+            return M;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create temporary matrix file", e);
+        }
+    }
+
+    /**
+     * Returns the file holding this matrix.
+     *
+     * @return the matrix file (temporary for the results of operations).
+     */
+    public File getFile() {
+        return _file;
+    }
+
+    /**
+     * Writes to the file the elements modified.
+     */
+    public void force() {
+        for (int k = 0; k < _regions.length; k++) {
+            _regions[k].force();
+        }
+    }
+
+    /**
+     * Closes this matrix (the file is deleted if temporary). This matrix
+     * should not be used after being closed.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void close() throws IOException {
+        if (_raf == null)
+            return; // Already closed.
+        if (!_isTemporary) {
+            force();
+        }
+        _regions = null; // Unmapped when garbage collected.
+        _mappings = null;
+        _raf.close();
+        _raf = null;
+        if (_isTemporary) {
+            _file.delete();
+        }
+    }
+
+    /**
+     * Returns the value of the element at the specified position.
+     *
+     * @param i the row index.
+     * @param j the column index.
+     * @return the element value.
+     */
+    public double getValue(int i, int j) {
+        checkIndices(i, j);
+        final long t = (long) (i >> TILE_SHIFT) * _tileColumns + (j >> TILE_SHIFT);
+        return _mappings[(int) (t / TILES_PER_MAPPING)].get(
+                (int) (t % TILES_PER_MAPPING) * TILE_LENGTH
+                + ((i & TILE_MASK) << TILE_SHIFT) + (j & TILE_MASK));
+    }
+
+    /**
+     * Sets the value of the element at the specified position.
+     *
+     * @param i the row index.
+     * @param j the column index.
+     * @param value the element value.
+     */
+    public void setValue(int i, int j, double value) {
+        checkIndices(i, j);
+        final long t = (long) (i >> TILE_SHIFT) * _tileColumns + (j >> TILE_SHIFT);
+        _mappings[(int) (t / TILES_PER_MAPPING)].put(
+                (int) (t % TILES_PER_MAPPING) * TILE_LENGTH
+                + ((i & TILE_MASK) << TILE_SHIFT) + (j & TILE_MASK), value);
+    }
+
+    /**
+     * Closes this matrix (temporary file) without checked exception.
+     */
+    void release() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot close temporary matrix file", e);
+        }
+    }
+
+    // Checks that the element (i, j) is in this matrix (not in padding).
+    private void checkIndices(int i, int j) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException("(" + i + ", " + j + ") outside "
+                    + _m + "x" + _n + " matrix");
+    }
+
+    /**
+     * Sets the elements of the specified block of this matrix.
+     *
+     * @param fromRow the row of the first element of the block.
+     * @param fromColumn the column of the first element of the block.
+     * @param that the block elements.
+     * @throws IndexOutOfBoundsException if the block is not within this
+     *         matrix.
+     */
+    public void setSubMatrix(int fromRow, int fromColumn, Matrix<Float64> that) {
+        final int m = that.getNumberOfRows();
+        final int n = that.getNumberOfColumns();
+        checkIndices(fromRow, fromColumn);
+        checkIndices(fromRow + m - 1, fromColumn + n - 1);
+        if (that instanceof Float64MappedMatrix) {
+            Float64MappedMatrix M = (Float64MappedMatrix) that;
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    setValue(fromRow + i, fromColumn + j, M.getValue(i, j));
+                }
+            }
+            return;
+        }
+        Float64Matrix M = Float64Matrix.valueOfMatrix(that);
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                setValue(fromRow + i, fromColumn + j, M._values[M._offset + i * M._ld + j]);
+            }
+        }
+    }
+
+    // Copies the specified matrix of same dimensions (tile-wise).
+    private void copyFrom(Matrix<Float64> that) {
+        if ((that.getNumberOfRows() != _m) || (that.getNumberOfColumns() != _n))
+            throw new DimensionException();
+        Matrix<Float64> M = Float64MappedMatrix.operandOf(that);
+        double[] tile = new double[TILE_LENGTH];
+        for (int I = 0; I < _tileRows; I++) {
+            for (int J = 0; J < _tileColumns; J++) {
+                Float64MappedMatrix.readTile(M, I, J, tile);
+                writeTile(I, J, tile);
+            }
+        }
+    }
+
+    // Returns the buffer holding the tile (I, J) positioned at its first element.
+    private DoubleBuffer tile(int I, int J) {
+        final long t = (long) I * _tileColumns + J;
+        DoubleBuffer buffer = _mappings[(int) (t / TILES_PER_MAPPING)].duplicate();
+        buffer.position((int) (t % TILES_PER_MAPPING) * TILE_LENGTH);
+        return buffer;
+    }
+
+    /**
+     * Reads the tile (I, J) into the specified buffer (row-major,
+     * <code>ld = TILE_SIZE</code>, zero padded).
+     */
+    void readTile(int I, int J, double[] buffer) {
+        tile(I, J).get(buffer, 0, TILE_LENGTH);
+    }
+
+    /**
+     * Writes the tile (I, J) from the specified buffer (the padding
+     * elements should be zero).
+     */
+    void writeTile(int I, int J, double[] buffer) {
+        tile(I, J).put(buffer, 0, TILE_LENGTH);
+    }
+
+    // Returns the specified matrix mapped or on the heap (Float64Matrix).
+    static Matrix<Float64> operandOf(Matrix<Float64> that) {
+        return (that instanceof Float64MappedMatrix) ? that : Float64Matrix.valueOfMatrix(that);
+    }
+
+    // Reads the tile (I, J) of the specified operand (see operandOf).
+    static void readTile(Matrix<Float64> operand, int I, int J, double[] buffer) {
+        if (operand instanceof Float64MappedMatrix) {
+            ((Float64MappedMatrix) operand).readTile(I, J, buffer);
+            return;
+        }
+        final Float64Matrix M = (Float64Matrix) operand;
+        final int i0 = I << TILE_SHIFT;
+        final int j0 = J << TILE_SHIFT;
+        final int m = MathLib.min(TILE_SIZE, M._m - i0);
+        final int n = MathLib.min(TILE_SIZE, M._n - j0);
+        if ((m < TILE_SIZE) || (n < TILE_SIZE)) {
+            Arrays.fill(buffer, 0, TILE_LENGTH, 0.0);
+        }
+        for (int r = 0; r < m; r++) {
+            System.arraycopy(M._values, M._offset + (i0 + r) * M._ld + j0,
+                    buffer, r << TILE_SHIFT, n);
+        }
+    }
+
+    @Override
+    public int getNumberOfRows() {
+        return _m;
+    }
+
+    @Override
+    public int getNumberOfColumns() {
+        return _n;
+    }
+
+    @Override
+    public Float64 get(int i, int j) {
+        return Float64.valueOf(getValue(i, j));
+    }
+
+    @Override
+    void set(int i, int j, Float64 e) {
+        setValue(i, j, e.doubleValue());
+    }
+
+    /**
+     * Returns the specified row (copied on the heap).
+     *
+     * @param i the row index.
+     * @return the row copy.
+     */
+    @Override
+    public Float64Vector getRow(int i) {
+        Float64Vector V = Float64Vector.FACTORY.array(_n);
+        V._dimension = _n;
+        for (int j = 0; j < _n; j++) {
+            V._values[j] = getValue(i, j);
+        }
+        return V;
+    }
+
+    /**
+     * Returns the specified column (copied on the heap).
+     *
+     * @param j the column index.
+     * @return the column copy.
+     */
+    @Override
+    public Float64Vector getColumn(int j) {
+        Float64Vector V = Float64Vector.FACTORY.array(_m);
+        V._dimension = _m;
+        for (int i = 0; i < _m; i++) {
+            V._values[i] = getValue(i, j);
+        }
+        return V;
+    }
+
+    @Override
+    public DenseSubMatrix<Float64> getSubMatrix(List<Index> rows, List<Index> columns) {
+        return DenseSubMatrix.valueOf(this, rows, columns); // View.
+    }
+
+    /**
+     * Returns the elements at the specified rows and columns (copied on
+     * the heap).
+     */
+    Float64Matrix gather(int[] rows, int[] columns) {
+        Float64Matrix M = Float64Matrix.newInstance(rows.length, columns.length);
+        for (int i = 0, k = 0; i < rows.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                M._values[k++] = getValue(rows[i], columns[j]);
+            }
+        }
+        return M;
+    }
+
+    @Override
+    public Float64MappedMatrix opposite() {
+        return times(-1.0);
+    }
+
+    @Override
+    public Float64MappedMatrix plus(Matrix<Float64> that) {
+        if ((that.getNumberOfRows() != _m) || (that.getNumberOfColumns() != _n))
+            throw new DimensionException();
+        return plus(that, Float64MappedMatrix.newTemporary(_m, _n));
+    }
+
+    /**
+     * Sets the specified destination to the sum of this matrix with the
+     * one specified (tile-wise). The destination may be one of the
+     * operands.
+     *
+     * @param that the matrix to be added.
+     * @param out the destination matrix.
+     * @return <code>out = this + that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64MappedMatrix plus(Matrix<Float64> that, Float64MappedMatrix out) {
+        return axpy(1.0, that, out);
+    }
+
+    @Override
+    public void plusInPlace(Matrix<Float64> that) {
+        axpy(1.0, that, this);
+    }
+
+    @Override
+    public void axpy(Float64 a, Matrix<Float64> x) {
+        axpy(a.doubleValue(), x, this);
+    }
+
+    /**
+     * Equivalent to <code>this.axpy(Float64.valueOf(a), x)</code>
+     *
+     * @param a the coefficient multiplier of x.
+     * @param x the matrix to be added.
+     * @throws DimensionException if the dimensions are different.
+     */
+    public void axpy(double a, Matrix<Float64> x) {
+        axpy(a, x, this);
+    }
+
+    // Sets out to a · x + this (tile-wise, out may be x or this).
+    private Float64MappedMatrix axpy(double a, Matrix<Float64> x, Float64MappedMatrix out) {
+        if ((x.getNumberOfRows() != _m) || (x.getNumberOfColumns() != _n)
+                || (out._m != _m) || (out._n != _n))
+            throw new DimensionException();
+        final Matrix<Float64> X = Float64MappedMatrix.operandOf(x);
+        final double[] y = new double[TILE_LENGTH];
+        final double[] b = new double[TILE_LENGTH];
+        for (int I = 0; I < _tileRows; I++) {
+            for (int J = 0; J < _tileColumns; J++) {
+                readTile(I, J, y);
+                Float64MappedMatrix.readTile(X, I, J, b);
+                Float64Kernels.axpy(TILE_LENGTH, a, b, 0, 1, y, 0, 1, y, 0);
+                out.writeTile(I, J, y);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public Float64MappedMatrix times(Float64 k) {
+        return times(k.doubleValue());
+    }
+
+    /**
+     * Equivalent to <code>this.times(Float64.valueOf(k))</code>
+     *
+     * @param k the coefficient.
+     * @return <code>this * k</code>
+     */
+    public Float64MappedMatrix times(double k) {
+        return times(k, Float64MappedMatrix.newTemporary(_m, _n));
+    }
+
+    /**
+     * Sets the specified destination to the product of this matrix by the
+     * specified factor (tile-wise). The destination may be this matrix.
+     *
+     * @param k the coefficient.
+     * @param out the destination matrix.
+     * @return <code>out = this * k</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64MappedMatrix times(double k, Float64MappedMatrix out) {
+        if ((out._m != _m) || (out._n != _n))
+            throw new DimensionException();
+        final double[] a = new double[TILE_LENGTH];
+        for (int I = 0; I < _tileRows; I++) {
+            for (int J = 0; J < _tileColumns; J++) {
+                readTile(I, J, a);
+                Float64Kernels.scale(TILE_LENGTH, k, a, 0, 1, a, 0);
+                out.writeTile(I, J, a);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void timesInPlace(Float64 k) {
+        times(k.doubleValue(), this);
+    }
+
+    @Override
+    public Float64MappedMatrix times(Matrix<Float64> that) {
+        if (_n != that.getNumberOfRows())
+            throw new DimensionException();
+        return times(that, Float64MappedMatrix.newTemporary(_m, that.getNumberOfColumns()));
+    }
+
+    /**
+     * Sets the specified destination to the product of this matrix with the
+     * one specified. Each tile of the destination is calculated on the heap
+     * from a row of tiles of this matrix and a column of tiles of the
+     * matrix multiplier (on the heap or mapped) through the concurrent
+     * blocked matrix product.
+     *
+     * @param that the matrix multiplier.
+     * @param out the destination matrix (distinct from the operands).
+     * @return <code>out = this · that</code>
+     * @throws DimensionException if the dimensions are not compatible.
+     * @throws IllegalArgumentException if the destination is an operand.
+     */
+    public Float64MappedMatrix times(Matrix<Float64> that, Float64MappedMatrix out) {
+        final int p = that.getNumberOfColumns();
+        if ((_n != that.getNumberOfRows()) || (out._m != _m) || (out._n != p))
+            throw new DimensionException();
+        if ((out == this) || (out == that))
+            throw new IllegalArgumentException("Destination is an operand");
+        final Matrix<Float64> T = Float64MappedMatrix.operandOf(that);
+        final double[] a = new double[TILE_LENGTH];
+        final double[] b = new double[TILE_LENGTH];
+        final double[] c = new double[TILE_LENGTH];
+        for (int I = 0; I < _tileRows; I++) {
+            for (int J = 0; J < out._tileColumns; J++) {
+                Arrays.fill(c, 0.0);
+                for (int K = 0; K < _tileColumns; K++) {
+                    readTile(I, K, a);
+                    Float64MappedMatrix.readTile(T, K, J, b);
+                    Float64Kernels.gemm(TILE_SIZE, TILE_SIZE, TILE_SIZE, 1.0, a, 0, TILE_SIZE, 1,
+                            b, 0, TILE_SIZE, 1, c, 0, TILE_SIZE);
+                }
+                out.writeTile(I, J, c);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the product of this matrix by the specified column vector
+     * (on the heap).
+     *
+     * @param v the column vector.
+     * @return <code>this · v</code>
+     * @throws DimensionException if the dimensions are not compatible.
+     */
+    @Override
+    public Float64Vector times(Vector<Float64> v) {
+        if (v.getDimension() != _n)
+            throw new DimensionException();
+        final Float64Vector X = Float64Vector.valueOfVector(v);
+        final double[] x = new double[_tileColumns << TILE_SHIFT]; // Padded.
+        final double[] y = new double[_tileRows << TILE_SHIFT];
+        for (int j = 0, k = X._offset; j < _n; j++, k += X._stride) {
+            x[j] = X._values[k];
+        }
+        final double[] a = new double[TILE_LENGTH];
+        for (int I = 0; I < _tileRows; I++) {
+            for (int J = 0; J < _tileColumns; J++) {
+                readTile(I, J, a);
+                Float64Kernels.gemm(TILE_SIZE, 1, TILE_SIZE, 1.0, a, 0, TILE_SIZE, 1,
+                        x, J << TILE_SHIFT, 1, 1, y, I << TILE_SHIFT, 1);
+            }
+        }
+        Float64Vector V = Float64Vector.FACTORY.array(_m);
+        V._dimension = _m;
+        System.arraycopy(y, 0, V._values, 0, _m);
+        return V;
+    }
+
+    /**
+     * Returns the transpose of this matrix (tile-wise copy into a
+     * temporary file).
+     *
+     * @return <code>this'</code>
+     */
+    @Override
+    public Float64MappedMatrix transpose() {
+        return transpose(Float64MappedMatrix.newTemporary(_n, _m));
+    }
+
+    /**
+     * Sets the specified destination to the transpose of this matrix
+     * (tile-wise).
+     *
+     * @param out the destination matrix (distinct from this matrix).
+     * @return <code>out = this'</code>
+     * @throws DimensionException if the dimensions are not compatible.
+     * @throws IllegalArgumentException if the destination is this matrix.
+     */
+    public Float64MappedMatrix transpose(Float64MappedMatrix out) {
+        if ((out._m != _n) || (out._n != _m))
+            throw new DimensionException();
+        if (out == this)
+            throw new IllegalArgumentException("Destination is the matrix transposed");
+        final double[] a = new double[TILE_LENGTH];
+        final double[] b = new double[TILE_LENGTH];
+        for (int I = 0; I < _tileRows; I++) {
+            for (int J = 0; J < _tileColumns; J++) {
+                readTile(I, J, a);
+                for (int r = 0; r < TILE_SIZE; r++) {
+                    for (int c = 0, k = r << TILE_SHIFT; c < TILE_SIZE; c++) {
+                        b[(c << TILE_SHIFT) + r] = a[k++];
+                    }
+                }
+                out.writeTile(J, I, b);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the inverse of this matrix (must be square).
+     *
+     * @return <code>Float64MappedLUDecomposition.valueOf(this).inverse()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64MappedMatrix inverse() {
+        Float64MappedLUDecomposition lu = Float64MappedLUDecomposition.valueOf(this);
+        try {
+            return lu.inverse();
+        } finally {
+            lu.close();
+        }
+    }
+
+    /**
+     * Returns the determinant of this matrix.
+     *
+     * @return <code>Float64MappedLUDecomposition.valueOf(this).determinant()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64 determinant() {
+        Float64MappedLUDecomposition lu = Float64MappedLUDecomposition.valueOf(this);
+        try {
+            return lu.determinant();
+        } finally {
+            lu.close();
+        }
+    }
+
+    /**
+     * Solves this matrix for the specified matrix (on the heap).
+     *
+     * @return <code>Float64MappedLUDecomposition.valueOf(this).solve(y)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64Matrix solve(Matrix<Float64> y) {
+        Float64MappedLUDecomposition lu = Float64MappedLUDecomposition.valueOf(this);
+        try {
+            return lu.solve(y);
+        } finally {
+            lu.close();
+        }
+    }
+
+    /**
+     * Returns the out-of-core LU decomposition of this matrix, to be reused
+     * for solving this matrix with many right-hand sides. The decomposition
+     * is held in a temporary file and should be closed after use.
+     *
+     * @return <code>Float64MappedLUDecomposition.valueOf(this)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64MappedLUDecomposition factorize() {
+        return Float64MappedLUDecomposition.valueOf(this);
+    }
+
+    /**
+     * Returns a copy of this matrix held in a temporary file.
+     *
+     * @return the copy of this matrix.
+     */
+    @Override
+    public Float64MappedMatrix copy() {
+        Float64MappedMatrix M = Float64MappedMatrix.newTemporary(_m, _n);
+        M.copyFrom(this);
+        return M;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -8,26 +8,47 @@
  */
 package org.jscience.mathematics.internal.vector;
 
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import javolution.context.ArrayFactory;
 import javolution.context.ObjectFactory;
-import javolution.util.FastTable;
+import javolution.lang.MathLib;
 import javolution.util.Index;
 import org.jscience.mathematics.number.Float64;
 
 /**
  * <p> This class represents a 64 bits floating point dense matrix.</p>
  *
+ * <p> The elements are stored contiguously in a single <code>double[]</code>
+ *     buffer (row-major order). The element <code>[i,j]</code> is located
+ *     at <code>offset + i * ld + j</code> where <code>ld</code> (the leading
+ *     dimension) is the distance between two consecutive rows.
+ *     The {@link #getRow rows}, {@link #getColumn columns},
+ *     {@link #getDiagonal diagonal} and {@link #getSubMatrix(int, int, int, int)
+ *     sub-matrices} of this matrix are views sharing the matrix buffer
+ *     (no copy is performed); {@link #copy} returns a contiguous copy.</p>
+ *
  * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 5.0, December 12, 2007
  */
-public class Float64Matrix extends DenseMatrix<Float64> {
+public class Float64Matrix extends DenseMatrix<Float64> implements
+        Float64LinearOperator {
 
     /**
-     * Holds the object factory.
+     * Holds factory for matrices with variable size buffers.
      */
-    static ObjectFactory<Float64Matrix> FACTORY = new ObjectFactory<Float64Matrix>() {
+    static final ArrayFactory<Float64Matrix> FACTORY = new ArrayFactory<Float64Matrix>() {
+
+        @Override
+        protected Float64Matrix create(int capacity) {
+            return new Float64Matrix(capacity);
+        }
+    };
+
+    /**
+     * Holds factory for matrices viewing an external buffer.
+     */
+    static final ObjectFactory<Float64Matrix> VIEW_FACTORY = new ObjectFactory<Float64Matrix>() {
 
         @Override
         protected Float64Matrix create() {
@@ -36,28 +57,99 @@ public class Float64Matrix extends DenseMatrix<Float64> {
 
         @Override
         protected void cleanup(Float64Matrix matrix) {
-            matrix._rows.reset();
+            matrix._values = null;
         }
     };
 
     /**
-     * Holds this matrix rows.
+     * Holds the elements (row-major).
+     */
+    double[] _values;
+
+    /**
+     * Holds the index of the element <code>[0,0]</code> in the buffer.
      */
-    final FastTable<Float64Vector> _rows = new FastTable<Float64Vector>();
+    int _offset;
+
+    /**
+     * Holds the number of rows.
+     */
+    int _m;
+
+    /**
+     * Holds the number of columns.
+     */
+    int _n;
+
+    /**
+     * Holds the leading dimension (distance between consecutive rows).
+     */
+    int _ld;
 
     /**
      * Holds the transposed view of this matrix
      */
     private final TransposedView _transposedView = new TransposedView();
 
+    /**
+     * Creates a matrix of specified capacity.
+     */
+    private Float64Matrix(int capacity) {
+        _values = new double[capacity];
+    }
+
+    /**
+     * Creates a matrix view (buffer set by the caller).
+     */
+    private Float64Matrix() {
+    }
+
+    /**
+     * Returns a m-by-n matrix view over the specified buffer.
+     *
+     * @param values the buffer (shared).
+     * @param offset the index of the element <code>[0,0]</code>.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param ld the distance between consecutive rows.
+     * @return the corresponding view.
+     */
+    static Float64Matrix viewOf(double[] values, int offset, int m, int n, int ld) {
+        Float64Matrix M = VIEW_FACTORY.object();
+        M._values = values;
+        M._offset = offset;
+        M._m = m;
+        M._n = n;
+        M._ld = ld;
+        return M;
+    }
+
+    /**
+     * Returns a new m-by-n matrix whose elements are not initialized.
+     *
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @return a contiguous matrix with <code>ld == n</code>.
+     */
+    static Float64Matrix newInstance(int m, int n) {
+        Float64Matrix M = FACTORY.array(m * n);
+        M._offset = 0;
+        M._m = m;
+        M._n = n;
+        M._ld = n;
+        return M;
+    }
+
     // See parent static method.
     public static Float64Matrix valueOfList(List<? extends Vector<Float64>> rows) {
-        Float64Matrix M = Float64Matrix.FACTORY.object();
+        final int m = rows.size();
         final int n = rows.get(0).getDimension();
-        for (Vector<Float64> row : rows) {
+        Float64Matrix M = Float64Matrix.newInstance(m, n);
+        for (int i = 0; i < m; i++) {
+            Vector<Float64> row = rows.get(i);
             if (row.getDimension() != n)
                 throw new DimensionException();
-            M._rows.add(Float64Vector.valueOfVector(row));
+            M.setRow(i, Float64Vector.valueOfVector(row));
         }
         return M;
     }
@@ -66,29 +158,54 @@ public class Float64Matrix extends DenseMatrix<Float64> {
     public static Float64Matrix valueOfMatrix(Matrix<Float64> that) {
         if (that instanceof Float64Matrix)
             return (Float64Matrix) that;
-        Float64Matrix M = Float64Matrix.FACTORY.object();
-        for (int i = 0, m = that.getNumberOfRows(); i < m; i++) {
-            M._rows.add(Float64Vector.valueOfVector(that.getRow(i)));
+        final int m = that.getNumberOfRows();
+        final int n = that.getNumberOfColumns();
+        Float64Matrix M = Float64Matrix.newInstance(m, n);
+        for (int i = 0; i < m; i++) {
+            M.setRow(i, Float64Vector.valueOfVector(that.getRow(i)));
         }
         return M;
     }
 
     // See parent static method.
     public static Float64Matrix valueOf(double[][] elements) {
-        Float64Matrix M = Float64Matrix.FACTORY.object();
-        for (int i = 0, m = elements.length; i < m; i++) {
-            Float64Vector row = Float64Vector.valueOf(elements[i]);
-            M._rows.add(row);
+        final int m = elements.length;
+        final int n = elements[0].length;
+        Float64Matrix M = Float64Matrix.newInstance(m, n);
+        for (int i = 0; i < m; i++) {
+            if (elements[i].length != n)
+                throw new DimensionException();
+            System.arraycopy(elements[i], 0, M._values, i * n, n);
         }
         return M;
     }
 
+    /**
+     * Returns a m-by-n matrix holding the specified values in row-major
+     * order (the values are copied).
+     *
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param values the matrix values, <code>values[i * n + j]</code>
+     *        being the element at <code>[i,j]</code>.
+     * @return the corresponding matrix.
+     * @throws DimensionException if <code>values.length != m * n</code>
+     */
+    public static Float64Matrix valueOf(int m, int n, double... values) {
+        if (values.length != m * n)
+            throw new DimensionException(values.length + " values for a "
+                    + m + "x" + n + " matrix");
+        Float64Matrix M = Float64Matrix.newInstance(m, n);
+        System.arraycopy(values, 0, M._values, 0, m * n);
+        return M;
+    }
+
     // See parent static method.
     public static Float64Matrix valueOfVector(Vector<Float64>... rows) {
         return Float64Matrix.valueOfList(Arrays.asList(rows));
     }
 
-  /**
+    /**
      * Returns the value of a floating point number from this matrix (fast).
      *
      * @param  i the floating point number first index.
@@ -98,78 +215,185 @@ public class Float64Matrix extends DenseMatrix<Float64> {
      *         ((i &lt; 0) || (i &gt;= m)) || ((j &lt; 0) || (j &gt;= n))</code>
      */
     public double getValue(int i, int j) {
-        return _rows.get(i).getValue(j);
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        return _values[_offset + i * _ld + j];
     }
 
     @Override
     public int getNumberOfRows() {
-        return _rows.size();
+        return _m;
     }
 
     @Override
     public int getNumberOfColumns() {
-        return _rows.get(0).getDimension();
+        return _n;
     }
 
     @Override
     public Float64 get(int i, int j) {
-        return _rows.get(i).get(j);
+        return Float64.valueOf(getValue(i, j));
+    }
+
+    @Override
+    void set(int i, int j, Float64 e) {
+        if ((i < 0) || (i >= _m) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        _values[_offset + i * _ld + j] = e.doubleValue();
     }
 
     @Override
     public Float64Vector getRow(int i) {
-        return _rows.get(i);
+        if ((i < 0) || (i >= _m))
+            throw new IndexOutOfBoundsException();
+        return Float64Vector.viewOf(_values, _offset + i * _ld, 1, _n);
     }
 
     @Override
     public Float64Vector getColumn(int j) {
-        final int m = _rows.size();
-        Float64Vector V = Float64Vector.FACTORY.array(m);
-        V._dimension = m;
-        for (int i = 0; i < m; i++) {
-            V._values[i] = _rows.get(i)._values[j];
+        if ((j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        return Float64Vector.viewOf(_values, _offset + j, _ld, _m);
+    }
+
+    @Override
+    public Float64Vector getDiagonal() {
+        return Float64Vector.viewOf(_values, _offset, _ld + 1, MathLib.min(_m, _n));
+    }
+
+    /**
+     * Returns the sub-matrix formed by the specified rows and columns.
+     * If the columns are contiguous and the rows equally spaced, the
+     * sub-matrix is a {@link Float64Matrix} sharing this matrix buffer;
+     * otherwise it is a view reading through this matrix. In both cases
+     * no element is copied, {@link #copy} materializes the sub-matrix.
+     *
+     * @param  rows the row indices.
+     * @param  columns the column indices.
+     * @return the corresponding sub-matrix view.
+     * @throws IndexOutOfBoundsException if any of the indices is outside
+     *         this matrix.
+     */
+    @Override
+    public DenseMatrix<Float64> getSubMatrix(List<Index> rows, List<Index> columns) {
+        final int[] r = Matrix.indicesOf(rows, _m);
+        final int[] c = Matrix.indicesOf(columns, _n);
+        if ((r.length == 0) || (c.length == 0))
+            return Float64Matrix.newInstance(r.length, c.length);
+        boolean strided = (r.length == 1) || (r[1] > r[0]);
+        for (int i = 2; strided && (i < r.length); i++) {
+            strided = (r[i] - r[i - 1] == r[1] - r[0]);
+        }
+        for (int j = 1; strided && (j < c.length); j++) {
+            strided = (c[j] == c[0] + j);
         }
-        return V;
+        if (!strided)
+            return DenseSubMatrix.valueOf(this, r, c);
+        final int step = (r.length == 1) ? 1 : r[1] - r[0];
+        return Float64Matrix.viewOf(_values, _offset + r[0] * _ld + c[0],
+                r.length, c.length, _ld * step);
     }
 
+    /**
+     * Returns the sub-matrix formed by the elements in the specified ranges
+     * of rows and columns; the sub-matrix shares this matrix buffer.
+     *
+     * @param  fromRow the first row (inclusive).
+     * @param  toRow the last row (exclusive).
+     * @param  fromColumn the first column (inclusive).
+     * @param  toColumn the last column (exclusive).
+     * @return the corresponding view.
+     * @throws IndexOutOfBoundsException if any of the ranges is outside
+     *         this matrix.
+     */
     @Override
-    public Float64Matrix getSubMatrix(List<Index> rows, List<Index> columns) {
-        Float64Matrix M = FACTORY.object();
-        for (int i = 0; i < rows.size(); i++) {
-            Float64Vector row = this.getRow(rows.get(i).intValue());
-            M._rows.add(row.getSubVector(columns));
+    public Float64Matrix getSubMatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        if ((fromRow < 0) || (toRow > _m) || (fromRow > toRow) || (fromColumn < 0)
+                || (toColumn > _n) || (fromColumn > toColumn))
+            throw new IndexOutOfBoundsException();
+        return Float64Matrix.viewOf(_values, _offset + fromRow * _ld + fromColumn,
+                toRow - fromRow, toColumn - fromColumn, _ld);
+    }
+
+    // Returns a contiguous copy of the elements at the specified rows/columns.
+    Float64Matrix gather(int[] rows, int[] columns) {
+        final int m = rows.length;
+        final int n = columns.length;
+        Float64Matrix M = Float64Matrix.newInstance(m, n);
+        for (int i = 0; i < m; i++) {
+            int row = _offset + rows[i] * _ld;
+            for (int j = 0; j < n; j++) {
+                M._values[i * n + j] = _values[row + columns[j]];
+            }
         }
         return M;
     }
 
     @Override
     public Float64Matrix opposite() {
-        Float64Matrix M = FACTORY.object();
-        for (int i = 0, m = _rows.size(); i < m; i++) {
-            M._rows.add(_rows.get(i).opposite());
-        }
-        return M;
+        return times(-1.0);
     }
 
     @Override
     public Float64Matrix plus(Matrix<Float64> that) {
-        Float64Matrix M = FACTORY.object();
-        final int m = _rows.size();
-        if (that.getNumberOfRows() != m)
+        Float64Matrix T = Float64Matrix.valueOfMatrix(that);
+        if ((T._m != _m) || (T._n != _n))
+            throw new DimensionException();
+        return Float64Matrix.axpy(1.0, T, this, Float64Matrix.newInstance(_m, _n));
+    }
+
+    /**
+     * Sets the specified destination to the sum of this matrix with the
+     * one specified (no matrix is allocated). The destination may be
+     * one of the operands.
+     *
+     * @param that the matrix to be added.
+     * @param out the destination matrix.
+     * @return <code>out = this + that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64Matrix plus(Matrix<Float64> that, Float64Matrix out) {
+        return Float64Matrix.axpy(1.0, Float64Matrix.valueOfMatrix(that), this, out);
+    }
+
+    @Override
+    public void plusInPlace(Matrix<Float64> that) {
+        axpy(1.0, that);
+    }
+
+    @Override
+    public void axpy(Float64 a, Matrix<Float64> x) {
+        axpy(a.doubleValue(), x);
+    }
+
+    /**
+     * Equivalent to <code>this.axpy(Float64.valueOf(a), x)</code>
+     *
+     * @param a the coefficient multiplier of x.
+     * @param x the matrix to be added.
+     * @throws DimensionException if the dimensions are different.
+     */
+    public void axpy(double a, Matrix<Float64> x) {
+        Float64Matrix.axpy(a, Float64Matrix.valueOfMatrix(x), this, this);
+    }
+
+    // Sets out to a · x + y (out may be x or y).
+    private static Float64Matrix axpy(double a, Float64Matrix x, Float64Matrix y,
+            Float64Matrix out) {
+        final int m = y._m;
+        final int n = y._n;
+        if ((x._m != m) || (x._n != n) || (out._m != m) || (out._n != n))
             throw new DimensionException();
         for (int i = 0; i < m; i++) {
-            M._rows.add(_rows.get(i).plus(that.getRow(i)));
+            Float64Kernels.axpy(n, a, x._values, x._offset + i * x._ld, 1,
+                    y._values, y._offset + i * y._ld, 1, out._values, out._offset + i * out._ld);
         }
-        return M;
+        return out;
     }
 
     @Override
     public Float64Matrix times(Float64 k) {
-        Float64Matrix M = FACTORY.object();
-        for (int i = 0, m = _rows.size(); i < m; i++) {
-            M._rows.add(_rows.get(i).times(k));
-        }
-        return M;
+        return times(k.doubleValue());
     }
 
     /**
@@ -179,32 +403,175 @@ public class Float64Matrix extends DenseMatrix<Float64> {
      * @return <code>this * k</code>
      */
     public Float64Matrix times(double k) {
-        Float64Matrix M = FACTORY.object();
-        for (int i = 0, m = _rows.size(); i < m; i++) {
-            M._rows.add(_rows.get(i).times(k));
+        return times(k, Float64Matrix.newInstance(_m, _n));
+    }
+
+    /**
+     * Sets the specified destination to the product of this matrix by the
+     * specified factor (no matrix is allocated). The destination may be
+     * this matrix.
+     *
+     * @param k the coefficient.
+     * @param out the destination matrix.
+     * @return <code>out = this * k</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64Matrix times(double k, Float64Matrix out) {
+        if ((out._m != _m) || (out._n != _n))
+            throw new DimensionException();
+        for (int i = 0; i < _m; i++) {
+            Float64Kernels.scale(_n, k, _values, _offset + i * _ld, 1,
+                    out._values, out._offset + i * out._ld);
         }
-        return M;
+        return out;
+    }
+
+    @Override
+    public void timesInPlace(Float64 k) {
+        times(k.doubleValue(), this);
+    }
+
+    /**
+     * Equivalent to <code>this.timesInPlace(Float64.valueOf(k))</code>
+     *
+     * @param k the coefficient.
+     */
+    public void timesInPlace(double k) {
+        times(k, this);
     }
 
     @Override
     public Float64Matrix times(Matrix<Float64> that) {
+        if (_n != that.getNumberOfRows())
+            throw new DimensionException();
+        return times(that, Float64Matrix.newInstance(_m, that.getNumberOfColumns()));
+    }
+
+    /**
+     * Sets the specified destination to the product of this matrix with the
+     * one specified (no matrix is allocated). The destination should not
+     * share its buffer with the operands.
+     *
+     * @param that the matrix multiplier.
+     * @param out the destination matrix.
+     * @return <code>out = this · that</code>
+     * @throws DimensionException if the dimensions are not compatible.
+     * @throws IllegalArgumentException if the destination shares its buffer
+     *         with the operands.
+     */
+    public Float64Matrix times(Matrix<Float64> that, Float64Matrix out) {
         //  This is a m-by-n matrix and that is a n-by-p matrix, the matrix result is mxp
-        final int m = _rows.size();
-        final int n = _rows.get(0).getDimension(); // Number of columns of this.
+        final int m = _m;
+        final int n = _n; // Number of columns of this.
         final int p = that.getNumberOfColumns(); // Number of columns of that.
-        if (n != that.getNumberOfRows())
+        if ((n != that.getNumberOfRows()) || (out._m != m) || (out._n != p))
             throw new DimensionException();
-        Float64Matrix M = FACTORY.object();
+        Float64Matrix T = Float64Matrix.valueOfMatrix(that);
+        if ((out._values == _values) || (out._values == T._values))
+            throw new IllegalArgumentException("Destination shares the operands buffer");
         for (int i = 0; i < m; i++) {
-            Float64Vector V = Float64Vector.FACTORY.array(p);
-            V._dimension = p;
-            for (int j = 0; j < p; j++) {
-                Float64 element = _rows.get(i).times(that.getColumn(j));
-                V._values[j] = element.doubleValue();
-            }
-            M._rows.add(V);
+            Arrays.fill(out._values, out._offset + i * out._ld, out._offset + i * out._ld + p, 0.0);
         }
-        return M;
+        Float64Kernels.gemm(m, p, n, 1.0, _values, _offset, _ld, 1,
+                T._values, T._offset, T._ld, 1, out._values, out._offset, out._ld);
+        return out;
+    }
+
+    @Override
+    public Float64Vector times(Vector<Float64> v) {
+        Float64Vector V = Float64Vector.FACTORY.array(_m);
+        V._dimension = _m;
+        return times(v, V);
+    }
+
+    /**
+     * Sets the specified destination to the product of this matrix by the
+     * specified column vector (no vector is allocated). The destination
+     * should not share its buffer with the operands.
+     *
+     * @param v the column vector.
+     * @param out the destination vector.
+     * @return <code>out = this · v</code>
+     * @throws DimensionException if the dimensions are not compatible.
+     * @throws IllegalArgumentException if the destination shares its buffer
+     *         with the operands.
+     */
+    public Float64Vector times(Vector<Float64> v, Float64Vector out) {
+        Float64Vector V = Float64Vector.valueOfVector(v);
+        if ((V._dimension != _n) || (out._dimension != _m))
+            throw new DimensionException();
+        if ((out._values == _values) || (out._values == V._values))
+            throw new IllegalArgumentException("Destination shares the operands buffer");
+        for (int i = 0, k = out._offset; i < _m; i++, k += out._stride) {
+            out._values[k] = Float64Kernels.dot(_n, _values, _offset + i * _ld, 1,
+                    V._values, V._offset, V._stride);
+        }
+        return out;
+    }
+
+    /**
+     * Returns the inverse of this matrix (must be square).
+     *
+     * @return <code>Float64LUDecomposition.valueOf(this).inverse()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64Matrix inverse() {
+        return Float64LUDecomposition.valueOf(this).inverse();
+    }
+
+    /**
+     * Returns the determinant of this matrix.
+     *
+     * @return <code>Float64LUDecomposition.valueOf(this).determinant()</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64 determinant() {
+        return Float64LUDecomposition.valueOf(this).determinant();
+    }
+
+    /**
+     * Solves this matrix for the specified matrix.
+     *
+     * @return <code>Float64LUDecomposition.valueOf(this).solve(y)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64Matrix solve(Matrix<Float64> y) {
+        return Float64LUDecomposition.valueOf(this).solve(y);
+    }
+
+    /**
+     * Returns the LU decomposition of this matrix, to be reused for
+     * solving this matrix with many right-hand sides.
+     *
+     * @return <code>Float64LUDecomposition.valueOf(this)</code>
+     * @throws DimensionException if this matrix is not square.
+     */
+    @Override
+    public Float64LUDecomposition factorize() {
+        return Float64LUDecomposition.valueOf(this);
+    }
+
+    /**
+     * Returns the inverse or pseudo-inverse if this matrix if not square.
+     * The pseudo-inverse of matrices having full rank is calculated
+     * through the {@link Float64QRDecomposition QR decomposition} (the
+     * normal equations are not formed).
+     *
+     * @return the inverse or pseudo-inverse of this matrix.
+     * @throws ArithmeticException if this matrix is rank deficient.
+     */
+    @Override
+    public DenseMatrix<Float64> pseudoInverse() {
+        if (isSquare())
+            return this.inverse();
+        if (_m > _n) // R⁻¹·Q'
+            return Float64QRDecomposition.valueOf(this).solveLeastSquares(
+                    DiagonalMatrix.valueOf(_m, Float64.ONE));
+        return Float64QRDecomposition.valueOf(_transposedView).solveLeastSquares(
+                DiagonalMatrix.valueOf(_n, Float64.ONE)).transpose();
     }
 
     @Override
@@ -212,19 +579,33 @@ public class Float64Matrix extends DenseMatrix<Float64> {
         return _transposedView;
     }
 
+    // Implements Float64LinearOperator.
+    public void times(double[] x, double[] y) {
+        for (int i = 0; i < _m; i++) {
+            y[i] = Float64Kernels.dot(_n, _values, _offset + i * _ld, 1, x, 0, 1);
+        }
+    }
+
     @Override
     public Float64Matrix copy() {
-        Float64Matrix M = Float64Matrix.FACTORY.object();
-        for (int i = 0, m = _rows.size(); i < m; i++) {
-            M._rows.add(_rows.get(i).copy());
+        Float64Matrix M = Float64Matrix.newInstance(_m, _n);
+        for (int i = 0; i < _m; i++) {
+            System.arraycopy(_values, _offset + i * _ld, M._values, i * _n, _n);
         }
         return M;
     }
 
+    // For internal use only (copies the specified vector into row i).
+    private void setRow(int i, Float64Vector row) {
+        for (int j = 0, k = _offset + i * _ld, l = row._offset; j < _n; j++, l += row._stride) {
+            _values[k++] = row._values[l];
+        }
+    }
+
     /**
      * Represents a transposed view of the outer matrix.
      */
-    private class TransposedView extends DenseMatrix<Float64> {
+    class TransposedView extends DenseMatrix<Float64> {
 
         @Override
         public DenseVector<Float64> getRow(int i) {
@@ -236,9 +617,14 @@ public class Float64Matrix extends DenseMatrix<Float64> {
             return Float64Matrix.this.getRow(j);
         }
 
+        @Override
+        public DenseVector<Float64> getDiagonal() {
+            return Float64Matrix.this.getDiagonal();
+        }
+
         @Override
         public DenseMatrix<Float64> getSubMatrix(List<Index> rows, List<Index> columns) {
-            return Float64Matrix.this.getSubMatrix(columns, rows)._transposedView;
+            return Float64Matrix.this.getSubMatrix(columns, rows).transpose();
         }
 
         @Override
@@ -257,8 +643,55 @@ public class Float64Matrix extends DenseMatrix<Float64> {
         }
 
         @Override
-        public DenseMatrix<Float64> times(Matrix<Float64> that) {
-            return Float64Matrix.valueOf(this).times(that);
+        public void plusInPlace(Matrix<Float64> that) {
+            Float64Matrix.this.plusInPlace(that.transpose());
+        }
+
+        @Override
+        public void timesInPlace(Float64 k) {
+            Float64Matrix.this.timesInPlace(k);
+        }
+
+        @Override
+        public void axpy(Float64 a, Matrix<Float64> x) {
+            Float64Matrix.this.axpy(a, x.transpose());
+        }
+
+        @Override
+        public Float64Matrix times(Matrix<Float64> that) {
+            // The transposed operand is read through exchanged strides.
+            final Float64Matrix A = Float64Matrix.this;
+            final int m = A._n;
+            final int n = A._m;
+            final int p = that.getNumberOfColumns();
+            if (n != that.getNumberOfRows())
+                throw new DimensionException();
+            Float64Matrix T = Float64Matrix.valueOfMatrix(that);
+            Float64Matrix M = Float64Matrix.newInstance(m, p);
+            Arrays.fill(M._values, 0, m * p, 0.0);
+            Float64Kernels.gemm(m, p, n, 1.0, A._values, A._offset, 1, A._ld,
+                    T._values, T._offset, T._ld, 1, M._values, 0, p);
+            return M;
+        }
+
+        @Override
+        public DenseMatrix<Float64> inverse() {
+            return Float64Matrix.this.inverse()._transposedView;
+        }
+
+        @Override
+        public DenseMatrix<Float64> pseudoInverse() {
+            return Float64Matrix.this.pseudoInverse().transpose();
+        }
+
+        @Override
+        public Float64 determinant() {
+            return Float64Matrix.this.determinant();
+        }
+
+        @Override
+        public Float64LUDecomposition factorize() {
+            return Float64LUDecomposition.valueOf(this);
         }
 
         @Override
@@ -268,7 +701,7 @@ public class Float64Matrix extends DenseMatrix<Float64> {
 
         @Override
         public Float64Matrix copy() {
-            return Float64Matrix.valueOfMatrix(this).copy();
+            return Float64Matrix.valueOfMatrix(this);
         }
 
         @Override
@@ -285,6 +718,11 @@ public class Float64Matrix extends DenseMatrix<Float64> {
         public Float64 get(int i, int j) {
             return Float64Matrix.this.get(j, i);
         }
+
+        @Override
+        void set(int i, int j, Float64 e) {
+            Float64Matrix.this.set(j, i, e);
+        }
     }
 
     private static final long serialVersionUID = 1L;
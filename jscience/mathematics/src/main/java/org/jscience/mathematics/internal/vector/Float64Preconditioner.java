@@ -0,0 +1,284 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a preconditioner <code>M</code> for
+ *     {@link Float64IterativeSolver iterative solvers}: an approximation
+ *     of the system matrix <code>A</code> for which <code>M · z = r</code>
+ *     is cheap to solve.</p>
+ *
+ * <p> Three preconditioners are provided:<ul>
+ *     <li>{@link #jacobi Jacobi}: the diagonal of <code>A</code>.</li>
+ *     <li>{@link #incompleteLU ILU(0)}: the LU factors of <code>A</code>
+ *         restricted to the non-zero pattern of <code>A</code>.</li>
+ *     <li>{@link #incompleteCholesky IC(0)}: the Cholesky factor of
+ *         a symmetric positive-definite <code>A</code> restricted to the
+ *         pattern of its lower triangle (symmetric preconditioner for
+ *         conjugate gradient and MINRES).</li></ul>
+ *     The incomplete factorizations are computed on the
+ *     {@link Float64CSRMatrix CSR} form of the matrix. Applications may
+ *     subclass this class to provide their own preconditioner.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Preconditioner">
+ *      Wikipedia: Preconditioner</a>
+ */
+public abstract class Float64Preconditioner {
+
+    /**
+     * Default constructor.
+     */
+    protected Float64Preconditioner() {
+    }
+
+    /**
+     * Solves <code>M · z = r</code>.
+     *
+     * @param r the right-hand side (not modified).
+     * @param z the solution (distinct from r).
+     */
+    public abstract void solve(double[] r, double[] z);
+
+    /**
+     * Returns the Jacobi (diagonal) preconditioner of the specified matrix.
+     *
+     * @param A the square matrix.
+     * @return the diagonal preconditioner.
+     * @throws DimensionException if the matrix is not square.
+     * @throws ArithmeticException if a diagonal element is zero.
+     */
+    public static Float64Preconditioner jacobi(Matrix<Float64> A) {
+        if (!A.isSquare())
+            throw new DimensionException("Matrix is not square");
+        final int n = A.getNumberOfRows();
+        final double[] inverse = new double[n];
+        Float64CSRMatrix csr = (A instanceof SparseMatrix) ? Float64CSRMatrix.valueOfMatrix(A)
+                : null;
+        for (int i = 0; i < n; i++) {
+            double d = (csr != null) ? csr.getValue(i, i) : A.get(i, i).doubleValue();
+            if (d == 0.0)
+                throw new ArithmeticException("Zero diagonal element at " + i);
+            inverse[i] = 1.0 / d;
+        }
+        return new Jacobi(inverse);
+    }
+
+    /**
+     * Returns the ILU(0) preconditioner of the specified matrix (the
+     * diagonal elements must be stored).
+     *
+     * @param A the square matrix.
+     * @return the incomplete LU preconditioner.
+     * @throws DimensionException if the matrix is not square.
+     * @throws ArithmeticException if a pivot is zero.
+     */
+    public static Float64Preconditioner incompleteLU(Matrix<Float64> A) {
+        if (!A.isSquare())
+            throw new DimensionException("Matrix is not square");
+        Float64CSRMatrix csr = Float64CSRMatrix.valueOfMatrix(A);
+        final int n = csr._m;
+        final int[] pointers = csr._pointers;
+        final int[] indices = csr._indices;
+        final double[] lu = csr._values.clone();
+        final int[] diagonal = diagonalPositions(csr);
+        final int[] position = new int[n]; // Position in the current row + 1.
+        for (int i = 0; i < n; i++) {
+            final int start = pointers[i], end = pointers[i + 1];
+            for (int k = start; k < end; k++) {
+                position[indices[k]] = k + 1;
+            }
+            for (int k = start; k < diagonal[i]; k++) { // Row i, columns < i.
+                final int col = indices[k];
+                final double lik = lu[k] / lu[diagonal[col]];
+                lu[k] = lik;
+                for (int q = diagonal[col] + 1, e = pointers[col + 1]; q < e; q++) {
+                    int p = position[indices[q]];
+                    if (p != 0) { // Within the pattern.
+                        lu[p - 1] -= lik * lu[q];
+                    }
+                }
+            }
+            if (lu[diagonal[i]] == 0.0)
+                throw new ArithmeticException("Zero pivot at " + i);
+            for (int k = start; k < end; k++) {
+                position[indices[k]] = 0;
+            }
+        }
+        return new IncompleteLU(n, pointers, indices, lu, diagonal);
+    }
+
+    /**
+     * Returns the IC(0) preconditioner of the specified symmetric
+     * positive-definite matrix (only the lower triangle is read).
+     *
+     * @param A the symmetric positive-definite matrix.
+     * @return the incomplete Cholesky preconditioner.
+     * @throws DimensionException if the matrix is not square.
+     * @throws ArithmeticException if the incomplete factorization breaks
+     *         down (matrix not positive-definite or pattern too sparse).
+     */
+    public static Float64Preconditioner incompleteCholesky(Matrix<Float64> A) {
+        if (!A.isSquare())
+            throw new DimensionException("Matrix is not square");
+        Float64CSRMatrix csr = Float64CSRMatrix.valueOfMatrix(A);
+        final int n = csr._m;
+        final int[] diagonal = diagonalPositions(csr);
+
+        // Lower triangle (rows of L in CSR form, diagonal last).
+        final int[] pointers = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            pointers[i + 1] = pointers[i] + diagonal[i] - csr._pointers[i] + 1;
+        }
+        final int[] indices = new int[pointers[n]];
+        final double[] l = new double[pointers[n]];
+        for (int i = 0; i < n; i++) {
+            int length = pointers[i + 1] - pointers[i];
+            System.arraycopy(csr._indices, csr._pointers[i], indices, pointers[i], length);
+            System.arraycopy(csr._values, csr._pointers[i], l, pointers[i], length);
+        }
+
+        for (int i = 0; i < n; i++) {
+            final int start = pointers[i], last = pointers[i + 1] - 1; // last: diagonal.
+            for (int k = start; k <= last; k++) {
+                final int col = indices[k];
+                // Sparse dot product of rows i and col of L (columns < col).
+                double sum = l[k];
+                int p = start, q = pointers[col];
+                final int qEnd = pointers[col + 1] - 1;
+                while ((p < k) && (q < qEnd)) {
+                    if (indices[p] < indices[q]) {
+                        p++;
+                    } else if (indices[p] > indices[q]) {
+                        q++;
+                    } else {
+                        sum -= l[p++] * l[q++];
+                    }
+                }
+                if (k < last) {
+                    l[k] = sum / l[pointers[col + 1] - 1];
+                } else if (sum <= 0.0)
+                    throw new ArithmeticException("Matrix is not positive-definite");
+                else {
+                    l[k] = MathLib.sqrt(sum);
+                }
+            }
+        }
+        return new IncompleteCholesky(n, pointers, indices, l);
+    }
+
+    // Returns the positions of the diagonal elements.
+    private static int[] diagonalPositions(Float64CSRMatrix csr) {
+        final int n = csr._m;
+        final int[] diagonal = new int[n];
+        for (int i = 0; i < n; i++) {
+            diagonal[i] = csr.find(i, i);
+            if (diagonal[i] < 0)
+                throw new ArithmeticException("Diagonal element at " + i + " is not stored");
+        }
+        return diagonal;
+    }
+
+    /**
+     * The diagonal preconditioner.
+     */
+    private static final class Jacobi extends Float64Preconditioner {
+
+        private final double[] _inverse;
+
+        Jacobi(double[] inverse) {
+            _inverse = inverse;
+        }
+
+        public void solve(double[] r, double[] z) {
+            for (int i = 0; i < _inverse.length; i++) {
+                z[i] = _inverse[i] * r[i];
+            }
+        }
+    }
+
+    /**
+     * The ILU(0) preconditioner (L unit lower, U upper, in place).
+     */
+    private static final class IncompleteLU extends Float64Preconditioner {
+
+        private final int _n;
+
+        private final int[] _pointers, _indices, _diagonal;
+
+        private final double[] _lu;
+
+        IncompleteLU(int n, int[] pointers, int[] indices, double[] lu, int[] diagonal) {
+            _n = n;
+            _pointers = pointers;
+            _indices = indices;
+            _lu = lu;
+            _diagonal = diagonal;
+        }
+
+        public void solve(double[] r, double[] z) {
+            for (int i = 0; i < _n; i++) { // L · y = r
+                double sum = r[i];
+                for (int k = _pointers[i]; k < _diagonal[i]; k++) {
+                    sum -= _lu[k] * z[_indices[k]];
+                }
+                z[i] = sum;
+            }
+            for (int i = _n - 1; i >= 0; i--) { // U · z = y
+                double sum = z[i];
+                for (int k = _diagonal[i] + 1, end = _pointers[i + 1]; k < end; k++) {
+                    sum -= _lu[k] * z[_indices[k]];
+                }
+                z[i] = sum / _lu[_diagonal[i]];
+            }
+        }
+    }
+
+    /**
+     * The IC(0) preconditioner (rows of L, diagonal element last).
+     */
+    private static final class IncompleteCholesky extends Float64Preconditioner {
+
+        private final int _n;
+
+        private final int[] _pointers, _indices;
+
+        private final double[] _l;
+
+        IncompleteCholesky(int n, int[] pointers, int[] indices, double[] l) {
+            _n = n;
+            _pointers = pointers;
+            _indices = indices;
+            _l = l;
+        }
+
+        public void solve(double[] r, double[] z) {
+            for (int i = 0; i < _n; i++) { // L · y = r
+                double sum = r[i];
+                final int last = _pointers[i + 1] - 1;
+                for (int k = _pointers[i]; k < last; k++) {
+                    sum -= _l[k] * z[_indices[k]];
+                }
+                z[i] = sum / _l[last];
+            }
+            for (int i = _n - 1; i >= 0; i--) { // L' · z = y (rows scattered)
+                final int last = _pointers[i + 1] - 1;
+                final double zi = z[i] / _l[last];
+                z[i] = zi;
+                for (int k = _pointers[i]; k < last; k++) {
+                    z[_indices[k]] -= _l[k] * zi;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,472 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the QR decomposition of a m-by-n
+ *     (<code>m &gt;= n</code>) 64 bits floating point {@link Matrix matrix}
+ *     <code>A</code> into the product <code>A = Q·R</code> with
+ *     <code>Q</code> an {@link #getQ orthogonal} matrix and <code>R</code>
+ *     an {@link #getR upper} triangular matrix.</p>
+ *
+ * <p> The decomposition uses Householder reflections, stored in place of
+ *     the eliminated elements. Reflections are accumulated by panels of
+ *     {@link Float64LUDecomposition#BLOCK_SIZE} columns in the compact
+ *     form <code>I - V·T·V'</code> so that the trailing sub-matrix
+ *     is updated through matrix products.</p>
+ *
+ * <p> This decomposition is typically used to {@link #solveLeastSquares
+ *     solve} over-determined linear systems (minimizing
+ *     <code>|A·x - b|</code>) without forming the normal equations.
+ *     Rows can be {@link #appendRows appended} (Givens rotations)
+ *     without decomposing the matrix again.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/QR_decomposition">
+ *      Wikipedia: QR decomposition</a>
+ */
+public final class Float64QRDecomposition {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64QRDecomposition> FACTORY = new ObjectFactory<Float64QRDecomposition>() {
+
+        protected Float64QRDecomposition create() {
+            return new Float64QRDecomposition();
+        }
+
+        @Override
+        protected void cleanup(Float64QRDecomposition qr) {
+            qr._QR = null;
+        }
+    };
+
+    /**
+     * Holds the number of rows decomposed through Householder reflections.
+     */
+    private int _m;
+
+    /**
+     * Holds the number of columns.
+     */
+    private int _n;
+
+    /**
+     * Holds <code>R</code> (upper part) and the Householder vectors
+     * (strict lower part, the leading unit element is implicit).
+     */
+    private Float64Matrix _QR;
+
+    /**
+     * Holds the Householder scaling factors.
+     */
+    private double[] _tau = new double[0];
+
+    /**
+     * Holds the number of rows appended.
+     */
+    private int _appended;
+
+    /**
+     * Holds the number of Givens rotations (rows appended).
+     */
+    private int _rotationCount;
+
+    /**
+     * Holds the rows (<code>R</code> row, appended row) of the Givens
+     * rotations.
+     */
+    private int[] _rotationRows = new int[0];
+
+    /**
+     * Holds the cosines and sines of the Givens rotations.
+     */
+    private double[] _rotations = new double[0];
+
+    /**
+     * Default constructor.
+     */
+    private Float64QRDecomposition() {
+    }
+
+    /**
+     * Returns the QR decomposition of the specified matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the QR decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix has more columns
+     *         than rows.
+     */
+    public static Float64QRDecomposition valueOf(Matrix<Float64> source) {
+        final int m = source.getNumberOfRows();
+        final int n = source.getNumberOfColumns();
+        if (m < n)
+            throw new DimensionException("Matrix has more columns than rows");
+        Float64QRDecomposition qr = FACTORY.object();
+        qr._m = m;
+        qr._n = n;
+        qr._appended = 0;
+        qr._rotationCount = 0;
+        qr.construct(Float64Matrix.valueOfMatrix(source).copy());
+        return qr;
+    }
+
+    /**
+     * Constructs the decomposition (in place).
+     */
+    private void construct(Float64Matrix QR) {
+        _QR = QR;
+        final int m = _m;
+        final int n = _n;
+        final double[] a = QR._values;
+        if (_tau.length < n) {
+            _tau = new double[n];
+        }
+        final int NB = Float64LUDecomposition.BLOCK_SIZE;
+        final double[] w = new double[MathLib.min(NB, n)];
+        for (int k = 0; k < n; k += NB) {
+            final int nb = MathLib.min(NB, n - k);
+
+            // Factors the panel (columns k to k + nb).
+            for (int j = k; j < k + nb; j++) {
+                final double tau = householder(a, m, n, j);
+                _tau[j] = tau;
+                final int cols = k + nb - j - 1; // Remaining panel columns.
+                if ((tau == 0.0) || (cols == 0))
+                    continue;
+                System.arraycopy(a, j * n + j + 1, w, 0, cols);
+                for (int i = j + 1; i < m; i++) {
+                    Float64Kernels.axpy(cols, a[i * n + j], a, i * n + j + 1, 1, w, 0, 1, w, 0);
+                }
+                Float64Kernels.axpy(cols, -tau, w, 0, 1, a, j * n + j + 1, 1, a, j * n + j + 1);
+                for (int i = j + 1; i < m; i++) {
+                    Float64Kernels.axpy(cols, -tau * a[i * n + j], w, 0, 1,
+                            a, i * n + j + 1, 1, a, i * n + j + 1);
+                }
+            }
+
+            final int n2 = n - k - nb; // Trailing columns.
+            if (n2 == 0)
+                break;
+
+            // A2 = (I - V·T'·V') · A2
+            final int mk = m - k;
+            final double[] V = new double[mk * nb];
+            for (int r = 0; r < mk; r++) {
+                for (int c = 0; c < nb; c++) {
+                    V[r * nb + c] = (r > c) ? a[(k + r) * n + k + c] : (r == c) ? 1.0 : 0.0;
+                }
+            }
+            final double[] T = triangularFactor(V, mk, nb, k);
+            final double[] W = new double[nb * n2];
+            Float64Kernels.gemm(nb, n2, mk, 1.0, V, 0, 1, nb, a, k * n + k + nb, n, 1, W, 0, n2);
+            for (int i = nb - 1; i >= 0; i--) { // W = T' · W
+                Float64Kernels.scale(n2, T[i * nb + i], W, i * n2, 1, W, i * n2);
+                for (int q = 0; q < i; q++) {
+                    Float64Kernels.axpy(n2, T[q * nb + i], W, q * n2, 1, W, i * n2, 1, W, i * n2);
+                }
+            }
+            Float64Kernels.gemm(mk, n2, nb, -1.0, V, 0, nb, 1, W, 0, n2, 1, a, k * n + k + nb, n);
+        }
+    }
+
+    /**
+     * Generates the Householder reflection annihilating the column j below
+     * the diagonal; returns its scaling factor (<code>0</code> if none).
+     */
+    private static double householder(double[] a, int m, int n, int j) {
+        final double alpha = a[j * n + j];
+        final double xnorm = MathLib.sqrt(Float64Kernels.sumOfSquares(m - j - 1, a, (j + 1) * n + j, n));
+        if (xnorm == 0.0)
+            return 0.0;
+        double beta = hypot(alpha, xnorm);
+        if (alpha > 0) {
+            beta = -beta;
+        }
+        final double scale = 1.0 / (alpha - beta);
+        for (int i = j + 1; i < m; i++) {
+            a[i * n + j] *= scale;
+        }
+        a[j * n + j] = beta;
+        return (beta - alpha) / beta;
+    }
+
+    /**
+     * Returns the upper triangular factor T such as
+     * <code>H(k)·H(k+1)...H(k+nb-1) = I - V·T·V'</code>.
+     */
+    private double[] triangularFactor(double[] V, int mk, int nb, int k) {
+        final double[] T = new double[nb * nb];
+        final double[] z = new double[nb];
+        for (int i = 0; i < nb; i++) {
+            final double tau = _tau[k + i];
+            T[i * nb + i] = tau;
+            for (int q = 0; q < i; q++) { // z = V(:, 0:i)' · v(i)
+                z[q] = Float64Kernels.dot(mk - i, V, i * nb + q, nb, V, i * nb + i, nb);
+            }
+            for (int q = 0; q < i; q++) { // T(0:i, i) = -tau · T(0:i, 0:i) · z
+                double sum = 0.0;
+                for (int r = q; r < i; r++) {
+                    sum += T[q * nb + r] * z[r];
+                }
+                T[q * nb + i] = -tau * sum;
+            }
+        }
+        return T;
+    }
+
+    /**
+     * Returns <code>sqrt(x² + y²)</code> without undue overflow or underflow.
+     */
+    private static double hypot(double x, double y) {
+        final double ax = MathLib.abs(x);
+        final double ay = MathLib.abs(y);
+        final double max = MathLib.max(ax, ay);
+        if (max == 0.0)
+            return 0.0;
+        final double min = MathLib.min(ax, ay) / max;
+        return max * MathLib.sqrt(1.0 + min * min);
+    }
+
+    /**
+     * Updates this decomposition for the matrix source augmented with the
+     * specified rows (<code>[A; rows] = Q·R</code>).
+     *
+     * @param  rows the rows to append (n columns).
+     * @throws DimensionException if the number of columns is not n.
+     */
+    public void appendRows(Matrix<Float64> rows) {
+        if (rows.getNumberOfColumns() != _n)
+            throw new DimensionException("Rows have "
+                    + rows.getNumberOfColumns() + " columns instead of " + _n);
+        final int n = _n;
+        final double[] a = _QR._values;
+        final double[] row = new double[n];
+        Float64Matrix T = Float64Matrix.valueOfMatrix(rows);
+        for (int r = 0, k = rows.getNumberOfRows(); r < k; r++) {
+            System.arraycopy(T._values, T._offset + r * T._ld, row, 0, n);
+            final int index = _m + _appended++; // Row index in Q.
+            for (int j = 0; j < n; j++) { // Annihilates row[j] against R[j, j].
+                if (row[j] == 0.0)
+                    continue;
+                final double h = hypot(a[j * n + j], row[j]);
+                final double c = a[j * n + j] / h;
+                final double s = row[j] / h;
+                for (int q = j; q < n; q++) {
+                    final double rjq = a[j * n + q];
+                    a[j * n + q] = c * rjq + s * row[q];
+                    row[q] = c * row[q] - s * rjq;
+                }
+                addRotation(j, index, c, s);
+            }
+        }
+    }
+
+    // Records the specified Givens rotation.
+    private void addRotation(int j, int i, double c, double s) {
+        if (_rotationCount * 2 >= _rotationRows.length) { // Resizes.
+            int capacity = MathLib.max(16, _rotationRows.length * 2);
+            int[] rows = new int[capacity];
+            System.arraycopy(_rotationRows, 0, rows, 0, _rotationCount * 2);
+            _rotationRows = rows;
+            double[] rotations = new double[capacity];
+            System.arraycopy(_rotations, 0, rotations, 0, _rotationCount * 2);
+            _rotations = rotations;
+        }
+        _rotationRows[2 * _rotationCount] = j;
+        _rotationRows[2 * _rotationCount + 1] = i;
+        _rotations[2 * _rotationCount] = c;
+        _rotations[2 * _rotationCount + 1] = s;
+        _rotationCount++;
+    }
+
+    /**
+     * Returns the number of rows of the matrix decomposed (including
+     * the rows appended).
+     *
+     * @return the number of rows of <code>Q</code>.
+     */
+    public int getNumberOfRows() {
+        return _m + _appended;
+    }
+
+    /**
+     * Indicates if the matrix source has full rank (no zero diagonal
+     * element in <code>R</code>).
+     *
+     * @return <code>rank(A) == n</code>
+     */
+    public boolean isFullRank() {
+        final double[] a = _QR._values;
+        for (int j = 0; j < _n; j++) {
+            if (a[j * _n + j] == 0.0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the least squares solution X of the equation: A * X = B
+     * (minimizes the Euclidian norm of each column of <code>A·X - B</code>).
+     *
+     * @param  B the input matrix.
+     * @return the n-by-p matrix X = R⁻¹·Q'·B
+     * @throws DimensionException if the dimensions do not match.
+     * @throws ArithmeticException if the matrix source is rank deficient.
+     */
+    public Float64Matrix solveLeastSquares(Matrix<Float64> B) {
+        final int m = getNumberOfRows();
+        if (m != B.getNumberOfRows())
+            throw new DimensionException("Input matrix has "
+                    + B.getNumberOfRows() + " rows instead of " + m);
+        if (!isFullRank())
+            throw new ArithmeticException("Matrix is rank deficient");
+        final int n = _n;
+        final int p = B.getNumberOfColumns();
+        Float64Matrix Y = Float64Matrix.valueOfMatrix(B).copy();
+        applyQTranspose(Y._values, p);
+
+        // Solves R * X = Y[0:n]
+        final double[] a = _QR._values;
+        final double[] y = Y._values;
+        for (int i = n - 1; i >= 0; i--) {
+            for (int q = i + 1; q < n; q++) {
+                Float64Kernels.axpy(p, -a[i * n + q], y, q * p, 1, y, i * p, 1, y, i * p);
+            }
+            Float64Kernels.scale(p, 1.0 / a[i * n + i], y, i * p, 1, y, i * p);
+        }
+        Float64Matrix X = Float64Matrix.newInstance(n, p);
+        System.arraycopy(y, 0, X._values, 0, n * p);
+        return X;
+    }
+
+    /**
+     * Returns the least squares solution x of the equation: A * x = y.
+     *
+     * @param  y the input vector.
+     * @return the vector x minimizing <code>|A·x - y|</code>
+     * @throws DimensionException if the dimensions do not match.
+     * @throws ArithmeticException if the matrix source is rank deficient.
+     */
+    public Float64Vector solveLeastSquares(Vector<Float64> y) {
+        final int m = getNumberOfRows();
+        if (m != y.getDimension())
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + m);
+        Float64Vector T = Float64Vector.valueOfVector(y);
+        Float64Matrix Y = Float64Matrix.newInstance(m, 1);
+        for (int i = 0; i < m; i++) {
+            Y._values[i] = T._values[T._offset + i * T._stride];
+        }
+        Float64Matrix X = solveLeastSquares(Y);
+        Float64Vector x = Float64Vector.FACTORY.array(_n);
+        x._dimension = _n;
+        System.arraycopy(X._values, 0, x._values, 0, _n);
+        return x;
+    }
+
+    /**
+     * Replaces the specified m-by-p matrix x by <code>Q'·x</code>.
+     */
+    private void applyQTranspose(double[] x, int p) {
+        final int m = _m;
+        final int n = _n;
+        final double[] a = _QR._values;
+        final double[] w = new double[p];
+        for (int j = 0; j < n; j++) { // Householder reflections.
+            reflect(a, m, n, j, _tau[j], x, p, w);
+        }
+        for (int r = 0; r < _rotationCount; r++) { // Givens rotations.
+            rotate(x, p, _rotationRows[2 * r], _rotationRows[2 * r + 1],
+                    _rotations[2 * r], _rotations[2 * r + 1]);
+        }
+    }
+
+    /**
+     * Replaces the specified m-by-p matrix x by <code>Q·x</code>.
+     */
+    private void applyQ(double[] x, int p) {
+        final int m = _m;
+        final int n = _n;
+        final double[] a = _QR._values;
+        final double[] w = new double[p];
+        for (int r = _rotationCount - 1; r >= 0; r--) { // Transposed rotations.
+            rotate(x, p, _rotationRows[2 * r], _rotationRows[2 * r + 1],
+                    _rotations[2 * r], -_rotations[2 * r + 1]);
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            reflect(a, m, n, j, _tau[j], x, p, w);
+        }
+    }
+
+    // Applies the Householder reflection j to the rows [j, m[ of x.
+    private static void reflect(double[] a, int m, int n, int j, double tau,
+            double[] x, int p, double[] w) {
+        if (tau == 0.0)
+            return;
+        System.arraycopy(x, j * p, w, 0, p);
+        for (int i = j + 1; i < m; i++) {
+            Float64Kernels.axpy(p, a[i * n + j], x, i * p, 1, w, 0, 1, w, 0);
+        }
+        Float64Kernels.axpy(p, -tau, w, 0, 1, x, j * p, 1, x, j * p);
+        for (int i = j + 1; i < m; i++) {
+            Float64Kernels.axpy(p, -tau * a[i * n + j], w, 0, 1, x, i * p, 1, x, i * p);
+        }
+    }
+
+    // Applies the Givens rotation (c, s) to the rows j and i of x.
+    private static void rotate(double[] x, int p, int j, int i, double c, double s) {
+        for (int q = 0, xj = j * p, xi = i * p; q < p; q++) {
+            final double u = x[xj + q];
+            final double v = x[xi + q];
+            x[xj + q] = c * u + s * v;
+            x[xi + q] = c * v - s * u;
+        }
+    }
+
+    /**
+     * Returns the orthogonal factor <code>Q</code> (thin, m-by-n).
+     *
+     * @return the first n columns of the orthogonal matrix.
+     */
+    public Float64Matrix getQ() {
+        final int m = getNumberOfRows();
+        final int n = _n;
+        Float64Matrix Q = Float64Matrix.newInstance(m, n);
+        Arrays.fill(Q._values, 0, m * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            Q._values[i * n + i] = 1.0;
+        }
+        applyQ(Q._values, n);
+        return Q;
+    }
+
+    /**
+     * Returns the upper triangular factor <code>R</code> (n-by-n).
+     *
+     * @return the upper matrix.
+     */
+    public Float64Matrix getR() {
+        final int n = _n;
+        Float64Matrix R = Float64Matrix.newInstance(n, n);
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(R._values, i * n, i * n + i, 0.0);
+            System.arraycopy(_QR._values, i * n + i, R._values, i * n + i, n - i);
+        }
+        return R;
+    }
+
+}
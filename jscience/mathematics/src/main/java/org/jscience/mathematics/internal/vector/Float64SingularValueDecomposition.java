@@ -0,0 +1,401 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import javolution.context.ConcurrentContext;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the singular value decomposition of a m-by-n
+ *     64 bits floating point {@link Matrix matrix} <code>A</code> into the
+ *     product <code>A = U·S·V'</code> with <code>S</code> the diagonal
+ *     matrix of the {@link #getSingularValues singular values} (descending
+ *     order), <code>U</code> and <code>V</code> having orthonormal
+ *     columns (thin decomposition, <code>k = min(m, n)</code>
+ *     components).</p>
+ *
+ * <p> Tall matrices are first reduced to a square triangular matrix
+ *     ({@link Float64QRDecomposition QR}), the columns are then made
+ *     orthogonal through one-sided Jacobi rotations (accurate for the
+ *     small singular values). The disjoint pairs of columns of each
+ *     Jacobi step are rotated concurrently for large matrices.</p>
+ *
+ * <p> When only the dominant components are needed, a
+ *     {@link #valueOf(Matrix, int) truncated} decomposition is calculated
+ *     from a randomized approximation of the range of <code>A</code>
+ *     (much faster for low ranks).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Singular_value_decomposition">
+ *      Wikipedia: Singular value decomposition</a>
+ */
+public final class Float64SingularValueDecomposition {
+
+    /**
+     * Holds the maximum number of Jacobi sweeps.
+     */
+    private static final int MAX_SWEEPS = 64;
+
+    /**
+     * Holds the minimum number of elements rotated per step for which the
+     * rotations are performed concurrently.
+     */
+    private static final int CONCURRENT_THRESHOLD = 1 << 15;
+
+    /**
+     * Holds the number of additional samples for truncated decompositions.
+     */
+    private static final int OVERSAMPLING = 10;
+
+    /**
+     * Holds the number of power iterations for truncated decompositions.
+     */
+    private static final int POWER_ITERATIONS = 2;
+
+    /**
+     * Holds the relative machine precision.
+     */
+    private static final double EPSILON = MathLib.pow(2.0, -52.0);
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64SingularValueDecomposition> FACTORY = new ObjectFactory<Float64SingularValueDecomposition>() {
+
+        protected Float64SingularValueDecomposition create() {
+            return new Float64SingularValueDecomposition();
+        }
+
+        @Override
+        protected void cleanup(Float64SingularValueDecomposition svd) {
+            svd._U = null;
+            svd._V = null;
+            svd._s = null;
+        }
+    };
+
+    /**
+     * Holds the number of rows of the matrix source.
+     */
+    private int _m;
+
+    /**
+     * Holds the number of columns of the matrix source.
+     */
+    private int _n;
+
+    /**
+     * Holds the left singular vectors (m-by-k).
+     */
+    private Float64Matrix _U;
+
+    /**
+     * Holds the right singular vectors (n-by-k).
+     */
+    private Float64Matrix _V;
+
+    /**
+     * Holds the singular values (descending).
+     */
+    private double[] _s;
+
+    /**
+     * Default constructor.
+     */
+    private Float64SingularValueDecomposition() {
+    }
+
+    /**
+     * Returns the singular value decomposition of the specified matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the singular value decomposition of the specified matrix.
+     */
+    public static Float64SingularValueDecomposition valueOf(Matrix<Float64> source) {
+        Float64SingularValueDecomposition svd = FACTORY.object();
+        svd._m = source.getNumberOfRows();
+        svd._n = source.getNumberOfColumns();
+        svd.construct(Float64Matrix.valueOfMatrix(source));
+        return svd;
+    }
+
+    /**
+     * Returns the truncated singular value decomposition of the specified
+     * matrix holding the <code>rank</code> dominant components.
+     * The range of the matrix is sampled randomly (with oversampling and
+     * power iterations), the result is an approximation whose accuracy
+     * depends on the decay of the singular values.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @param  rank the number of components to calculate.
+     * @return the truncated singular value decomposition.
+     * @throws IllegalArgumentException if <code>rank</code> is not in the
+     *         range <code>[1, min(m, n)]</code>
+     */
+    public static Float64SingularValueDecomposition valueOf(Matrix<Float64> source, int rank) {
+        final int m = source.getNumberOfRows();
+        final int n = source.getNumberOfColumns();
+        if ((rank < 1) || (rank > MathLib.min(m, n)))
+            throw new IllegalArgumentException("Invalid rank: " + rank);
+        final int l = MathLib.min(rank + OVERSAMPLING, MathLib.min(m, n));
+        Float64Matrix A = Float64Matrix.valueOfMatrix(source);
+
+        // Samples the range of A: Y = (A·A')^q · A · Ω
+        Random random = new Random(m * 31L + n);
+        Float64Matrix omega = Float64Matrix.newInstance(n, l);
+        for (int i = 0; i < n * l; i++) {
+            omega._values[i] = random.nextGaussian();
+        }
+        Float64Matrix Y = A.times(omega);
+        for (int q = 0; q < POWER_ITERATIONS; q++) { // Re-orthonormalized.
+            Float64Matrix Z = (Float64Matrix) A.transpose().times(Float64QRDecomposition.valueOf(Y).getQ());
+            Y = A.times(Float64QRDecomposition.valueOf(Z).getQ());
+        }
+        Float64Matrix Q = Float64QRDecomposition.valueOf(Y).getQ(); // m-by-l
+
+        // B = Q'·A is l-by-n, A ~ Q·B = (Q·Ub)·S·V'
+        Float64Matrix B = (Float64Matrix) Q.transpose().times(A);
+        Float64SingularValueDecomposition svd = valueOf(B);
+        svd._m = m;
+        svd._U = columns(Q.times(svd._U), rank);
+        svd._V = columns(svd._V, rank);
+        double[] s = new double[rank];
+        System.arraycopy(svd._s, 0, s, 0, rank);
+        svd._s = s;
+        return svd;
+    }
+
+    /**
+     * Constructs the decomposition of the specified matrix.
+     */
+    private void construct(Float64Matrix A) {
+        final int m = _m;
+        final int n = _n;
+        if (m < n) { // A' = V·S·U'
+            Float64SingularValueDecomposition svd = valueOf(A.transpose());
+            _U = svd._V;
+            _V = svd._U;
+            _s = svd._s;
+            return;
+        }
+        if (m > n) { // A = Q·R, R = Ur·S·V'
+            Float64QRDecomposition qr = Float64QRDecomposition.valueOf(A);
+            jacobi(qr.getR());
+            _U = qr.getQ().times(_U);
+            return;
+        }
+        jacobi(A);
+    }
+
+    /**
+     * Calculates the decomposition of the n-by-n matrix A (one-sided Jacobi).
+     */
+    private void jacobi(Float64Matrix A) {
+        final int n = A._n;
+        // The columns of A (rows of G) are made orthogonal.
+        final Float64Matrix G = Float64Matrix.valueOfMatrix(A.transpose()).copy();
+        final Float64Matrix Vt = Float64Matrix.newInstance(n, n);
+        Arrays.fill(Vt._values, 0, n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            Vt._values[i * n + i] = 1.0;
+        }
+        final double tolerance = EPSILON * n;
+
+        // Round-robin ordering (n/2 disjoint pairs per step).
+        final int players = (n % 2 == 0) ? n : n + 1;
+        final int[] order = new int[players];
+        for (int i = 0; i < players; i++) {
+            order[i] = i;
+        }
+        final int pairs = players / 2;
+        final int tasks = ((long) n * pairs < CONCURRENT_THRESHOLD) ? 1
+                : MathLib.min(pairs, ConcurrentContext.getConcurrency() + 1);
+        final JacobiRotations[] rotations = new JacobiRotations[tasks];
+        for (int t = 0; t < tasks; t++) {
+            rotations[t] = new JacobiRotations(G._values, Vt._values, n, order,
+                    pairs * t / tasks, pairs * (t + 1) / tasks, tolerance);
+        }
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            int rotated = 0;
+            for (int step = 0; step < players - 1; step++) {
+                if (tasks == 1) {
+                    rotations[0].run();
+                } else {
+                    ConcurrentContext.enter();
+                    try {
+                        for (int t = 0; t < tasks; t++) {
+                            ConcurrentContext.execute(rotations[t]);
+                        }
+                    } finally {
+                        ConcurrentContext.exit();
+                    }
+                }
+                for (int t = 0; t < tasks; t++) {
+                    rotated += rotations[t]._rotated;
+                }
+                // Next pairing (the first player is fixed).
+                final int last = order[players - 1];
+                System.arraycopy(order, 1, order, 2, players - 2);
+                order[1] = last;
+            }
+            if (rotated == 0)
+                break; // Converged.
+        }
+
+        // Singular values are the norms of the orthogonalized columns.
+        final double[] g = G._values;
+        final double[] norms = new double[n];
+        final Integer[] index = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            norms[i] = MathLib.sqrt(Float64Kernels.sumOfSquares(n, g, i * n, 1));
+            index[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(index, new Comparator<Integer>() {
+
+            public int compare(Integer i, Integer j) {
+                return Double.compare(norms[j.intValue()], norms[i.intValue()]);
+            }
+        });
+        _s = new double[n];
+        _U = Float64Matrix.newInstance(n, n);
+        _V = Float64Matrix.newInstance(n, n);
+        for (int j = 0; j < n; j++) {
+            final int k = index[j].intValue();
+            final double s = norms[k];
+            _s[j] = s;
+            final double inv = (s == 0.0) ? 0.0 : 1.0 / s;
+            for (int i = 0; i < n; i++) {
+                _U._values[i * n + j] = g[k * n + i] * inv;
+                _V._values[i * n + j] = Vt._values[k * n + i];
+            }
+        }
+    }
+
+    // Returns the first k columns of the specified matrix.
+    private static Float64Matrix columns(Float64Matrix M, int k) {
+        final int m = M._m;
+        Float64Matrix C = Float64Matrix.newInstance(m, k);
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(M._values, M._offset + i * M._ld, C._values, i * k, k);
+        }
+        return C;
+    }
+
+    /**
+     * Returns the singular values (descending order).
+     *
+     * @return the diagonal of <code>S</code>.
+     */
+    public Float64Vector getSingularValues() {
+        return Float64Vector.valueOf(_s);
+    }
+
+    /**
+     * Returns the left singular vectors.
+     *
+     * @return the m-by-k matrix <code>U</code>.
+     */
+    public Float64Matrix getU() {
+        return _U;
+    }
+
+    /**
+     * Returns the right singular vectors.
+     *
+     * @return the n-by-k matrix <code>V</code>.
+     */
+    public Float64Matrix getV() {
+        return _V;
+    }
+
+    /**
+     * Returns the numerical rank of the matrix source (number of singular
+     * values greater than <code>max(m, n)·s[0]·ε</code>).
+     *
+     * @return the effective rank.
+     */
+    public int getRank() {
+        if (_s.length == 0)
+            return 0;
+        final double threshold = MathLib.max(_m, _n) * _s[0] * EPSILON;
+        int rank = 0;
+        while ((rank < _s.length) && (_s[rank] > threshold)) {
+            rank++;
+        }
+        return rank;
+    }
+
+    /**
+     * Rotates the pairs [first, last[ of the current Jacobi step.
+     */
+    private static final class JacobiRotations implements Runnable {
+
+        private final double[] _g, _vt;
+
+        private final int _n, _first, _last;
+
+        private final int[] _order;
+
+        private final double _tolerance;
+
+        private int _rotated;
+
+        JacobiRotations(double[] g, double[] vt, int n, int[] order,
+                int first, int last, double tolerance) {
+            _g = g;
+            _vt = vt;
+            _n = n;
+            _order = order;
+            _first = first;
+            _last = last;
+            _tolerance = tolerance;
+        }
+
+        public void run() {
+            final int n = _n;
+            final int players = _order.length;
+            _rotated = 0;
+            for (int pair = _first; pair < _last; pair++) {
+                final int p = _order[pair];
+                final int q = _order[players - 1 - pair];
+                if ((p >= n) || (q >= n))
+                    continue; // Dummy player.
+                final double alpha = Float64Kernels.sumOfSquares(n, _g, p * n, 1);
+                final double beta = Float64Kernels.sumOfSquares(n, _g, q * n, 1);
+                final double gamma = Float64Kernels.dot(n, _g, p * n, 1, _g, q * n, 1);
+                if (MathLib.abs(gamma) <= _tolerance * MathLib.sqrt(alpha * beta))
+                    continue; // Already orthogonal.
+                final double zeta = (beta - alpha) / (2.0 * gamma);
+                final double t = ((zeta >= 0) ? 1.0 : -1.0)
+                        / (MathLib.abs(zeta) + MathLib.sqrt(1.0 + zeta * zeta));
+                final double c = 1.0 / MathLib.sqrt(1.0 + t * t);
+                final double s = c * t;
+                rotate(_g, p * n, q * n, n, c, s);
+                rotate(_vt, p * n, q * n, n, c, s);
+                _rotated++;
+            }
+        }
+
+        // x = c·x - s·y, y = s·x + c·y
+        private static void rotate(double[] a, int x, int y, int n, double c, double s) {
+            for (int i = 0; i < n; i++) {
+                final double u = a[x + i];
+                final double v = a[y + i];
+                a[x + i] = c * u - s * v;
+                a[y + i] = s * u + c * v;
+            }
+        }
+    }
+}
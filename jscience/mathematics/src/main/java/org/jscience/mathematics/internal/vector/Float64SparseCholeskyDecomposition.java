@@ -0,0 +1,409 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the sparse Cholesky decomposition
+ *     <code>P·A·P' = L·L'</code> of a symmetric positive-definite
+ *     64 bits floating point matrix, <code>P</code> being the
+ *     fill-reducing ordering of a {@link SparseSymbolicAnalysis}.</p>
+ *
+ * <p> The factorization is supernodal and left-looking: the columns of
+ *     a supernode are stored as a dense row-major panel and the updates
+ *     from the descendant supernodes are dense matrix products
+ *     ({@link Float64Kernels#gemm gemm}, concurrent for large panels)
+ *     scattered into the panel. Both triangles of the symmetric matrix
+ *     source must be stored (the ordering mixes them).</p>
+ *
+ * <p> The symbolic analysis can be shared by the decompositions of
+ *     matrices having the same pattern:[code]
+ *         SparseSymbolicAnalysis analysis = SparseSymbolicAnalysis.valueOf(A0);
+ *         for (Matrix<Float64> A : sequence) {
+ *             Float64SparseCholeskyDecomposition cholesky
+ *                 = Float64SparseCholeskyDecomposition.valueOf(analysis, A);
+ *             x = cholesky.solve(b);
+ *             ...
+ *         }[/code]</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Cholesky_decomposition">
+ *      Wikipedia: Cholesky decomposition</a>
+ */
+public final class Float64SparseCholeskyDecomposition implements Solver<Float64> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64SparseCholeskyDecomposition> FACTORY = new ObjectFactory<Float64SparseCholeskyDecomposition>() {
+
+        protected Float64SparseCholeskyDecomposition create() {
+            return new Float64SparseCholeskyDecomposition();
+        }
+
+        @Override
+        protected void cleanup(Float64SparseCholeskyDecomposition cholesky) {
+            cholesky._analysis = null;
+            cholesky._offsets = null;
+            cholesky._values = null;
+        }
+    };
+
+    /**
+     * Holds the symbolic analysis.
+     */
+    private SparseSymbolicAnalysis _analysis;
+
+    /**
+     * Holds the start of the panel of each supernode in <code>_values</code>.
+     */
+    private int[] _offsets;
+
+    /**
+     * Holds the supernode panels (row-major, one row per row of the
+     * supernode structure, one column per column of the supernode).
+     */
+    private double[] _values;
+
+    /**
+     * Default constructor.
+     */
+    private Float64SparseCholeskyDecomposition() {
+    }
+
+    /**
+     * Returns the sparse Cholesky decomposition of the specified symmetric
+     * positive-definite matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the Cholesky decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     * @throws ArithmeticException if the specified matrix is not
+     *         positive-definite.
+     */
+    public static Float64SparseCholeskyDecomposition valueOf(Matrix<Float64> source) {
+        return Float64SparseCholeskyDecomposition.valueOf(
+                SparseSymbolicAnalysis.valueOf(source), source);
+    }
+
+    /**
+     * Returns the sparse Cholesky decomposition of the specified symmetric
+     * positive-definite matrix using an existing symbolic analysis.
+     *
+     * @param  analysis the symbolic analysis of a matrix having the same
+     *         pattern.
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the Cholesky decomposition of the specified matrix.
+     * @throws DimensionException if the dimensions do not match.
+     * @throws IllegalArgumentException if the pattern of the specified
+     *         matrix is not covered by the analysis.
+     * @throws ArithmeticException if the specified matrix is not
+     *         positive-definite.
+     */
+    public static Float64SparseCholeskyDecomposition valueOf(
+            SparseSymbolicAnalysis analysis, Matrix<Float64> source) {
+        if ((source.getNumberOfRows() != analysis._n) || !source.isSquare())
+            throw new DimensionException("Matrix is not " + analysis._n + "x" + analysis._n);
+        Float64SparseCholeskyDecomposition cholesky = FACTORY.object();
+        cholesky._analysis = analysis;
+        if (source instanceof Float64CSCMatrix) { // Symmetric: columns are rows.
+            Float64CSCMatrix csc = (Float64CSCMatrix) source;
+            cholesky.construct(csc._pointers, csc._indices, csc._values);
+        } else {
+            Float64CSRMatrix csr = Float64CSRMatrix.valueOfMatrix(source);
+            cholesky.construct(csr._pointers, csr._indices, csr._values);
+        }
+        return cholesky;
+    }
+
+    /**
+     * Constructs the decomposition from the rows of the matrix source.
+     */
+    private void construct(int[] pointers, int[] indices, double[] elements) {
+        final SparseSymbolicAnalysis S = _analysis;
+        final int ns = S._supernodes.length - 1;
+        final int[] supernodes = S._supernodes;
+        final int[] rowPointers = S._rowPointers;
+        final int[] rows = S._rows;
+        _offsets = new int[ns + 1];
+        for (int s = 0; s < ns; s++) {
+            long size = (long) (rowPointers[s + 1] - rowPointers[s])
+                    * (supernodes[s + 1] - supernodes[s]);
+            if (_offsets[s] + size > Integer.MAX_VALUE)
+                throw new ArithmeticException("Factor too large");
+            _offsets[s + 1] = _offsets[s] + (int) size;
+        }
+        final double[] l = new double[_offsets[ns]];
+        _values = l;
+
+        final int[] map = new int[S._n]; // Row -> panel row of current supernode.
+        final int[] head = new int[ns]; // Descendants updating each supernode.
+        final int[] next = new int[ns];
+        final int[] position = new int[ns]; // First row updating the target.
+        Arrays.fill(head, -1);
+        double[] buffer = new double[0];
+
+        for (int J = 0; J < ns; J++) {
+            final int first = supernodes[J], last = supernodes[J + 1];
+            final int nc = last - first;
+            final int start = rowPointers[J], nr = rowPointers[J + 1] - start;
+            final int offset = _offsets[J];
+            for (int q = 0; q < nr; q++) {
+                map[rows[start + q]] = q;
+            }
+
+            // Gathers the lower part of the columns of A.
+            for (int j = first; j < last; j++) {
+                final int v = S._permutation[j];
+                for (int k = pointers[v]; k < pointers[v + 1]; k++) {
+                    final int i = S._inverse[indices[k]];
+                    if (i < j)
+                        continue;
+                    final int q = map[i];
+                    if ((q >= nr) || (rows[start + q] != i))
+                        throw new IllegalArgumentException(
+                                "Matrix pattern not covered by the analysis");
+                    l[offset + q * nc + j - first] += elements[k];
+                }
+            }
+
+            // Updates from the descendants: L[J rows, J cols] -= LK · LK'.
+            for (int K = head[J]; K != -1;) {
+                final int nextK = next[K];
+                final int kStart = rowPointers[K], kEnd = rowPointers[K + 1];
+                final int kc = supernodes[K + 1] - supernodes[K];
+                final int p1 = position[K];
+                int p2 = p1;
+                while ((p2 < kEnd) && (rows[p2] < last)) {
+                    p2++;
+                }
+                final int mr = kEnd - p1, w = p2 - p1;
+                if (buffer.length < mr * w) {
+                    buffer = new double[mr * w];
+                }
+                Arrays.fill(buffer, 0, mr * w, 0.0);
+                final int kOffset = _offsets[K] + (p1 - kStart) * kc;
+                Float64Kernels.gemm(mr, w, kc, 1.0, l, kOffset, kc, 1,
+                        l, kOffset, 1, kc, buffer, 0, w);
+                for (int a = 0; a < mr; a++) {
+                    final int base = offset + map[rows[p1 + a]] * nc - first;
+                    for (int b = 0; b < w; b++) {
+                        l[base + rows[p1 + b]] -= buffer[a * w + b];
+                    }
+                }
+                if (p2 < kEnd) { // Moves to the next ancestor updated.
+                    position[K] = p2;
+                    final int target = S._supernodeOf[rows[p2]];
+                    next[K] = head[target];
+                    head[target] = K;
+                }
+                K = nextK;
+            }
+
+            // Factors the diagonal block and the rows below.
+            for (int c = 0; c < nc; c++) {
+                final int cc = offset + c * nc;
+                double d = l[cc + c] - Float64Kernels.sumOfSquares(c, l, cc, 1);
+                if (!(d > 0.0))
+                    throw new ArithmeticException("Matrix is not positive-definite");
+                final double ljj = MathLib.sqrt(d);
+                l[cc + c] = ljj;
+                for (int r = c + 1; r < nr; r++) {
+                    final int rc = offset + r * nc;
+                    l[rc + c] = (l[rc + c] - Float64Kernels.dot(c, l, rc, 1, l, cc, 1)) / ljj;
+                }
+            }
+            if (nr > nc) { // Links to the first ancestor updated.
+                position[J] = start + nc;
+                final int target = S._supernodeOf[rows[start + nc]];
+                next[J] = head[target];
+                head[target] = J;
+            }
+        }
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.cholesky()</code> using forward and back substitutions.
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Matrix solve(Matrix<Float64> B) {
+        final int n = _analysis._n;
+        if (n != B.getNumberOfRows())
+            throw new DimensionException("Input vector has "
+                    + B.getNumberOfRows() + " rows instead of " + n);
+        Float64Matrix X = Float64Matrix.valueOfMatrix(B).copy();
+        substitute(X._values, B.getNumberOfColumns());
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.cholesky()</code> using forward and back substitutions.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Vector solve(Vector<Float64> y) {
+        final int n = _analysis._n;
+        if (n != y.getDimension())
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + n);
+        Float64Vector x = Float64Vector.valueOfVector(y).copy();
+        solve(x._values);
+        return x;
+    }
+
+    /**
+     * Returns the inverse of the matrix source (dense).
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    public Float64Matrix inverse() {
+        final int n = _analysis._n;
+        Float64Matrix X = Float64Matrix.newInstance(n, n);
+        Arrays.fill(X._values, 0, n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            X._values[i * n + i] = 1.0;
+        }
+        substitute(X._values, n);
+        return X;
+    }
+
+    /**
+     * Solves <code>A·X = B</code> in place (B being the n-by-p
+     * contiguous matrix x), column by column.
+     */
+    private void substitute(double[] x, int p) {
+        final int n = _analysis._n;
+        double[] y = new double[n];
+        for (int j = 0; j < p; j++) {
+            for (int i = 0; i < n; i++) {
+                y[i] = x[i * p + j];
+            }
+            solve(y);
+            for (int i = 0; i < n; i++) {
+                x[i * p + j] = y[i];
+            }
+        }
+    }
+
+    /**
+     * Solves <code>A · x = b</code> in place (<code>x</code> holds
+     * <code>b</code> on input).
+     *
+     * @param x the right-hand side on input, the solution on output.
+     */
+    public void solve(double[] x) {
+        final SparseSymbolicAnalysis S = _analysis;
+        final int n = S._n, ns = S._supernodes.length - 1;
+        final int[] rows = S._rows;
+        final double[] l = _values;
+        final double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            y[k] = x[S._permutation[k]];
+        }
+
+        // Solves L · z = P · b
+        for (int J = 0; J < ns; J++) {
+            final int first = S._supernodes[J], nc = S._supernodes[J + 1] - first;
+            final int start = S._rowPointers[J], nr = S._rowPointers[J + 1] - start;
+            final int offset = _offsets[J];
+            for (int c = 0; c < nc; c++) {
+                final int cc = offset + c * nc;
+                y[first + c] = (y[first + c] - Float64Kernels.dot(c, l, cc, 1, y, first, 1))
+                        / l[cc + c];
+            }
+            for (int r = nc; r < nr; r++) {
+                y[rows[start + r]] -= Float64Kernels.dot(nc, l, offset + r * nc, 1, y, first, 1);
+            }
+        }
+
+        // Solves L' · w = z
+        for (int J = ns - 1; J >= 0; J--) {
+            final int first = S._supernodes[J], nc = S._supernodes[J + 1] - first;
+            final int start = S._rowPointers[J], nr = S._rowPointers[J + 1] - start;
+            final int offset = _offsets[J];
+            for (int r = nc; r < nr; r++) {
+                Float64Kernels.axpy(nc, -y[rows[start + r]], l, offset + r * nc, 1,
+                        y, first, 1, y, first);
+            }
+            for (int c = nc - 1; c >= 0; c--) {
+                final int cc = offset + c * nc;
+                y[first + c] = (y[first + c] - Float64Kernels.dot(nc - c - 1,
+                        l, cc + nc + c, nc, y, first + c + 1, 1)) / l[cc + c];
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            x[S._permutation[k]] = y[k];
+        }
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition.
+     *
+     * @return the determinant of the matrix source.
+     */
+    public Float64 determinant() {
+        double product = 1.0;
+        for (int J = 0, ns = _offsets.length - 1; J < ns; J++) {
+            final int nc = _analysis._supernodes[J + 1] - _analysis._supernodes[J];
+            for (int c = 0; c < nc; c++) {
+                product *= _values[_offsets[J] + c * nc + c];
+            }
+        }
+        return Float64.valueOf(product * product);
+    }
+
+    /**
+     * Returns the natural logarithm of the determinant of the {@link Matrix}
+     * having this decomposition (no overflow for large matrices).
+     *
+     * @return <code>log(determinant())</code>
+     */
+    public double logDeterminant() {
+        double sum = 0.0;
+        for (int J = 0, ns = _offsets.length - 1; J < ns; J++) {
+            final int nc = _analysis._supernodes[J + 1] - _analysis._supernodes[J];
+            for (int c = 0; c < nc; c++) {
+                sum += MathLib.log(_values[_offsets[J] + c * nc + c]);
+            }
+        }
+        return 2.0 * sum;
+    }
+
+    /**
+     * Returns the symbolic analysis used by this decomposition.
+     *
+     * @return the symbolic analysis (ordering and structure).
+     */
+    public SparseSymbolicAnalysis getAnalysis() {
+        return _analysis;
+    }
+
+    /**
+     * Returns the number of elements stored for the factor <code>L</code>
+     * (including the upper triangles of the diagonal blocks).
+     *
+     * @return the size of the supernode panels.
+     */
+    public int getNumberOfNonZeros() {
+        return _values.length;
+    }
+}
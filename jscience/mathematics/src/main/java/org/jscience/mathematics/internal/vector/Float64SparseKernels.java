@@ -0,0 +1,470 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ConcurrentContext;
+import javolution.lang.MathLib;
+
+/**
+ * <p> This class holds the computational kernels operating on compressed
+ *     sparse row (CSR) arrays of <code>double</code> (used by
+ *     {@link Float64CSRMatrix} and {@link Float64CSCMatrix}, the CSC arrays
+ *     of a matrix being the CSR arrays of its transpose).</p>
+ *
+ * <p> The cost of each kernel is proportional to the number of non-zero
+ *     elements (or to the number of multiply-add for the sparse product).
+ *     Large operations are split by blocks of rows holding about the same
+ *     number of non-zero elements and executed concurrently through
+ *     {@link ConcurrentContext}; kernels scattering their results
+ *     (transposed product, sparse product) use task-local accumulators.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Sparse_matrix">
+ *      Wikipedia: Sparse matrix</a>
+ */
+final class Float64SparseKernels {
+
+    /**
+     * Holds the number of multiply-add below which kernels are sequential.
+     */
+    static final int CONCURRENT_THRESHOLD = 1 << 16;
+
+    /**
+     * Default constructor (private, utility class).
+     */
+    private Float64SparseKernels() {
+    }
+
+    /**
+     * Returns the number of tasks for the specified amount of work.
+     */
+    private static int tasksFor(long work, int rows) {
+        if (work < CONCURRENT_THRESHOLD)
+            return 1;
+        return MathLib.max(1, MathLib.min(rows, ConcurrentContext.getConcurrency() + 1));
+    }
+
+    /**
+     * Returns the first row of the specified task (rows holding about
+     * the same number of non-zero elements).
+     */
+    private static int firstRow(int task, int tasks, int m, int[] pointers) {
+        if (task == 0)
+            return 0;
+        if (task == tasks)
+            return m;
+        int target = (int) ((long) pointers[m] * task / tasks);
+        int i = Arrays.binarySearch(pointers, 0, m + 1, target);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        while ((i > 0) && (pointers[i - 1] == target)) { // First occurrence.
+            i--;
+        }
+        return MathLib.min(i, m);
+    }
+
+    /**
+     * Performs <code>y = A · x</code> (y contiguous).
+     *
+     * @param m the number of rows of A.
+     * @param pointers the row pointers of A.
+     * @param indices the column indices of A.
+     * @param values the elements of A.
+     * @param x the buffer holding x.
+     * @param xOff the index of the first element of x.
+     * @param incX the stride of x.
+     * @param y the destination buffer.
+     * @param yOff the index of the first element of y.
+     */
+    static void spmv(int m, int[] pointers, int[] indices, double[] values,
+            double[] x, int xOff, int incX, double[] y, int yOff) {
+        final int tasks = tasksFor(pointers[m], m);
+        if (tasks == 1) {
+            spmv(0, m, pointers, indices, values, x, xOff, incX, y, yOff);
+            return;
+        }
+        ConcurrentContext.enter();
+        try {
+            for (int t = 0; t < tasks; t++) {
+                int first = firstRow(t, tasks, m, pointers);
+                int last = firstRow(t + 1, tasks, m, pointers);
+                if (last > first) {
+                    ConcurrentContext.execute(new RowProduct(first, last, pointers,
+                            indices, values, x, xOff, incX, y, yOff));
+                }
+            }
+        } finally {
+            ConcurrentContext.exit();
+        }
+    }
+
+    // Performs y[first:last] = A[first:last, :] · x
+    private static void spmv(int first, int last, int[] pointers, int[] indices,
+            double[] values, double[] x, int xOff, int incX, double[] y, int yOff) {
+        for (int i = first; i < last; i++) {
+            double sum = 0;
+            if (incX == 1) {
+                for (int k = pointers[i], end = pointers[i + 1]; k < end; k++) {
+                    sum += values[k] * x[xOff + indices[k]];
+                }
+            } else {
+                for (int k = pointers[i], end = pointers[i + 1]; k < end; k++) {
+                    sum += values[k] * x[xOff + indices[k] * incX];
+                }
+            }
+            y[yOff + i] = sum;
+        }
+    }
+
+    /**
+     * Performs <code>y = A' · x</code> (y contiguous) by scattering the
+     * rows of A. Concurrent tasks accumulate into their own buffer when
+     * the number of non-zero elements is large with regard to
+     * <code>n</code>.
+     *
+     * @param m the number of rows of A.
+     * @param n the number of columns of A.
+     * @param pointers the row pointers of A.
+     * @param indices the column indices of A.
+     * @param values the elements of A.
+     * @param x the buffer holding x.
+     * @param xOff the index of the first element of x.
+     * @param incX the stride of x.
+     * @param y the destination buffer.
+     * @param yOff the index of the first element of y.
+     */
+    static void spmvTransposed(int m, int n, int[] pointers, int[] indices,
+            double[] values, double[] x, int xOff, int incX, double[] y, int yOff) {
+        int tasks = tasksFor(pointers[m], m);
+        tasks = MathLib.min(tasks, MathLib.max(1, pointers[m] / MathLib.max(1, n)));
+        Arrays.fill(y, yOff, yOff + n, 0.0);
+        if (tasks == 1) {
+            new Scatter(0, m, pointers, indices, values, x, xOff, incX, y, yOff).run();
+            return;
+        }
+        final double[][] buffers = new double[tasks][];
+        ConcurrentContext.enter();
+        try {
+            for (int t = 0; t < tasks; t++) {
+                int first = firstRow(t, tasks, m, pointers);
+                int last = firstRow(t + 1, tasks, m, pointers);
+                buffers[t] = (t == 0) ? null : new double[n];
+                ConcurrentContext.execute(new Scatter(first, last, pointers, indices,
+                        values, x, xOff, incX, (t == 0) ? y : buffers[t], (t == 0) ? yOff : 0));
+            }
+        } finally {
+            ConcurrentContext.exit();
+        }
+        for (int t = 1; t < tasks; t++) { // Reduction.
+            Float64Kernels.axpy(n, 1.0, buffers[t], 0, 1, y, yOff, 1, y, yOff);
+        }
+    }
+
+    /**
+     * Performs <code>C = A · B</code> with B and C dense (C contiguous
+     * rows).
+     *
+     * @param m the number of rows of A.
+     * @param p the number of columns of B.
+     * @param pointers the row pointers of A.
+     * @param indices the column indices of A.
+     * @param values the elements of A.
+     * @param b the buffer holding B.
+     * @param bOff the index of <code>B[0,0]</code>.
+     * @param bRs the row stride of B.
+     * @param bCs the column stride of B.
+     * @param c the buffer holding C.
+     * @param cOff the index of <code>C[0,0]</code>.
+     * @param ldc the leading dimension (row stride) of C.
+     */
+    static void spmm(int m, int p, int[] pointers, int[] indices, double[] values,
+            double[] b, int bOff, int bRs, int bCs, double[] c, int cOff, int ldc) {
+        final int tasks = tasksFor((long) pointers[m] * p, m);
+        if (tasks == 1) {
+            new RowsProduct(0, m, p, pointers, indices, values, b, bOff, bRs, bCs,
+                    c, cOff, ldc).run();
+            return;
+        }
+        ConcurrentContext.enter();
+        try {
+            for (int t = 0; t < tasks; t++) {
+                int first = firstRow(t, tasks, m, pointers);
+                int last = firstRow(t + 1, tasks, m, pointers);
+                if (last > first) {
+                    ConcurrentContext.execute(new RowsProduct(first, last, p, pointers,
+                            indices, values, b, bOff, bRs, bCs, c, cOff, ldc));
+                }
+            }
+        } finally {
+            ConcurrentContext.exit();
+        }
+    }
+
+    /**
+     * Returns the sparse product <code>C = A · B</code> of two CSR
+     * matrices (Gustavson's algorithm). The number of elements of each row
+     * of C is counted first (symbolic phase), then the rows are computed
+     * into their final location (numeric phase); each task uses its own
+     * dense accumulator and marker of length <code>n</code>.
+     *
+     * @param m the number of rows of A.
+     * @param n the number of columns of B.
+     * @param aPointers the row pointers of A.
+     * @param aIndices the column indices of A.
+     * @param aValues the elements of A.
+     * @param bPointers the row pointers of B.
+     * @param bIndices the column indices of B.
+     * @param bValues the elements of B.
+     * @return the product as a CSR matrix.
+     */
+    static Float64CSRMatrix spgemm(int m, int n, int[] aPointers, int[] aIndices,
+            double[] aValues, int[] bPointers, int[] bIndices, double[] bValues) {
+        final int tasks = tasksFor(aPointers[m], m);
+        final int[] first = new int[tasks + 1];
+        for (int t = 0; t <= tasks; t++) {
+            first[t] = firstRow(t, tasks, m, aPointers);
+        }
+        final int[] pointers = new int[m + 1];
+        final RowsMultiplication[] products = new RowsMultiplication[tasks];
+        for (int t = 0; t < tasks; t++) {
+            products[t] = new RowsMultiplication(first[t], first[t + 1], n, aPointers,
+                    aIndices, aValues, bPointers, bIndices, bValues, pointers);
+        }
+        execute(products); // Symbolic phase.
+        for (int i = 0; i < m; i++) {
+            pointers[i + 1] += pointers[i];
+        }
+        final int[] indices = new int[pointers[m]];
+        final double[] values = new double[pointers[m]];
+        for (int t = 0; t < tasks; t++) {
+            products[t]._indices = indices;
+            products[t]._values = values;
+        }
+        execute(products); // Numeric phase.
+        Float64CSRMatrix C = Float64CSRMatrix.FACTORY.object();
+        C._m = m;
+        C._n = n;
+        C._pointers = pointers;
+        C._indices = indices;
+        C._values = values;
+        return C;
+    }
+
+    // Executes the specified tasks concurrently.
+    private static void execute(Runnable[] tasks) {
+        if (tasks.length == 1) {
+            tasks[0].run();
+            return;
+        }
+        ConcurrentContext.enter();
+        try {
+            for (int t = 0; t < tasks.length; t++) {
+                ConcurrentContext.execute(tasks[t]);
+            }
+        } finally {
+            ConcurrentContext.exit();
+        }
+    }
+
+    /**
+     * Computes the rows [first, last[ of <code>A · x</code>.
+     */
+    private static final class RowProduct implements Runnable {
+
+        private final int _first, _last;
+
+        private final int[] _pointers, _indices;
+
+        private final double[] _values, _x, _y;
+
+        private final int _xOff, _incX, _yOff;
+
+        RowProduct(int first, int last, int[] pointers, int[] indices, double[] values,
+                double[] x, int xOff, int incX, double[] y, int yOff) {
+            _first = first;
+            _last = last;
+            _pointers = pointers;
+            _indices = indices;
+            _values = values;
+            _x = x;
+            _xOff = xOff;
+            _incX = incX;
+            _y = y;
+            _yOff = yOff;
+        }
+
+        public void run() {
+            spmv(_first, _last, _pointers, _indices, _values, _x, _xOff, _incX, _y, _yOff);
+        }
+    }
+
+    /**
+     * Accumulates the rows [first, last[ of <code>A' · x</code> into y.
+     */
+    private static final class Scatter implements Runnable {
+
+        private final int _first, _last;
+
+        private final int[] _pointers, _indices;
+
+        private final double[] _values, _x, _y;
+
+        private final int _xOff, _incX, _yOff;
+
+        Scatter(int first, int last, int[] pointers, int[] indices, double[] values,
+                double[] x, int xOff, int incX, double[] y, int yOff) {
+            _first = first;
+            _last = last;
+            _pointers = pointers;
+            _indices = indices;
+            _values = values;
+            _x = x;
+            _xOff = xOff;
+            _incX = incX;
+            _y = y;
+            _yOff = yOff;
+        }
+
+        public void run() {
+            for (int i = _first; i < _last; i++) {
+                final double xi = _x[_xOff + i * _incX];
+                if (xi == 0.0)
+                    continue;
+                for (int k = _pointers[i], end = _pointers[i + 1]; k < end; k++) {
+                    _y[_yOff + _indices[k]] += _values[k] * xi;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the rows [first, last[ of <code>A · B</code> (B dense).
+     */
+    private static final class RowsProduct implements Runnable {
+
+        private final int _first, _last, _p;
+
+        private final int[] _pointers, _indices;
+
+        private final double[] _values, _b, _c;
+
+        private final int _bOff, _bRs, _bCs, _cOff, _ldc;
+
+        RowsProduct(int first, int last, int p, int[] pointers, int[] indices,
+                double[] values, double[] b, int bOff, int bRs, int bCs,
+                double[] c, int cOff, int ldc) {
+            _first = first;
+            _last = last;
+            _p = p;
+            _pointers = pointers;
+            _indices = indices;
+            _values = values;
+            _b = b;
+            _bOff = bOff;
+            _bRs = bRs;
+            _bCs = bCs;
+            _c = c;
+            _cOff = cOff;
+            _ldc = ldc;
+        }
+
+        public void run() {
+            for (int i = _first; i < _last; i++) {
+                final int row = _cOff + i * _ldc;
+                Arrays.fill(_c, row, row + _p, 0.0);
+                for (int k = _pointers[i], end = _pointers[i + 1]; k < end; k++) {
+                    Float64Kernels.axpy(_p, _values[k], _b, _bOff + _indices[k] * _bRs,
+                            _bCs, _c, row, 1, _c, row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts (symbolic phase) or computes (numeric phase, once the indices
+     * and values arrays are set) the rows [first, last[ of the product of
+     * two CSR matrices.
+     */
+    private static final class RowsMultiplication implements Runnable {
+
+        private final int _first, _last, _n;
+
+        private final int[] _aPointers, _aIndices, _bPointers, _bIndices, _pointers;
+
+        private final double[] _aValues, _bValues;
+
+        private int[] _indices;
+
+        private double[] _values;
+
+        RowsMultiplication(int first, int last, int n, int[] aPointers, int[] aIndices,
+                double[] aValues, int[] bPointers, int[] bIndices, double[] bValues,
+                int[] pointers) {
+            _first = first;
+            _last = last;
+            _n = n;
+            _aPointers = aPointers;
+            _aIndices = aIndices;
+            _aValues = aValues;
+            _bPointers = bPointers;
+            _bIndices = bIndices;
+            _bValues = bValues;
+            _pointers = pointers;
+        }
+
+        public void run() {
+            if (_first == _last)
+                return;
+            final int[] marker = new int[_n]; // Task-local (holds row + 1).
+            if (_indices == null) { // Symbolic phase.
+                for (int i = _first; i < _last; i++) {
+                    int count = 0;
+                    for (int ka = _aPointers[i], ea = _aPointers[i + 1]; ka < ea; ka++) {
+                        final int row = _aIndices[ka];
+                        for (int kb = _bPointers[row], eb = _bPointers[row + 1]; kb < eb; kb++) {
+                            final int j = _bIndices[kb];
+                            if (marker[j] != i + 1) {
+                                marker[j] = i + 1;
+                                count++;
+                            }
+                        }
+                    }
+                    _pointers[i + 1] = count;
+                }
+                return;
+            }
+            final double[] accumulator = new double[_n]; // Task-local.
+            for (int i = _first; i < _last; i++) {
+                final int start = _pointers[i];
+                int end = start;
+                for (int ka = _aPointers[i], ea = _aPointers[i + 1]; ka < ea; ka++) {
+                    final int row = _aIndices[ka];
+                    final double aik = _aValues[ka];
+                    for (int kb = _bPointers[row], eb = _bPointers[row + 1]; kb < eb; kb++) {
+                        final int j = _bIndices[kb];
+                        if (marker[j] != i + 1) {
+                            marker[j] = i + 1;
+                            _indices[end++] = j;
+                            accumulator[j] = aik * _bValues[kb];
+                        } else {
+                            accumulator[j] += aik * _bValues[kb];
+                        }
+                    }
+                }
+                Arrays.sort(_indices, start, end); // Increasing column indices.
+                for (int k = start; k < end; k++) {
+                    _values[k] = accumulator[_indices[k]];
+                }
+            }
+        }
+    }
+}
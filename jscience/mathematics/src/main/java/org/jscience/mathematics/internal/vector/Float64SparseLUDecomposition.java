@@ -0,0 +1,418 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the sparse LU decomposition
+ *     <code>P·A·Q = L·U</code> of a square 64 bits floating point matrix,
+ *     <code>Q</code> being the fill-reducing column ordering of a
+ *     {@link SparseSymbolicAnalysis} and <code>P</code> the row
+ *     permutation from partial pivoting.</p>
+ *
+ * <p> The factorization is left-looking (Gilbert-Peierls): each column
+ *     of the factors is obtained by a sparse triangular solve whose
+ *     non-zero pattern is found by a depth-first search in the graph of
+ *     <code>L</code>, so that the cost is proportional to the number of
+ *     floating point operations. The pivoting is a threshold partial
+ *     pivoting preferring the diagonal element (which keeps the
+ *     fill predicted by the ordering for diagonally dominant matrices).
+ *     The matrix is read by columns ({@link Float64CSCMatrix}).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/LU_decomposition">
+ *      Wikipedia: LU decomposition</a>
+ */
+public final class Float64SparseLUDecomposition implements Solver<Float64> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64SparseLUDecomposition> FACTORY = new ObjectFactory<Float64SparseLUDecomposition>() {
+
+        protected Float64SparseLUDecomposition create() {
+            return new Float64SparseLUDecomposition();
+        }
+
+        @Override
+        protected void cleanup(Float64SparseLUDecomposition lu) {
+            lu._analysis = null;
+            lu._pivots = null;
+            lu._lPointers = null;
+            lu._lIndices = null;
+            lu._lValues = null;
+            lu._uPointers = null;
+            lu._uIndices = null;
+            lu._uValues = null;
+        }
+    };
+
+    /**
+     * Holds the relative magnitude for a diagonal element to be
+     * preferred as pivot over the largest element of its column.
+     */
+    static final double PIVOT_THRESHOLD = 0.1;
+
+    /**
+     * Holds the symbolic analysis (column ordering).
+     */
+    private SparseSymbolicAnalysis _analysis;
+
+    /**
+     * Holds the pivot step of each row.
+     */
+    private int[] _pivots;
+
+    /**
+     * Holds the columns of the unit lower factor (diagonal first).
+     */
+    private int[] _lPointers, _lIndices;
+
+    private double[] _lValues;
+
+    /**
+     * Holds the columns of the upper factor (diagonal last).
+     */
+    private int[] _uPointers, _uIndices;
+
+    private double[] _uValues;
+
+    /**
+     * Default constructor.
+     */
+    private Float64SparseLUDecomposition() {
+    }
+
+    /**
+     * Returns the sparse LU decomposition of the specified matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the LU decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     * @throws ArithmeticException if the specified matrix is singular.
+     */
+    public static Float64SparseLUDecomposition valueOf(Matrix<Float64> source) {
+        return Float64SparseLUDecomposition.valueOf(
+                SparseSymbolicAnalysis.valueOf(source), source);
+    }
+
+    /**
+     * Returns the sparse LU decomposition of the specified matrix using
+     * the ordering of an existing symbolic analysis.
+     *
+     * @param  analysis the symbolic analysis of a matrix having the same
+     *         (or a similar) pattern.
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the LU decomposition of the specified matrix.
+     * @throws DimensionException if the dimensions do not match.
+     * @throws ArithmeticException if the specified matrix is singular.
+     */
+    public static Float64SparseLUDecomposition valueOf(
+            SparseSymbolicAnalysis analysis, Matrix<Float64> source) {
+        if ((source.getNumberOfRows() != analysis._n) || !source.isSquare())
+            throw new DimensionException("Matrix is not " + analysis._n + "x" + analysis._n);
+        Float64SparseLUDecomposition lu = FACTORY.object();
+        lu._analysis = analysis;
+        lu.construct(Float64CSCMatrix.valueOfMatrix(source));
+        return lu;
+    }
+
+    /**
+     * Constructs the decomposition.
+     */
+    private void construct(Float64CSCMatrix A) {
+        final int n = _analysis._n;
+        final int[] q = _analysis._permutation;
+        final int[] ap = A._pointers, ai = A._indices;
+        final double[] ax = A._values;
+        int capacity = 4 * ap[n] + n;
+        int[] lp = new int[n + 1], li = new int[capacity];
+        int[] up = new int[n + 1], ui = new int[capacity];
+        double[] lx = new double[capacity], ux = new double[capacity];
+        final int[] pinv = new int[n];
+        final int[] xi = new int[n]; // Pattern of the column (from top).
+        final int[] stack = new int[n], next = new int[n], mark = new int[n];
+        final double[] x = new double[n];
+        Arrays.fill(pinv, -1);
+        Arrays.fill(mark, -1);
+        int lnz = 0, unz = 0;
+
+        for (int k = 0; k < n; k++) {
+            lp[k] = lnz;
+            up[k] = unz;
+            if ((lnz + n > li.length) || (unz + n > ui.length)) {
+                capacity = 2 * capacity + n;
+                li = CompressedSparseMatrix.resize(li, capacity);
+                lx = Float64CSRMatrix.resize(lx, capacity);
+                ui = CompressedSparseMatrix.resize(ui, capacity);
+                ux = Float64CSRMatrix.resize(ux, capacity);
+            }
+            final int col = q[k];
+
+            // Pattern of x = L \ A(:,col): nodes reachable from A(:,col).
+            int top = n;
+            for (int p = ap[col]; p < ap[col + 1]; p++) {
+                final int root = ai[p];
+                if (mark[root] == k)
+                    continue;
+                int head = 0;
+                stack[0] = root;
+                while (head >= 0) {
+                    final int j = stack[head];
+                    final int jnew = pinv[j];
+                    if (mark[j] != k) {
+                        mark[j] = k;
+                        next[head] = (jnew < 0) ? 0 : lp[jnew] + 1;
+                    }
+                    boolean done = true;
+                    for (int r = next[head], end = (jnew < 0) ? 0 : lp[jnew + 1]; r < end; r++) {
+                        final int i = li[r];
+                        if (mark[i] == k)
+                            continue;
+                        next[head] = r + 1;
+                        stack[++head] = i;
+                        done = false;
+                        break;
+                    }
+                    if (done) {
+                        head--;
+                        xi[--top] = j;
+                    }
+                }
+            }
+
+            // Sparse triangular solve (topological order).
+            for (int p = top; p < n; p++) {
+                x[xi[p]] = 0.0;
+            }
+            for (int p = ap[col]; p < ap[col + 1]; p++) {
+                x[ai[p]] = ax[p];
+            }
+            for (int p = top; p < n; p++) {
+                final int j = xi[p];
+                final int J = pinv[j];
+                if (J < 0)
+                    continue;
+                final double xj = x[j];
+                for (int r = lp[J] + 1; r < lp[J + 1]; r++) {
+                    x[li[r]] -= lx[r] * xj;
+                }
+            }
+
+            // Pivot selection.
+            int ipiv = -1;
+            double max = -1.0;
+            for (int p = top; p < n; p++) {
+                final int i = xi[p];
+                if (pinv[i] < 0) {
+                    final double abs = MathLib.abs(x[i]);
+                    if (abs > max) {
+                        max = abs;
+                        ipiv = i;
+                    }
+                } else {
+                    ui[unz] = pinv[i];
+                    ux[unz++] = x[i];
+                }
+            }
+            if ((ipiv < 0) || !(max > 0.0))
+                throw new ArithmeticException("Matrix is singular");
+            if ((pinv[col] < 0) && (mark[col] == k)
+                    && (MathLib.abs(x[col]) >= PIVOT_THRESHOLD * max)) {
+                ipiv = col; // Diagonal preferred.
+            }
+            final double pivot = x[ipiv];
+            ui[unz] = k;
+            ux[unz++] = pivot;
+            pinv[ipiv] = k;
+            li[lnz] = ipiv;
+            lx[lnz++] = 1.0;
+            for (int p = top; p < n; p++) {
+                final int i = xi[p];
+                if (pinv[i] < 0) {
+                    li[lnz] = i;
+                    lx[lnz++] = x[i] / pivot;
+                }
+                x[i] = 0.0;
+            }
+        }
+        lp[n] = lnz;
+        up[n] = unz;
+        for (int p = 0; p < lnz; p++) { // Final row indices.
+            li[p] = pinv[li[p]];
+        }
+        _pivots = pinv;
+        _lPointers = lp;
+        _lIndices = li;
+        _lValues = lx;
+        _uPointers = up;
+        _uIndices = ui;
+        _uValues = ux;
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.lu()</code> using forward and back substitutions.
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Matrix solve(Matrix<Float64> B) {
+        final int n = _analysis._n;
+        if (n != B.getNumberOfRows())
+            throw new DimensionException("Input vector has "
+                    + B.getNumberOfRows() + " rows instead of " + n);
+        Float64Matrix X = Float64Matrix.valueOfMatrix(B).copy();
+        substitute(X._values, B.getNumberOfColumns());
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.lu()</code> using forward and back substitutions.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public Float64Vector solve(Vector<Float64> y) {
+        final int n = _analysis._n;
+        if (n != y.getDimension())
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + n);
+        Float64Vector x = Float64Vector.valueOfVector(y).copy();
+        solve(x._values);
+        return x;
+    }
+
+    /**
+     * Returns the inverse of the matrix source (dense).
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    public Float64Matrix inverse() {
+        final int n = _analysis._n;
+        Float64Matrix X = Float64Matrix.newInstance(n, n);
+        Arrays.fill(X._values, 0, n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            X._values[i * n + i] = 1.0;
+        }
+        substitute(X._values, n);
+        return X;
+    }
+
+    /**
+     * Solves <code>A·X = B</code> in place (B being the n-by-p
+     * contiguous matrix x), column by column.
+     */
+    private void substitute(double[] x, int p) {
+        final int n = _analysis._n;
+        double[] y = new double[n];
+        for (int j = 0; j < p; j++) {
+            for (int i = 0; i < n; i++) {
+                y[i] = x[i * p + j];
+            }
+            solve(y);
+            for (int i = 0; i < n; i++) {
+                x[i * p + j] = y[i];
+            }
+        }
+    }
+
+    /**
+     * Solves <code>A · x = b</code> in place (<code>x</code> holds
+     * <code>b</code> on input).
+     *
+     * @param x the right-hand side on input, the solution on output.
+     */
+    public void solve(double[] x) {
+        final int n = _analysis._n;
+        final double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[_pivots[i]] = x[i];
+        }
+        for (int j = 0; j < n; j++) { // L · z = P · b (unit diagonal first).
+            final double yj = y[j];
+            for (int p = _lPointers[j] + 1; p < _lPointers[j + 1]; p++) {
+                y[_lIndices[p]] -= _lValues[p] * yj;
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) { // U · w = z (diagonal last).
+            final int last = _uPointers[j + 1] - 1;
+            final double yj = y[j] / _uValues[last];
+            y[j] = yj;
+            for (int p = _uPointers[j]; p < last; p++) {
+                y[_uIndices[p]] -= _uValues[p] * yj;
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            x[_analysis._permutation[k]] = y[k];
+        }
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition.
+     *
+     * @return the determinant of the matrix source.
+     */
+    public Float64 determinant() {
+        final int n = _analysis._n;
+        double product = 1.0;
+        for (int j = 0; j < n; j++) {
+            product *= _uValues[_uPointers[j + 1] - 1];
+        }
+        return Float64.valueOf((isOdd(_pivots) != isOdd(_analysis._permutation)) ? -product : product);
+    }
+
+    // Indicates if the specified permutation is odd.
+    private static boolean isOdd(int[] permutation) {
+        final int n = permutation.length;
+        boolean[] visited = new boolean[n];
+        boolean odd = false;
+        for (int i = 0; i < n; i++) {
+            if (visited[i])
+                continue;
+            int length = 0;
+            for (int j = i; !visited[j]; j = permutation[j]) {
+                visited[j] = true;
+                length++;
+            }
+            if ((length & 1) == 0) {
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+
+    /**
+     * Returns the symbolic analysis used by this decomposition.
+     *
+     * @return the symbolic analysis (column ordering).
+     */
+    public SparseSymbolicAnalysis getAnalysis() {
+        return _analysis;
+    }
+
+    /**
+     * Returns the number of non-zero elements of the factors
+     * <code>L</code> and <code>U</code>.
+     *
+     * @return <code>nnz(L) + nnz(U)</code>
+     */
+    public int getNumberOfNonZeros() {
+        return _lPointers[_analysis._n] + _uPointers[_analysis._n];
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.List;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a square matrix of 64 bits floating point
+ *     elements whose storage is proportional to its structure
+ *     ({@link Float64TriangularMatrix triangular},
+ *     {@link Float64SymmetricMatrix symmetric}, {@link Float64BandMatrix
+ *     banded}, {@link Float64ToeplitzMatrix Toeplitz} or
+ *     {@link Float64CirculantMatrix circulant}).</p>
+ *
+ * <p> Products are performed through the structure-aware
+ *     {@link #times(double[], double[]) operator} (column by column for
+ *     matrix products), solving is performed through the
+ *     {@link #factorize structure-aware factorization}. Other operations
+ *     (e.g. sums of different structures) are performed on the dense
+ *     equivalent {@link Float64Matrix}.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+abstract class Float64StructuredMatrix extends Matrix<Float64>
+        implements Float64LinearOperator {
+
+    /**
+     * Holds the dimension of this square matrix.
+     */
+    int _n;
+
+    /**
+     * Default constructor.
+     */
+    Float64StructuredMatrix() {
+    }
+
+    /**
+     * Returns the <code>double</code> value of a single element of
+     * this matrix (no bound checking).
+     *
+     * @param  i the row index (range [0..n[).
+     * @param  j the column index (range [0..n[).
+     * @return the element read at [i,j].
+     */
+    public abstract double getValue(int i, int j);
+
+    @Override
+    public int getNumberOfRows() {
+        return _n;
+    }
+
+    @Override
+    public int getNumberOfColumns() {
+        return _n;
+    }
+
+    @Override
+    public Float64 get(int i, int j) {
+        if ((i < 0) || (i >= _n) || (j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        return Float64.valueOf(getValue(i, j));
+    }
+
+    @Override
+    public Float64Vector getRow(int i) {
+        if ((i < 0) || (i >= _n))
+            throw new IndexOutOfBoundsException();
+        Float64Vector V = Float64Vector.FACTORY.array(_n);
+        V._dimension = _n;
+        for (int j = 0; j < _n; j++) {
+            V._values[j] = getValue(i, j);
+        }
+        return V;
+    }
+
+    @Override
+    public Float64Vector getColumn(int j) {
+        if ((j < 0) || (j >= _n))
+            throw new IndexOutOfBoundsException();
+        Float64Vector V = Float64Vector.FACTORY.array(_n);
+        V._dimension = _n;
+        for (int i = 0; i < _n; i++) {
+            V._values[i] = getValue(i, j);
+        }
+        return V;
+    }
+
+    @Override
+    public DenseMatrix<Float64> getSubMatrix(List<Index> rows, List<Index> columns) {
+        return DenseSubMatrix.valueOf(this, rows, columns);
+    }
+
+    @Override
+    public Float64StructuredMatrix opposite() {
+        return times(-1.0);
+    }
+
+    /**
+     * Returns the sum of this matrix with the one specified (dense).
+     *
+     * @param   that the matrix to be added.
+     * @return  <code>this + that</code>.
+     * @throws  DimensionException matrices's dimensions are different.
+     */
+    @Override
+    public Matrix<Float64> plus(Matrix<Float64> that) {
+        return toDense().plus(that);
+    }
+
+    @Override
+    public Float64StructuredMatrix times(Float64 k) {
+        return times(k.doubleValue());
+    }
+
+    /**
+     * Returns the product of this matrix by the specified factor
+     * (same structure).
+     *
+     * @param k the coefficient multiplier.
+     * @return <code>this · k</code>
+     */
+    public abstract Float64StructuredMatrix times(double k);
+
+    /**
+     * Returns the product of this matrix by the specified column vector.
+     *
+     * @param  v the column vector.
+     * @return <code>this · v</code>
+     * @throws DimensionException if <code>
+     *         v.getDimension() != this.getNumberOfColumns()<code>
+     */
+    @Override
+    public Float64Vector times(Vector<Float64> v) {
+        if (v.getDimension() != _n)
+            throw new DimensionException();
+        Float64Vector y = Float64Vector.FACTORY.array(_n);
+        y._dimension = _n;
+        times(Float64StructuredMatrix.valuesOf(v), y._values);
+        return y;
+    }
+
+    /**
+     * Returns the product of this matrix with the one specified
+     * (the structured operator is applied to each column).
+     *
+     * @param  that the matrix multiplier.
+     * @return <code>this · that</code>.
+     * @throws DimensionException if <code>
+     *         this.getNumberOfColumns() != that.getNumberOfRows()</code>.
+     */
+    @Override
+    public Matrix<Float64> times(Matrix<Float64> that) {
+        if (that.getNumberOfRows() != _n)
+            throw new DimensionException();
+        final int n = _n;
+        final int p = that.getNumberOfColumns();
+        Float64Matrix B = Float64Matrix.valueOfMatrix(that);
+        Float64Matrix C = Float64Matrix.newInstance(n, p);
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int j = 0; j < p; j++) {
+            for (int i = 0; i < n; i++) {
+                x[i] = B._values[B._offset + i * B._ld + j];
+            }
+            times(x, y);
+            for (int i = 0; i < n; i++) {
+                C._values[i * p + j] = y[i];
+            }
+        }
+        return C;
+    }
+
+    /**
+     * Returns the inverse of this matrix.
+     *
+     * @return <code>factorize().inverse()</code>
+     */
+    @Override
+    public Matrix<Float64> inverse() {
+        return factorize().inverse();
+    }
+
+    /**
+     * Solves this matrix for the specified vector.
+     *
+     * @return <code>factorize().solve(y)</code>
+     */
+    @Override
+    public Vector<Float64> solve(Vector<Float64> y) {
+        return factorize().solve(y);
+    }
+
+    /**
+     * Returns the structure-aware factorization of this matrix.
+     *
+     * @return the solver for this matrix.
+     */
+    @Override
+    public abstract Solver<Float64> factorize();
+
+    @Override
+    public abstract Float64StructuredMatrix copy();
+
+    /**
+     * Returns the dense equivalent of this matrix.
+     *
+     * @return a contiguous {@link Float64Matrix}.
+     */
+    Float64Matrix toDense() {
+        final int n = _n;
+        Float64Matrix M = Float64Matrix.newInstance(n, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                M._values[i * n + j] = getValue(i, j);
+            }
+        }
+        return M;
+    }
+
+    // Returns the elements of the specified vector (contiguous copy).
+    static double[] valuesOf(Vector<Float64> v) {
+        Float64Vector V = Float64Vector.valueOfVector(v);
+        final int n = V._dimension;
+        final double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = V._values[V._offset + i * V._stride];
+        }
+        return x;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,177 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a symmetric matrix of 64 bits floating point
+ *     elements in packed storage (lower triangle by rows,
+ *     <code>n·(n+1)/2</code> elements).</p>
+ *
+ * <p> The product by a vector reads each packed element once for both
+ *     of its positions. Symmetric matrices are {@link #factorize factored}
+ *     with the {@link Float64CholeskyDecomposition Cholesky decomposition}
+ *     when positive-definite and with the {@link Float64LUDecomposition LU
+ *     decomposition} otherwise.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public final class Float64SymmetricMatrix extends Float64StructuredMatrix {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64SymmetricMatrix> FACTORY = new ObjectFactory<Float64SymmetricMatrix>() {
+
+        @Override
+        protected Float64SymmetricMatrix create() {
+            return new Float64SymmetricMatrix();
+        }
+
+        @Override
+        protected void cleanup(Float64SymmetricMatrix matrix) {
+            matrix._values = null;
+        }
+    };
+
+    /**
+     * Holds the packed lower triangle (element <code>[i,j]</code>,
+     * <code>j &lt;= i</code> at <code>i·(i+1)/2 + j</code>).
+     */
+    double[] _values;
+
+    /**
+     * Default constructor.
+     */
+    private Float64SymmetricMatrix() {
+    }
+
+    /**
+     * Returns the symmetric matrix holding the specified packed lower
+     * triangle (copied).
+     *
+     * @param n the dimension of the matrix.
+     * @param values the lower triangle packed by rows.
+     * @return the corresponding matrix.
+     * @throws DimensionException if <code>values.length != n·(n+1)/2</code>
+     */
+    public static Float64SymmetricMatrix valueOf(int n, double... values) {
+        if (values.length != n * (n + 1) / 2)
+            throw new DimensionException(values.length
+                    + " packed elements instead of " + (n * (n + 1) / 2));
+        return Float64SymmetricMatrix.newInstance(n, values.clone());
+    }
+
+    /**
+     * Returns the symmetric matrix having the lower triangle of the
+     * specified matrix (the upper triangle is ignored).
+     *
+     * @param that the square matrix.
+     * @return <code>that</code> or the corresponding symmetric matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static Float64SymmetricMatrix valueOf(Matrix<Float64> that) {
+        if (that instanceof Float64SymmetricMatrix)
+            return (Float64SymmetricMatrix) that;
+        return Float64SymmetricMatrix.newInstance(that.getNumberOfRows(),
+                Float64TriangularMatrix.valueOf(that, true)._values);
+    }
+
+    // Returns a symmetric matrix holding the specified buffer.
+    static Float64SymmetricMatrix newInstance(int n, double[] values) {
+        Float64SymmetricMatrix M = FACTORY.object();
+        M._n = n;
+        M._values = values;
+        return M;
+    }
+
+    @Override
+    public double getValue(int i, int j) {
+        return (j <= i) ? _values[i * (i + 1) / 2 + j] : _values[j * (j + 1) / 2 + i];
+    }
+
+    @Override
+    public Matrix<Float64> plus(Matrix<Float64> that) {
+        if (!(that instanceof Float64SymmetricMatrix))
+            return super.plus(that);
+        Float64SymmetricMatrix S = (Float64SymmetricMatrix) that;
+        if (S._n != _n)
+            throw new DimensionException();
+        final double[] values = new double[_values.length];
+        Float64Kernels.axpy(values.length, 1.0, S._values, 0, 1, _values, 0, 1, values, 0);
+        return Float64SymmetricMatrix.newInstance(_n, values);
+    }
+
+    @Override
+    public Float64SymmetricMatrix times(double k) {
+        final double[] values = new double[_values.length];
+        Float64Kernels.scale(values.length, k, _values, 0, 1, values, 0);
+        return Float64SymmetricMatrix.newInstance(_n, values);
+    }
+
+    // Implements Float64LinearOperator.
+    public void times(double[] x, double[] y) {
+        final int n = _n;
+        final double[] a = _values;
+        Arrays.fill(y, 0, n, 0.0);
+        for (int i = 0; i < n; i++) { // Row i of the lower triangle is also column i.
+            final int ri = i * (i + 1) / 2;
+            y[i] += Float64Kernels.dot(i + 1, a, ri, 1, x, 0, 1);
+            Float64Kernels.axpy(i, x[i], a, ri, 1, y, 0, 1, y, 0);
+        }
+    }
+
+    /**
+     * Returns the determinant of this matrix.
+     *
+     * @return the determinant calculated from the {@link #factorize
+     *         factorization} of this matrix.
+     */
+    @Override
+    public Float64 determinant() {
+        return factorize().determinant();
+    }
+
+    /**
+     * Returns the {@link Float64CholeskyDecomposition Cholesky decomposition}
+     * of this matrix if positive-definite; otherwise its
+     * {@link Float64LUDecomposition LU decomposition}.
+     *
+     * @return the solver for this matrix.
+     */
+    @Override
+    public Solver<Float64> factorize() {
+        Float64Matrix A = Float64Matrix.newInstance(_n, _n);
+        for (int i = 0, k = 0; i < _n; i++) { // Lower triangle only.
+            System.arraycopy(_values, k, A._values, i * _n, i + 1);
+            k += i + 1;
+        }
+        try {
+            return Float64CholeskyDecomposition.valueOf(A);
+        } catch (ArithmeticException e) { // Not positive-definite.
+            return Float64LUDecomposition.valueOf(toDense());
+        }
+    }
+
+    @Override
+    public Float64SymmetricMatrix transpose() {
+        return this;
+    }
+
+    @Override
+    public Float64SymmetricMatrix copy() {
+        return Float64SymmetricMatrix.newInstance(_n, _values.clone());
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,360 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a Toeplitz matrix of 64 bits floating point
+ *     elements, constant along each diagonal (element <code>[i,j]</code>
+ *     depends only on <code>j - i</code>). Only the <code>2·n-1</code>
+ *     diagonal values are stored.</p>
+ *
+ * <p> Products by vectors cost <code>O(n²)</code> with no memory traffic
+ *     beyond the diagonal values, or <code>O(n·log(n))</code> through the
+ *     {@link Float64FFT FFT} of the enclosing {@link Float64CirculantMatrix
+ *     circulant} matrix for dimensions of at least {@link #FFT_THRESHOLD}.
+ *     Toeplitz matrices are their own {@link Solver} through the Levinson
+ *     recursion (<code>O(n²)</code>, all the right-hand sides being solved
+ *     together). The recursion requires the leading principal
+ *     sub-matrices to be non-singular; when it breaks down, the
+ *     {@link Float64LUDecomposition LU decomposition} of the dense
+ *     equivalent matrix is used instead. The recursion is stable for
+ *     symmetric positive-definite matrices (e.g. autocorrelation
+ *     matrices); for other matrices it may lose a few more digits than
+ *     the LU decomposition.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Levinson_recursion">
+ *      Wikipedia: Levinson recursion</a>
+ */
+public final class Float64ToeplitzMatrix extends Float64StructuredMatrix
+        implements Solver<Float64> {
+
+    /**
+     * Holds the dimension from which products are performed through the
+     * Fourier transform.
+     */
+    static final int FFT_THRESHOLD = 128;
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64ToeplitzMatrix> FACTORY = new ObjectFactory<Float64ToeplitzMatrix>() {
+
+        @Override
+        protected Float64ToeplitzMatrix create() {
+            return new Float64ToeplitzMatrix();
+        }
+
+        @Override
+        protected void cleanup(Float64ToeplitzMatrix matrix) {
+            matrix._values = null;
+            matrix._spectrumRe = null;
+            matrix._spectrumIm = null;
+        }
+    };
+
+    /**
+     * Holds the diagonal values (element <code>[i,j]</code> at
+     * <code>n-1 + j-i</code>).
+     */
+    double[] _values;
+
+    /**
+     * Holds the transform of the enclosing circulant matrix first column
+     * (real parts), or <code>null</code> below the FFT threshold.
+     */
+    private double[] _spectrumRe;
+
+    /**
+     * Holds the transform of the enclosing circulant matrix first column
+     * (imaginary parts).
+     */
+    private double[] _spectrumIm;
+
+    /**
+     * Default constructor.
+     */
+    private Float64ToeplitzMatrix() {
+    }
+
+    /**
+     * Returns the Toeplitz matrix having the specified first column and
+     * first row.
+     *
+     * @param column the first column (its first element is the diagonal).
+     * @param row the first row (its first element is ignored).
+     * @return the corresponding matrix.
+     * @throws DimensionException if the column and row lengths differ.
+     */
+    public static Float64ToeplitzMatrix valueOf(double[] column, double[] row) {
+        final int n = column.length;
+        if (row.length != n)
+            throw new DimensionException("Row length " + row.length
+                    + " instead of " + n);
+        final double[] values = new double[2 * n - 1];
+        for (int i = 0; i < n; i++) {
+            values[n - 1 - i] = column[i];
+        }
+        System.arraycopy(row, 1, values, n, n - 1);
+        return Float64ToeplitzMatrix.newInstance(n, values);
+    }
+
+    /**
+     * Returns the symmetric Toeplitz matrix having the specified first
+     * column (and row).
+     *
+     * @param column the first column.
+     * @return the corresponding matrix.
+     */
+    public static Float64ToeplitzMatrix valueOf(double... column) {
+        return Float64ToeplitzMatrix.valueOf(column, column);
+    }
+
+    /**
+     * Returns the Toeplitz matrix having the first column and first row of
+     * the specified matrix (the other elements are ignored).
+     *
+     * @param that the square matrix.
+     * @return <code>that</code> or the corresponding Toeplitz matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static Float64ToeplitzMatrix valueOf(Matrix<Float64> that) {
+        if (that instanceof Float64ToeplitzMatrix)
+            return (Float64ToeplitzMatrix) that;
+        if (!that.isSquare())
+            throw new DimensionException("Matrix is not square");
+        return Float64ToeplitzMatrix.valueOf(
+                Float64StructuredMatrix.valuesOf(that.getColumn(0)),
+                Float64StructuredMatrix.valuesOf(that.getRow(0)));
+    }
+
+    // Returns a Toeplitz matrix holding the specified diagonal values.
+    static Float64ToeplitzMatrix newInstance(int n, double[] values) {
+        Float64ToeplitzMatrix M = FACTORY.object();
+        M._n = n;
+        M._values = values;
+        M._spectrumRe = null;
+        M._spectrumIm = null;
+        if (n >= FFT_THRESHOLD) { // Enclosing circulant of size m >= 2n-1
+            final int m = Float64FFT.powerOfTwo(2 * n - 1);
+            final double[] re = new double[m];
+            for (int i = 0; i < n; i++) { // First column.
+                re[i] = values[n - 1 - i];
+            }
+            for (int j = 1; j < n; j++) { // First row, wrapped.
+                re[m - j] = values[n - 1 + j];
+            }
+            final double[] im = new double[m];
+            Float64FFT.transform(m, re, im, false);
+            M._spectrumRe = re;
+            M._spectrumIm = im;
+        }
+        return M;
+    }
+
+    @Override
+    public double getValue(int i, int j) {
+        return _values[_n - 1 + j - i];
+    }
+
+    @Override
+    public Matrix<Float64> plus(Matrix<Float64> that) {
+        if (!(that instanceof Float64ToeplitzMatrix))
+            return super.plus(that);
+        Float64ToeplitzMatrix T = (Float64ToeplitzMatrix) that;
+        if (T._n != _n)
+            throw new DimensionException();
+        final double[] values = new double[_values.length];
+        Float64Kernels.axpy(values.length, 1.0, T._values, 0, 1, _values, 0, 1, values, 0);
+        return Float64ToeplitzMatrix.newInstance(_n, values);
+    }
+
+    @Override
+    public Float64ToeplitzMatrix times(double k) {
+        final double[] values = new double[_values.length];
+        Float64Kernels.scale(values.length, k, _values, 0, 1, values, 0);
+        return Float64ToeplitzMatrix.newInstance(_n, values);
+    }
+
+    // Implements Float64LinearOperator.
+    public void times(double[] x, double[] y) {
+        final int n = _n;
+        if (_spectrumRe == null) { // Row i is the window [n-1-i, 2n-1-i[
+            for (int i = 0; i < n; i++) {
+                y[i] = Float64Kernels.dot(n, _values, n - 1 - i, 1, x, 0, 1);
+            }
+            return;
+        }
+        final int m = _spectrumRe.length;
+        final double[] re = new double[m];
+        final double[] im = new double[m];
+        System.arraycopy(x, 0, re, 0, n);
+        Float64FFT.transform(m, re, im, false);
+        for (int k = 0; k < m; k++) {
+            final double r = re[k] * _spectrumRe[k] - im[k] * _spectrumIm[k];
+            im[k] = re[k] * _spectrumIm[k] + im[k] * _spectrumRe[k];
+            re[k] = r;
+        }
+        Float64FFT.transform(m, re, im, true);
+        for (int i = 0; i < n; i++) {
+            y[i] = re[i] / m;
+        }
+    }
+
+    /**
+     * Returns the solution X of the equation: this * X = B (Levinson
+     * recursion).
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / this) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    @Override
+    public Float64Matrix solve(Matrix<Float64> B) {
+        if (B.getNumberOfRows() != _n)
+            throw new DimensionException("Input matrix has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        final int p = B.getNumberOfColumns();
+        Float64Matrix T = Float64Matrix.valueOfMatrix(B);
+        Float64Matrix X = Float64Matrix.newInstance(_n, p);
+        for (int i = 0; i < _n; i++) {
+            System.arraycopy(T._values, T._offset + i * T._ld, X._values, i * p, p);
+        }
+        if (Double.isNaN(levinson(X._values, p))) // Breakdown.
+            return Float64LUDecomposition.valueOf(toDense()).solve(T);
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: this * x = y (Levinson
+     * recursion).
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / this) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    @Override
+    public Float64Vector solve(Vector<Float64> y) {
+        if (y.getDimension() != _n)
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + _n);
+        Float64Vector x = Float64Vector.valueOf(Float64StructuredMatrix.valuesOf(y));
+        if (Double.isNaN(levinson(x._values, 1))) // Breakdown.
+            return Float64LUDecomposition.valueOf(toDense()).solve(y);
+        return x;
+    }
+
+    /**
+     * Returns the inverse of this matrix.
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    @Override
+    public Float64Matrix inverse() {
+        final int n = _n;
+        Float64Matrix I = Float64Matrix.newInstance(n, n);
+        Arrays.fill(I._values, 0, n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            I._values[i * n + i] = 1.0;
+        }
+        return solve(I);
+    }
+
+    /**
+     * Returns the determinant of this matrix (Levinson recursion).
+     *
+     * @return this matrix determinant.
+     */
+    @Override
+    public Float64 determinant() {
+        double det = levinson(null, 0);
+        if (Double.isNaN(det)) // Breakdown.
+            return Float64LUDecomposition.valueOf(toDense()).determinant();
+        return Float64.valueOf(det);
+    }
+
+    /**
+     * Solves <code>this·X = B</code> in place (B being the n-by-p
+     * contiguous matrix x) and returns the determinant of this matrix,
+     * or <code>NaN</code> if the recursion breaks down (x is then
+     * undetermined).
+     */
+    private double levinson(double[] x, int p) {
+        final int n = _n, d = n - 1; // Index of the diagonal value.
+        final double[] t = _values;
+        if (t[d] == 0.0)
+            return Double.NaN;
+        final double[] f = new double[n]; // Forward vector: T_k·f = e_0
+        final double[] b = new double[n]; // Backward vector: T_k·b = e_k-1
+        final double[] e = new double[p];
+        f[0] = b[0] = 1.0 / t[d];
+        double det = t[d];
+        if (p > 0) {
+            Float64Kernels.scale(p, f[0], x, 0, 1, x, 0);
+        }
+        for (int k = 1; k < n; k++) {
+            final double ef = Float64Kernels.dot(k, t, d - k, 1, f, 0, 1); // Row k.
+            final double eb = Float64Kernels.dot(k, t, d + 1, 1, b, 0, 1); // Row 0.
+            final double den = 1.0 - ef * eb;
+            if (den == 0.0)
+                return Double.NaN;
+            for (int i = k; i >= 0; i--) { // Descending (old values read first).
+                final double fi = (i < k) ? f[i] : 0.0;
+                final double bi = (i > 0) ? b[i - 1] : 0.0;
+                f[i] = (fi - ef * bi) / den;
+                b[i] = (bi - eb * fi) / den;
+            }
+            det /= f[0]; // det(T_k+1) = det(T_k) / f[0]
+            if (p == 0)
+                continue;
+            Arrays.fill(e, 0.0); // e = B[k] - T[k, 0:k] · X[0:k]
+            for (int j = 0; j < k; j++) {
+                Float64Kernels.axpy(p, -t[d + j - k], x, j * p, 1, e, 0, 1, e, 0);
+            }
+            Float64Kernels.axpy(p, 1.0, x, k * p, 1, e, 0, 1, e, 0);
+            for (int j = 0; j < k; j++) { // X[0:k+1] += b · e
+                Float64Kernels.axpy(p, b[j], e, 0, 1, x, j * p, 1, x, j * p);
+            }
+            Float64Kernels.scale(p, b[k], e, 0, 1, x, k * p);
+        }
+        return det;
+    }
+
+    /**
+     * Returns this matrix (Toeplitz matrices are solved through the
+     * Levinson recursion).
+     *
+     * @return <code>this</code>
+     */
+    @Override
+    public Float64ToeplitzMatrix factorize() {
+        return this;
+    }
+
+    @Override
+    public Float64ToeplitzMatrix transpose() {
+        final double[] values = new double[_values.length];
+        for (int k = 0; k < values.length; k++) {
+            values[k] = _values[values.length - 1 - k];
+        }
+        return Float64ToeplitzMatrix.newInstance(_n, values);
+    }
+
+    @Override
+    public Float64ToeplitzMatrix copy() {
+        return Float64ToeplitzMatrix.newInstance(_n, _values.clone());
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,336 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents a lower or upper triangular matrix of 64 bits
+ *     floating point elements in packed storage (<code>n·(n+1)/2</code>
+ *     elements).</p>
+ *
+ * <p> The lower triangle is packed by rows and the upper triangle by
+ *     columns; the {@link #transpose transpose} of a triangular matrix
+ *     shares its elements. Triangular matrices are their own
+ *     {@link Solver} (forward or back substitution in
+ *     <code>O(n²)</code>), their inverse and the product of triangular
+ *     matrices of the same kind are triangular.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public final class Float64TriangularMatrix extends Float64StructuredMatrix
+        implements Solver<Float64> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64TriangularMatrix> FACTORY = new ObjectFactory<Float64TriangularMatrix>() {
+
+        @Override
+        protected Float64TriangularMatrix create() {
+            return new Float64TriangularMatrix();
+        }
+
+        @Override
+        protected void cleanup(Float64TriangularMatrix matrix) {
+            matrix._values = null;
+        }
+    };
+
+    /**
+     * Holds the packed elements (element <code>[i,j]</code> of a lower
+     * matrix at <code>i·(i+1)/2 + j</code>, of an upper matrix at
+     * <code>j·(j+1)/2 + i</code>).
+     */
+    double[] _values;
+
+    /**
+     * Indicates if this matrix is lower triangular.
+     */
+    boolean _isLower;
+
+    /**
+     * Default constructor.
+     */
+    private Float64TriangularMatrix() {
+    }
+
+    /**
+     * Returns the triangular matrix holding the specified packed elements
+     * (copied).
+     *
+     * @param n the dimension of the matrix.
+     * @param isLower <code>true</code> for a lower triangular matrix
+     *        (elements packed by rows); <code>false</code> for an upper
+     *        triangular matrix (elements packed by columns).
+     * @param values the packed elements.
+     * @return the corresponding matrix.
+     * @throws DimensionException if <code>values.length != n·(n+1)/2</code>
+     */
+    public static Float64TriangularMatrix valueOf(int n, boolean isLower,
+            double... values) {
+        if (values.length != n * (n + 1) / 2)
+            throw new DimensionException(values.length
+                    + " packed elements instead of " + (n * (n + 1) / 2));
+        return Float64TriangularMatrix.newInstance(n, isLower, values.clone());
+    }
+
+    /**
+     * Returns the lower or upper triangle of the specified matrix (the
+     * other elements are ignored).
+     *
+     * @param that the square matrix.
+     * @param isLower <code>true</code> for the lower triangle;
+     *        <code>false</code> for the upper triangle.
+     * @return the corresponding triangular matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static Float64TriangularMatrix valueOf(Matrix<Float64> that,
+            boolean isLower) {
+        if (!that.isSquare())
+            throw new DimensionException("Matrix is not square");
+        final int n = that.getNumberOfRows();
+        Float64Matrix A = Float64Matrix.valueOfMatrix(isLower ? that : that.transpose());
+        final double[] values = new double[n * (n + 1) / 2];
+        for (int i = 0, k = 0; i < n; i++) {
+            System.arraycopy(A._values, A._offset + i * A._ld, values, k, i + 1);
+            k += i + 1;
+        }
+        return Float64TriangularMatrix.newInstance(n, isLower, values);
+    }
+
+    // Returns a triangular matrix holding the specified buffer.
+    static Float64TriangularMatrix newInstance(int n, boolean isLower,
+            double[] values) {
+        Float64TriangularMatrix M = FACTORY.object();
+        M._n = n;
+        M._isLower = isLower;
+        M._values = values;
+        return M;
+    }
+
+    /**
+     * Indicates if this matrix is lower triangular.
+     *
+     * @return <code>true</code> if the elements above the diagonal are
+     *         zero; <code>false</code> if the elements below the diagonal
+     *         are zero.
+     */
+    public boolean isLower() {
+        return _isLower;
+    }
+
+    @Override
+    public double getValue(int i, int j) {
+        if (!_isLower) { // Lower layout of the transpose.
+            int tmp = i;
+            i = j;
+            j = tmp;
+        }
+        return (j <= i) ? _values[i * (i + 1) / 2 + j] : 0.0;
+    }
+
+    @Override
+    public Matrix<Float64> plus(Matrix<Float64> that) {
+        if ((that instanceof Float64TriangularMatrix)
+                && (((Float64TriangularMatrix) that)._isLower == _isLower)) {
+            Float64TriangularMatrix T = (Float64TriangularMatrix) that;
+            if (T._n != _n)
+                throw new DimensionException();
+            final double[] values = new double[_values.length];
+            Float64Kernels.axpy(values.length, 1.0, T._values, 0, 1,
+                    _values, 0, 1, values, 0);
+            return Float64TriangularMatrix.newInstance(_n, _isLower, values);
+        }
+        return super.plus(that);
+    }
+
+    @Override
+    public Float64TriangularMatrix times(double k) {
+        final double[] values = new double[_values.length];
+        Float64Kernels.scale(values.length, k, _values, 0, 1, values, 0);
+        return Float64TriangularMatrix.newInstance(_n, _isLower, values);
+    }
+
+    // Implements Float64LinearOperator.
+    public void times(double[] x, double[] y) {
+        final int n = _n;
+        final double[] a = _values;
+        if (_isLower) { // Dot product with each packed row.
+            for (int i = 0; i < n; i++) {
+                y[i] = Float64Kernels.dot(i + 1, a, i * (i + 1) / 2, 1, x, 0, 1);
+            }
+        } else { // Sum of the packed columns.
+            Arrays.fill(y, 0, n, 0.0);
+            for (int j = 0; j < n; j++) {
+                Float64Kernels.axpy(j + 1, x[j], a, j * (j + 1) / 2, 1, y, 0, 1, y, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns the product of this matrix with the one specified; the
+     * product of triangular matrices of the same kind is triangular.
+     *
+     * @param  that the matrix multiplier.
+     * @return <code>this · that</code>.
+     * @throws DimensionException if <code>
+     *         this.getNumberOfColumns() != that.getNumberOfRows()</code>.
+     */
+    @Override
+    public Matrix<Float64> times(Matrix<Float64> that) {
+        if (!(that instanceof Float64TriangularMatrix)
+                || (((Float64TriangularMatrix) that)._isLower != _isLower))
+            return super.times(that);
+        Float64TriangularMatrix T = (Float64TriangularMatrix) that;
+        if (T._n != _n)
+            throw new DimensionException();
+        // Upper products are the transposes of lower products (U1·U2)' = U2'·U1'
+        final double[] a = _isLower ? _values : T._values;
+        final double[] b = _isLower ? T._values : _values;
+        final int n = _n;
+        final double[] c = new double[_values.length];
+        for (int i = 0; i < n; i++) { // C[i,j] = sum(A[i,k]·B[k,j], j <= k <= i)
+            final int ri = i * (i + 1) / 2;
+            for (int j = 0; j <= i; j++) {
+                double sum = 0.0;
+                for (int k = j; k <= i; k++) {
+                    sum += a[ri + k] * b[k * (k + 1) / 2 + j];
+                }
+                c[ri + j] = sum;
+            }
+        }
+        return Float64TriangularMatrix.newInstance(n, _isLower, c);
+    }
+
+    /**
+     * Returns the solution X of the equation: this * X = B
+     * (forward or back substitution).
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / this) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    @Override
+    public Float64Matrix solve(Matrix<Float64> B) {
+        if (B.getNumberOfRows() != _n)
+            throw new DimensionException("Input matrix has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        final int p = B.getNumberOfColumns();
+        Float64Matrix T = Float64Matrix.valueOfMatrix(B);
+        Float64Matrix X = Float64Matrix.newInstance(_n, p);
+        for (int i = 0; i < _n; i++) {
+            System.arraycopy(T._values, T._offset + i * T._ld, X._values, i * p, p);
+        }
+        substitute(X._values, p);
+        return X;
+    }
+
+    /**
+     * Returns the solution x of the equation: this * x = y
+     * (forward or back substitution).
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / this) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    @Override
+    public Float64Vector solve(Vector<Float64> y) {
+        if (y.getDimension() != _n)
+            throw new DimensionException("Input vector has "
+                    + y.getDimension() + " elements instead of " + _n);
+        Float64Vector x = Float64Vector.valueOf(Float64StructuredMatrix.valuesOf(y));
+        substitute(x._values, 1);
+        return x;
+    }
+
+    /**
+     * Solves <code>this·X = B</code> in place (B being the n-by-p
+     * contiguous matrix x).
+     */
+    private void substitute(double[] x, int p) {
+        final int n = _n;
+        final double[] a = _values;
+        if (_isLower) { // Forward substitution by rows.
+            for (int i = 0; i < n; i++) {
+                final int ri = i * (i + 1) / 2;
+                for (int q = 0; q < i; q++) {
+                    Float64Kernels.axpy(p, -a[ri + q], x, q * p, 1, x, i * p, 1, x, i * p);
+                }
+                Float64Kernels.scale(p, 1.0 / a[ri + i], x, i * p, 1, x, i * p);
+            }
+        } else { // Back substitution by columns.
+            for (int j = n - 1; j >= 0; j--) {
+                final int cj = j * (j + 1) / 2;
+                Float64Kernels.scale(p, 1.0 / a[cj + j], x, j * p, 1, x, j * p);
+                for (int i = 0; i < j; i++) {
+                    Float64Kernels.axpy(p, -a[cj + i], x, j * p, 1, x, i * p, 1, x, i * p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the inverse of this matrix (triangular of the same kind).
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    @Override
+    public Float64TriangularMatrix inverse() {
+        final int n = _n;
+        Float64Matrix X = Float64Matrix.newInstance(n, n);
+        Arrays.fill(X._values, 0, n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            X._values[i * n + i] = 1.0;
+        }
+        substitute(X._values, n);
+        return Float64TriangularMatrix.valueOf(X, _isLower);
+    }
+
+    /**
+     * Returns the determinant of this matrix (product of its diagonal
+     * elements).
+     *
+     * @return this matrix determinant.
+     */
+    @Override
+    public Float64 determinant() {
+        double product = 1.0;
+        for (int i = 0; i < _n; i++) {
+            product *= _values[i * (i + 1) / 2 + i];
+        }
+        return Float64.valueOf(product);
+    }
+
+    /**
+     * Returns this matrix (triangular matrices are solved by
+     * substitution).
+     *
+     * @return <code>this</code>
+     */
+    @Override
+    public Float64TriangularMatrix factorize() {
+        return this;
+    }
+
+    @Override
+    public Float64TriangularMatrix transpose() {
+        return Float64TriangularMatrix.newInstance(_n, !_isLower, _values);
+    }
+
+    @Override
+    public Float64TriangularMatrix copy() {
+        return Float64TriangularMatrix.newInstance(_n, _isLower, _values.clone());
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -11,6 +11,7 @@ package org.jscience.mathematics.internal.vector;
 import java.io.IOException;
 import java.util.List;
 import javolution.context.ArrayFactory;
+import javolution.context.ObjectFactory;
 import javolution.lang.MathLib;
 
 import javolution.text.CharSet;
@@ -24,6 +25,11 @@ import org.jscience.mathematics.structure.VectorSpaceNormed;
 /**
  * <p> This class represents an optimized {@link DenseVector}
  *     implementation for 64 bits floating point elements.</p>
+ *
+ * <p> The elements are held in a <code>double[]</code> buffer starting
+ *     at a given offset and separated by a constant stride. Vectors
+ *     returned by {@link Float64Matrix#getRow} or {@link Float64Matrix#getColumn}
+ *     are views sharing the matrix buffer (no copy is performed).</p>
  * 
  * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 5.0, December 12, 2009
@@ -42,15 +48,42 @@ public class Float64Vector extends DenseVector<Float64> implements
         }
     };
 
+    /**
+     * Holds factory for vectors viewing an external buffer.
+     */
+    static final ObjectFactory<Float64Vector> VIEW_FACTORY = new ObjectFactory<Float64Vector>() {
+
+        @Override
+        protected Float64Vector create() {
+            return new Float64Vector();
+        }
+
+        @Override
+        protected void cleanup(Float64Vector vector) {
+            vector._values = null;
+        }
+    };
+
     /**
      * Holds the dimension.
      */
     int _dimension;
 
     /**
-     * Holds the values.
+     * Holds the values (possibly shared with other vectors or matrices).
      */
-    final double[] _values;
+    double[] _values;
+
+    /**
+     * Holds the index of the first element in the values buffer.
+     */
+    int _offset;
+
+    /**
+     * Holds the distance between two consecutive elements in the values
+     * buffer.
+     */
+    int _stride = 1;
 
     /**
      * Creates a vector of specified capacity.
@@ -59,6 +92,12 @@ public class Float64Vector extends DenseVector<Float64> implements
         _values = new double[capacity];
     }
 
+    /**
+     * Creates a vector view (buffer set by the caller).
+     */
+    private Float64Vector() {
+    }
+
     /**
      * Creates a 64 bits floating point vector always on the heap independently
      * from the current {@link javolution.context.AllocatorContext allocator context}.
@@ -124,6 +163,25 @@ public class Float64Vector extends DenseVector<Float64> implements
         return V;
     }
     
+    /**
+     * Returns a vector view over the specified buffer (the values are not
+     * copied).
+     *
+     * @param values the buffer holding the elements.
+     * @param offset the index of the first element.
+     * @param stride the distance between consecutive elements.
+     * @param dimension the vector dimension.
+     * @return the corresponding vector view.
+     */
+    static Float64Vector viewOf(double[] values, int offset, int stride, int dimension) {
+        Float64Vector V = VIEW_FACTORY.object();
+        V._values = values;
+        V._offset = offset;
+        V._stride = stride;
+        V._dimension = dimension;
+        return V;
+    }
+
     /**
      * Returns the 64 bits floating point vector for the specified character
      * sequence.
@@ -135,6 +193,7 @@ public class Float64Vector extends DenseVector<Float64> implements
         return TextFormat.getInstance(Float64Vector.class).parse(csq);
     }
 
+
     /**
      * Returns the value of a floating point number from this vector (fast).
      *
@@ -143,9 +202,9 @@ public class Float64Vector extends DenseVector<Float64> implements
      * @throws IndexOutOfBoundsException <code>(i &lt; 0) || (i &gt;= dimension())</code>
      */
     public double getValue(int i) {
-        if (i >= _dimension)
+        if ((i < 0) || (i >= _dimension))
             throw new ArrayIndexOutOfBoundsException();
-        return _values[i];
+        return _values[_offset + i * _stride];
     }
 
     /**
@@ -164,19 +223,14 @@ public class Float64Vector extends DenseVector<Float64> implements
      * @return <code>this.norm().doubleValue()</code>.
      */
     public double normValue() {
-        double normSquared = 0;
-        for (int i = _dimension; --i >= 0;) {
-            double values = _values[i];
-            normSquared += values * values;
-        }
-        return MathLib.sqrt(normSquared);
+        return MathLib.sqrt(Float64Kernels.sumOfSquares(_dimension, _values, _offset, _stride));
     }
 
     @Override
     public List<Float64> asList() {
         FastTable<Float64> list = FastTable.newInstance();
-        for (int i=0; i < _dimension; i++) {
-            list.add(Float64.valueOf(_values[i]));
+        for (int i=0, k = _offset; i < _dimension; i++, k += _stride) {
+            list.add(Float64.valueOf(_values[k]));
         }
         return list.unmodifiable();
     }
@@ -188,9 +242,9 @@ public class Float64Vector extends DenseVector<Float64> implements
 
     @Override
     public Float64 get(int i) {
-        if (i >= _dimension)
+        if ((i < 0) || (i >= _dimension))
             throw new IndexOutOfBoundsException();
-        return Float64.valueOf(_values[i]);
+        return Float64.valueOf(_values[_offset + i * _stride]);
     }
 
     @Override
@@ -199,19 +253,14 @@ public class Float64Vector extends DenseVector<Float64> implements
         Float64Vector V = FACTORY.array(dimension);
         V._dimension = dimension;
         for (int i = 0; i < dimension; i++) {
-            V._values[i] = _values[indices.get(i).intValue()];
+            V._values[i] = _values[_offset + indices.get(i).intValue() * _stride];
         }
         return V;
     }
 
     @Override
     public Float64Vector opposite() {
-        Float64Vector V = FACTORY.array(_dimension);
-        V._dimension = _dimension;
-        for (int i = 0; i < _dimension; i++) {
-            V._values[i] = -_values[i];
-        }
-        return V;
+        return times(-1.0);
     }
 
     @Override
@@ -221,9 +270,8 @@ public class Float64Vector extends DenseVector<Float64> implements
             throw new DimensionException();
         Float64Vector V = FACTORY.array(_dimension);
         V._dimension = _dimension;
-        for (int i = 0; i < _dimension; i++) {
-            V._values[i] = _values[i] + T._values[i];
-        }
+        Float64Kernels.axpy(_dimension, 1.0, T._values, T._offset, T._stride,
+                _values, _offset, _stride, V._values, 0);
         return V;
     }
 
@@ -234,21 +282,14 @@ public class Float64Vector extends DenseVector<Float64> implements
             throw new DimensionException();
         Float64Vector V = FACTORY.array(_dimension);
         V._dimension = _dimension;
-        for (int i = 0; i < _dimension; i++) {
-            V._values[i] = _values[i] - T._values[i];
-        }
+        Float64Kernels.axpy(_dimension, -1.0, T._values, T._offset, T._stride,
+                _values, _offset, _stride, V._values, 0);
         return V;
     }
 
     @Override
     public Float64Vector times(Float64 k) {
-        Float64Vector V = FACTORY.array(_dimension);
-        V._dimension = _dimension;
-        double d = k.doubleValue();
-        for (int i = 0; i < _dimension; i++) {
-            V._values[i] = _values[i] * d;
-        }
-        return V;
+        return times(k.doubleValue());
     }
 
     /**
@@ -260,23 +301,121 @@ public class Float64Vector extends DenseVector<Float64> implements
     public Float64Vector times(double k) {
         Float64Vector V = FACTORY.array(_dimension);
         V._dimension = _dimension;
-        for (int i = 0; i < _dimension; i++) {
-            V._values[i] = _values[i] * k;
-        }
+        Float64Kernels.scale(_dimension, k, _values, _offset, _stride, V._values, 0);
         return V;
     }
 
+    /**
+     * Sets the specified destination to the sum of this vector with the
+     * one specified (no vector is allocated). The destination may be
+     * one of the operands.
+     *
+     * @param that the vector to be added.
+     * @param out the destination vector.
+     * @return <code>out = this + that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64Vector plus(Vector<Float64> that, Float64Vector out) {
+        return Float64Vector.axpy(1.0, Float64Vector.valueOfVector(that), this, out);
+    }
+
+    /**
+     * Sets the specified destination to the difference of this vector with
+     * the one specified (no vector is allocated). The destination may be
+     * one of the operands.
+     *
+     * @param that the vector to be subtracted.
+     * @param out the destination vector.
+     * @return <code>out = this - that</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64Vector minus(Vector<Float64> that, Float64Vector out) {
+        return Float64Vector.axpy(-1.0, Float64Vector.valueOfVector(that), this, out);
+    }
+
+    /**
+     * Sets the specified destination to the product of this vector by the
+     * specified factor (no vector is allocated). The destination may be
+     * this vector.
+     *
+     * @param k the coefficient.
+     * @param out the destination vector.
+     * @return <code>out = this * k</code>
+     * @throws DimensionException if the dimensions are different.
+     */
+    public Float64Vector times(double k, Float64Vector out) {
+        if (out._dimension != _dimension)
+            throw new DimensionException();
+        if (out._stride == 1) {
+            Float64Kernels.scale(_dimension, k, _values, _offset, _stride, out._values, out._offset);
+        } else {
+            for (int i = 0, j = _offset, l = out._offset; i < _dimension; i++, j += _stride, l += out._stride) {
+                out._values[l] = k * _values[j];
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void plusInPlace(Vector<Float64> that) {
+        axpy(1.0, that);
+    }
+
+    @Override
+    public void timesInPlace(Float64 k) {
+        times(k.doubleValue(), this);
+    }
+
+    /**
+     * Equivalent to <code>this.timesInPlace(Float64.valueOf(k))</code>
+     *
+     * @param k the coefficient.
+     */
+    public void timesInPlace(double k) {
+        times(k, this);
+    }
+
+    @Override
+    public void axpy(Float64 a, Vector<Float64> x) {
+        axpy(a.doubleValue(), x);
+    }
+
+    /**
+     * Equivalent to <code>this.axpy(Float64.valueOf(a), x)</code>
+     *
+     * @param a the coefficient multiplier of x.
+     * @param x the vector to be added.
+     * @throws DimensionException if the dimensions are different.
+     */
+    public void axpy(double a, Vector<Float64> x) {
+        Float64Vector.axpy(a, Float64Vector.valueOfVector(x), this, this);
+    }
+
+    // Sets out to a · x + y (out may be x or y).
+    private static Float64Vector axpy(double a, Float64Vector x, Float64Vector y,
+            Float64Vector out) {
+        final int n = y._dimension;
+        if ((x._dimension != n) || (out._dimension != n))
+            throw new DimensionException();
+        if (out._stride == 1) {
+            Float64Kernels.axpy(n, a, x._values, x._offset, x._stride,
+                    y._values, y._offset, y._stride, out._values, out._offset);
+        } else {
+            for (int i = 0, j = x._offset, k = y._offset, l = out._offset; i < n;
+                    i++, j += x._stride, k += y._stride, l += out._stride) {
+                out._values[l] = y._values[k] + a * x._values[j];
+            }
+        }
+        return out;
+    }
+
     @Override
     public Float64 times(Vector<Float64> that) {
         Float64Vector T = Float64Vector.valueOfVector(that);
         if (T._dimension != _dimension)
             throw new DimensionException();
-        double[] T_values = T._values;
-        double sum = _values[0] * T_values[0];
-        for (int i = 1; i < _dimension; i++) {
-            sum += _values[i] * T_values[i];
-        }
-        return Float64.valueOf(sum);
+        return Float64.valueOf(Float64Kernels.dot(_dimension, _values, _offset, _stride,
+                T._values, T._offset, T._stride));
     }
 
     @Override
@@ -285,9 +424,9 @@ public class Float64Vector extends DenseVector<Float64> implements
         if ((this._dimension != 3) || (T._dimension != 3))
             throw new DimensionException(
                     "The cross product of two vectors requires " + "3-dimensional vectors");
-        double x = _values[1] * T._values[2] - _values[2] * T._values[1];
-        double y = _values[2] * T._values[0] - _values[0] * T._values[2];
-        double z = _values[0] * T._values[1] - _values[1] * T._values[0];
+        double x = getValue(1) * T.getValue(2) - getValue(2) * T.getValue(1);
+        double y = getValue(2) * T.getValue(0) - getValue(0) * T.getValue(2);
+        double z = getValue(0) * T.getValue(1) - getValue(1) * T.getValue(0);
         return Float64Vector.valueOf(x, y, z);
     }
 
@@ -295,8 +434,12 @@ public class Float64Vector extends DenseVector<Float64> implements
     public Float64Vector copy() {
         Float64Vector V = FACTORY.array(_dimension);
         V._dimension = _dimension;
-        for (int i = 0; i < _dimension; i++) {
-            V._values[i] = _values[i];
+        if (_stride == 1) {
+            System.arraycopy(_values, _offset, V._values, 0, _dimension);
+        } else {
+            for (int i = 0, k = _offset; i < _dimension; i++, k += _stride) {
+                V._values[i] = _values[k];
+            }
         }
         return V;
     }
@@ -0,0 +1,160 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import org.jscience.mathematics.number.Float64;
+
+/**
+ * <p> This class represents the solver of a low-rank modification
+ *     <code>A + U·V'</code> of a matrix <code>A</code> already factored
+ *     (U and V being n-by-k with <code>k &lt;&lt; n</code>), using the
+ *     Sherman-Morrison-Woodbury formula:[code]
+ *         inv(A + U·V') = inv(A) - inv(A)·U · inv(I + V'·inv(A)·U) · V'·inv(A)[/code]
+ *     Only the k-by-k capacitance matrix <code>I + V'·inv(A)·U</code> is
+ *     factored; each solve costs one solve with <code>A</code> plus
+ *     <code>O(n·k)</code>.[code]
+ *         Solver<Float64> solver = A.factorize(); // O(n³)
+ *         ...
+ *         Solver<Float64> updated = Float64WoodburySolver.valueOf(solver, U, V); // O(n²·k)
+ *         Vector<Float64> x = updated.solve(y); // O(n²)
+ *     [/code]</p>
+ *
+ * <p> Any {@link Solver} can be modified this way, including the sparse
+ *     decompositions (whose fill-in would change if refactored) and
+ *     other Woodbury solvers (successive modifications). When the
+ *     accumulated rank becomes significant, refactoring is faster.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Woodbury_matrix_identity">
+ *      Wikipedia: Woodbury matrix identity</a>
+ */
+public final class Float64WoodburySolver implements Solver<Float64> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<Float64WoodburySolver> FACTORY = new ObjectFactory<Float64WoodburySolver>() {
+
+        protected Float64WoodburySolver create() {
+            return new Float64WoodburySolver();
+        }
+
+        @Override
+        protected void cleanup(Float64WoodburySolver solver) {
+            solver._solver = null;
+            solver._Z = null;
+            solver._Vt = null;
+            solver._capacitance = null;
+        }
+    };
+
+    /**
+     * Holds the solver of the matrix modified.
+     */
+    private Solver<Float64> _solver;
+
+    /**
+     * Holds <code>inv(A)·U</code> (n-by-k).
+     */
+    private Float64Matrix _Z;
+
+    /**
+     * Holds <code>V'</code> (k-by-n).
+     */
+    private Float64Matrix _Vt;
+
+    /**
+     * Holds the decomposition of <code>I + V'·inv(A)·U</code> (k-by-k).
+     */
+    private Float64LUDecomposition _capacitance;
+
+    /**
+     * Default constructor.
+     */
+    private Float64WoodburySolver() {
+    }
+
+    /**
+     * Returns the solver of <code>A + U·V'</code> from the solver of
+     * <code>A</code>.
+     *
+     * @param solver the solver of the matrix A (n-by-n).
+     * @param U the n-by-k matrix.
+     * @param V the n-by-k matrix.
+     * @return the solver of the modified matrix.
+     * @throws DimensionException if the dimensions do not match.
+     * @throws ArithmeticException if the modified matrix is singular.
+     */
+    public static Float64WoodburySolver valueOf(Solver<Float64> solver,
+            Matrix<Float64> U, Matrix<Float64> V) {
+        final int k = U.getNumberOfColumns();
+        if ((V.getNumberOfRows() != U.getNumberOfRows())
+                || (V.getNumberOfColumns() != k))
+            throw new DimensionException("U and V dimensions do not match");
+        Float64Matrix Z = Float64Matrix.valueOfMatrix(solver.solve(U));
+        Float64Matrix Vt = Float64Matrix.valueOfMatrix(V.transpose());
+        Float64Matrix C = Vt.times(Z); // C = I + V'·Z
+        for (int i = 0; i < k; i++) {
+            C._values[C._offset + i * C._ld + i] += 1.0;
+        }
+        Float64LUDecomposition capacitance = Float64LUDecomposition.valueOf(C);
+        if (capacitance.determinant().doubleValue() == 0.0)
+            throw new ArithmeticException("Modified matrix is singular");
+        Float64WoodburySolver S = FACTORY.object();
+        S._solver = solver;
+        S._Z = Z;
+        S._Vt = Vt;
+        S._capacitance = capacitance;
+        return S;
+    }
+
+    /**
+     * Returns the rank of the modification.
+     *
+     * @return the number of columns of U and V.
+     */
+    public int getRank() {
+        return _Z.getNumberOfColumns();
+    }
+
+    // Implements Solver.
+    public Float64Matrix solve(Matrix<Float64> B) {
+        Float64Matrix X = Float64Matrix.valueOfMatrix(_solver.solve(B));
+        Float64Matrix W = _capacitance.solve(_Vt.times(X));
+        X.axpy(-1.0, _Z.times(W)); // X = Y - Z·inv(C)·V'·Y
+        return X;
+    }
+
+    // Implements Solver.
+    public Float64Vector solve(Vector<Float64> y) {
+        Float64Vector x = Float64Vector.valueOfVector(_solver.solve(y));
+        Float64Vector w = _capacitance.solve(_Vt.times(x));
+        x.axpy(-1.0, _Z.times(w));
+        return x;
+    }
+
+    // Implements Solver.
+    public Float64Matrix inverse() {
+        final int n = _Z.getNumberOfRows();
+        Float64Matrix I = Float64Matrix.newInstance(n, n);
+        Arrays.fill(I._values, 0, n * n, 0.0);
+        for (int i = 0; i < n; i++) {
+            I._values[i * n + i] = 1.0;
+        }
+        return solve(I);
+    }
+
+    // Implements Solver: det(A + U·V') = det(A) · det(I + V'·inv(A)·U)
+    public Float64 determinant() {
+        return _solver.determinant().times(_capacitance.determinant());
+    }
+}
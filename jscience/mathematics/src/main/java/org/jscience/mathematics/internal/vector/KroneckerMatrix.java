@@ -0,0 +1,435 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.List;
+import javolution.context.ObjectFactory;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents the Kronecker (tensor) product
+ *     <code>A &otimes; B</code> of a m-by-n matrix <code>A</code> with a
+ *     p-by-q matrix <code>B</code>, held through its factors (the
+ *     mp-by-nq product is never built). Element
+ *     <code>[i0·p+i1, j0·q+j1]</code> is <code>A[i0,j0]·B[i1,j1]</code>.
+ *     It is returned by {@link Matrix#tensor}.</p>
+ *
+ * <p> Products by vectors use the identity
+ *     <code>(A &otimes; B)·x = A·X·B'</code>, <code>X</code> being the
+ *     n-by-q matrix whose rows are the consecutive segments of
+ *     <code>x</code> (<code>O(mnq + mpq)</code> instead of
+ *     <code>O(mnpq)</code>). Products of Kronecker matrices with
+ *     compatible factors, transposes and inverses are Kronecker matrices
+ *     of the factors (mixed-product property); solving factors
+ *     <code>A</code> and <code>B</code> only
+ *     (<code>X = inv(A)·Y·inv(B)'</code>).</p>
+ *
+ * <p> The {@link DenseMatrix#valueOf(Matrix) dense} form should only be
+ *     built for small factors.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Kronecker_product">
+ *      Wikipedia: Kronecker Product</a>
+ */
+public final class KroneckerMatrix<F extends Field<F>> extends Matrix<F> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<KroneckerMatrix> FACTORY = new ObjectFactory<KroneckerMatrix>() {
+
+        @Override
+        protected KroneckerMatrix create() {
+            return new KroneckerMatrix();
+        }
+
+        @Override
+        protected void cleanup(KroneckerMatrix matrix) {
+            matrix._left = null;
+            matrix._right = null;
+        }
+    };
+
+    /**
+     * Holds the left factor (A).
+     */
+    private Matrix<F> _left;
+
+    /**
+     * Holds the right factor (B).
+     */
+    private Matrix<F> _right;
+
+    /**
+     * Default constructor.
+     */
+    private KroneckerMatrix() {
+    }
+
+    /**
+     * Returns the Kronecker product of the specified matrices. The factors
+     * are not copied: the product is a view and reflects later modifications
+     * of the factors (e.g. {@link DenseMatrix#timesInPlace in-place
+     * operations}); {@link Matrix#tensor} holds copies instead.
+     *
+     * @param left the left factor (A).
+     * @param right the right factor (B).
+     * @return <code>A &otimes; B</code>
+     */
+    public static <F extends Field<F>> KroneckerMatrix<F> valueOf(
+            Matrix<F> left, Matrix<F> right) {
+        KroneckerMatrix<F> M = FACTORY.object();
+        M._left = left;
+        M._right = right;
+        return M;
+    }
+
+    /**
+     * Returns the left factor of this product.
+     *
+     * @return A
+     */
+    public Matrix<F> getLeft() {
+        return _left;
+    }
+
+    /**
+     * Returns the right factor of this product.
+     *
+     * @return B
+     */
+    public Matrix<F> getRight() {
+        return _right;
+    }
+
+    @Override
+    public int getNumberOfRows() {
+        return _left.getNumberOfRows() * _right.getNumberOfRows();
+    }
+
+    @Override
+    public int getNumberOfColumns() {
+        return _left.getNumberOfColumns() * _right.getNumberOfColumns();
+    }
+
+    @Override
+    public F get(int i, int j) {
+        final int p = _right.getNumberOfRows();
+        final int q = _right.getNumberOfColumns();
+        return _left.get(i / p, j / q).times(_right.get(i % p, j % q));
+    }
+
+    @Override
+    public DenseVector<F> getRow(int i) {
+        final int p = _right.getNumberOfRows();
+        return KroneckerMatrix.tensor(_left.getRow(i / p), _right.getRow(i % p));
+    }
+
+    @Override
+    public DenseVector<F> getColumn(int j) {
+        final int q = _right.getNumberOfColumns();
+        return KroneckerMatrix.tensor(_left.getColumn(j / q), _right.getColumn(j % q));
+    }
+
+    // Returns the vector u ⊗ v.
+    private static <F extends Field<F>> DenseVector<F> tensor(Vector<F> u, Vector<F> v) {
+        final int n = u.getDimension();
+        final int q = v.getDimension();
+        if ((u instanceof Float64Vector) && (v instanceof Float64Vector)) {
+            Float64Vector U = (Float64Vector) u, V = (Float64Vector) v;
+            Float64Vector W = Float64Vector.FACTORY.array(n * q);
+            W._dimension = n * q;
+            for (int j0 = 0; j0 < n; j0++) {
+                Float64Kernels.scale(q, U.getValue(j0), V._values, V._offset,
+                        V._stride, W._values, j0 * q);
+            }
+            return (DenseVector<F>) (DenseVector) W;
+        }
+        DenseVectorImpl<F> W = DenseVectorImpl.FACTORY.object();
+        for (int j0 = 0; j0 < n; j0++) {
+            final F uj0 = u.get(j0);
+            for (int j1 = 0; j1 < q; j1++) {
+                W._elements.add(uj0.times(v.get(j1)));
+            }
+        }
+        return W;
+    }
+
+    @Override
+    public DenseMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns) {
+        return DenseSubMatrix.valueOf(this, rows, columns);
+    }
+
+    @Override
+    public KroneckerMatrix<F> opposite() {
+        return KroneckerMatrix.valueOf(_left.opposite(), _right);
+    }
+
+    /**
+     * Returns the sum of this matrix with the one specified (dense).
+     *
+     * @param   that the matrix to be added.
+     * @return  <code>this + that</code>.
+     * @throws  DimensionException matrices's dimensions are different.
+     */
+    @Override
+    public DenseMatrix<F> plus(Matrix<F> that) {
+        return DenseMatrixImpl.valueOf(this).plus(that);
+    }
+
+    @Override
+    public KroneckerMatrix<F> times(F k) {
+        return KroneckerMatrix.valueOf(_left.times(k), _right);
+    }
+
+    /**
+     * Returns the product of this matrix by the specified column vector
+     * (<code>A·X·B'</code>, the full matrix not being built).
+     *
+     * @param  v the column vector.
+     * @return <code>this · v</code>
+     * @throws DimensionException if <code>
+     *         v.getDimension() != this.getNumberOfColumns()<code>
+     */
+    @Override
+    public Vector<F> times(Vector<F> v) {
+        if (v.getDimension() != getNumberOfColumns())
+            throw new DimensionException();
+        Matrix<F> X = KroneckerMatrix.reshape(v, _left.getNumberOfColumns(),
+                _right.getNumberOfColumns());
+        return KroneckerMatrix.flatten(_left.times(X).times(_right.transpose()));
+    }
+
+    /**
+     * Returns the product of this matrix with the one specified; the
+     * product of Kronecker matrices whose factors can be multiplied is
+     * the Kronecker matrix of the factors products
+     * (<code>(A &otimes; B)·(C &otimes; D) = (A·C) &otimes; (B·D)</code>),
+     * otherwise each column is multiplied through the factors.
+     *
+     * @param  that the matrix multiplier.
+     * @return <code>this · that</code>.
+     * @throws DimensionException if <code>
+     *         this.getNumberOfColumns() != that.getNumberOfRows()</code>.
+     */
+    @Override
+    public Matrix<F> times(Matrix<F> that) {
+        if (that.getNumberOfRows() != getNumberOfColumns())
+            throw new DimensionException();
+        if (that instanceof KroneckerMatrix) {
+            KroneckerMatrix<F> K = (KroneckerMatrix<F>) that;
+            if ((K._left.getNumberOfRows() == _left.getNumberOfColumns())
+                    && (K._right.getNumberOfRows() == _right.getNumberOfColumns()))
+                return KroneckerMatrix.valueOf(_left.times(K._left),
+                        _right.times(K._right));
+        }
+        final int r = that.getNumberOfColumns();
+        Vector<F>[] columns = new Vector[r];
+        for (int j = 0; j < r; j++) {
+            columns[j] = times(that.getColumn(j));
+        }
+        return KroneckerMatrix.ofColumns(columns);
+    }
+
+    /**
+     * Returns the inverse of this matrix (Kronecker product of the
+     * inverses of the factors).
+     *
+     * @return <code>inverse(A) &otimes; inverse(B)</code>
+     * @throws DimensionException if the factors are not square.
+     */
+    @Override
+    public KroneckerMatrix<F> inverse() {
+        return KroneckerMatrix.valueOf(_left.inverse(), _right.inverse());
+    }
+
+    /**
+     * Returns the determinant of this matrix.
+     *
+     * @return <code>det(A)<sup>p</sup> · det(B)<sup>m</sup></code>
+     * @throws DimensionException if the factors are not square.
+     */
+    @Override
+    public F determinant() {
+        return KroneckerMatrix.pow(_left.determinant(), _right.getNumberOfRows()).times(
+                KroneckerMatrix.pow(_right.determinant(), _left.getNumberOfRows()));
+    }
+
+    // Returns x raised at the specified positive exponent.
+    private static <F extends Field<F>> F pow(F x, int exp) {
+        F result = null;
+        for (F square = x; exp > 0; exp >>= 1, square = square.times(square)) {
+            if ((exp & 1) != 0) {
+                result = (result == null) ? square : result.times(square);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public F trace() {
+        return _left.trace().times(_right.trace());
+    }
+
+    /**
+     * Returns the solver of this matrix, factoring <code>A</code> and
+     * <code>B</code> only.
+     *
+     * @return the solver of this matrix.
+     * @throws DimensionException if the factors are not square.
+     */
+    @Override
+    public Solver<F> factorize() {
+        return new Factorization<F>(_left.factorize(), _left.getNumberOfRows(),
+                _right.factorize(), _right.getNumberOfRows());
+    }
+
+    /**
+     * Solves this matrix for the specified vector
+     * (<code>inv(A)·Y·inv(B)'</code>).
+     *
+     * @param  y the vector for which the solution is calculated.
+     * @return <code>factorize().solve(y)</code>
+     * @throws DimensionException if the factors are not square.
+     */
+    @Override
+    public Vector<F> solve(Vector<F> y) {
+        return factorize().solve(y);
+    }
+
+    @Override
+    public KroneckerMatrix<F> transpose() {
+        return KroneckerMatrix.valueOf(_left.transpose(), _right.transpose());
+    }
+
+    @Override
+    public KroneckerMatrix<F> copy() {
+        return KroneckerMatrix.valueOf(_left.copy(), _right.copy());
+    }
+
+    // Returns the rows-by-columns matrix whose rows are the segments of v.
+    private static <F extends Field<F>> Matrix<F> reshape(Vector<F> v,
+            int rows, int columns) {
+        if (v instanceof Float64Vector) {
+            Float64Vector V = (Float64Vector) v;
+            Float64Matrix M = Float64Matrix.newInstance(rows, columns);
+            for (int k = 0, n = rows * columns; k < n; k++) {
+                M._values[k] = V._values[V._offset + k * V._stride];
+            }
+            return (Matrix<F>) (Matrix) M;
+        }
+        DenseMatrixImpl<F> M = DenseMatrixImpl.FACTORY.object();
+        for (int i = 0; i < rows; i++) {
+            DenseVectorImpl<F> row = DenseVectorImpl.FACTORY.object();
+            for (int j = 0; j < columns; j++) {
+                row._elements.add(v.get(i * columns + j));
+            }
+            M._rows.add(row);
+        }
+        return M;
+    }
+
+    // Returns the vector made of the consecutive rows of M.
+    private static <F extends Field<F>> DenseVector<F> flatten(Matrix<F> M) {
+        final int m = M.getNumberOfRows();
+        final int n = M.getNumberOfColumns();
+        if (M instanceof Float64Matrix) {
+            Float64Matrix A = (Float64Matrix) M;
+            Float64Vector V = Float64Vector.FACTORY.array(m * n);
+            V._dimension = m * n;
+            for (int i = 0; i < m; i++) {
+                System.arraycopy(A._values, A._offset + i * A._ld, V._values, i * n, n);
+            }
+            return (DenseVector<F>) (DenseVector) V;
+        }
+        if (M instanceof Float64Matrix.TransposedView) { // Transposed view.
+            Float64Matrix A = (Float64Matrix) M.transpose();
+            Float64Vector V = Float64Vector.FACTORY.array(m * n);
+            V._dimension = m * n;
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    V._values[i * n + j] = A._values[A._offset + j * A._ld + i];
+                }
+            }
+            return (DenseVector<F>) (DenseVector) V;
+        }
+        DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                V._elements.add(M.get(i, j));
+            }
+        }
+        return V;
+    }
+
+    // Returns the matrix having the specified columns.
+    private static <F extends Field<F>> Matrix<F> ofColumns(Vector<F>[] columns) {
+        if (!(columns[0] instanceof Float64Vector))
+            return DenseMatrixImpl.valueOf(columns).transpose();
+        final int m = columns[0].getDimension();
+        final int r = columns.length;
+        Float64Matrix M = Float64Matrix.newInstance(m, r);
+        for (int j = 0; j < r; j++) {
+            Float64Vector V = (Float64Vector) columns[j];
+            for (int i = 0; i < m; i++) {
+                M._values[i * r + j] = V._values[V._offset + i * V._stride];
+            }
+        }
+        return (Matrix<F>) (Matrix) M;
+    }
+
+    /**
+     * Holds the factorization of a Kronecker matrix (factorizations of
+     * its m-by-m and p-by-p factors).
+     */
+    private static final class Factorization<F extends Field<F>> implements Solver<F> {
+
+        private final Solver<F> _left, _right;
+
+        private final int _m, _p;
+
+        Factorization(Solver<F> left, int m, Solver<F> right, int p) {
+            _left = left;
+            _m = m;
+            _right = right;
+            _p = p;
+        }
+
+        public Vector<F> solve(Vector<F> y) {
+            if (y.getDimension() != _m * _p)
+                throw new DimensionException("Input vector has "
+                        + y.getDimension() + " elements instead of " + _m * _p);
+            Matrix<F> Z = _left.solve(KroneckerMatrix.reshape(y, _m, _p)); // inv(A)·Y
+            return KroneckerMatrix.flatten(_right.solve(Z.transpose()).transpose());
+        }
+
+        public Matrix<F> solve(Matrix<F> B) {
+            final int r = B.getNumberOfColumns();
+            Vector<F>[] columns = new Vector[r];
+            for (int j = 0; j < r; j++) {
+                columns[j] = solve(B.getColumn(j));
+            }
+            return KroneckerMatrix.ofColumns(columns);
+        }
+
+        public KroneckerMatrix<F> inverse() {
+            return KroneckerMatrix.valueOf(_left.inverse(), _right.inverse());
+        }
+
+        public F determinant() {
+            return KroneckerMatrix.pow(_left.determinant(), _p).times(
+                    KroneckerMatrix.pow(_right.determinant(), _m));
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+}
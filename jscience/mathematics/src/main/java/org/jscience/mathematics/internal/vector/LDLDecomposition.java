@@ -0,0 +1,467 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import javolution.util.FastTable;
+import javolution.util.Index;
+import org.jscience.mathematics.number.Complex;
+import org.jscience.mathematics.number.Number;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents the decomposition of a symmetric
+ *     {@link Matrix matrix} <code>A</code> into the product
+ *     <code>P·A·P' = L·D·L'</code> with <code>L</code> a {@link #getLower
+ *     lower} triangular matrix with unit diagonal, <code>D</code> a
+ *     {@link #getBlockDiagonal block diagonal} matrix made of 1x1 and
+ *     2x2 blocks and <code>P</code> a symmetric permutation.</p>
+ *
+ * <p> Only the lower triangle of the matrix source is read and the
+ *     symmetry is preserved, the decomposition costs about half
+ *     the {@link LUDecomposition} (<code>n³/3</code>). Unlike the
+ *     {@link Float64CholeskyDecomposition Cholesky} decomposition, no
+ *     square root is required (any {@link Field} element) and the
+ *     matrix does not have to be positive-definite.</p>
+ *
+ * <p> Pivots are selected using the Bunch-Kaufman partial pivoting
+ *     strategy: a 2x2 pivot is taken when no diagonal element is large
+ *     enough relatively to its column (e.g. zero diagonal of symmetric
+ *     indefinite matrices), which bounds the growth of the elements of
+ *     <code>L</code>. Magnitudes are compared through the
+ *     <code>double</code> value of the elements; for non-numeric elements
+ *     any non-zero diagonal element is accepted as 1x1 pivot.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Cholesky_decomposition#LDL_decomposition">
+ *      Wikipedia: LDL decomposition</a>
+ */
+public final class LDLDecomposition<F extends Field<F>> implements Solver<F> {
+
+    /**
+     * Holds the Bunch-Kaufman pivoting threshold
+     * (<code>(1 + sqrt(17)) / 8</code>, minimizes the elements growth).
+     */
+    private static final double ALPHA = (1.0 + MathLib.sqrt(17.0)) / 8.0;
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<LDLDecomposition> FACTORY = new ObjectFactory<LDLDecomposition>() {
+
+        protected LDLDecomposition create() {
+            return new LDLDecomposition();
+        }
+
+        @Override
+        protected void cleanup(LDLDecomposition ldl) {
+            ldl._LDL = null;
+        }
+    };
+
+    /**
+     * Holds the dimension of the square matrix source.
+     */
+    private int _n;
+
+    /**
+     * Holds the decomposition: <code>L</code> (strict lower part, except
+     * for the first column of 2x2 blocks) and <code>D</code> (diagonal and
+     * sub-diagonal elements of the 2x2 blocks).
+     */
+    private DenseMatrixImpl<F> _LDL;
+
+    /**
+     * Holds the size of the block of <code>D</code> starting at each row
+     * (<code>0</code> for the second row of 2x2 blocks).
+     */
+    private int[] _blocks = new int[0];
+
+    /**
+     * Holds the pivots indexes.
+     */
+    private final FastTable<Index> _pivots = new FastTable<Index>();
+
+    /**
+     * Default constructor.
+     */
+    private LDLDecomposition() {
+    }
+
+    /**
+     * Returns the LDL' decomposition of the specified symmetric matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the LDL' decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static <F extends Field<F>> LDLDecomposition<F> valueOf(
+            Matrix<F> source) {
+        if (!source.isSquare())
+            throw new DimensionException("Matrix is not square");
+        LDLDecomposition ldl = FACTORY.object();
+        ldl._n = source.getNumberOfRows();
+        ldl.construct(source);
+        return ldl;
+    }
+
+    /**
+     * Constructs the decomposition of the specified matrix.
+     */
+    private void construct(Matrix<F> source) {
+        _LDL = source instanceof DenseMatrixImpl ? ((DenseMatrixImpl<F>) source).copy()
+                : DenseMatrixImpl.valueOf(source).copy();
+        final int n = _n;
+        for (int i = 0; i < n; i++) { // Symmetrizes (lower triangle).
+            for (int j = i + 1; j < n; j++) {
+                _LDL.set(i, j, _LDL.get(j, i));
+            }
+        }
+        _pivots.clear();
+        for (int i = 0; i < n; i++) {
+            _pivots.add(Index.valueOf(i));
+        }
+        if (_blocks.length < n) {
+            _blocks = new int[n];
+        }
+
+        for (int k = 0; k < n;) {
+
+            // Selects the pivot (Bunch-Kaufman).
+            final double absakk = LDLDecomposition.magnitudeOf(_LDL.get(k, k));
+            double colmax = 0.0;
+            int r = k;
+            for (int i = k + 1; i < n; i++) {
+                double abs = LDLDecomposition.magnitudeOf(_LDL.get(i, k));
+                if (abs > colmax) {
+                    colmax = abs;
+                    r = i;
+                }
+            }
+            int kp = k;
+            int size = 1;
+            if (absakk < ALPHA * colmax) {
+                double rowmax = 0.0;
+                for (int j = k; j < n; j++) {
+                    if (j != r) {
+                        rowmax = MathLib.max(rowmax, LDLDecomposition.magnitudeOf(_LDL.get(r, j)));
+                    }
+                }
+                if (absakk * rowmax >= ALPHA * colmax * colmax) {
+                    kp = k; // No interchange, 1x1 pivot.
+                } else if (LDLDecomposition.magnitudeOf(_LDL.get(r, r)) >= ALPHA * rowmax) {
+                    kp = r; // Interchanges k and r, 1x1 pivot.
+                } else {
+                    kp = r; // Interchanges k + 1 and r, 2x2 pivot.
+                    size = 2;
+                }
+            }
+            if (kp != k + size - 1) {
+                swap(k + size - 1, kp);
+            }
+
+            if (size == 1) {
+                _blocks[k] = 1;
+                F d = _LDL.get(k, k);
+                if (LDLDecomposition.magnitudeOf(d) == 0.0) {
+                    k++;
+                    continue; // Singular (the column is zero).
+                }
+                F dInv = d.inverse();
+                for (int i = k + 1; i < n; i++) {
+                    F lik = _LDL.get(i, k).times(dInv);
+                    for (int j = k + 1; j <= i; j++) {
+                        F aij = _LDL.get(i, j).plus(lik.times(_LDL.get(j, k)).opposite());
+                        _LDL.set(i, j, aij);
+                        _LDL.set(j, i, aij);
+                    }
+                }
+                for (int i = k + 1; i < n; i++) { // Multipliers.
+                    _LDL.set(i, k, _LDL.get(i, k).times(dInv));
+                }
+                k++;
+            } else {
+                _blocks[k] = 2;
+                _blocks[k + 1] = 0;
+                F d11 = _LDL.get(k, k);
+                F d21 = _LDL.get(k + 1, k);
+                F d22 = _LDL.get(k + 1, k + 1);
+                F detInv = d11.times(d22).plus(d21.times(d21).opposite()).inverse();
+                F e11 = d22.times(detInv); // inv(D) = [e11, e21; e21, e22]
+                F e21 = d21.times(detInv).opposite();
+                F e22 = d11.times(detInv);
+                FastTable<F> l1 = FastTable.newInstance();
+                FastTable<F> l2 = FastTable.newInstance();
+                try {
+                    for (int i = k + 2; i < n; i++) {
+                        F ai1 = _LDL.get(i, k);
+                        F ai2 = _LDL.get(i, k + 1);
+                        l1.add(ai1.times(e11).plus(ai2.times(e21)));
+                        l2.add(ai1.times(e21).plus(ai2.times(e22)));
+                    }
+                    for (int i = k + 2; i < n; i++) {
+                        F li1 = l1.get(i - k - 2);
+                        F li2 = l2.get(i - k - 2);
+                        for (int j = k + 2; j <= i; j++) {
+                            F aij = _LDL.get(i, j).plus(li1.times(_LDL.get(j, k)).plus(
+                                    li2.times(_LDL.get(j, k + 1))).opposite());
+                            _LDL.set(i, j, aij);
+                            _LDL.set(j, i, aij);
+                        }
+                    }
+                    for (int i = k + 2; i < n; i++) { // Multipliers.
+                        _LDL.set(i, k, l1.get(i - k - 2));
+                        _LDL.set(i, k + 1, l2.get(i - k - 2));
+                    }
+                } finally {
+                    FastTable.recycle(l1);
+                    FastTable.recycle(l2);
+                }
+                k += 2;
+            }
+        }
+    }
+
+    // Exchanges the rows and columns i and j.
+    private void swap(int i, int j) {
+        final int n = _n;
+        for (int c = 0; c < n; c++) {
+            F tmp = _LDL.get(i, c);
+            _LDL.set(i, c, _LDL.get(j, c));
+            _LDL.set(j, c, tmp);
+        }
+        for (int r = 0; r < n; r++) {
+            F tmp = _LDL.get(r, i);
+            _LDL.set(r, i, _LDL.get(r, j));
+            _LDL.set(r, j, tmp);
+        }
+        Index tmp = _pivots.get(i);
+        _pivots.set(i, _pivots.get(j));
+        _pivots.set(j, tmp);
+    }
+
+    // Returns the magnitude of the specified element used for pivoting.
+    private static <F extends Field<F>> double magnitudeOf(F e) {
+        if (e instanceof Complex)
+            return ((Complex) e).magnitude();
+        if (e instanceof Number)
+            return MathLib.abs(((Number) e).doubleValue());
+        return e.equals(e.plus(e)) ? 0.0 : 1.0;
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.ldl()</code> using forward and back substitutions.
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public DenseMatrix<F> solve(Matrix<F> B) {
+        if (_n != B.getNumberOfRows())
+            throw new DimensionException("Input vector has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        final int n = _n;
+        final int p = B.getNumberOfColumns();
+
+        // Copies B with pivoting.
+        DenseMatrixImpl<F> Y = DenseMatrixImpl.FACTORY.object();
+        for (int i = 0; i < n; i++) {
+            DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
+            int row = _pivots.get(i).intValue();
+            for (int j = 0; j < p; j++) {
+                V._elements.add(B.get(row, j));
+            }
+            Y._rows.add(V);
+        }
+
+        // Solves L * Z = P * B
+        for (int k = 0; k < n; k++) {
+            for (int i = firstBelow(k); i < n; i++) {
+                F lik = _LDL.get(i, k);
+                for (int j = 0; j < p; j++) {
+                    Y.set(i, j, Y.get(i, j).plus(lik.times(Y.get(k, j)).opposite()));
+                }
+            }
+        }
+        // Solves D * W = Z
+        for (int k = 0; k < n; k += _blocks[k]) {
+            if (_blocks[k] == 1) {
+                F dkInv = _LDL.get(k, k).inverse();
+                for (int j = 0; j < p; j++) {
+                    Y.set(k, j, dkInv.times(Y.get(k, j)));
+                }
+            } else {
+                F d11 = _LDL.get(k, k);
+                F d21 = _LDL.get(k + 1, k);
+                F d22 = _LDL.get(k + 1, k + 1);
+                F detInv = d11.times(d22).plus(d21.times(d21).opposite()).inverse();
+                for (int j = 0; j < p; j++) {
+                    F z1 = Y.get(k, j);
+                    F z2 = Y.get(k + 1, j);
+                    Y.set(k, j, detInv.times(d22.times(z1).plus(d21.times(z2).opposite())));
+                    Y.set(k + 1, j, detInv.times(d11.times(z2).plus(d21.times(z1).opposite())));
+                }
+            }
+        }
+        // Solves L' * Y = W
+        for (int k = n - 1; k >= 0; k--) {
+            for (int i = firstBelow(k); i < n; i++) {
+                F lik = _LDL.get(i, k);
+                for (int j = 0; j < p; j++) {
+                    Y.set(k, j, Y.get(k, j).plus(lik.times(Y.get(i, j)).opposite()));
+                }
+            }
+        }
+
+        // X = P' * Y
+        DenseMatrixImpl<F> X = DenseMatrixImpl.FACTORY.object();
+        for (int i = 0; i < n; i++) {
+            X._rows.add(null);
+        }
+        for (int i = 0; i < n; i++) {
+            X._rows.set(_pivots.get(i).intValue(), Y._rows.get(i));
+        }
+        return X;
+    }
+
+    // Returns the first row of the column k of L below the block of D.
+    private int firstBelow(int k) {
+        return (_blocks[k] == 2) ? k + 2 : k + 1;
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.ldl()</code> using forward and back substitutions.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public DenseVector<F> solve(Vector<F> y) {
+        DenseMatrix<F> Y = DenseMatrix.valueOf(y).transpose();
+        return solve(Y).getColumn(0);
+    }
+
+    /**
+     * Returns the inverse of the matrix source.
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    public DenseMatrix<F> inverse() {
+        F d = _LDL.get(0, 0);
+        if (LDLDecomposition.magnitudeOf(d) == 0.0) { // Zero diagonal of a 2x2 block.
+            d = _LDL.get(1, 0);
+        }
+        return solve(DiagonalMatrix.valueOf(_n, d.times(d.inverse())));
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition (product of the determinants of the blocks of
+     * <code>D</code>).
+     *
+     * @return the determinant of the matrix source.
+     */
+    public F determinant() {
+        F product = null;
+        for (int k = 0; k < _n; k += _blocks[k]) {
+            F det = blockDeterminant(k);
+            product = (product == null) ? det : product.times(det);
+        }
+        return product;
+    }
+
+    /**
+     * Returns the natural logarithm of the absolute value of the
+     * determinant of the {@link Matrix} having this decomposition
+     * (sum over the blocks of <code>D</code>, the determinant itself
+     * may overflow). The elements should be {@link Number numbers}.
+     *
+     * @return <code>log(|det(A)|)</code> or
+     *         <code>Double.NEGATIVE_INFINITY</code> if the matrix
+     *         source is singular.
+     */
+    public double logDeterminant() {
+        double sum = 0.0;
+        for (int k = 0; k < _n; k += _blocks[k]) {
+            sum += MathLib.log(LDLDecomposition.magnitudeOf(blockDeterminant(k)));
+        }
+        return sum;
+    }
+
+    // Returns the determinant of the block of D starting at row k.
+    private F blockDeterminant(int k) {
+        if (_blocks[k] == 1)
+            return _LDL.get(k, k);
+        F d21 = _LDL.get(k + 1, k);
+        return _LDL.get(k, k).times(_LDL.get(k + 1, k + 1)).plus(d21.times(d21).opposite());
+    }
+
+    /**
+     * Returns the lower matrix decomposition (<code>L</code>) with diagonal
+     * elements equal to the multiplicative identity for F.
+     *
+     * @param zero the additive identity for F.
+     * @param one the multiplicative identity for F.
+     * @return the lower matrix.
+     */
+    public DenseMatrix<F> getLower(F zero, F one) {
+        DenseMatrixImpl<F> L = _LDL.copy();
+        for (int i = 0; i < _n; i++) {
+            for (int j = i + 1; j < _n; j++) {
+                L.set(i, j, zero);
+            }
+            L.set(i, i, one);
+            if (_blocks[i] == 2) { // Sub-diagonal element of D.
+                L.set(i + 1, i, zero);
+            }
+        }
+        return L;
+    }
+
+    /**
+     * Returns the block diagonal matrix <code>D</code> (1x1 and
+     * symmetric 2x2 blocks).
+     *
+     * @param zero the additive identity for F.
+     * @return the matrix <code>D</code>.
+     */
+    public DenseMatrix<F> getBlockDiagonal(F zero) {
+        DenseMatrixImpl<F> D = DenseMatrixImpl.FACTORY.object();
+        for (int i = 0; i < _n; i++) {
+            DenseVectorImpl<F> V = DenseVectorImpl.FACTORY.object();
+            for (int j = 0; j < _n; j++) {
+                V._elements.add(zero);
+            }
+            D._rows.add(V);
+        }
+        for (int k = 0; k < _n; k += _blocks[k]) {
+            D.set(k, k, _LDL.get(k, k));
+            if (_blocks[k] == 2) {
+                D.set(k + 1, k, _LDL.get(k + 1, k));
+                D.set(k, k + 1, _LDL.get(k + 1, k));
+                D.set(k + 1, k + 1, _LDL.get(k + 1, k + 1));
+            }
+        }
+        return D;
+    }
+
+    /**
+     * Returns the pivots elements of this decomposition.
+     *
+     * @return the row indices after permutation.
+     */
+    public FastTable<Index> getPivots() {
+        return _pivots;
+    }
+
+}
@@ -44,7 +44,7 @@ import javolution.util.Index;
  * @see <a href="http://en.wikipedia.org/wiki/LU_decomposition">
  *      Wikipedia: LU decomposition</a>
  */
-public final class LUDecomposition<F extends Field<F>>  {
+public final class LUDecomposition<F extends Field<F>> implements Solver<F> {
 
     /**
      * Holds the default comparator for pivoting.
@@ -230,33 +230,59 @@ public final class LUDecomposition<F extends Field<F>>  {
             }
         }
 
-        // Solves L * Y = pivot(B)
-        for (int k = 0; k < _n; k++) {
-            for (int i = k + 1; i < _n; i++) {
-                F luik = _LU.get(i, k);
+        // Each solved row is negated once and applied to all the
+        // right-hand sides (columns of X).
+        FastTable<F> minusRow = FastTable.newInstance();
+        try {
+            // Solves L * Y = pivot(B)
+            for (int k = 0; k < _n; k++) {
+                minusRow.reset();
                 for (int j = 0; j < n; j++) {
-                    X.set(i, j, X.get(i, j).plus(
-                            luik.times(X.get(k, j).opposite())));
+                    minusRow.add(X.get(k, j).opposite());
+                }
+                for (int i = k + 1; i < _n; i++) {
+                    F luik = _LU.get(i, k);
+                    for (int j = 0; j < n; j++) {
+                        X.set(i, j, X.get(i, j).plus(luik.times(minusRow.get(j))));
+                    }
                 }
             }
-        }
 
-        // Solves U * X = Y;
-        for (int k = _n - 1; k >= 0; k--) {
-            for (int j = 0; j < n; j++) {
-                X.set(k, j, (_LU.get(k, k).inverse()).times(X.get(k, j)));
-            }
-            for (int i = 0; i < k; i++) {
-                F luik = _LU.get(i, k);
+            // Solves U * X = Y;
+            for (int k = _n - 1; k >= 0; k--) {
+                F lukkInv = _LU.get(k, k).inverse();
+                minusRow.reset();
                 for (int j = 0; j < n; j++) {
-                    X.set(i, j, X.get(i, j).plus(
-                            luik.times(X.get(k, j).opposite())));
+                    F xkj = lukkInv.times(X.get(k, j));
+                    X.set(k, j, xkj);
+                    minusRow.add(xkj.opposite());
+                }
+                for (int i = 0; i < k; i++) {
+                    F luik = _LU.get(i, k);
+                    for (int j = 0; j < n; j++) {
+                        X.set(i, j, X.get(i, j).plus(luik.times(minusRow.get(j))));
+                    }
                 }
             }
+        } finally {
+            FastTable.recycle(minusRow);
         }
         return X;
     }
 
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.lu()</code> using back and forward substitutions.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    public DenseVector<F> solve(Vector<F> y) {
+        DenseMatrix<F> Y = DenseMatrix.valueOf(y).transpose();
+        return solve(Y).getColumn(0);
+    }
+
     private DenseMatrixImpl<F> createNullDenseMatrix(int m, int n) {
         DenseMatrixImpl<F> M = DenseMatrixImpl.FACTORY.object();
         for (int i = 0; i < m; i++) {
@@ -413,4 +439,4 @@ public final class LUDecomposition<F extends Field<F>>  {
         return _pivots;
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -23,6 +23,7 @@ import javolution.text.TextFormat;
 import javolution.util.FastTable;
 import javolution.util.Index;
 import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.Rational;
 import org.jscience.mathematics.structure.Field;
 import org.jscience.mathematics.structure.Ring;
 import org.jscience.mathematics.structure.VectorSpace;
@@ -50,14 +51,20 @@ import org.jscience.mathematics.structure.VectorSpace;
  *
  *        // Creates an identity matrix (4x4) of complex numbers.
  *        DiagonalMatrix<Complex> IDENTITY = DiagonalMatrix.valueOf(4, Complex.ONE);
+ *
+ *        // Creates a tridiagonal matrix (3x3) of 64 bits floating points numbers
+ *        // (only the band is stored, see also Float64TriangularMatrix,
+ *        // Float64SymmetricMatrix, Float64ToeplitzMatrix, Float64CirculantMatrix).
+ *        Float64BandMatrix M3 = Float64BandMatrix.valueOf(3, 1, 1, new double[] {
+ *            0, 2, -1,  -1, 2, -1,  -1, 2, 0 });
  *     [/code]
  *     Users may creates additional matrix specialization. For example:
  *     [code]
- *     public class TriangularMatrix<F extends Field<F>> extends Matrix<F> {
+ *     public class HessenbergMatrix<F extends Field<F>> extends Matrix<F> {
  *          ...
  *     }
  *     ...
- *     public class BandMatrix<F extends Field<F>> extends SparseMatrix<F> {
+ *     public class BlockDiagonalMatrix<F extends Field<F>> extends SparseMatrix<F> {
  *          ...
  *     }
  *     [/code]
@@ -205,6 +212,38 @@ public abstract class Matrix<F extends Field<F>>
      */
     public abstract Matrix<F> getSubMatrix(List<Index> rows, List<Index> columns);
 
+    /**
+     * Returns the sub-matrix formed by the elements in the specified
+     * ranges of rows and columns (convenience method). Dense and sparse
+     * sub-matrices are views reading through this matrix (no copy is
+     * performed), their {@link #copy} is the materialized sub-matrix.
+     *
+     * @param  fromRow the first row (inclusive).
+     * @param  toRow the last row (exclusive).
+     * @param  fromColumn the first column (inclusive).
+     * @param  toColumn the last column (exclusive).
+     * @return <code>getSubMatrix(Index.rangeOf(fromRow, toRow),
+     *         Index.rangeOf(fromColumn, toColumn))</code>
+     * @throws IndexOutOfBoundsException if any of the ranges is outside
+     *         this matrix.
+     */
+    public Matrix<F> getSubMatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        return this.getSubMatrix(Index.rangeOf(fromRow, toRow),
+                Index.rangeOf(fromColumn, toColumn));
+    }
+
+    // Returns the indices of the specified list (range [0..dimension[).
+    static int[] indicesOf(List<Index> indices, int dimension) {
+        int[] tmp = new int[indices.size()];
+        for (int k = 0; k < tmp.length; k++) {
+            tmp[k] = indices.get(k).intValue();
+            if ((tmp[k] < 0) || (tmp[k] >= dimension))
+                throw new IndexOutOfBoundsException("Index " + tmp[k]
+                        + " outside [0.." + dimension + "[");
+        }
+        return tmp;
+    }
+
     /**
      * Returns the negation of this matrix.
      *
@@ -268,18 +307,13 @@ public abstract class Matrix<F extends Field<F>>
     /**
      * Returns the inverse of this matrix (must be square).
      * The default implementation returns
-     * <code>determinant.inverse().times(this.adjoint())</code>
+     * <code>this.factorize().inverse()</code>.
      *
      * @return <code>1 / this</code>
      * @throws DimensionException if this matrix is not square.
      */
     public Matrix<F> inverse() {
-        if (!isSquare())
-            throw new DimensionException("Matrix not square");
-        // F product might not be commutative.
-        DiagonalMatrix<F> detInv = DiagonalMatrix.valueOf(this.getNumberOfRows(),
-                this.determinant().inverse());
-        return detInv.times(this.adjoint());
+        return this.factorize().inverse();
     }
 
     /**
@@ -303,37 +337,21 @@ public abstract class Matrix<F extends Field<F>>
         if (isSquare())
             return this.inverse();
         Matrix<F> thisTranspose = this.transpose();
+        if (getNumberOfRows() < getNumberOfColumns()) // Right inverse.
+            return thisTranspose.times((this.times(thisTranspose)).inverse());
         return (thisTranspose.times(this)).inverse().times(thisTranspose);
     }
 
     /**
      * Returns the determinant of this matrix. The default implementation
-     * uses an expansion by minors (also known as Laplacian).
-     * This algorithm is division free but too slow for {@link DenseMatrix}
-     * which uses the LU decomposition.
+     * returns the determinant of the {@link #factorize() factorization}
+     * of this matrix (<code>O(n³)</code>).
      *
      * @return this matrix determinant.
      * @throws DimensionException if this matrix is not square.
      */
     public F determinant() {
-        if (!isSquare())
-            throw new DimensionException("Matrix not square");
-        if (this.getNumberOfRows() == 1)
-            return this.get(0, 0);
-        // This algorithm is division free but too slow for dense matrix.
-        Vector<F> row0 = this.getRow(0);
-        F det = null;
-        for (int i = 0; i < row0.getDimension(); i++) {
-            F e = row0.get(i);
-            if (e.equals(e.opposite()))
-                continue; // Optimization.
-            F d = e.times(cofactor(0, i));
-            if (i % 2 != 0) {
-                d = d.opposite();
-            }
-            det = (det == null) ? d : det.plus(d);
-        }
-        return det == null ? row0.get(0) : det; // det null only if zero everywhere.
+        return this.factorize().determinant();
     }
 
     /**
@@ -379,13 +397,26 @@ public abstract class Matrix<F extends Field<F>>
      * Returns the adjoint of this matrix. It is obtained by replacing each
      * element in this matrix with its cofactor and applying a + or - sign
      * according (-1)**(i+j), and then finding the transpose of the resulting
-     * matrix.
+     * matrix. For non-singular matrices the default implementation
+     * returns <code>determinant() · inverse()</code> (elimination);
+     * cofactors are only evaluated for singular matrices.
      *
      * @return the adjoint of this matrix.
      * @throws DimensionException if this matrix is not square or if
      *         its dimension is less than 2.
      */
     public Matrix<F> adjoint() {
+        if (!isSquare())
+            throw new DimensionException("Matrix not square");
+        if (BareissDecomposition.isExact(this)) {
+            BareissDecomposition<F> bd = BareissDecomposition.valueOf(this);
+            if (!bd.isSingular())
+                return bd.adjoint();
+        } else {
+            LUDecomposition<F> lu = LUDecomposition.valueOf(this);
+            if (!hasZeroPivot(lu))
+                return lu.inverse().times(lu.determinant());
+        }
         DenseMatrixImpl<F> M = DenseMatrixImpl.FACTORY.object();
         final int m = this.getNumberOfRows();
         final int n = this.getNumberOfColumns();
@@ -400,6 +431,17 @@ public abstract class Matrix<F extends Field<F>>
         return M.transpose();
     }
 
+    // Indicates if the specified decomposition has a zero pivot (singular).
+    private static <F extends Field<F>> boolean hasZeroPivot(LUDecomposition<F> lu) {
+        DenseMatrix<F> LU = lu.getLU();
+        for (int i = 0, n = LU.getNumberOfRows(); i < n; i++) {
+            F e = LU.get(i, i);
+            if (e.equals(e.plus(e)))
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Indicates if this matrix is square.
      *
@@ -426,7 +468,7 @@ public abstract class Matrix<F extends Field<F>>
     /**
      * Solves this matrix for the specified matrix (returns <code>x</code>
      * such as <code>this · x = y</code>). The default implementation
-     * returns <code>this.inverse().times(y)</code>
+     * returns <code>this.factorize().solve(y)</code>
      * 
      * @param  y the matrix for which the solution is calculated.
      * @return <code>x</code> such as <code>this · x = y</code>
@@ -434,7 +476,28 @@ public abstract class Matrix<F extends Field<F>>
      *         do not match.
      */
     public Matrix<F> solve(Matrix<F> y) {
-        return this.inverse().times(y); // Default implementation.
+        return this.factorize().solve(y); // Default implementation.
+    }
+
+    /**
+     * Returns the factorization of this matrix (must be square) to be
+     * reused for solving this matrix with many right-hand sides.
+     * The default implementation returns the {@link LUDecomposition}, the
+     * fraction-free {@link BareissDecomposition} for exact elements or the
+     * {@link MultiModularDecomposition} for large rational matrices.
+     *
+     * @return the solver holding the factorization of this matrix.
+     * @throws DimensionException if this matrix is not square.
+     */
+    public Solver<F> factorize() {
+        if (!isSquare())
+            throw new DimensionException("Matrix not square");
+        if (MultiModularDecomposition.isApplicable(this))
+            return (Solver<F>) (Solver) MultiModularDecomposition.valueOf(
+                    (Matrix<Rational>) this);
+        if (BareissDecomposition.isExact(this))
+            return BareissDecomposition.valueOf(this);
+        return LUDecomposition.valueOf(this);
     }
 
     /**
@@ -483,7 +546,11 @@ public abstract class Matrix<F extends Field<F>>
 
     /**
      * Returns the linear algebraic matrix tensor product of this matrix
-     * and another (Kronecker product).
+     * and another (Kronecker product). The product returned is a
+     * {@link KroneckerMatrix} holding copies of both matrices (the mp-by-nq
+     * product is not built, later modifications of the operands are not
+     * reflected), its {@link DenseMatrix#valueOf(Matrix) dense} form can
+     * be obtained for small matrices.
      *
      * @param  that the second matrix.
      * @return <code>this &otimes; that</code>
@@ -491,26 +558,7 @@ public abstract class Matrix<F extends Field<F>>
      *         Wikipedia: Kronecker Product</a>
      */
     public Matrix<F> tensor(Matrix<F> that) {
-        //  If this is a m-by-n matrix and that is a p-by-q matrix,
-        // then the Kronecker product is the mp-by-nq block.
-        final int m = this.getNumberOfRows();
-        final int n = this.getNumberOfColumns();
-        final int p = that.getNumberOfRows();
-        final int q = that.getNumberOfColumns();
-        DenseMatrixImpl M = DenseMatrixImpl.FACTORY.object();
-        for (int i0 = 0; i0 < m; i0++) {
-            for (int i1 = 0; i1 < p; i1++) {
-                DenseVectorImpl V = DenseVectorImpl.FACTORY.object();
-                for (int j0 = 0; j0 < n; j0++) {
-                    for (int j1 = 0; j1 < q; j1++) {
-                        F e = this.get(i0, j0).times(that.get(i1, j1));
-                        V._elements.add(e);
-                    }
-                }
-                M._rows.add(V);
-            }
-        }
-        return M;
+        return KroneckerMatrix.valueOf(this.copy(), that.copy());
     }
 
     /**
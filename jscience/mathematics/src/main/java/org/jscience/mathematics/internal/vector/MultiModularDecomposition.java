@@ -0,0 +1,616 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ConcurrentContext;
+import javolution.context.ObjectFactory;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.number.LargeInteger;
+import org.jscience.mathematics.number.ModuloInteger;
+import org.jscience.mathematics.number.Rational;
+
+/**
+ * <p> This class represents the multi-modular elimination of a square
+ *     {@link Rational} matrix (integer matrices having a unit divisor).</p>
+ *
+ * <p> The rows are first scaled to integers; the elimination is then
+ *     performed modulo word-size primes (<code>31</code> bits, residues
+ *     in <code>[0, p)</code> as for {@link ModuloInteger}) on primitive
+ *     <code>long</code>, the primes being processed concurrently
+ *     (see {@link ConcurrentContext}). The exact determinant is
+ *     reconstructed using the Chinese remainder theorem; the number of
+ *     primes is given by the Hadamard bound <code>|det| &le; Π ||row||</code>
+ *     (no more primes than necessary). Solutions are reconstructed by
+ *     rational reconstruction; attempts are made after each batch of primes
+ *     (batches of doubling size) and terminate early as soon as the
+ *     candidate solution verifies the system exactly (the Cramer bound
+ *     guarantees termination).
+ *     Unlike {@link BareissDecomposition} the intermediate values are
+ *     never larger than a machine word.</p>
+ *
+ * <p> This decomposition is used by default for the determinant,
+ *     inverse and solutions of rational matrices of dimension at least
+ *     {@link #THRESHOLD}.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Chinese_remainder_theorem">
+ *      Wikipedia: Chinese remainder theorem</a>
+ */
+public final class MultiModularDecomposition implements Solver<Rational> {
+
+    /**
+     * Holds the minimum dimension for which rational matrices
+     * determinant, inverse and solutions are calculated using the
+     * multi-modular decomposition (instead of the fraction-free
+     * elimination).
+     */
+    public static final int THRESHOLD = 16;
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<MultiModularDecomposition> FACTORY = new ObjectFactory<MultiModularDecomposition>() {
+
+        protected MultiModularDecomposition create() {
+            return new MultiModularDecomposition();
+        }
+
+        @Override
+        protected void cleanup(MultiModularDecomposition mmd) {
+            mmd._A = null;
+            mmd._rowScales = null;
+            mmd._determinant = null;
+        }
+    };
+
+    /**
+     * Holds the number of bits of the primes (their product fits in a
+     * <code>long</code>).
+     */
+    private static final int PRIME_BITS = 31;
+
+    /**
+     * Holds the primes (descending from <code>2<sup>31</sup></code>).
+     */
+    private static long[] Primes = new long[0];
+
+    /**
+     * Holds the dimension of the square matrix source.
+     */
+    private int _n;
+
+    /**
+     * Holds the integer matrix (row-major, rows of the source scaled
+     * by their denominators lcm).
+     */
+    private LargeInteger[] _A;
+
+    /**
+     * Holds the scaling factor of each row.
+     */
+    private LargeInteger[] _rowScales;
+
+    /**
+     * Holds the base 2 logarithm of the Hadamard bound of the integer matrix.
+     */
+    private double _hadamardBits;
+
+    /**
+     * Holds the determinant of the integer matrix.
+     */
+    private LargeInteger _determinant;
+
+    /**
+     * Holds the rank of the matrix source.
+     */
+    private int _rank;
+
+    /**
+     * Default constructor.
+     */
+    private MultiModularDecomposition() {
+    }
+
+    /**
+     * Returns the multi-modular decomposition of the specified matrix.
+     *
+     * @param  source the matrix for which the decomposition is calculated.
+     * @return the multi-modular decomposition of the specified matrix.
+     * @throws DimensionException if the specified matrix is not square.
+     */
+    public static MultiModularDecomposition valueOf(Matrix<Rational> source) {
+        if (!source.isSquare())
+            throw new DimensionException("Matrix is not square");
+        MultiModularDecomposition mmd = FACTORY.object();
+        mmd._n = source.getNumberOfRows();
+        mmd.construct(source);
+        return mmd;
+    }
+
+    /**
+     * Indicates if the specified matrix should be decomposed using the
+     * multi-modular decomposition (square rational matrix of dimension
+     * at least {@link #THRESHOLD}).
+     */
+    static boolean isApplicable(Matrix<?> matrix) {
+        return (matrix.getNumberOfRows() >= THRESHOLD) && matrix.isSquare()
+                && (matrix.get(0, 0) instanceof Rational);
+    }
+
+    /**
+     * Constructs the decomposition of the specified matrix.
+     */
+    private void construct(Matrix<Rational> source) {
+        final int n = _n;
+        _A = new LargeInteger[n * n];
+        _rowScales = new LargeInteger[n];
+        _hadamardBits = 0;
+        for (int i = 0; i < n; i++) {
+            LargeInteger lcm = LargeInteger.ONE;
+            for (int j = 0; j < n; j++) {
+                lcm = lcm(lcm, source.get(i, j).getDivisor());
+            }
+            _rowScales[i] = lcm;
+            for (int j = 0; j < n; j++) {
+                Rational e = source.get(i, j);
+                _A[i * n + j] = e.getDividend().times(lcm.divide(e.getDivisor()));
+            }
+            _hadamardBits += normBits(_A, i * n, 1, n);
+        }
+        final long[] primes = primes(primeCount(_hadamardBits + 1));
+        final long[][] residues = new long[primes.length][];
+        execute(new Modular(this, primes, null, residues));
+        // Reconstruction.
+        _rank = 0;
+        LargeInteger x = LargeInteger.ZERO;
+        LargeInteger modulus = LargeInteger.ONE;
+        for (int k = 0; k < primes.length; k++) {
+            _rank = MathLib.max(_rank, (int) residues[k][1]);
+            x = combine(x, modulus, residues[k][0], primes[k]);
+            modulus = modulus.times(primes[k]);
+        }
+        _determinant = (_rank < n) ? LargeInteger.ZERO : symmetric(x, modulus);
+    }
+
+    /**
+     * Indicates if the matrix source is singular.
+     *
+     * @return <code>determinant() == 0</code>
+     */
+    public boolean isSingular() {
+        return _rank < _n;
+    }
+
+    /**
+     * Returns the rank of the matrix source (the maximum rank modulo the
+     * primes, exact since no non-zero minor can be divisible by primes
+     * whose product exceeds the Hadamard bound).
+     *
+     * @return the rank of the matrix source.
+     */
+    public int getRank() {
+        return _rank;
+    }
+
+    /**
+     * Returns the determinant of the {@link Matrix} having this
+     * decomposition.
+     *
+     * @return the determinant of the matrix source.
+     */
+    public Rational determinant() {
+        LargeInteger scale = LargeInteger.ONE;
+        for (int i = 0; i < _n; i++) {
+            scale = scale.times(_rowScales[i]);
+        }
+        return Rational.valueOf(_determinant, scale);
+    }
+
+    /**
+     * Returns the solution X of the equation: A * X = B  with
+     * <code>this = A.multiModular()</code>.
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     * @throws ArithmeticException if the matrix source is singular.
+     */
+    public DenseMatrix<Rational> solve(Matrix<Rational> B) {
+        if (_n != B.getNumberOfRows())
+            throw new DimensionException("Input vector has "
+                    + B.getNumberOfRows() + " rows instead of " + _n);
+        if (isSingular())
+            throw new ArithmeticException("Matrix is singular");
+        final int n = _n;
+        final int p = B.getNumberOfColumns();
+
+        // Integer right-hand side (rows scaled as A, then columns scaled).
+        final LargeInteger[] b = new LargeInteger[n * p];
+        final LargeInteger[] columnScales = new LargeInteger[p];
+        double maxNormBits = 0;
+        for (int j = 0; j < p; j++) {
+            LargeInteger lcm = LargeInteger.ONE;
+            for (int i = 0; i < n; i++) {
+                lcm = lcm(lcm, B.get(i, j).getDivisor());
+            }
+            columnScales[j] = lcm;
+            for (int i = 0; i < n; i++) {
+                Rational e = B.get(i, j);
+                b[i * p + j] = e.getDividend().times(_rowScales[i]).times(
+                        lcm.divide(e.getDivisor()));
+            }
+            maxNormBits = MathLib.max(maxNormBits, normBits(b, j, p, n));
+        }
+
+        // Cramer's rule: |numerators| <= Π ||A columns|| · ||b||, denominators <= |det|
+        double columnBits = 0;
+        for (int j = 0; j < n; j++) {
+            columnBits += normBits(_A, j, n, n);
+        }
+        final int minPrimes = primeCount(columnBits + maxNormBits + _hadamardBits + 2);
+        int batch = MathLib.min(minPrimes, 2 * (ConcurrentContext.getConcurrency() + 1));
+
+        LargeInteger[] x = new LargeInteger[n * p];
+        for (int k = 0; k < x.length; k++) {
+            x[k] = LargeInteger.ZERO;
+        }
+        LargeInteger modulus = LargeInteger.ONE;
+        for (int start = 0;; start += batch, batch *= 2) { // Terminates (bound).
+            final long[] primes = primes(start + batch);
+            final long[] batchPrimes = new long[batch];
+            System.arraycopy(primes, start, batchPrimes, 0, batch);
+            final long[][] solutions = new long[batch][];
+            execute(new Modular(this, batchPrimes, b, solutions));
+            for (int k = 0; k < batch; k++) {
+                if (solutions[k] == null)
+                    continue; // Prime dividing the determinant.
+                for (int e = 0; e < x.length; e++) {
+                    x[e] = combine(x[e], modulus, solutions[k][e], batchPrimes[k]);
+                }
+                modulus = modulus.times(batchPrimes[k]);
+            }
+            DenseMatrixImpl<Rational> X = reconstruct(x, modulus, p, columnScales);
+            if ((X != null) && verifies(X, B))
+                return X;
+        }
+    }
+
+    /**
+     * Returns the solution x of the equation: A * x = y  with
+     * <code>this = A.multiModular()</code>.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     * @throws ArithmeticException if the matrix source is singular.
+     */
+    public DenseVector<Rational> solve(Vector<Rational> y) {
+        DenseMatrix<Rational> Y = DenseMatrix.valueOf(y).transpose();
+        return solve(Y).getColumn(0);
+    }
+
+    /**
+     * Returns the inverse of the matrix source.
+     *
+     * @return <code>this.solve(Identity)</code>
+     * @throws ArithmeticException if the matrix source is singular.
+     */
+    public DenseMatrix<Rational> inverse() {
+        return solve(DiagonalMatrix.valueOf(_n, Rational.ONE));
+    }
+
+    // Returns the rational solution from its residues or null if the
+    // reconstruction fails.
+    private DenseMatrixImpl<Rational> reconstruct(LargeInteger[] x, LargeInteger modulus,
+            int p, LargeInteger[] columnScales) {
+        final LargeInteger bound = modulus.shiftRight(1).sqrt();
+        DenseMatrixImpl<Rational> X = DenseMatrixImpl.FACTORY.object();
+        for (int i = 0; i < _n; i++) {
+            DenseVectorImpl<Rational> V = DenseVectorImpl.FACTORY.object();
+            for (int j = 0; j < p; j++) {
+                Rational r = rationalOf(x[i * p + j], modulus, bound);
+                if (r == null)
+                    return null;
+                V._elements.add(r.divide(Rational.valueOf(columnScales[j], LargeInteger.ONE)));
+            }
+            X._rows.add(V);
+        }
+        return X;
+    }
+
+    // Indicates if the specified candidate is the solution of the system.
+    private boolean verifies(DenseMatrixImpl<Rational> X, Matrix<Rational> B) {
+        final int n = _n;
+        for (int i = 0; i < n; i++) {
+            Rational scale = Rational.valueOf(_rowScales[i], LargeInteger.ONE);
+            for (int j = 0; j < B.getNumberOfColumns(); j++) {
+                Rational sum = Rational.ZERO;
+                for (int k = 0; k < n; k++) {
+                    if (!_A[i * n + k].isZero()) {
+                        sum = sum.plus(X.get(k, j).times(
+                                Rational.valueOf(_A[i * n + k], LargeInteger.ONE)));
+                    }
+                }
+                if (!sum.equals(B.get(i, j).times(scale)))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    // Executes the specified modular computations (concurrently).
+    private static void execute(Modular modular) {
+        final int count = modular._primes.length;
+        final int tasks = MathLib.min(count, ConcurrentContext.getConcurrency() + 1);
+        if (tasks <= 1) {
+            modular.run();
+            return;
+        }
+        ConcurrentContext.enter();
+        try {
+            for (int t = 0; t < tasks; t++) {
+                ConcurrentContext.execute(modular.subset(count * t / tasks, count * (t + 1) / tasks));
+            }
+        } finally {
+            ConcurrentContext.exit();
+        }
+    }
+
+    /**
+     * Holds the computations modulo a set of primes.
+     */
+    private static final class Modular implements Runnable {
+
+        private final MultiModularDecomposition _mmd;
+
+        private final long[] _primes;
+
+        private final LargeInteger[] _b;
+
+        private final long[][] _results;
+
+        private final int _from, _to;
+
+        Modular(MultiModularDecomposition mmd, long[] primes, LargeInteger[] b, long[][] results) {
+            this(mmd, primes, b, results, 0, primes.length);
+        }
+
+        private Modular(MultiModularDecomposition mmd, long[] primes, LargeInteger[] b,
+                long[][] results, int from, int to) {
+            _mmd = mmd;
+            _primes = primes;
+            _b = b;
+            _results = results;
+            _from = from;
+            _to = to;
+        }
+
+        Modular subset(int from, int to) {
+            return new Modular(_mmd, _primes, _b, _results, from, to);
+        }
+
+        public void run() {
+            for (int k = _from; k < _to; k++) {
+                _results[k] = (_b == null) ? _mmd.determinantModulo(_primes[k])
+                        : _mmd.solveModulo(_b, _primes[k]);
+            }
+        }
+    }
+
+    // Returns the determinant and the rank modulo the specified prime.
+    private long[] determinantModulo(long prime) {
+        final int n = _n;
+        final long[] a = residues(_A, prime);
+        long det = 1;
+        int rank = 0;
+        for (int k = 0; k < n; k++) { // Column k, pivot row 'rank'.
+            int pivot = rank;
+            while ((pivot < n) && (a[pivot * n + k] == 0)) {
+                pivot++;
+            }
+            if (pivot == n) {
+                det = 0;
+                continue;
+            }
+            if (pivot != rank) {
+                swapRows(a, n, pivot, rank);
+                det = prime - det;
+            }
+            final long akk = a[rank * n + k];
+            det = det * akk % prime;
+            final long inv = inverse(akk, prime);
+            for (int i = rank + 1; i < n; i++) {
+                final long f = a[i * n + k] * inv % prime;
+                if (f == 0)
+                    continue;
+                for (int j = k + 1; j < n; j++) {
+                    a[i * n + j] = (a[i * n + j] + (prime - f) * a[rank * n + j]) % prime;
+                }
+                a[i * n + k] = 0;
+            }
+            rank++;
+        }
+        return new long[] { det % prime, rank };
+    }
+
+    // Returns the solution modulo the specified prime (null if singular).
+    private long[] solveModulo(LargeInteger[] b, long prime) {
+        final int n = _n;
+        final int p = b.length / n;
+        final long[] a = residues(_A, prime);
+        final long[] x = residues(b, prime);
+        for (int k = 0; k < n; k++) { // Gauss-Jordan.
+            int pivot = k;
+            while ((pivot < n) && (a[pivot * n + k] == 0)) {
+                pivot++;
+            }
+            if (pivot == n)
+                return null;
+            if (pivot != k) {
+                swapRows(a, n, pivot, k);
+                swapRows(x, p, pivot, k);
+            }
+            final long inv = inverse(a[k * n + k], prime);
+            for (int j = k; j < n; j++) {
+                a[k * n + j] = a[k * n + j] * inv % prime;
+            }
+            for (int j = 0; j < p; j++) {
+                x[k * p + j] = x[k * p + j] * inv % prime;
+            }
+            for (int i = 0; i < n; i++) {
+                final long f = a[i * n + k];
+                if ((i == k) || (f == 0))
+                    continue;
+                for (int j = k; j < n; j++) {
+                    a[i * n + j] = (a[i * n + j] + (prime - f) * a[k * n + j]) % prime;
+                }
+                for (int j = 0; j < p; j++) {
+                    x[i * p + j] = (x[i * p + j] + (prime - f) * x[k * p + j]) % prime;
+                }
+            }
+        }
+        return x;
+    }
+
+    // Returns the residues of the specified integers.
+    private static long[] residues(LargeInteger[] values, long prime) {
+        final long[] residues = new long[values.length];
+        final LargeInteger modulus = LargeInteger.valueOf(prime);
+        for (int i = 0; i < values.length; i++) {
+            residues[i] = residue(values[i], prime, modulus);
+        }
+        return residues;
+    }
+
+    // Returns the residue of the specified integer in [0, prime).
+    private static long residue(LargeInteger value, long prime, LargeInteger modulus) {
+        if (value.bitLength() < 63) {
+            final long r = value.longValue() % prime;
+            return (r < 0) ? r + prime : r;
+        }
+        return value.mod(modulus).longValue();
+    }
+
+    // Exchanges two rows of a row-major array.
+    private static void swapRows(long[] a, int n, int i, int j) {
+        for (int k = 0; k < n; k++) {
+            long tmp = a[i * n + k];
+            a[i * n + k] = a[j * n + k];
+            a[j * n + k] = tmp;
+        }
+    }
+
+    // Returns the inverse of a modulo the specified prime (Fermat).
+    private static long inverse(long a, long prime) {
+        long result = 1;
+        long base = a;
+        for (long e = prime - 2; e > 0; e >>= 1) {
+            if ((e & 1) != 0) {
+                result = result * base % prime;
+            }
+            base = base * base % prime;
+        }
+        return result;
+    }
+
+    // Returns y such as y = x mod modulus and y = r mod prime (Garner).
+    private static LargeInteger combine(LargeInteger x, LargeInteger modulus, long r, long prime) {
+        final LargeInteger p = LargeInteger.valueOf(prime);
+        final long xp = residue(x, prime, p);
+        final long mp = residue(modulus, prime, p);
+        final long t = (r - xp + prime) % prime * inverse(mp, prime) % prime;
+        return (t == 0) ? x : x.plus(modulus.times(t));
+    }
+
+    // Returns the representative of x in (-modulus/2, modulus/2].
+    private static LargeInteger symmetric(LargeInteger x, LargeInteger modulus) {
+        return (x.compareTo(modulus.shiftRight(1)) > 0) ? x.minus(modulus) : x;
+    }
+
+    // Returns the rational a/b such as a = b·x mod modulus with |a|,b <= bound
+    // or null if none (extended Euclid).
+    private static Rational rationalOf(LargeInteger x, LargeInteger modulus, LargeInteger bound) {
+        LargeInteger r0 = modulus, r1 = x;
+        LargeInteger t0 = LargeInteger.ZERO, t1 = LargeInteger.ONE;
+        while (r1.compareTo(bound) > 0) {
+            LargeInteger q = r0.divide(r1);
+            LargeInteger r = r0.minus(q.times(r1));
+            r0 = r1;
+            r1 = r;
+            LargeInteger t = t0.minus(q.times(t1));
+            t0 = t1;
+            t1 = t;
+        }
+        if (t1.isZero() || (t1.abs().compareTo(bound) > 0))
+            return null;
+        if (!r1.gcd(t1.abs()).equals(LargeInteger.ONE) && !r1.isZero())
+            return null;
+        return t1.isNegative() ? Rational.valueOf(r1.opposite(), t1.opposite())
+                : Rational.valueOf(r1, t1);
+    }
+
+    // Returns the least common multiple.
+    private static LargeInteger lcm(LargeInteger a, LargeInteger b) {
+        if (b.equals(LargeInteger.ONE))
+            return a;
+        return a.divide(a.gcd(b)).times(b);
+    }
+
+    // Returns an upper bound of the base 2 logarithm of the norm of the
+    // specified vector (at least zero).
+    private static double normBits(LargeInteger[] values, int offset, int stride, int length) {
+        int maxBits = 0;
+        for (int i = 0; i < length; i++) {
+            maxBits = MathLib.max(maxBits, values[offset + i * stride].bitLength());
+        }
+        if (maxBits == 0)
+            return 0;
+        double sum = 0; // Σ (2^bitLength / 2^maxBits)²
+        for (int i = 0; i < length; i++) {
+            final int shift = maxBits - values[offset + i * stride].bitLength();
+            sum += (shift > 600) ? 0 : MathLib.pow(2, -2 * shift);
+        }
+        return maxBits + 0.5 * MathLib.log(sum) / MathLib.log(2);
+    }
+
+    // Returns the number of primes for a modulus greater than 2^bits.
+    private static int primeCount(double bits) {
+        return MathLib.max(1, (int) (bits / (PRIME_BITS - 1)) + 1);
+    }
+
+    // Returns the specified number of primes (cached).
+    private static synchronized long[] primes(int count) {
+        if (Primes.length < count) {
+            long[] tmp = new long[MathLib.max(count, 2 * Primes.length)];
+            System.arraycopy(Primes, 0, tmp, 0, Primes.length);
+            long candidate = (Primes.length == 0) ? (1L << PRIME_BITS) + 1
+                    : Primes[Primes.length - 1];
+            for (int i = Primes.length; i < tmp.length; i++) {
+                do {
+                    candidate -= 2;
+                } while (!isPrime(candidate));
+                tmp[i] = candidate;
+            }
+            Primes = tmp;
+        }
+        long[] primes = new long[count];
+        System.arraycopy(Primes, 0, primes, 0, count);
+        return primes;
+    }
+
+    // Indicates if the specified odd number is prime (trial division).
+    private static boolean isPrime(long n) {
+        for (long d = 3; d * d <= n; d += 2) {
+            if (n % d == 0)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This interface represents the factorization of a square matrix
+ *     <code>A</code> retained for solving <code>A · x = y</code> with
+ *     many right-hand sides (the matrix is factored only once).
+ *     It is returned by {@link Matrix#factorize} and implemented by the
+ *     decompositions ({@link LUDecomposition}, {@link BareissDecomposition},
+ *     {@link Float64LUDecomposition}, {@link Float64SparseLUDecomposition},
+ *     ...).[code]
+ *         Solver<Float64> solver = A.factorize(); // O(n³)
+ *         for (Vector<Float64> y : rightHandSides) {
+ *             Vector<Float64> x = solver.solve(y); // O(n²)
+ *             ...
+ *         }[/code]</p>
+ *
+ * <p> Right-hand sides known in advance should be solved at once as the
+ *     columns of a matrix: the substitutions are then performed by rows
+ *     (or blocks of rows) for all the right-hand sides together.</p>
+ *
+ * <p> The factorization is a snapshot: later modifications of the matrix
+ *     factored (e.g. {@link DenseMatrix#plusInPlace in-place operations})
+ *     are not reflected.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+public interface Solver<F extends Field<F>> {
+
+    /**
+     * Returns the solution X of the equation: A * X = B (all the columns
+     * of B being solved together).
+     *
+     * @param  B the input matrix.
+     * @return the solution X = (1 / A) * B.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    Matrix<F> solve(Matrix<F> B);
+
+    /**
+     * Returns the solution x of the equation: A * x = y.
+     *
+     * @param  y the input vector.
+     * @return the solution x = (1 / A) * y.
+     * @throws DimensionException if the dimensions do not match.
+     */
+    Vector<F> solve(Vector<F> y);
+
+    /**
+     * Returns the inverse of the matrix factored.
+     *
+     * @return <code>this.solve(Identity)</code>
+     */
+    Matrix<F> inverse();
+
+    /**
+     * Returns the determinant of the matrix factored.
+     *
+     * @return the determinant of the matrix factored.
+     */
+    F determinant();
+
+}
@@ -153,6 +153,11 @@ public abstract class SparseMatrix<F extends Field<F>> extends Matrix<F> {
     @Override
     public abstract SparseMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns);
 
+    @Override
+    public SparseMatrix<F> getSubMatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        return (SparseMatrix<F>) super.getSubMatrix(fromRow, toRow, fromColumn, toColumn);
+    }
+
     @Override
     public abstract SparseMatrix<F> opposite();
 
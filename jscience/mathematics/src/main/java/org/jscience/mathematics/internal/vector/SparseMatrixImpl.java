@@ -114,13 +114,8 @@ final class SparseMatrixImpl<F extends Field<F>> extends SparseMatrix<F> {
     }
 
     @Override
-    public SparseMatrixImpl<F> getSubMatrix(List<Index> rows, List<Index> columns) {
-        SparseMatrixImpl<F> M = FACTORY.object();
-        for (int i = 0, m = rows.size(); i < m; i++) {
-            SparseVectorImpl<F> row = this.getRow(rows.get(i).intValue());
-            M._rows.add(row.getSubVector(columns));
-        }
-        return M;
+    public SparseSubMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns) {
+        return SparseSubMatrix.valueOf(this, rows, columns); // View.
     }
 
     @Override
@@ -168,26 +163,11 @@ final class SparseMatrixImpl<F extends Field<F>> extends SparseMatrix<F> {
     }
 
     private SparseMatrixImpl<F> times(SparseMatrix<F> that) {
-        //  This is a m-by-n matrix and that is a n-by-p matrix, the matrix result is mxp
-        final int m = _rows.size();
-        final int n = _rows.get(0).getDimension(); // Number of columns of this.
-        final int p = that.getNumberOfColumns(); // Number of columns of that.
-        if (n != that.getNumberOfRows())
+        // Gustavson's product on the compressed rows (time proportional to
+        // the number of multiply-add instead of m·p dot products).
+        if (_rows.get(0).getDimension() != that.getNumberOfRows())
             throw new DimensionException();
-        SparseMatrixImpl<F> M = FACTORY.object();
-        for (int i = 0; i < m; i++) {
-            SparseVectorImpl<F> V = SparseVectorImpl.FACTORY.object();
-            V._dimension = p;
-            V._zero = this._rows.get(i)._zero;
-            for (int j = 0; j < p; j++) {
-                F e = _rows.get(i).times(that.getColumn(j));
-                if (!e.equals(V._zero)) {
-                    V._elements.put(Index.valueOf(j), e);
-                }
-            }
-            M._rows.add(V);
-        }
-        return M;
+        return SparseMatrixImpl.valueOf(CSRMatrix.valueOf(this).times(that));
     }
 
     @Override
@@ -207,7 +187,7 @@ final class SparseMatrixImpl<F extends Field<F>> extends SparseMatrix<F> {
     /**
      * Represents a transposed view of the outer matrix.
      */
-    private class TransposedView extends SparseMatrix<F> {
+    class TransposedView extends SparseMatrix<F> {
 
         @Override
         public int getNumberOfRows() {
@@ -236,7 +216,7 @@ final class SparseMatrixImpl<F extends Field<F>> extends SparseMatrix<F> {
 
         @Override
         public SparseMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns) {
-            return SparseMatrixImpl.this.getSubMatrix(columns, rows)._transposedView;
+            return SparseMatrixImpl.this.getSubMatrix(columns, rows).transpose();
         }
 
         @Override
@@ -0,0 +1,214 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javolution.context.ObjectFactory;
+import javolution.util.Index;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents a view over the elements of a sparse matrix at
+ *     the specified rows and columns. Elements are read through the
+ *     matrix viewed (no copy is performed), sub-matrices of views are
+ *     views of the same matrix; the {@link #getRow rows} and
+ *     {@link #getColumn columns} are gathered from the non-zero elements
+ *     of the rows and columns viewed, the {@link #copy} method returns the
+ *     materialized matrix.</p>
+ *
+ * <p> Operations other than element access (e.g. products) are performed
+ *     on the materialized matrix.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ */
+final class SparseSubMatrix<F extends Field<F>> extends SparseMatrix<F> {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<SparseSubMatrix> FACTORY = new ObjectFactory<SparseSubMatrix>() {
+
+        @Override
+        protected SparseSubMatrix create() {
+            return new SparseSubMatrix();
+        }
+
+        @Override
+        protected void cleanup(SparseSubMatrix matrix) {
+            matrix._matrix = null;
+            matrix._rows = null;
+            matrix._columns = null;
+            matrix._rowPositions = null;
+            matrix._columnPositions = null;
+        }
+    };
+
+    /**
+     * Holds the matrix viewed.
+     */
+    SparseMatrix<F> _matrix;
+
+    /**
+     * Holds the row indices in the matrix viewed.
+     */
+    int[] _rows;
+
+    /**
+     * Holds the column indices in the matrix viewed.
+     */
+    int[] _columns;
+
+    /**
+     * Holds the inverse mappings (lazily created), see {@link #positionsOf}.
+     */
+    private int[] _rowPositions, _columnPositions;
+
+    /**
+     * Returns the view over the specified rows and columns of a matrix.
+     *
+     * @param matrix the matrix viewed.
+     * @param rows the row indices.
+     * @param columns the column indices.
+     * @return the corresponding view.
+     * @throws IndexOutOfBoundsException if any of the indices is outside
+     *         the matrix.
+     */
+    static <F extends Field<F>> SparseSubMatrix<F> valueOf(SparseMatrix<F> matrix,
+            List<Index> rows, List<Index> columns) {
+        return SparseSubMatrix.valueOf(matrix,
+                Matrix.indicesOf(rows, matrix.getNumberOfRows()),
+                Matrix.indicesOf(columns, matrix.getNumberOfColumns()));
+    }
+
+    static <F extends Field<F>> SparseSubMatrix<F> valueOf(SparseMatrix<F> matrix,
+            int[] rows, int[] columns) {
+        SparseSubMatrix<F> M = FACTORY.object();
+        M._matrix = matrix;
+        M._rows = rows;
+        M._columns = columns;
+        return M;
+    }
+
+    // Returns the positions of the indices viewed: positions[index] is the
+    // first position of index (-1 if not viewed), positions[dimension + p]
+    // is the next position of the index at position p (-1 if none).
+    private static int[] positionsOf(int[] indices, int dimension) {
+        int[] positions = new int[dimension + indices.length];
+        Arrays.fill(positions, -1);
+        for (int p = indices.length - 1; p >= 0; p--) {
+            positions[dimension + p] = positions[indices[p]];
+            positions[indices[p]] = p;
+        }
+        return positions;
+    }
+
+    // Returns the vector of the specified dimension holding the non-zero
+    // elements of the specified line at the positions viewed.
+    private static <F extends Field<F>> SparseVectorImpl<F> gather(SparseVector<F> line,
+            int[] positions, int dimension) {
+        final int n = line.getDimension();
+        SparseVectorImpl<F> V = SparseVectorImpl.FACTORY.object();
+        V._dimension = dimension;
+        V._zero = line.getZero();
+        for (Map.Entry<Index, F> e : line.getElements().entrySet()) {
+            for (int p = positions[e.getKey().intValue()]; p >= 0; p = positions[n + p]) {
+                V._elements.put(Index.valueOf(p), e.getValue());
+            }
+        }
+        return V;
+    }
+
+    @Override
+    public int getNumberOfRows() {
+        return _rows.length;
+    }
+
+    @Override
+    public int getNumberOfColumns() {
+        return _columns.length;
+    }
+
+    @Override
+    public F get(int i, int j) {
+        return _matrix.get(_rows[i], _columns[j]);
+    }
+
+    @Override
+    public SparseVectorImpl<F> getRow(int i) {
+        if (_columnPositions == null) {
+            _columnPositions = positionsOf(_columns, _matrix.getNumberOfColumns());
+        }
+        return gather(_matrix.getRow(_rows[i]), _columnPositions, _columns.length);
+    }
+
+    @Override
+    public SparseVectorImpl<F> getColumn(int j) {
+        if (_rowPositions == null) {
+            _rowPositions = positionsOf(_rows, _matrix.getNumberOfRows());
+        }
+        return gather(_matrix.getColumn(_columns[j]), _rowPositions, _rows.length);
+    }
+
+    @Override
+    public SparseSubMatrix<F> getSubMatrix(List<Index> rows, List<Index> columns) {
+        int[] r = Matrix.indicesOf(rows, _rows.length);
+        int[] c = Matrix.indicesOf(columns, _columns.length);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = _rows[r[i]];
+        }
+        for (int j = 0; j < c.length; j++) {
+            c[j] = _columns[c[j]];
+        }
+        return SparseSubMatrix.valueOf(_matrix, r, c);
+    }
+
+    @Override
+    public SparseMatrix<F> opposite() {
+        return copy().opposite();
+    }
+
+    @Override
+    public Matrix<F> plus(Matrix<F> that) {
+        return copy().plus(that);
+    }
+
+    @Override
+    public SparseMatrix<F> times(F k) {
+        return copy().times(k);
+    }
+
+    @Override
+    public Matrix<F> times(Matrix<F> that) {
+        return copy().times(that);
+    }
+
+    @Override
+    public Vector<F> times(Vector<F> v) {
+        return copy().times(v);
+    }
+
+    @Override
+    public SparseSubMatrix<F> transpose() {
+        return SparseSubMatrix.valueOf(_matrix.transpose(), _columns, _rows);
+    }
+
+    @Override
+    public SparseMatrixImpl<F> copy() {
+        SparseMatrixImpl<F> M = SparseMatrixImpl.FACTORY.object();
+        for (int i = 0; i < _rows.length; i++) {
+            M._rows.add(getRow(i));
+        }
+        return M;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,539 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import java.util.Arrays;
+import javolution.context.ObjectFactory;
+import javolution.util.FastTable;
+import javolution.util.Index;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class represents the symbolic analysis of a square sparse
+ *     matrix for the sparse direct solvers
+ *     ({@link Float64SparseCholeskyDecomposition},
+ *     {@link Float64SparseLUDecomposition}): a fill-reducing ordering,
+ *     the elimination tree and the supernodal structure of the
+ *     Cholesky factor.</p>
+ *
+ * <p> The analysis depends only on the non-zero pattern of
+ *     <code>A + A'</code>; it can be reused to factor any number of
+ *     matrices having the same pattern (e.g. successive Newton steps
+ *     or time steps), the numeric factorization being then the only
+ *     cost.</p>
+ *
+ * <p> The ordering is a nested dissection of the graph of
+ *     <code>A + A'</code>: each part is split by a level-structure
+ *     separator (rooted at a pseudo-peripheral node) which is numbered
+ *     last, small parts are kept in their natural order. The ordering
+ *     is then postordered along the elimination tree so that the columns
+ *     of a supernode (columns having the same structure below the
+ *     diagonal) are contiguous.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Nested_dissection">
+ *      Wikipedia: Nested dissection</a>
+ */
+public final class SparseSymbolicAnalysis {
+
+    /**
+     * Holds the object factory.
+     */
+    static final ObjectFactory<SparseSymbolicAnalysis> FACTORY = new ObjectFactory<SparseSymbolicAnalysis>() {
+
+        protected SparseSymbolicAnalysis create() {
+            return new SparseSymbolicAnalysis();
+        }
+
+        @Override
+        protected void cleanup(SparseSymbolicAnalysis analysis) {
+            analysis._permutation = null;
+            analysis._inverse = null;
+            analysis._parent = null;
+            analysis._supernodes = null;
+            analysis._supernodeOf = null;
+            analysis._rowPointers = null;
+            analysis._rows = null;
+        }
+    };
+
+    /**
+     * Holds the maximum size of the parts left in their natural order.
+     */
+    static final int LEAF_SIZE = 64;
+
+    /**
+     * Holds the matrix dimension.
+     */
+    int _n;
+
+    /**
+     * Holds the ordering (the k-th pivot is the original index
+     * <code>_permutation[k]</code>).
+     */
+    int[] _permutation;
+
+    /**
+     * Holds the inverse ordering.
+     */
+    int[] _inverse;
+
+    /**
+     * Holds the parent of each column in the elimination tree (-1 for roots).
+     */
+    int[] _parent;
+
+    /**
+     * Holds the first column of each supernode (<code>ns + 1</code> entries).
+     */
+    int[] _supernodes;
+
+    /**
+     * Holds the supernode of each column.
+     */
+    int[] _supernodeOf;
+
+    /**
+     * Holds the start of the row structure of each supernode in
+     * <code>_rows</code> (<code>ns + 1</code> entries).
+     */
+    int[] _rowPointers;
+
+    /**
+     * Holds the increasing rows of each supernode (the rows of its first
+     * column in the Cholesky factor, diagonal block included).
+     */
+    int[] _rows;
+
+    /**
+     * Holds the number of non-zero elements of the Cholesky factor.
+     */
+    long _factorNonZeros;
+
+    /**
+     * Default constructor.
+     */
+    private SparseSymbolicAnalysis() {
+    }
+
+    /**
+     * Returns the symbolic analysis of the specified square matrix
+     * (only its non-zero pattern is read).
+     *
+     * @param  A the square matrix (sparse or dense).
+     * @return the symbolic analysis of <code>A</code>.
+     * @throws DimensionException if the matrix is not square.
+     */
+    public static <F extends Field<F>> SparseSymbolicAnalysis valueOf(Matrix<F> A) {
+        if (!A.isSquare())
+            throw new DimensionException("Matrix is not square");
+        // The pattern of A + A' is the same for the CSR and CSC forms.
+        CompressedSparseMatrix<?> pattern = (A instanceof CompressedSparseMatrix) ?
+                (CompressedSparseMatrix<?>) A : CSRMatrix.valueOf(A);
+        SparseSymbolicAnalysis analysis = FACTORY.object();
+        analysis.construct(A.getNumberOfRows(), pattern._pointers, pattern._indices);
+        return analysis;
+    }
+
+    /**
+     * Constructs the analysis of the specified pattern.
+     */
+    private void construct(int n, int[] pointers, int[] indices) {
+        _n = n;
+
+        // Adjacency of A + A' (no diagonal, no duplicate).
+        int[] xadj = new int[n + 1];
+        for (int l = 0; l < n; l++) {
+            for (int k = pointers[l]; k < pointers[l + 1]; k++) {
+                final int q = indices[k];
+                if (q != l) {
+                    xadj[l + 1]++;
+                    xadj[q + 1]++;
+                }
+            }
+        }
+        for (int l = 0; l < n; l++) {
+            xadj[l + 1] += xadj[l];
+        }
+        int[] adj = new int[xadj[n]];
+        int[] next = new int[n];
+        System.arraycopy(xadj, 0, next, 0, n);
+        for (int l = 0; l < n; l++) {
+            for (int k = pointers[l]; k < pointers[l + 1]; k++) {
+                final int q = indices[k];
+                if (q != l) {
+                    adj[next[l]++] = q;
+                    adj[next[q]++] = l;
+                }
+            }
+        }
+        int[] mark = next; // Reused.
+        Arrays.fill(mark, -1);
+        int nnz = 0;
+        for (int v = 0, start = 0; v < n; v++) {
+            final int end = xadj[v + 1];
+            xadj[v] = nnz;
+            for (int k = start; k < end; k++) {
+                if (mark[adj[k]] != v) {
+                    mark[adj[k]] = v;
+                    adj[nnz++] = adj[k];
+                }
+            }
+            start = end;
+        }
+        xadj[n] = nnz;
+
+        // Fill-reducing ordering, postordered along the elimination tree.
+        _permutation = nestedDissection(n, xadj, adj);
+        _inverse = inverseOf(_permutation);
+        _parent = eliminationTree(n, xadj, adj, _permutation, _inverse);
+        int[] post = postorder(n, _parent);
+        for (int k = 0; k < n; k++) {
+            post[k] = _permutation[post[k]];
+        }
+        _permutation = post;
+        _inverse = inverseOf(_permutation);
+        _parent = eliminationTree(n, xadj, adj, _permutation, _inverse);
+
+        // Column counts of the factor (row subtrees traversal).
+        int[] counts = new int[n];
+        Arrays.fill(mark, -1);
+        for (int k = 0; k < n; k++) {
+            mark[k] = k;
+            counts[k]++;
+            final int v = _permutation[k];
+            for (int p = xadj[v]; p < xadj[v + 1]; p++) {
+                for (int i = _inverse[adj[p]]; (i < k) && (mark[i] != k); i = _parent[i]) {
+                    mark[i] = k;
+                    counts[i]++;
+                }
+            }
+        }
+
+        // Fundamental supernodes.
+        int[] children = new int[n];
+        for (int j = 0; j < n; j++) {
+            if (_parent[j] >= 0) {
+                children[_parent[j]]++;
+            }
+        }
+        _supernodeOf = new int[n];
+        int ns = 0;
+        for (int j = 0; j < n; j++) {
+            if ((j == 0) || (_parent[j - 1] != j) || (counts[j - 1] != counts[j] + 1)
+                    || (children[j] != 1)) {
+                ns++;
+            }
+            _supernodeOf[j] = ns - 1;
+        }
+        _supernodes = new int[ns + 1];
+        _rowPointers = new int[ns + 1];
+        _factorNonZeros = 0;
+        for (int j = n - 1; j >= 0; j--) {
+            _supernodes[_supernodeOf[j]] = j;
+            _factorNonZeros += counts[j];
+        }
+        _supernodes[ns] = n;
+        for (int s = 0; s < ns; s++) {
+            _rowPointers[s + 1] = _rowPointers[s] + counts[_supernodes[s]];
+        }
+
+        // Row structures of the supernodes (rows in increasing order).
+        _rows = new int[_rowPointers[ns]];
+        int[] position = new int[ns];
+        System.arraycopy(_rowPointers, 0, position, 0, ns);
+        Arrays.fill(mark, -1);
+        for (int k = 0; k < n; k++) {
+            mark[k] = k;
+            if (_supernodes[_supernodeOf[k]] == k) { // Diagonal.
+                _rows[position[_supernodeOf[k]]++] = k;
+            }
+            final int v = _permutation[k];
+            for (int p = xadj[v]; p < xadj[v + 1]; p++) {
+                for (int i = _inverse[adj[p]]; (i < k) && (mark[i] != k); i = _parent[i]) {
+                    mark[i] = k;
+                    if (_supernodes[_supernodeOf[i]] == i) {
+                        _rows[position[_supernodeOf[i]]++] = k;
+                    }
+                }
+            }
+        }
+    }
+
+    // Returns the inverse of the specified permutation.
+    static int[] inverseOf(int[] permutation) {
+        int[] inverse = new int[permutation.length];
+        for (int k = 0; k < permutation.length; k++) {
+            inverse[permutation[k]] = k;
+        }
+        return inverse;
+    }
+
+    // Returns the elimination tree of the permuted symmetric pattern (Liu).
+    private static int[] eliminationTree(int n, int[] xadj, int[] adj,
+            int[] permutation, int[] inverse) {
+        int[] parent = new int[n];
+        int[] ancestor = new int[n];
+        for (int k = 0; k < n; k++) {
+            parent[k] = -1;
+            ancestor[k] = -1;
+            final int v = permutation[k];
+            for (int p = xadj[v]; p < xadj[v + 1]; p++) {
+                int i = inverse[adj[p]];
+                while ((i != -1) && (i < k)) { // Path compression.
+                    final int next = ancestor[i];
+                    ancestor[i] = k;
+                    if (next == -1) {
+                        parent[i] = k;
+                    }
+                    i = next;
+                }
+            }
+        }
+        return parent;
+    }
+
+    // Returns the postorder of the specified forest.
+    private static int[] postorder(int n, int[] parent) {
+        int[] head = new int[n];
+        int[] next = new int[n];
+        int[] stack = new int[n];
+        int[] post = new int[n];
+        Arrays.fill(head, -1);
+        for (int j = n - 1; j >= 0; j--) {
+            if (parent[j] != -1) {
+                next[j] = head[parent[j]];
+                head[parent[j]] = j;
+            }
+        }
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            if (parent[j] != -1)
+                continue;
+            int top = 0;
+            stack[0] = j;
+            while (top >= 0) {
+                final int p = stack[top];
+                final int child = head[p];
+                if (child == -1) {
+                    top--;
+                    post[k++] = p;
+                } else {
+                    head[p] = next[child];
+                    stack[++top] = child;
+                }
+            }
+        }
+        return post;
+    }
+
+    // Returns the nested dissection ordering of the specified graph.
+    private static int[] nestedDissection(int n, int[] xadj, int[] adj) {
+        final int[] permutation = new int[n];
+        final int[] part = new int[n]; // Part identifier of each node.
+        final int[] level = new int[n];
+        final int[] queue = new int[n];
+        int parts = 1;
+        FastTable<int[]> stack = FastTable.newInstance(); // {lo, id, nodes...}
+        try {
+            int[] all = new int[n + 2];
+            for (int v = 0; v < n; v++) {
+                all[v + 2] = v;
+            }
+            stack.add(all);
+            while (!stack.isEmpty()) {
+                final int[] task = stack.removeLast();
+                final int lo = task[0], id = task[1], m = task.length - 2;
+                if (m <= LEAF_SIZE) {
+                    Arrays.sort(task, 2, task.length);
+                    System.arraycopy(task, 2, permutation, lo, m);
+                    continue;
+                }
+
+                // Level structure rooted at a pseudo-peripheral node.
+                int root = task[2];
+                int depth = levels(root, id, task, xadj, adj, part, level, queue);
+                for (int iter = 0; iter < 8; iter++) {
+                    int candidate = -1;
+                    for (int t = 2; t < task.length; t++) {
+                        final int v = task[t];
+                        if ((level[v] == depth) && ((candidate < 0)
+                                || (xadj[v + 1] - xadj[v] < xadj[candidate + 1] - xadj[candidate]))) {
+                            candidate = v;
+                        }
+                    }
+                    int candidateDepth = levels(candidate, id, task, xadj, adj, part, level, queue);
+                    if (candidateDepth <= depth) {
+                        depth = levels(root, id, task, xadj, adj, part, level, queue);
+                        break;
+                    }
+                    root = candidate;
+                    depth = candidateDepth;
+                }
+                final int reached = queue[0];
+                if ((depth < 2) && (reached == m)) { // Nearly complete part.
+                    Arrays.sort(task, 2, task.length);
+                    System.arraycopy(task, 2, permutation, lo, m);
+                    continue;
+                }
+
+                // Separator: middle level, nodes without neighbors beyond
+                // the separator are moved to the first part.
+                int separator = -1;
+                if (depth >= 2) {
+                    int[] sizes = new int[depth + 1];
+                    for (int t = 2; t < task.length; t++) {
+                        if (level[task[t]] >= 0) {
+                            sizes[level[task[t]]]++;
+                        }
+                    }
+                    separator = 1;
+                    for (int cumul = sizes[0]; (separator < depth - 1)
+                            && (cumul + sizes[separator] < reached / 2); separator++) {
+                        cumul += sizes[separator];
+                    }
+                    for (int t = 2; t < task.length; t++) {
+                        final int v = task[t];
+                        if (level[v] != separator)
+                            continue;
+                        boolean beyond = false;
+                        for (int p = xadj[v]; (p < xadj[v + 1]) && !beyond; p++) {
+                            beyond = (level[adj[p]] == separator + 1) && (part[adj[p]] == id);
+                        }
+                        if (!beyond) {
+                            level[v] = separator - 1;
+                        }
+                    }
+                }
+
+                // Parts: before, after, unreached (separator numbered last).
+                int before = 0, after = 0, unreached = 0;
+                for (int t = 2; t < task.length; t++) {
+                    final int l = level[task[t]];
+                    if (l < 0) {
+                        unreached++;
+                    } else if ((separator < 0) || (l < separator)) {
+                        before++;
+                    } else if (l > separator) {
+                        after++;
+                    }
+                }
+                int[] first = new int[before + 2];
+                int[] second = new int[after + 2];
+                int[] third = new int[unreached + 2];
+                first[0] = lo;
+                second[0] = lo + before;
+                third[0] = lo + before + after;
+                first[1] = parts++;
+                second[1] = parts++;
+                third[1] = parts++;
+                int b = 2, a = 2, u = 2, s = lo + before + after + unreached;
+                for (int t = 2; t < task.length; t++) {
+                    final int v = task[t];
+                    final int l = level[v];
+                    if (l < 0) {
+                        third[u++] = v;
+                        part[v] = third[1];
+                    } else if ((separator < 0) || (l < separator)) {
+                        first[b++] = v;
+                        part[v] = first[1];
+                    } else if (l > separator) {
+                        second[a++] = v;
+                        part[v] = second[1];
+                    } else {
+                        permutation[s++] = v;
+                        part[v] = -1;
+                    }
+                }
+                if (before > 0) {
+                    stack.add(first);
+                }
+                if (after > 0) {
+                    stack.add(second);
+                }
+                if (unreached > 0) {
+                    stack.add(third);
+                }
+            }
+        } finally {
+            FastTable.recycle(stack);
+        }
+        return permutation;
+    }
+
+    // Computes the levels of the nodes of the specified part reachable from
+    // root (-1 if unreached), returns the depth; queue[0] holds the number
+    // of nodes reached on return.
+    private static int levels(int root, int id, int[] task, int[] xadj, int[] adj,
+            int[] part, int[] level, int[] queue) {
+        for (int t = 2; t < task.length; t++) {
+            level[task[t]] = -1;
+        }
+        int head = 0, tail = 0, depth = 0;
+        queue[tail++] = root;
+        level[root] = 0;
+        while (head < tail) {
+            final int v = queue[head++];
+            depth = level[v];
+            for (int p = xadj[v]; p < xadj[v + 1]; p++) {
+                final int w = adj[p];
+                if ((part[w] == id) && (level[w] < 0)) {
+                    level[w] = depth + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        queue[0] = tail;
+        return depth;
+    }
+
+    /**
+     * Returns the dimension of the matrices analyzed.
+     *
+     * @return the number of rows (or columns).
+     */
+    public int getDimension() {
+        return _n;
+    }
+
+    /**
+     * Returns the fill-reducing ordering; the k-th pivot is the row
+     * (and column) <code>getPermutation().get(k)</code> of the matrix.
+     *
+     * @return the ordering.
+     */
+    public FastTable<Index> getPermutation() {
+        FastTable<Index> permutation = FastTable.newInstance();
+        for (int k = 0; k < _n; k++) {
+            permutation.add(Index.valueOf(_permutation[k]));
+        }
+        return permutation;
+    }
+
+    /**
+     * Returns the number of supernodes (sets of contiguous columns of the
+     * Cholesky factor sharing the same structure).
+     *
+     * @return the number of supernodes.
+     */
+    public int getNumberOfSupernodes() {
+        return _supernodes.length - 1;
+    }
+
+    /**
+     * Returns the number of non-zero elements of the Cholesky factor
+     * <code>L</code> (diagonal included) with this ordering.
+     *
+     * @return the predicted fill of the factor.
+     */
+    public long getNumberOfFactorNonZeros() {
+        return _factorNonZeros;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import javolution.context.ConcurrentContext;
+import javolution.lang.MathLib;
+import org.jscience.mathematics.structure.Field;
+
+/**
+ * <p> This class holds the Strassen-Winograd multiplication of generic
+ *     matrices, used by {@link DenseMatrixImpl#times(Matrix)} when all
+ *     dimensions reach {@link DenseMatrix#STRASSEN_THRESHOLD} and the
+ *     elements are {@link DenseMatrixImpl#isStrassenWorthy worth it}.</p>
+ *
+ * <p> Each level of recursion splits the operands into 2x2 blocks and
+ *     performs 7 block products (instead of 8) and 15 block additions,
+ *     for an overall <code>O(n<sup>2.81</sup>)</code> element
+ *     multiplications; worthwhile when elements multiplication is much
+ *     more expensive than addition (e.g. {@link
+ *     org.jscience.mathematics.number.Rational Rational},
+ *     {@link org.jscience.mathematics.number.LargeInteger LargeInteger}
+ *     or polynomials). Odd dimensions are handled by peeling the last
+ *     row/column (no padding, the elements type having no zero), the seven
+ *     block products are executed concurrently within a
+ *     {@link ConcurrentContext}. The elements multiplication does not need
+ *     to be commutative.</p>
+ *
+ * <p> Operands are row-major arrays of elements described by their
+ *     offset and leading dimension (sub-blocks are not copied).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.0, December 12, 2009
+ * @see <a href="http://en.wikipedia.org/wiki/Strassen_algorithm">
+ *      Wikipedia: Strassen algorithm</a>
+ */
+final class StrassenMultiplication {
+
+    /**
+     * Default constructor (static methods only).
+     */
+    private StrassenMultiplication() {
+    }
+
+    /**
+     * Returns the product of the specified matrices.
+     *
+     * @param A the m-by-k matrix.
+     * @param B the k-by-n matrix.
+     * @param threshold the dimension below which the classical
+     *        multiplication is performed.
+     * @return <code>A · B</code>
+     */
+    static <F extends Field<F>> DenseMatrixImpl<F> times(Matrix<F> A, Matrix<F> B,
+            int threshold) {
+        final int m = A.getNumberOfRows();
+        final int k = A.getNumberOfColumns();
+        final int n = B.getNumberOfColumns();
+        final Object[] a = elementsOf(A);
+        final Object[] b = elementsOf(B);
+        final Object[] c = new Object[m * n];
+        multiply(m, n, k, a, 0, k, b, 0, n, c, 0, n, MathLib.max(threshold, 2));
+        DenseMatrixImpl<F> M = DenseMatrixImpl.FACTORY.object();
+        for (int i = 0; i < m; i++) {
+            DenseVectorImpl<F> row = DenseVectorImpl.FACTORY.object();
+            for (int j = 0; j < n; j++) {
+                row._elements.add((F) c[i * n + j]);
+            }
+            M._rows.add(row);
+        }
+        return M;
+    }
+
+    // Returns the elements of the specified matrix (row-major).
+    private static Object[] elementsOf(Matrix<?> M) {
+        final int m = M.getNumberOfRows();
+        final int n = M.getNumberOfColumns();
+        final Object[] elements = new Object[m * n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                elements[i * n + j] = M.get(i, j);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Sets the m-by-n block C to the product of the m-by-k block A
+     * with the k-by-n block B (C does not share elements with A or B).
+     */
+    static void multiply(int m, int n, int k,
+            Object[] a, int aOff, int lda, Object[] b, int bOff, int ldb,
+            Object[] c, int cOff, int ldc, int threshold) {
+        if ((m < threshold) || (n < threshold) || (k < threshold)) {
+            classical(m, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+            return;
+        }
+        final int m2 = m >> 1, n2 = n >> 1, k2 = k >> 1;
+        winograd(m2, n2, k2, a, aOff, lda, b, bOff, ldb, c, cOff, ldc, threshold);
+        if ((k & 1) != 0) { // C[0:2m2, 0:2n2] += A[0:2m2, k-1] · B[k-1, 0:2n2]
+            final int ak = aOff + k - 1, bk = bOff + (k - 1) * ldb;
+            for (int i = 0; i < 2 * m2; i++) {
+                final Field aik = (Field) a[ak + i * lda];
+                for (int j = 0, ci = cOff + i * ldc; j < 2 * n2; j++) {
+                    c[ci + j] = ((Field) c[ci + j]).plus(aik.times(b[bk + j]));
+                }
+            }
+        }
+        if ((m & 1) != 0) { // C[m-1, :] = A[m-1, :] · B
+            classical(1, n, k, a, aOff + (m - 1) * lda, lda, b, bOff, ldb,
+                    c, cOff + (m - 1) * ldc, ldc);
+        }
+        if ((n & 1) != 0) { // C[0:2m2, n-1] = A[0:2m2, :] · B[:, n-1]
+            classical(2 * m2, 1, k, a, aOff, lda, b, bOff + n - 1, ldb,
+                    c, cOff + n - 1, ldc);
+        }
+    }
+
+    // Strassen-Winograd on the leading 2m2-by-2k2 and 2k2-by-2n2 blocks.
+    private static void winograd(int m2, int n2, int k2,
+            Object[] a, int aOff, int lda, Object[] b, int bOff, int ldb,
+            Object[] c, int cOff, int ldc, int threshold) {
+        final int a11 = aOff, a12 = aOff + k2, a21 = aOff + m2 * lda, a22 = a21 + k2;
+        final int b11 = bOff, b12 = bOff + n2, b21 = bOff + k2 * ldb, b22 = b21 + n2;
+        final int c11 = cOff, c12 = cOff + n2, c21 = cOff + m2 * ldc, c22 = c21 + n2;
+        final Object[] s1 = new Object[m2 * k2], s2 = new Object[m2 * k2];
+        final Object[] s3 = new Object[m2 * k2], s4 = new Object[m2 * k2];
+        final Object[] t1 = new Object[k2 * n2], t2 = new Object[k2 * n2];
+        final Object[] t3 = new Object[k2 * n2], t4 = new Object[k2 * n2];
+        add(m2, k2, a, a21, lda, false, a, a22, lda, s1, 0, k2); // S1 = A21 + A22
+        add(m2, k2, s1, 0, k2, true, a, a11, lda, s2, 0, k2); // S2 = S1 - A11
+        add(m2, k2, a, a11, lda, true, a, a21, lda, s3, 0, k2); // S3 = A11 - A21
+        add(m2, k2, a, a12, lda, true, s2, 0, k2, s4, 0, k2); // S4 = A12 - S2
+        add(k2, n2, b, b12, ldb, true, b, b11, ldb, t1, 0, n2); // T1 = B12 - B11
+        add(k2, n2, b, b22, ldb, true, t1, 0, n2, t2, 0, n2); // T2 = B22 - T1
+        add(k2, n2, b, b22, ldb, true, b, b12, ldb, t3, 0, n2); // T3 = B22 - B12
+        add(k2, n2, t2, 0, n2, true, b, b21, ldb, t4, 0, n2); // T4 = T2 - B21
+        final Product[] p = new Product[7];
+        p[0] = new Product(m2, n2, k2, a, a11, lda, b, b11, ldb, threshold); // A11·B11
+        p[1] = new Product(m2, n2, k2, a, a12, lda, b, b21, ldb, threshold); // A12·B21
+        p[2] = new Product(m2, n2, k2, s4, 0, k2, b, b22, ldb, threshold); // S4·B22
+        p[3] = new Product(m2, n2, k2, a, a22, lda, t4, 0, n2, threshold); // A22·T4
+        p[4] = new Product(m2, n2, k2, s1, 0, k2, t1, 0, n2, threshold); // S1·T1
+        p[5] = new Product(m2, n2, k2, s2, 0, k2, t2, 0, n2, threshold); // S2·T2
+        p[6] = new Product(m2, n2, k2, s3, 0, k2, t3, 0, n2, threshold); // S3·T3
+        ConcurrentContext.enter();
+        try {
+            for (int i = 0; i < 7; i++) {
+                ConcurrentContext.execute(p[i]);
+            }
+        } finally {
+            ConcurrentContext.exit(); // Waits for completion.
+        }
+        final Object[] u = p[5]._c; // U2 = P1 + P6 (in place of P6).
+        add(m2, n2, p[0]._c, 0, n2, false, u, 0, n2, u, 0, n2);
+        add(m2, n2, p[0]._c, 0, n2, false, p[1]._c, 0, n2, c, c11, ldc); // C11 = P1 + P2
+        add(m2, n2, u, 0, n2, false, p[6]._c, 0, n2, p[6]._c, 0, n2); // U3 = U2 + P7
+        add(m2, n2, u, 0, n2, false, p[4]._c, 0, n2, u, 0, n2); // U4 = U2 + P5
+        add(m2, n2, u, 0, n2, false, p[2]._c, 0, n2, c, c12, ldc); // C12 = U4 + P3
+        add(m2, n2, p[6]._c, 0, n2, true, p[3]._c, 0, n2, c, c21, ldc); // C21 = U3 - P4
+        add(m2, n2, p[6]._c, 0, n2, false, p[4]._c, 0, n2, c, c22, ldc); // C22 = U3 + P5
+    }
+
+    /**
+     * Sets the m-by-n block Z to <code>X + Y</code> or <code>X - Y</code>
+     * (Z may be X or Y).
+     */
+    private static void add(int m, int n, Object[] x, int xOff, int ldx, boolean minus,
+            Object[] y, int yOff, int ldy, Object[] z, int zOff, int ldz) {
+        for (int i = 0; i < m; i++, xOff += ldx, yOff += ldy, zOff += ldz) {
+            for (int j = 0; j < n; j++) {
+                final Field yij = (Field) y[yOff + j];
+                z[zOff + j] = ((Field) x[xOff + j]).plus(minus ? yij.opposite() : yij);
+            }
+        }
+    }
+
+    /**
+     * Sets the m-by-n block C to the classical product of the m-by-k
+     * block A with the k-by-n block B.
+     */
+    private static void classical(int m, int n, int k,
+            Object[] a, int aOff, int lda, Object[] b, int bOff, int ldb,
+            Object[] c, int cOff, int ldc) {
+        for (int i = 0; i < m; i++, aOff += lda, cOff += ldc) {
+            for (int j = 0; j < n; j++) {
+                Field sum = (Field) ((Field) a[aOff]).times(b[bOff + j]);
+                for (int p = 1; p < k; p++) {
+                    sum = (Field) sum.plus(((Field) a[aOff + p]).times(b[bOff + p * ldb + j]));
+                }
+                c[cOff + j] = sum;
+            }
+        }
+    }
+
+    /**
+     * Holds one of the seven block products (executed concurrently).
+     */
+    private static final class Product implements Runnable {
+
+        private final int _m, _n, _k, _aOff, _lda, _bOff, _ldb, _threshold;
+
+        private final Object[] _a, _b;
+
+        /**
+         * Holds the m-by-n product.
+         */
+        final Object[] _c;
+
+        Product(int m, int n, int k, Object[] a, int aOff, int lda,
+                Object[] b, int bOff, int ldb, int threshold) {
+            _m = m;
+            _n = n;
+            _k = k;
+            _a = a;
+            _aOff = aOff;
+            _lda = lda;
+            _b = b;
+            _bOff = bOff;
+            _ldb = ldb;
+            _threshold = threshold;
+            _c = new Object[m * n];
+        }
+
+        public void run() {
+            multiply(_m, _n, _k, _a, _aOff, _lda, _b, _bOff, _ldb, _c, 0, _n, _threshold);
+        }
+    }
+}
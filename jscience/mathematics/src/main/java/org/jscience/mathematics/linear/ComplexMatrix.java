@@ -19,6 +19,17 @@ import org.jscience.mathematics.number.Float64;
 /**
  * <p> A {@link DenseMatrix dense matrix} of 64 bits floating points complex
  *     numbers.</p>
+ * 
+ * <p> Complex matrices are stored interleaved (real part followed by the
+ *     imaginary part of each element) in row-major order; their elements
+ *     are not held as {@link Complex} instances. Products with the 
+ *     {@link #conjugateTranspose conjugate transpose} read the storage
+ *     in place (no element is copied).
+ * [code]
+ * ComplexMatrix H = M.conjugateTranspose(); // View.
+ * ComplexMatrix G = H.times(M); // Gram matrix.
+ * double re = G.getRealValue(0, 0);
+ * [/code]</p>
  *           
  * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 5.0, January 26, 2014
@@ -27,6 +38,38 @@ import org.jscience.mathematics.number.Float64;
 public interface ComplexMatrix extends DenseMatrix<Complex<Float64>>,
 		ComputeContext.Local {
 
+	/**
+	 * Returns the {@code double} real value of a single element of this
+	 * matrix.
+	 *
+	 * @param  i the row index (range [0..m[).
+	 * @param  j the column index (range [0..n[).
+	 * @return <code>get(i, j).getReal().doubleValue()</code>.
+	 * @throws IndexOutOfBoundsException <code>
+	 *         ((i &lt; 0) || (i &gt;= m)) || ((j &lt; 0) || (j &gt;= n))</code>
+	 */
+	double getRealValue(int i, int j);
+
+	/**
+	 * Returns the {@code double} imaginary value of a single element of 
+	 * this matrix.
+	 *
+	 * @param  i the row index (range [0..m[).
+	 * @param  j the column index (range [0..n[).
+	 * @return <code>get(i, j).getImaginary().doubleValue()</code>.
+	 * @throws IndexOutOfBoundsException <code>
+	 *         ((i &lt; 0) || (i &gt;= m)) || ((j &lt; 0) || (j &gt;= n))</code>
+	 */
+	double getImaginaryValue(int i, int j);
+
+	/**
+	 * Returns the conjugate transpose (Hermitian transpose) of this matrix.
+	 * The matrix returned is a view over this matrix elements.
+	 *
+	 * @return <code>conjugate(this')</code>
+	 */
+	ComplexMatrix conjugateTranspose();
+
 	@Override
 	ComplexVector getRow(int i);
 
@@ -17,6 +17,18 @@ import org.jscience.mathematics.number.Float64;
 
 /**
  * <p> A {@link DenseMatrix dense matrix} of 64 bits floating points elements.</p>
+ * 
+ * <p> Float matrices are stored contiguously in row-major order, rows being 
+ *     separated by a leading dimension stride. The vectors returned by 
+ *     {@link #getRow}, {@link #getColumn} and {@link #getDiagonal} are views
+ *     sharing the matrix storage (no element is copied).
+ * [code]
+ * FloatMatrix M = Matrices.floatMatrix(
+ *      Vectors.floatVector(1.1, 1.2, 1.3), 
+ *      Vectors.floatVector(2.1, 2.2, 2.3));
+ * double m12 = M.getValue(1, 2); // 2.3
+ * FloatVector column2 = M.getColumn(2); // View (stride 3)
+ * [/code]</p>
  *           
  * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 5.0, January 26, 2014
@@ -24,6 +36,17 @@ import org.jscience.mathematics.number.Float64;
  */
 public interface FloatMatrix extends DenseMatrix<Float64>, ComputeContext.Local {
 
+	/**
+	 * Returns the {@code double} value of a single element of this matrix.
+	 *
+	 * @param  i the row index (range [0..m[).
+	 * @param  j the column index (range [0..n[).
+	 * @return <code>get(i, j).doubleValue()</code>.
+	 * @throws IndexOutOfBoundsException <code>
+	 *         ((i &lt; 0) || (i &gt;= m)) || ((j &lt; 0) || (j &gt;= n))</code>
+	 */
+	double getValue(int i, int j);
+
 	@Override
 	FloatVector getRow(int i);
 
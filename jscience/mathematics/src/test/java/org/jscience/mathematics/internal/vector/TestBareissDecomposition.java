@@ -0,0 +1,138 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the exact results of the fraction-free {@link BareissDecomposition}
+ * and of the elimination-based {@link Matrix#determinant()},
+ * {@link Matrix#inverse()} and {@link Matrix#adjoint()}.
+ */
+public class TestBareissDecomposition extends AbstractJavolutionJUnitAdapter {
+
+    private static final Rational ZERO = Rational.valueOf(0, 1);
+
+    private static final Rational ONE = Rational.valueOf(1, 1);
+
+    public void testHilbert() {
+        info("  Hilbert matrix");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                DenseMatrix<Rational> H = hilbert(4);
+                BareissDecomposition<Rational> bd = BareissDecomposition.valueOf(H);
+                TestContext.assertEquals(Rational.valueOf(1, 6048000), bd.determinant());
+                TestContext.assertEquals(4, bd.getRank(), "rank");
+                TestContext.assertFalse(bd.isSingular());
+                long[][] inverse = { { 16, -120, 240, -140 }, { -120, 1200, -2700, 1680 },
+                        { 240, -2700, 6480, -4200 }, { -140, 1680, -4200, 2800 } };
+                DenseMatrix<Rational> inv = bd.inverse();
+                for (int i = 0; i < 4; i++) {
+                    for (int j = 0; j < 4; j++) {
+                        TestContext.assertEquals(Rational.valueOf(inverse[i][j], 1), inv.get(i, j),
+                                "(" + i + ", " + j + ")");
+                    }
+                }
+                TestContext.assertEquals(Rational.valueOf(1, 6048000), H.determinant());
+                TestContext.assertEquals(inv, H.inverse());
+            }
+        });
+    }
+
+    public void testSolve() {
+        info("  solve and adjoint");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                DenseMatrix<Rational> A = random(6, 1);
+                DenseMatrix<Rational> B = random(6, 2);
+                BareissDecomposition<Rational> bd = BareissDecomposition.valueOf(A);
+                TestContext.assertEquals(B, A.times(bd.solve(B)));
+                TestContext.assertEquals(identity(6), A.times(bd.adjoint()).times(bd.determinant().inverse()));
+                TestContext.assertEquals(bd.adjoint(), A.adjoint());
+            }
+        });
+    }
+
+    public void testSingular() {
+        info("  singular matrix");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Rational two = Rational.valueOf(2, 1);
+                Rational four = Rational.valueOf(4, 1);
+                DenseMatrix<Rational> A = DenseMatrix.valueOf(new Rational[][] {
+                        { ONE, two, ONE }, { two, four, two }, { ZERO, ONE, ONE } });
+                BareissDecomposition<Rational> bd = BareissDecomposition.valueOf(A);
+                TestContext.assertTrue(bd.isSingular());
+                TestContext.assertEquals(2, bd.getRank(), "rank");
+                TestContext.assertEquals(ZERO, bd.determinant());
+                TestContext.assertEquals(ZERO, A.determinant());
+                // Adjugate evaluated through cofactors, A·adj(A) = det(A)·I = 0.
+                Rational minusOne = Rational.valueOf(-1, 1);
+                Rational minusTwo = Rational.valueOf(-2, 1);
+                DenseMatrix<Rational> adjoint = DenseMatrix.valueOf(new Rational[][] {
+                        { two, minusOne, ZERO }, { minusTwo, ONE, ZERO }, { two, minusOne, ZERO } });
+                TestContext.assertEquals(adjoint, DenseMatrix.valueOf(A.adjoint()));
+                TestContext.assertEquals(zero(3), A.times(A.adjoint()));
+            }
+        });
+    }
+
+    static DenseMatrix<Rational> hilbert(int n) {
+        Rational[][] h = new Rational[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                h[i][j] = Rational.valueOf(1, i + j + 1);
+            }
+        }
+        return DenseMatrix.valueOf(h);
+    }
+
+    static DenseMatrix<Rational> random(int n, long seed) {
+        Random random = new Random(seed);
+        Rational[][] a = new Rational[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = Rational.valueOf(random.nextInt(21) - 10, 1 + random.nextInt(4));
+            }
+        }
+        return DenseMatrix.valueOf(a);
+    }
+
+    static DenseMatrix<Rational> identity(int n) {
+        Rational[][] a = new Rational[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = (i == j) ? ONE : ZERO;
+            }
+        }
+        return DenseMatrix.valueOf(a);
+    }
+
+    static DenseMatrix<Rational> zero(int n) {
+        Rational[][] a = new Rational[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = ZERO;
+            }
+        }
+        return DenseMatrix.valueOf(a);
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Complex;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the interleaved {@link ComplexMatrix} and its
+ * {@link ComplexLUDecomposition} against generic dense complex matrices.
+ */
+public class TestComplexMatrix extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-10;
+
+    public void testStorage() {
+        info("  interleaved storage and views");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                ComplexMatrix M = ComplexMatrix.valueOf(2, 2, 1, 2, 3, 4, 5, 6, 7, 8);
+                TestContext.assertEquals(3.0, M.getRealValue(0, 1), "real part");
+                TestContext.assertEquals(8.0, M.getImaginaryValue(1, 1), "imaginary part");
+                TestContext.assertEquals(Complex.valueOf(5, 6), M.get(1, 0), "element");
+                TestContext.assertEquals(Complex.valueOf(3, -4), M.conjugateTranspose().get(1, 0),
+                        "conjugate transpose");
+                TestContext.assertEquals(Complex.valueOf(3, 4), M.transpose().get(1, 0), "transpose");
+                TestContext.assertEquals(Complex.valueOf(7, -8), M.conjugate().get(1, 1), "conjugate");
+                TestContext.assertEquals(Complex.valueOf(5, 6), M.getColumn(0).get(1), "column");
+            }
+        });
+    }
+
+    public void testTimes() {
+        info("  products");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Complex[][] a = random(40, 30, 1);
+                Complex[][] b = random(30, 50, 2);
+                ComplexMatrix A = ComplexMatrix.valueOf(a);
+                ComplexMatrix B = ComplexMatrix.valueOf(b);
+                DenseMatrix<Complex> AB = generic(a).times(generic(b));
+                assertNear(AB, A.times(B));
+                assertNear(AB, A.times(B.transpose().transpose()));
+                assertNear(AB, A.times(generic(b)));
+                assertNear(DenseMatrix.valueOf(generic(a).times(generic(b).getColumn(3))),
+                        DenseMatrix.valueOf(A.times(B.getColumn(3))));
+                assertNear(generic(a).times(Complex.valueOf(0, 2)), A.times(Complex.valueOf(0, 2)));
+                assertNear(generic(a).plus(generic(a)), A.plus(A));
+            }
+        });
+    }
+
+    public void testLU() {
+        info("  LU decomposition");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Complex[][] a = random(30, 30, 3);
+                Complex[][] b = random(30, 3, 4);
+                ComplexMatrix A = ComplexMatrix.valueOf(a);
+                ComplexLUDecomposition lu = A.factorize();
+                assertNear(generic(b), A.times(lu.solve(ComplexMatrix.valueOf(b))));
+                assertNear(generic(b), A.times(A.solve(generic(b))));
+                Complex det = LUDecomposition.valueOf(generic(a)).determinant();
+                TestContext.assertTrue(det.minus(lu.determinant()).magnitude() <= EPSILON * det.magnitude(),
+                        "determinant: " + det + " expected but found " + lu.determinant());
+                Complex[][] identity = new Complex[30][30];
+                for (int i = 0; i < 30; i++) {
+                    for (int j = 0; j < 30; j++) {
+                        identity[i][j] = (i == j) ? Complex.ONE : Complex.ZERO;
+                    }
+                }
+                assertNear(DenseMatrix.valueOf(identity), A.times(A.inverse()));
+            }
+        });
+    }
+
+    public void testSingular() {
+        info("  singular matrix");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Complex[][] a = { { Complex.ONE, Complex.I }, { Complex.I, Complex.ONE.opposite() } };
+                TestContext.assertTrue(ComplexMatrix.valueOf(a).determinant().magnitude() <= EPSILON,
+                        "zero determinant expected");
+            }
+        });
+    }
+
+    static Complex[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        Complex[][] a = new Complex[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = Complex.valueOf(2.0 * random.nextDouble() - 1.0, 2.0 * random.nextDouble() - 1.0);
+            }
+        }
+        return a;
+    }
+
+    static DenseMatrix<Complex> generic(Complex[][] a) {
+        return DenseMatrixImpl.valueOf(DenseMatrix.valueOf(a));
+    }
+
+    static void assertNear(Matrix<Complex> expected, Matrix<Complex> actual) {
+        TestContext.assertEquals(expected.getNumberOfRows(), actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected.getNumberOfColumns(), actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.getNumberOfRows(); i++) {
+            for (int j = 0; j < expected.getNumberOfColumns(); j++) {
+                Complex e = expected.get(i, j);
+                Complex a = actual.get(i, j);
+                TestContext.assertTrue(e.minus(a).magnitude() <= EPSILON,
+                        "(" + i + ", " + j + "): " + e + " expected but found " + a);
+            }
+        }
+    }
+
+}
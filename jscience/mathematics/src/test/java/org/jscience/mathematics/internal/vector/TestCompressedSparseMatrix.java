@@ -0,0 +1,133 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the compressed sparse row/column storage ({@link CSRMatrix},
+ * {@link CSCMatrix}, {@link Float64CSRMatrix}, {@link Float64CSCMatrix}):
+ * element and line access, transposition and conversions.
+ */
+public class TestCompressedSparseMatrix extends AbstractJavolutionJUnitAdapter {
+
+    public void testStructure() {
+        info("  structure");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64CSRMatrix A = Float64CSRMatrix.valueOf(2, 3, new int[] { 0, 2, 3 },
+                        new int[] { 0, 2, 1 }, new double[] { 1, 2, 3 });
+                TestContext.assertEquals(3, A.getNumberOfNonZeros(), "non-zeros");
+                TestContext.assertEquals(2.0, A.getValue(0, 2), "(0, 2)");
+                TestContext.assertEquals(0.0, A.getValue(1, 0), "(1, 0)");
+                assertElements(new double[][] { { 1, 0, 2 }, { 0, 3, 0 } }, A);
+                assertElements(new double[][] { { 1, 0 }, { 0, 3 }, { 2, 0 } }, A.transpose());
+                TestContext.assertEquals(Float64.valueOf(3), A.getColumn(1).get(1));
+                TestContext.assertEquals(Float64.valueOf(2), A.getRow(0).get(2));
+                TestContext.assertException(IllegalArgumentException.class, new Runnable() {
+                    public void run() { // Unsorted indices.
+                        Float64CSRMatrix.valueOf(2, 3, new int[] { 0, 2, 3 }, new int[] { 2, 0, 1 },
+                                new double[] { 1, 2, 3 });
+                    }
+                });
+            }
+        });
+    }
+
+    public void testConversions() {
+        info("  conversions");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = randomSparse(30, 20, 1);
+                double[][] t = transpose(a);
+                Float64Matrix dense = Float64Matrix.valueOf(a);
+                assertElements(a, Float64CSRMatrix.valueOfMatrix(dense));
+                assertElements(a, Float64CSCMatrix.valueOfMatrix(dense));
+                assertElements(t, Float64CSRMatrix.valueOfMatrix(dense.transpose()));
+                assertElements(t, Float64CSCMatrix.valueOfMatrix(dense.transpose()));
+                assertElements(a, Float64CSCMatrix.valueOfMatrix(Float64CSRMatrix.valueOfMatrix(dense)));
+                SparseMatrix<Float64> map = SparseMatrix.valueOf(dense);
+                assertElements(a, Float64CSRMatrix.valueOfMatrix(map));
+                assertElements(t, Float64CSRMatrix.valueOfMatrix(map.transpose()));
+                assertElements(a, CSRMatrix.valueOf(dense));
+                assertElements(a, CSCMatrix.valueOf(dense));
+                assertElements(t, CSRMatrix.valueOf(map.transpose()));
+                assertElements(t, CSRMatrix.valueOf(dense).transpose());
+                assertElements(a, CSRMatrix.valueOf(CSCMatrix.valueOf(dense)));
+            }
+        });
+    }
+
+    public void testArithmetic() {
+        info("  opposite and scaling");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = randomSparse(12, 9, 2);
+                double[][] b = new double[12][9];
+                for (int i = 0; i < 12; i++) {
+                    for (int j = 0; j < 9; j++) {
+                        b[i][j] = -2.0 * a[i][j];
+                    }
+                }
+                Float64CSRMatrix A = Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(a));
+                assertElements(b, A.times(-2.0));
+                assertElements(b, A.opposite().times(Float64.valueOf(2.0)));
+                assertElements(b, CSCMatrix.valueOf(A).times(Float64.valueOf(-2.0)));
+                assertElements(a, A.copy());
+            }
+        });
+    }
+
+    /** Returns a m-by-n matrix with about 10% non-zero elements. */
+    static double[][] randomSparse(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                if (random.nextInt(10) == 0) {
+                    a[i][j] = 2.0 * random.nextDouble() - 1.0;
+                }
+            }
+        }
+        return a;
+    }
+
+    static double[][] transpose(double[][] a) {
+        double[][] t = new double[a[0].length][a.length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[0].length; j++) {
+                t[j][i] = a[i][j];
+            }
+        }
+        return t;
+    }
+
+    static void assertElements(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                TestContext.assertEquals(expected[i][j], actual.get(i, j).doubleValue(),
+                        "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+}
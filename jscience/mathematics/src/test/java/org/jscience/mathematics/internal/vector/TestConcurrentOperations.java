@@ -0,0 +1,112 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.LargeInteger;
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the row-block operations of generic dense matrices (sequential and
+ * concurrent costs) and the estimated cost of element operations.
+ */
+public class TestConcurrentOperations extends AbstractJavolutionJUnitAdapter {
+
+    public void testCostOf() {
+        info("  element cost");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Rational small = Rational.valueOf(1, 3);
+                Rational large = Rational.valueOf(LargeInteger.ONE.shiftLeft(1000), LargeInteger.valueOf(3));
+                TestContext.assertEquals(1, DenseMatrixImpl.costOf(Float64.ONE), "Float64");
+                TestContext.assertTrue(DenseMatrixImpl.costOf(small) > DenseMatrixImpl.costOf(Float64.ONE),
+                        "small rational");
+                TestContext.assertTrue(DenseMatrixImpl.costOf(large) > DenseMatrixImpl.costOf(small),
+                        "large rational");
+            }
+        });
+    }
+
+    public void testRowBlocks() {
+        info("  row-block operations");
+        doTest(new RowBlockTest(5, 7, 1));
+        doTest(new RowBlockTest(60, 50, 1));
+        doTest(new RowBlockTest(40, 30, 300));
+    }
+
+    /** Checks opposite, plus, scaling and product of m-by-n rational matrices. */
+    private static class RowBlockTest extends SimpleTestCase {
+
+        private final int _m, _n, _bits;
+
+        RowBlockTest(int m, int n, int bits) {
+            _m = m;
+            _n = n;
+            _bits = bits;
+        }
+
+        @Override
+        public void execute() {
+            Rational[][] a = random(_m, _n, _bits, 1);
+            Rational[][] b = random(_m, _n, _bits, 2);
+            Rational[][] c = random(_n, _m / 2 + 1, _bits, 3);
+            Rational k = Rational.valueOf(-7, 2);
+            DenseMatrix<Rational> A = DenseMatrix.valueOf(a);
+            DenseMatrix<Rational> B = DenseMatrix.valueOf(b);
+            DenseMatrix<Rational> opposite = A.opposite();
+            DenseMatrix<Rational> sum = A.plus(B);
+            DenseMatrix<Rational> scaled = A.times(k);
+            for (int i = 0; i < _m; i++) {
+                for (int j = 0; j < _n; j++) {
+                    TestContext.assertEquals(a[i][j].opposite(), opposite.get(i, j));
+                    TestContext.assertEquals(a[i][j].plus(b[i][j]), sum.get(i, j));
+                    TestContext.assertEquals(a[i][j].times(k), scaled.get(i, j));
+                }
+            }
+            Matrix<Rational> product = A.times(DenseMatrix.valueOf(c));
+            for (int i = 0; i < _m; i++) {
+                for (int j = 0; j < c[0].length; j++) {
+                    Rational s = a[i][0].times(c[0][j]);
+                    for (int q = 1; q < _n; q++) {
+                        s = s.plus(a[i][q].times(c[q][j]));
+                    }
+                    TestContext.assertEquals(s, product.get(i, j));
+                }
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "Row blocks " + _m + "x" + _n + " (" + _bits + " bits)";
+        }
+    }
+
+    /** Returns a m-by-n matrix of rationals whose dividends have about the specified bit length. */
+    static Rational[][] random(int m, int n, int bits, long seed) {
+        Random random = new Random(seed);
+        Rational[][] a = new Rational[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                LargeInteger dividend = LargeInteger.valueOf(random.nextInt(19) - 9).shiftLeft(bits - 1);
+                a[i][j] = Rational.valueOf(dividend.plus(random.nextInt(100)), LargeInteger.valueOf(1 + random.nextInt(5)));
+            }
+        }
+        return a;
+    }
+
+}
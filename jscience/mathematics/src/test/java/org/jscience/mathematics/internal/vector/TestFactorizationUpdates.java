@@ -0,0 +1,193 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the low-rank updates of the {@link Float64LUDecomposition LU} and
+ * {@link Float64CholeskyDecomposition Cholesky} decompositions and the
+ * {@link Float64WoodburySolver} against the modified matrices.
+ */
+public class TestFactorizationUpdates extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-9;
+
+    private static final int N = 40;
+
+    public void testLUUpdate() {
+        info("  LU rank-one update");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(N, N, 1);
+                double[] u = random(1, N, 2)[0];
+                double[] v = random(1, N, 3)[0];
+                double[][] b = random(N, 2, 4);
+                Float64LUDecomposition lu = Float64LUDecomposition.valueOf(Float64Matrix.valueOf(a));
+                lu.update(Float64Vector.valueOf(u), Float64Vector.valueOf(v));
+                Float64Matrix A2 = Float64Matrix.valueOf(plusOuter(a, u, v, 1.0));
+                assertNear(b, A2.times(lu.solve(Float64Matrix.valueOf(b))));
+            }
+        });
+    }
+
+    public void testLUUpdateBreakdown() {
+        info("  LU rank-one update breakdown");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64LUDecomposition lu = Float64LUDecomposition.valueOf(Float64Matrix.valueOf(
+                        new double[][] { { 1, 0 }, { 0, 1 } }));
+                // Zero pivot, the modified matrix { { 0, -1 }, { 1, 2 } } is refactored.
+                lu.update(Float64Vector.valueOf(-1, 1), Float64Vector.valueOf(1, 1));
+                Float64Vector x = lu.solve(Float64Vector.valueOf(3, 4));
+                TestContext.assertEquals(10.0, x.getValue(0), "x0");
+                TestContext.assertEquals(-3.0, x.getValue(1), "x1");
+                TestContext.assertEquals(1.0, lu.determinant().doubleValue(), "determinant");
+                double[][] a = random(N, N, 5);
+                double[] u = new double[N];
+                double[] v = new double[N];
+                double[][] b = random(N, 2, 6);
+                for (int i = 1; i < N; i++) {
+                    a[i][0] = 0.0;
+                }
+                a[0][0] = 1.0;
+                u[0] = -1.0; // Cancels the first pivot.
+                u[1] = 2.0;
+                v[0] = 1.0;
+                lu = Float64LUDecomposition.valueOf(Float64Matrix.valueOf(a));
+                lu.update(Float64Vector.valueOf(u), Float64Vector.valueOf(v));
+                Float64Matrix A2 = Float64Matrix.valueOf(plusOuter(a, u, v, 1.0));
+                assertNear(b, A2.times(lu.solve(Float64Matrix.valueOf(b))));
+            }
+        });
+    }
+
+    public void testCholeskyUpdate() {
+        info("  Cholesky update and downdate");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = randomSPD(N, 5);
+                double[] x = random(1, N, 6)[0];
+                Float64CholeskyDecomposition cholesky = Float64CholeskyDecomposition.valueOf(
+                        Float64Matrix.valueOf(a));
+                cholesky.update(Float64Vector.valueOf(x));
+                Float64Matrix L = cholesky.getLower();
+                assertNear(plusOuter(a, x, x, 1.0), L.times(L.transpose()));
+                cholesky.downdate(Float64Vector.valueOf(x));
+                L = cholesky.getLower();
+                assertNear(a, L.times(L.transpose()));
+                final Float64CholeskyDecomposition identity = Float64CholeskyDecomposition.valueOf(
+                        Float64Matrix.valueOf(new double[][] { { 1, 0 }, { 0, 1 } }));
+                TestContext.assertException(ArithmeticException.class, new Runnable() {
+                    public void run() { // Not positive definite.
+                        identity.downdate(Float64Vector.valueOf(2, 0));
+                    }
+                });
+                TestContext.assertEquals(1.0, identity.getLower().getValue(0, 0), "unchanged");
+            }
+        });
+    }
+
+    public void testWoodbury() {
+        info("  Woodbury solver");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(N, N, 7);
+                double[][] u = random(N, 3, 8);
+                double[][] v = random(N, 3, 9);
+                double[][] b = random(N, 2, 10);
+                double[][] a2 = a;
+                for (int k = 0; k < 3; k++) {
+                    double[] uk = new double[N];
+                    double[] vk = new double[N];
+                    for (int i = 0; i < N; i++) {
+                        uk[i] = u[i][k];
+                        vk[i] = v[i][k];
+                    }
+                    a2 = plusOuter(a2, uk, vk, 1.0);
+                }
+                Float64WoodburySolver solver = Float64WoodburySolver.valueOf(
+                        Float64LUDecomposition.valueOf(Float64Matrix.valueOf(a)),
+                        Float64Matrix.valueOf(u), Float64Matrix.valueOf(v));
+                TestContext.assertEquals(3, solver.getRank(), "rank");
+                Float64Matrix A2 = Float64Matrix.valueOf(a2);
+                assertNear(b, A2.times(solver.solve(Float64Matrix.valueOf(b))));
+                double[][] identity = new double[N][N];
+                for (int i = 0; i < N; i++) {
+                    identity[i][i] = 1.0;
+                }
+                assertNear(identity, A2.times(solver.inverse()));
+            }
+        });
+    }
+
+    /** Returns a + sign·u·v'. */
+    static double[][] plusOuter(double[][] a, double[] u, double[] v, double sign) {
+        double[][] c = new double[a.length][a.length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a.length; j++) {
+                c[i][j] = a[i][j] + sign * u[i] * v[j];
+            }
+        }
+        return c;
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    /** Returns B·B' + n·I for a random B. */
+    static double[][] randomSPD(int n, long seed) {
+        double[][] b = random(n, n, seed);
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double sum = (i == j) ? n : 0.0;
+                for (int k = 0; k < n; k++) {
+                    sum += b[i][k] * b[j][k];
+                }
+                a[i][j] = sum;
+            }
+        }
+        return a;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                double value = actual.get(i, j).doubleValue();
+                TestContext.assertTrue(MathLib.abs(expected[i][j] - value) <= EPSILON,
+                        "(" + i + ", " + j + "): " + expected[i][j] + " expected but found " + value);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Complex;
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the {@link Solver factorizations} returned by
+ * {@link Matrix#factorize()} for the different kinds of matrices
+ * (decomposition selected, many right-hand sides, snapshot semantics).
+ */
+public class TestFactorize extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-10;
+
+    public void testDispatch() {
+        info("  decomposition selected");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(20, 20, 1);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                TestContext.assertTrue(A.factorize() instanceof Float64LUDecomposition, "Float64Matrix");
+                TestContext.assertTrue(A.transpose().factorize() instanceof Float64LUDecomposition, "transposed");
+                TestContext.assertTrue(Float64CSRMatrix.valueOfMatrix(A).factorize()
+                        instanceof Float64SparseLUDecomposition, "CSR");
+                TestContext.assertTrue(DenseMatrixImpl.valueOf(A).factorize() instanceof LUDecomposition<?>,
+                        "generic");
+                TestContext.assertTrue(rational(4).factorize() instanceof BareissDecomposition<?>, "rational");
+                TestContext.assertTrue(rational(MultiModularDecomposition.THRESHOLD).factorize()
+                        instanceof MultiModularDecomposition, "large rational");
+                TestContext.assertException(DimensionException.class, new Runnable() {
+                    public void run() {
+                        Float64Matrix.valueOf(new double[2][3]).factorize();
+                    }
+                });
+            }
+        });
+    }
+
+    public void testManyRightHandSides() {
+        info("  many right-hand sides");
+        doTest(new SolverTest("Float64Matrix", Float64Matrix.valueOf(random(40, 40, 2))));
+        doTest(new SolverTest("CSR", Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(random(40, 40, 3)))));
+        doTest(new SolverTest("generic", DenseMatrixImpl.valueOf(Float64Matrix.valueOf(random(40, 40, 4)))));
+    }
+
+    public void testDeterminant() {
+        info("  determinant of the factorizations");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = { { 4, 1, 0 }, { 1, 3, 1 }, { 0, 1, 2 } }; // det(A) = 18
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                assertNear(18.0, A.factorize().determinant().doubleValue(), "Float64Matrix");
+                assertNear(18.0, Float64CSRMatrix.valueOfMatrix(A).factorize().determinant().doubleValue(), "CSR");
+                assertNear(18.0, DenseMatrixImpl.valueOf(A).factorize().determinant().doubleValue(), "generic");
+                assertNear(18.0, Float64SymmetricMatrix.valueOf(A).factorize().determinant().doubleValue(),
+                        "symmetric");
+                assertNear(18.0, Float64BandMatrix.valueOf(A, 1, 1).factorize().determinant().doubleValue(), "band");
+                assertNear(24.0, Float64TriangularMatrix.valueOf(A, true).factorize().determinant().doubleValue(),
+                        "triangular");
+                assertNear(18.0, LDLDecomposition.valueOf(A).determinant().doubleValue(), "LDL");
+                Float64Matrix B = Float64Matrix.valueOf(new double[][] { { 2, 1 }, { 1, 1 } }); // det(B) = 1
+                assertNear(324.0, KroneckerMatrix.valueOf(A, B).factorize().determinant().doubleValue(), "Kronecker");
+                Float64Matrix U = Float64Matrix.valueOf(new double[][] { { 1 }, { 0 }, { 0 } });
+                Float64Matrix V = Float64Matrix.valueOf(new double[][] { { 0 }, { 0 }, { 1 } });
+                assertNear(19.0, Float64WoodburySolver.valueOf(A.factorize(), U, V).determinant().doubleValue(),
+                        "Woodbury");
+                TestContext.assertEquals(Rational.valueOf(18, 1), rational(a).factorize().determinant(), "rational");
+                DenseMatrix<Rational> R = rational(MultiModularDecomposition.THRESHOLD);
+                TestContext.assertEquals(BareissDecomposition.valueOf(R).determinant(), R.factorize().determinant(),
+                        "large rational");
+                TestContext.assertEquals(Complex.valueOf(2, 2),
+                        ComplexMatrix.valueOf(2, 2, 1, 1, 0, 0, 0, 0, 2, 0).factorize().determinant(), "complex");
+                TestContext.assertEquals(Rational.valueOf(7, 1),
+                        rational(new double[][] { { 7 } }).determinant(), "1x1");
+            }
+        });
+    }
+
+    public void testSnapshot() {
+        info("  snapshot");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(10, 10, 5);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Solver<Float64> solver = A.factorize();
+                A.timesInPlace(2.0);
+                Vector<Float64> y = Float64Vector.valueOf(random(1, 10, 6)[0]);
+                Vector<Float64> x = solver.solve(y);
+                Vector<Float64> Ax = Float64Matrix.valueOf(a).times(x);
+                for (int i = 0; i < 10; i++) {
+                    assertNear(y.get(i).doubleValue(), Ax.get(i).doubleValue(), "(" + i + ")");
+                }
+            }
+        });
+    }
+
+    /** Solves a stream of vectors and a block of right-hand sides with the same factorization. */
+    private static class SolverTest extends SimpleTestCase {
+
+        private final String _name;
+
+        private final Matrix<Float64> _A;
+
+        SolverTest(String name, Matrix<Float64> A) {
+            _name = name;
+            _A = A;
+        }
+
+        @Override
+        public void execute() {
+            int n = _A.getNumberOfRows();
+            Solver<Float64> solver = _A.factorize();
+            for (int k = 0; k < 5; k++) {
+                Vector<Float64> y = Float64Vector.valueOf(random(1, n, 10 + k)[0]);
+                Vector<Float64> Ax = _A.times(solver.solve(y));
+                for (int i = 0; i < n; i++) {
+                    assertNear(y.get(i).doubleValue(), Ax.get(i).doubleValue(), "vector " + k);
+                }
+            }
+            Matrix<Float64> B = Float64Matrix.valueOf(random(n, 4, 20));
+            Matrix<Float64> AX = _A.times(solver.solve(B));
+            Matrix<Float64> AI = _A.times(solver.inverse());
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < 4; j++) {
+                    assertNear(B.get(i, j).doubleValue(), AX.get(i, j).doubleValue(), "block");
+                }
+                for (int j = 0; j < n; j++) {
+                    assertNear((i == j) ? 1.0 : 0.0, AI.get(i, j).doubleValue(), "inverse");
+                }
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "Solver (" + _name + ")";
+        }
+    }
+
+    static DenseMatrix<Rational> rational(int n) {
+        Rational[][] a = new Rational[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = Rational.valueOf((i == j) ? n : 1, 1 + i + j);
+            }
+        }
+        return DenseMatrix.valueOf(a);
+    }
+
+    static DenseMatrix<Rational> rational(double[][] a) {
+        Rational[][] r = new Rational[a.length][a[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[0].length; j++) {
+                r[i][j] = Rational.valueOf((long) a[i][j], 1);
+            }
+        }
+        return DenseMatrix.valueOf(r);
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
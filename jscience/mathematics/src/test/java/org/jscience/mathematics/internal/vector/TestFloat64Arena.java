@@ -0,0 +1,197 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the off-heap {@link Float64DirectMatrix matrices} and
+ * {@link Float64DirectVector vectors} allocated in a {@link Float64Arena}.
+ */
+public class TestFloat64Arena extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-12;
+
+    public void testMatrixOperations() {
+        info("  direct matrix operations");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(40, 30, 10);
+                double[][] b = random(30, 20, 11);
+                Float64Arena arena = new Float64Arena();
+                try {
+                    Float64DirectMatrix A = arena.valueOf(Float64Matrix.valueOf(a));
+                    Float64DirectMatrix B = arena.valueOf(Float64Matrix.valueOf(b));
+                    Float64DirectMatrix C = A.times(B);
+                    TestContext.assertSame(arena, C.getArena());
+                    double[][] ab = multiply(a, b);
+                    assertNear(ab, C);
+                    assertNear(ab, A.times(Float64Matrix.valueOf(transpose(b)).transpose()));
+                    assertNear(ab, Float64Matrix.valueOf(a).times(B));
+                    assertNear(transpose(a), A.transpose());
+                    Float64DirectMatrix D = A.copy();
+                    D.timesInPlace(2.0);
+                    D.axpy(-1.0, A);
+                    assertNear(a, D);
+                    Float64DirectMatrix S = D.getSubMatrix(1, 3, 2, 5);
+                    S.setValue(0, 0, 7.0);
+                    TestContext.assertEquals(7.0, D.getValue(1, 2), "through view");
+                    TestContext.assertTrue(arena.getAllocatedBytes() >= 8L * (40 * 30 + 30 * 20 + 40 * 20),
+                            "allocated bytes");
+                } finally {
+                    arena.close();
+                }
+            }
+        });
+    }
+
+    public void testVectorOperations() {
+        info("  direct vector operations");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(12, 12, 12);
+                double[] x = random(1, 12, 13)[0];
+                Float64Arena arena = new Float64Arena();
+                try {
+                    Float64DirectMatrix A = arena.valueOf(Float64Matrix.valueOf(a));
+                    Float64DirectVector v = arena.valueOf(Float64Vector.valueOf(x));
+                    Float64DirectVector y = A.times(v);
+                    double dot = 0.0;
+                    for (int i = 0; i < 12; i++) {
+                        double sum = 0.0;
+                        for (int j = 0; j < 12; j++) {
+                            sum += a[i][j] * x[j];
+                        }
+                        assertNear(sum, y.getValue(i), "A·x");
+                        dot += x[i] * x[i];
+                    }
+                    assertNear(dot, v.times(v).doubleValue(), "dot");
+                    assertNear(MathLib.sqrt(dot), v.normValue(), "norm");
+                    Float64DirectVector w = arena.newVector(12);
+                    v.minus(v.times(3.0), w);
+                    assertNear(-2.0 * x[5], w.getValue(5), "destination");
+                    Float64DirectMatrix X = A.solve(Float64Matrix.valueOf(new double[][] {
+                            { 1 }, { 2 }, { 3 }, { 4 }, { 5 }, { 6 }, { 7 }, { 8 }, { 9 }, { 10 }, { 11 }, { 12 } }));
+                    Matrix<Float64> AX = Float64Matrix.valueOf(a).times(X);
+                    for (int i = 0; i < 12; i++) {
+                        TestContext.assertTrue(MathLib.abs(AX.get(i, 0).doubleValue() - (i + 1)) < 1e-9, "solve");
+                    }
+                } finally {
+                    arena.close();
+                }
+            }
+        });
+    }
+
+    public void testClose() {
+        info("  closed arena");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Arena arena = new Float64Arena();
+                final Float64DirectMatrix A = arena.newMatrix(3, 3);
+                final Float64DirectVector v = arena.newVector(3);
+                TestContext.assertFalse(arena.isClosed(), "open");
+                arena.close();
+                TestContext.assertTrue(arena.isClosed(), "closed");
+                TestContext.assertException(IllegalStateException.class, new Runnable() {
+                    public void run() {
+                        A.getValue(0, 0);
+                    }
+                });
+                TestContext.assertException(IllegalStateException.class, new Runnable() {
+                    public void run() {
+                        v.setValue(0, 1.0);
+                    }
+                });
+            }
+        });
+    }
+
+    public void testRelease() {
+        info("  memory released on close");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                TestContext.assertTrue(Float64Arena.release(ByteBuffer.allocateDirect(1024)),
+                        "direct buffers released explicitly");
+                for (int i = 0; i < 20; i++) { // 32 MB per arena.
+                    Float64Arena arena = new Float64Arena();
+                    Float64DirectMatrix A = arena.newMatrix(2048, 2048);
+                    A.setValue(2047, 2047, i);
+                    arena.newVector(100).setValue(99, i); // Shared chunk.
+                    TestContext.assertEquals((double) i, A.getValue(2047, 2047), "element");
+                    arena.close();
+                    arena.close(); // No effect.
+                }
+            }
+        });
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int k = 0; k < b.length; k++) {
+                for (int j = 0; j < b[0].length; j++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+
+    static double[][] transpose(double[][] a) {
+        double[][] t = new double[a[0].length][a.length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[0].length; j++) {
+                t[j][i] = a[i][j];
+            }
+        }
+        return t;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                assertNear(expected[i][j], actual.get(i, j).doubleValue(), "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the {@link Float64CholeskyDecomposition} of symmetric
+ * positive-definite matrices and the generic {@link LDLDecomposition}.
+ */
+public class TestFloat64CholeskyDecomposition extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-10;
+
+    public void testFactors() {
+        info("  A = L·L'");
+        doTest(new CholeskyTest(9));
+        doTest(new CholeskyTest(150));
+    }
+
+    public void testSolve() {
+        info("  solve, inverse and log-determinant");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = randomSPD(80, 7);
+                double[][] b = random(80, 2, 8);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Float64CholeskyDecomposition cholesky = Float64CholeskyDecomposition.valueOf(A);
+                assertNear(b, A.times(cholesky.solve(Float64Matrix.valueOf(b))));
+                assertNear(identity(80), A.times(cholesky.inverse()));
+                Float64Matrix S = Float64Matrix.valueOf(randomSPD(6, 9));
+                assertNear(MathLib.log(S.determinant().doubleValue()),
+                        Float64CholeskyDecomposition.valueOf(S).logDeterminant(), "log-determinant");
+            }
+        });
+    }
+
+    public void testNotPositiveDefinite() {
+        info("  not positive definite");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                TestContext.assertException(ArithmeticException.class, new Runnable() {
+                    public void run() {
+                        Float64CholeskyDecomposition.valueOf(Float64Matrix.valueOf(new double[][] {
+                                { 1, 2 }, { 2, 1 } }));
+                    }
+                });
+            }
+        });
+    }
+
+    public void testLDL() {
+        info("  generic LDL'");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Rational[][] a = new Rational[4][4];
+                for (int i = 0; i < 4; i++) {
+                    for (int j = 0; j < 4; j++) {
+                        a[i][j] = Rational.valueOf((i == j) ? 4 : 1, 1 + i + j);
+                    }
+                }
+                DenseMatrix<Rational> A = DenseMatrix.valueOf(a);
+                LDLDecomposition<Rational> ldl = LDLDecomposition.valueOf(A);
+                TestContext.assertEquals(BareissDecomposition.valueOf(A).determinant(), ldl.determinant());
+                DenseMatrix<Rational> I = A.times(ldl.inverse());
+                for (int i = 0; i < 4; i++) {
+                    for (int j = 0; j < 4; j++) {
+                        TestContext.assertEquals(Rational.valueOf((i == j) ? 1 : 0, 1), I.get(i, j));
+                    }
+                }
+                DenseMatrix<Rational> B = DenseMatrix.valueOf(new Rational[][] {
+                        { Rational.valueOf(1, 1) }, { Rational.valueOf(-2, 3) }, { Rational.valueOf(0, 1) },
+                        { Rational.valueOf(5, 2) } });
+                TestContext.assertEquals(B, A.times(ldl.solve(B)));
+            }
+        });
+    }
+
+    /** Checks the factor of a random n-by-n symmetric positive-definite matrix. */
+    private static class CholeskyTest extends SimpleTestCase {
+
+        private final int _n;
+
+        CholeskyTest(int n) {
+            _n = n;
+        }
+
+        @Override
+        public void execute() {
+            double[][] a = randomSPD(_n, _n);
+            Float64Matrix L = Float64CholeskyDecomposition.valueOf(Float64Matrix.valueOf(a)).getLower();
+            for (int i = 0; i < _n; i++) {
+                TestContext.assertTrue(L.getValue(i, i) > 0, "positive diagonal");
+                for (int j = i + 1; j < _n; j++) {
+                    TestContext.assertEquals(0.0, L.getValue(i, j), "lower");
+                }
+            }
+            assertNear(a, L.times(L.transpose()));
+        }
+
+        @Override
+        public String getName() {
+            return "Cholesky " + _n + "x" + _n;
+        }
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    /** Returns B·B' + n·I for a random B. */
+    static double[][] randomSPD(int n, long seed) {
+        double[][] b = random(n, n, seed);
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double sum = (i == j) ? n : 0.0;
+                for (int k = 0; k < n; k++) {
+                    sum += b[i][k] * b[j][k];
+                }
+                a[i][j] = sum;
+            }
+        }
+        return a;
+    }
+
+    static double[][] identity(int n) {
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            a[i][i] = 1.0;
+        }
+        return a;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                assertNear(expected[i][j], actual.get(i, j).doubleValue(), "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON * MathLib.max(1.0, MathLib.abs(expected)),
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
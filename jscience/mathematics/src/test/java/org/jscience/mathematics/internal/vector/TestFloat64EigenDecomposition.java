@@ -0,0 +1,106 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the {@link Float64EigenDecomposition} of symmetric matrices
+ * (A·V = V·diag(d), V orthogonal, d sorted).
+ */
+public class TestFloat64EigenDecomposition extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-10;
+
+    public void testRandom() {
+        info("  symmetric indefinite");
+        doTest(new EigenTest(5));
+        doTest(new EigenTest(50));
+        doTest(new EigenTest(140));
+    }
+
+    public void testKnownEigenvalues() {
+        info("  known eigenvalues");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                // Second difference matrix: 2 - 2·cos(k·π / (n + 1)), k = 1..n
+                int n = 12;
+                double[][] a = new double[n][n];
+                for (int i = 0; i < n; i++) {
+                    a[i][i] = 2.0;
+                    if (i > 0) {
+                        a[i][i - 1] = a[i - 1][i] = -1.0;
+                    }
+                }
+                Float64Vector d = Float64EigenDecomposition.valueOf(Float64Matrix.valueOf(a)).getEigenvalues();
+                for (int k = 1; k <= n; k++) {
+                    assertNear(2.0 - 2.0 * MathLib.cos(k * MathLib.PI / (n + 1)), d.getValue(k - 1),
+                            "eigenvalue " + k);
+                }
+            }
+        });
+    }
+
+    /** Checks the decomposition of a random n-by-n symmetric matrix. */
+    private static class EigenTest extends SimpleTestCase {
+
+        private final int _n;
+
+        EigenTest(int n) {
+            _n = n;
+        }
+
+        @Override
+        public void execute() {
+            Random random = new Random(_n);
+            double[][] a = new double[_n][_n];
+            for (int i = 0; i < _n; i++) {
+                for (int j = 0; j <= i; j++) {
+                    a[i][j] = a[j][i] = 2.0 * random.nextDouble() - 1.0;
+                }
+            }
+            Float64EigenDecomposition eigen = Float64EigenDecomposition.valueOf(Float64Matrix.valueOf(a));
+            Float64Matrix V = eigen.getEigenvectors();
+            Float64Vector d = eigen.getEigenvalues();
+            TestContext.assertEquals(_n, eigen.getDimension(), "dimension");
+            Matrix<Float64> VtV = V.transpose().times(V);
+            Matrix<Float64> AV = Float64Matrix.valueOf(a).times(V);
+            for (int i = 0; i < _n; i++) {
+                for (int j = 0; j < _n; j++) {
+                    assertNear((i == j) ? 1.0 : 0.0, VtV.get(i, j).doubleValue(), "V'·V");
+                    assertNear(V.getValue(i, j) * d.getValue(j), AV.get(i, j).doubleValue(), "A·V");
+                }
+            }
+            for (int j = 1; j < _n; j++) {
+                TestContext.assertTrue(d.getValue(j - 1) <= d.getValue(j), "ascending order");
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "Eigen " + _n + "x" + _n;
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
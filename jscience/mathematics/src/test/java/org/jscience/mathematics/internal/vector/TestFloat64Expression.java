@@ -0,0 +1,127 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the lazy elementwise {@link Float64Expression expressions}
+ * (single and concurrent evaluation, transposed operands, vectors and
+ * evaluation into an existing buffer).
+ */
+public class TestFloat64Expression extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-12;
+
+    public void testMatrixExpression() {
+        info("  matrix expression");
+        doTest(new ExpressionTest(30, 20));
+        doTest(new ExpressionTest(700, 600));
+    }
+
+    public void testVectorExpression() {
+        info("  vector expression");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[] x = random(1, 50, 1)[0];
+                double[] y = random(1, 50, 2)[0];
+                Float64Vector V = Float64Expression.valueOf(Float64Vector.valueOf(x)).times(3.0).minus(
+                        Float64Expression.valueOf(Float64Vector.valueOf(y))).plus(1.0).toVector();
+                TestContext.assertEquals(50, V.getDimension(), "dimension");
+                for (int i = 0; i < 50; i++) {
+                    assertNear(3.0 * x[i] - y[i] + 1.0, V.getValue(i), "(" + i + ")");
+                }
+            }
+        });
+    }
+
+    public void testEvaluateInPlace() {
+        info("  evaluation into a buffer");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(4, 3, 3);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                double[] buffer = new double[2 + 4 * 5];
+                Float64Expression.valueOf(A).opposite().plus(2.0).evaluate(buffer, 2, 5);
+                for (int i = 0; i < 4; i++) {
+                    for (int j = 0; j < 3; j++) {
+                        assertNear(2.0 - a[i][j], buffer[2 + i * 5 + j], "(" + i + ", " + j + ")");
+                    }
+                    TestContext.assertEquals(0.0, buffer[2 + i * 5 + 3], "padding");
+                }
+                TestContext.assertException(DimensionException.class, new Runnable() {
+                    public void run() {
+                        Float64Expression.valueOf(Float64Matrix.valueOf(new double[2][3])).plus(
+                                Float64Expression.valueOf(Float64Matrix.valueOf(new double[3][2])));
+                    }
+                });
+            }
+        });
+    }
+
+    /** Evaluates 2·(A + B')⊙A - A/2 + 1 for random m-by-n A. */
+    private static class ExpressionTest extends SimpleTestCase {
+
+        private final int _m, _n;
+
+        ExpressionTest(int m, int n) {
+            _m = m;
+            _n = n;
+        }
+
+        @Override
+        public void execute() {
+            double[][] a = random(_m, _n, _m);
+            double[][] b = random(_n, _m, _n);
+            Float64Expression A = Float64Expression.valueOf(Float64Matrix.valueOf(a));
+            Float64Expression Bt = Float64Expression.valueOf(Float64Matrix.valueOf(b).transpose());
+            Float64Matrix D = A.plus(Bt).times(2.0).timesElementwise(A).minus(A.times(0.5)).plus(1.0).toMatrix();
+            TestContext.assertEquals(_m, D.getNumberOfRows(), "rows");
+            TestContext.assertEquals(_n, D.getNumberOfColumns(), "columns");
+            for (int i = 0; i < _m; i++) {
+                for (int j = 0; j < _n; j++) {
+                    double expected = 2.0 * (a[i][j] + b[j][i]) * a[i][j] - 0.5 * a[i][j] + 1.0;
+                    assertNear(expected, D.getValue(i, j), "(" + i + ", " + j + ")");
+                }
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "Expression " + _m + "x" + _n;
+        }
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
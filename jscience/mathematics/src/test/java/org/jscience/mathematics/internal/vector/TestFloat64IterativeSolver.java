@@ -0,0 +1,178 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the Krylov {@link Float64IterativeSolver iterative solvers} with and
+ * without {@link Float64Preconditioner preconditioners}, on stored matrices
+ * and on a matrix-free {@link Float64LinearOperator}.
+ */
+public class TestFloat64IterativeSolver extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-9;
+
+    private static final int N = 100;
+
+    public void testConjugateGradient() {
+        info("  conjugate gradient");
+        final double[][] a = sparseSPD(N);
+        doTest(new SolverTest("CG", Float64IterativeSolver.conjugateGradient(), a));
+        doTest(new SolverTest("CG + IC(0)", Float64IterativeSolver.conjugateGradient().setPreconditioner(
+                Float64Preconditioner.incompleteCholesky(Float64CSRMatrix.valueOfMatrix(
+                        Float64Matrix.valueOf(a)))), a));
+    }
+
+    public void testMinres() {
+        info("  MINRES");
+        double[][] a = sparseSPD(N);
+        for (int i = 0; i < N; i += 2) {
+            a[i][i] = -a[i][i]; // Indefinite.
+        }
+        doTest(new SolverTest("MINRES", Float64IterativeSolver.minres(), a));
+    }
+
+    public void testGmres() {
+        info("  GMRES");
+        double[][] a = sparseNonSymmetric(N);
+        doTest(new SolverTest("GMRES(20)", Float64IterativeSolver.gmres(20), a));
+        doTest(new SolverTest("GMRES(20) + ILU(0)", Float64IterativeSolver.gmres(20).setPreconditioner(
+                Float64Preconditioner.incompleteLU(Float64CSRMatrix.valueOfMatrix(
+                        Float64Matrix.valueOf(a)))), a));
+    }
+
+    public void testBicgstab() {
+        info("  BiCGSTAB");
+        double[][] a = sparseNonSymmetric(N);
+        doTest(new SolverTest("BiCGSTAB + Jacobi", Float64IterativeSolver.bicgstab().setPreconditioner(
+                Float64Preconditioner.jacobi(Float64Matrix.valueOf(a))), a));
+    }
+
+    public void testMatrixFree() {
+        info("  matrix-free operator and monitor");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64LinearOperator laplacian = new Float64LinearOperator() {
+                    public int getNumberOfRows() {
+                        return N;
+                    }
+
+                    public int getNumberOfColumns() {
+                        return N;
+                    }
+
+                    public void times(double[] x, double[] y) {
+                        for (int i = 0; i < N; i++) {
+                            y[i] = 2.0 * x[i] - ((i > 0) ? x[i - 1] : 0.0) - ((i < N - 1) ? x[i + 1] : 0.0);
+                        }
+                    }
+                };
+                double[] ones = new double[N];
+                double[] b = new double[N];
+                for (int i = 0; i < N; i++) {
+                    ones[i] = 1.0;
+                }
+                laplacian.times(ones, b);
+                Float64IterativeSolver cg = Float64IterativeSolver.conjugateGradient().setTolerance(1e-12);
+                Float64Vector x = cg.solve(laplacian, Float64Vector.valueOf(b), null);
+                TestContext.assertTrue(cg.hasConverged(), "converged");
+                for (int i = 0; i < N; i++) {
+                    assertNear(1.0, x.getValue(i), "x" + i);
+                }
+                final int[] calls = new int[1];
+                cg.setMonitor(new Float64IterativeSolver.Monitor() {
+                    public boolean iterationPerformed(int iteration, double residual) {
+                        return ++calls[0] < 3;
+                    }
+                }).solve(laplacian, Float64Vector.valueOf(b), null);
+                TestContext.assertFalse(cg.hasConverged(), "stopped by monitor");
+                TestContext.assertTrue(cg.getIterations() <= 3, "iterations");
+            }
+        });
+    }
+
+    /** Solves A·x = b for a random b and checks the residual. */
+    private static class SolverTest extends SimpleTestCase {
+
+        private final String _name;
+
+        private final Float64IterativeSolver _solver;
+
+        private final double[][] _a;
+
+        SolverTest(String name, Float64IterativeSolver solver, double[][] a) {
+            _name = name;
+            _solver = solver;
+            _a = a;
+        }
+
+        @Override
+        public void execute() {
+            Float64CSRMatrix A = Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(_a));
+            Random random = new Random(3);
+            double[] b = new double[_a.length];
+            for (int i = 0; i < b.length; i++) {
+                b[i] = 2.0 * random.nextDouble() - 1.0;
+            }
+            Float64Vector x = _solver.setTolerance(1e-12).solve(A, Float64Vector.valueOf(b));
+            TestContext.assertTrue(_solver.hasConverged(), "converged");
+            TestContext.assertTrue(_solver.getResidual() <= 1e-12, "residual");
+            Vector<Float64> Ax = A.times(x);
+            for (int i = 0; i < b.length; i++) {
+                assertNear(b[i], Ax.get(i).doubleValue(), "(" + i + ")");
+            }
+        }
+
+        @Override
+        public String getName() {
+            return _name;
+        }
+    }
+
+    /** Returns a sparse diagonally dominant n-by-n matrix (tridiagonal plus a few far entries). */
+    static double[][] sparseSPD(int n) {
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            a[i][i] = 4.0;
+            if (i > 0) {
+                a[i][i - 1] = a[i - 1][i] = -1.0;
+            }
+            if (i >= 7) {
+                a[i][i - 7] = a[i - 7][i] = -0.5;
+            }
+        }
+        return a;
+    }
+
+    /** Returns a sparse non-symmetric diagonally dominant n-by-n matrix. */
+    static double[][] sparseNonSymmetric(int n) {
+        double[][] a = sparseSPD(n);
+        for (int i = 0; i + 3 < n; i++) {
+            a[i][i + 3] += 0.7;
+        }
+        return a;
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
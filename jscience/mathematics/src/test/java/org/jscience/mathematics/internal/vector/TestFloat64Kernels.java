@@ -0,0 +1,159 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the level-1 {@link Float64Kernels} (contiguous and strided paths,
+ * lengths which are not multiple of the unrolling factor) and the
+ * {@link Float64Vector} / {@link Float64Matrix} operations built on them.
+ */
+public class TestFloat64Kernels extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-12;
+
+    public void testDot() {
+        info("  dot");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[] x = random(40, 1);
+                double[] y = random(40, 2);
+                for (int n = 0; n <= 13; n++) {
+                    double expected = 0.0;
+                    for (int i = 0; i < n; i++) {
+                        expected += x[1 + i] * y[2 + i];
+                    }
+                    assertNear(expected, Float64Kernels.dot(n, x, 1, 1, y, 2, 1), "contiguous " + n);
+                    expected = 0.0;
+                    for (int i = 0; i < n; i++) {
+                        expected += x[i * 3] * y[1 + i * 2];
+                    }
+                    assertNear(expected, Float64Kernels.dot(n, x, 0, 3, y, 1, 2), "strided " + n);
+                }
+                assertNear(Float64Kernels.dot(11, x, 3, 1, x, 3, 1), Float64Kernels.sumOfSquares(11, x, 3, 1),
+                        "sum of squares");
+            }
+        });
+    }
+
+    public void testAxpyAndScale() {
+        info("  axpy and scale");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[] x = random(30, 3);
+                double[] y = random(30, 4);
+                double[] alphas = { 1.0, -1.0, 2.5 };
+                for (int a = 0; a < alphas.length; a++) {
+                    double[] z = new double[9];
+                    Float64Kernels.axpy(9, alphas[a], x, 2, 1, y, 5, 1, z, 0);
+                    for (int i = 0; i < 9; i++) {
+                        assertNear(y[5 + i] + alphas[a] * x[2 + i], z[i], "contiguous axpy " + alphas[a]);
+                    }
+                    Float64Kernels.axpy(9, alphas[a], x, 0, 3, y, 1, 2, z, 0);
+                    for (int i = 0; i < 9; i++) {
+                        assertNear(y[1 + 2 * i] + alphas[a] * x[3 * i], z[i], "strided axpy " + alphas[a]);
+                    }
+                }
+                double[] z = y.clone();
+                Float64Kernels.axpy(30, 0.5, x, 0, 1, z, 0, 1, z, 0);
+                for (int i = 0; i < 30; i++) {
+                    assertNear(y[i] + 0.5 * x[i], z[i], "in-place axpy");
+                }
+                z = x.clone();
+                Float64Kernels.scale(30, -3.0, z, 0, 1, z, 0);
+                for (int i = 0; i < 30; i++) {
+                    assertNear(-3.0 * x[i], z[i], "in-place scale");
+                }
+                z = new double[10];
+                Float64Kernels.scale(10, 2.0, x, 0, 3, z, 0);
+                for (int i = 0; i < 10; i++) {
+                    assertNear(2.0 * x[3 * i], z[i], "strided scale");
+                }
+            }
+        });
+    }
+
+    public void testVectorOperations() {
+        info("  vector operations");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[] x = random(23, 5);
+                double[] y = random(23, 6);
+                Float64Vector X = Float64Vector.valueOf(x);
+                Float64Vector Y = Float64Vector.valueOf(y);
+                Float64Vector sum = X.plus(Y);
+                Float64Vector difference = X.minus(Y);
+                Float64Vector scaled = X.times(-2.0);
+                double dot = 0.0;
+                for (int i = 0; i < 23; i++) {
+                    assertNear(x[i] + y[i], sum.getValue(i), "plus");
+                    assertNear(x[i] - y[i], difference.getValue(i), "minus");
+                    assertNear(-2.0 * x[i], scaled.getValue(i), "times");
+                    assertNear(-x[i], X.opposite().getValue(i), "opposite");
+                    dot += x[i] * y[i];
+                }
+                assertNear(dot, X.times(Y).doubleValue(), "dot");
+                assertNear(MathLib.sqrt(X.times(X).doubleValue()), X.normValue(), "norm");
+            }
+        });
+    }
+
+    public void testStridedViews() {
+        info("  strided views");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[] a = random(7 * 5, 7);
+                Float64Matrix A = Float64Matrix.valueOf(7, 5, a);
+                Vector<Float64> column = A.getColumn(3);
+                double dot = 0.0;
+                for (int i = 0; i < 7; i++) {
+                    dot += a[i * 5 + 3] * a[i * 5 + 1];
+                }
+                assertNear(dot, column.times(A.transpose().getRow(1)).doubleValue(), "column by column");
+                Float64Matrix B = A.plus(A).times(Float64.valueOf(0.5));
+                for (int i = 0; i < 7; i++) {
+                    assertNear(a[i * 5 + 3], column.get(i).doubleValue(), "column");
+                    for (int j = 0; j < 5; j++) {
+                        assertNear(a[i * 5 + j], B.getValue(i, j), "plus then times");
+                        assertNear(-a[i * 5 + j], A.opposite().getValue(i, j), "opposite");
+                    }
+                }
+            }
+        });
+    }
+
+    static double[] random(int n, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 2.0 * random.nextDouble() - 1.0;
+        }
+        return x;
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
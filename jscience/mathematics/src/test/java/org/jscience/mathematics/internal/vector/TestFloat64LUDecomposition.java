@@ -0,0 +1,166 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the blocked {@link Float64LUDecomposition} (single and multiple
+ * panels) through its factors and the residuals of solve and inverse.
+ */
+public class TestFloat64LUDecomposition extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-10;
+
+    public void testFactors() {
+        info("  P·A = L·U");
+        doTest(new LUTest(7));
+        doTest(new LUTest(150));
+    }
+
+    public void testSolve() {
+        info("  solve and inverse");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(130, 130, 3);
+                double[][] b = random(130, 3, 4);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Float64Matrix B = Float64Matrix.valueOf(b);
+                Float64LUDecomposition lu = Float64LUDecomposition.valueOf(A);
+                assertNear(b, A.times(lu.solve(B)));
+                assertNear(b, A.times(A.solve(B)));
+                assertNear(identity(130), A.times(lu.inverse()));
+                assertNear(identity(130), A.times(A.inverse()));
+                Float64Vector x = lu.solve(B.getColumn(1));
+                Vector<Float64> y = A.times(x);
+                for (int i = 0; i < 130; i++) {
+                    assertNear(b[i][1], y.get(i).doubleValue(), "A·x");
+                }
+            }
+        });
+    }
+
+    public void testDeterminant() {
+        info("  determinant");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix A = Float64Matrix.valueOf(new double[][] {
+                        { 2, -1, 0 }, { -1, 2, -1 }, { 0, -1, 2 } });
+                assertNear(4.0, A.determinant().doubleValue(), "tridiagonal");
+                Float64Matrix P = Float64Matrix.valueOf(new double[][] {
+                        { 0, 1, 0 }, { 0, 0, 1 }, { 1, 0, 0 } });
+                assertNear(1.0, P.determinant().doubleValue(), "even permutation");
+                Float64Matrix S = Float64Matrix.valueOf(new double[][] {
+                        { 0, 1, 0 }, { 1, 0, 0 }, { 0, 0, 1 } });
+                assertNear(-1.0, S.determinant().doubleValue(), "odd permutation");
+                assertNear(4.0, A.times(P).transpose().determinant().doubleValue(), "transposed");
+            }
+        });
+    }
+
+    public void testGetLU() {
+        info("  getLU() returns a copy");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(5, 5, 5);
+                double[][] b = random(5, 1, 6);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Float64LUDecomposition lu = Float64LUDecomposition.valueOf(A);
+                Float64Matrix LU = lu.getLU();
+                LU.timesInPlace(0.0);
+                assertNear(b, A.times(lu.solve(Float64Matrix.valueOf(b))));
+                TestContext.assertTrue(lu.getLU().getValue(0, 0) != 0.0, "unchanged");
+            }
+        });
+    }
+
+    /** Checks the factors of a random n-by-n matrix. */
+    private static class LUTest extends SimpleTestCase {
+
+        private final int _n;
+
+        LUTest(int n) {
+            _n = n;
+        }
+
+        @Override
+        public void execute() {
+            double[][] a = random(_n, _n, _n);
+            Float64LUDecomposition lu = Float64LUDecomposition.valueOf(Float64Matrix.valueOf(a));
+            Float64Matrix L = lu.getLower();
+            Float64Matrix U = lu.getUpper();
+            Matrix<Float64> LU = L.times(U);
+            for (int i = 0; i < _n; i++) {
+                TestContext.assertEquals(1.0, L.getValue(i, i), "unit diagonal");
+                for (int j = i + 1; j < _n; j++) {
+                    TestContext.assertEquals(0.0, L.getValue(i, j), "lower");
+                    TestContext.assertEquals(0.0, U.getValue(j, i), "upper");
+                }
+            }
+            for (int i = 0; i < _n; i++) {
+                int pi = lu.getPivots().get(i).intValue();
+                for (int j = 0; j < _n; j++) {
+                    assertNear(a[pi][j], LU.get(i, j).doubleValue(), "(" + i + ", " + j + ")");
+                }
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "LU " + _n + "x" + _n;
+        }
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static double[][] identity(int n) {
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            a[i][i] = 1.0;
+        }
+        return a;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                assertNear(expected[i][j], actual.get(i, j).doubleValue(), "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
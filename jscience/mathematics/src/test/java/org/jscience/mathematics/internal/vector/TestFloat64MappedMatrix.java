@@ -0,0 +1,161 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the memory-mapped {@link Float64MappedMatrix} (persistence, tiled
+ * operations spanning several tiles) and its out-of-core LU decomposition.
+ */
+public class TestFloat64MappedMatrix extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-9;
+
+    public void testPersistence() {
+        info("  persistence");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() throws Exception {
+                double[][] a = random(70, 60, 6);
+                File file = newFile();
+                Float64MappedMatrix M = Float64MappedMatrix.valueOf(file, Float64Matrix.valueOf(a));
+                try {
+                    assertNear(a, M);
+                    M.setValue(3, 4, 42.0);
+                    M.setSubMatrix(10, 20, Float64Matrix.valueOf(new double[][] { { -1, -2 } }));
+                    M.force();
+                } finally {
+                    M.close();
+                }
+                Float64MappedMatrix N = Float64MappedMatrix.open(file);
+                try {
+                    TestContext.assertEquals(70, N.getNumberOfRows(), "rows");
+                    TestContext.assertEquals(60, N.getNumberOfColumns(), "columns");
+                    TestContext.assertEquals(42.0, N.getValue(3, 4), "(3, 4)");
+                    TestContext.assertEquals(-2.0, N.getValue(10, 21), "(10, 21)");
+                    TestContext.assertEquals(a[4][3], N.getValue(4, 3), "(4, 3)");
+                } finally {
+                    N.close();
+                }
+            }
+        });
+    }
+
+    public void testTiledOperations() {
+        info("  tiled operations");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() throws Exception {
+                int m = Float64MappedMatrix.TILE_SIZE + 44;
+                int n = Float64MappedMatrix.TILE_SIZE + 14;
+                double[][] a = random(m, n, 1);
+                double[][] b = random(n, 5, 2);
+                Float64MappedMatrix M = Float64MappedMatrix.valueOf(newFile(), Float64Matrix.valueOf(a));
+                try {
+                    double[][] ab = new double[m][5];
+                    for (int i = 0; i < m; i++) {
+                        for (int k = 0; k < n; k++) {
+                            for (int j = 0; j < 5; j++) {
+                                ab[i][j] += a[i][k] * b[k][j];
+                            }
+                        }
+                    }
+                    assertNear(ab, M.times(Float64Matrix.valueOf(b)));
+                    Float64MappedMatrix T = M.transpose();
+                    for (int i = 0; i < m; i += 7) {
+                        for (int j = 0; j < n; j += 5) {
+                            TestContext.assertEquals(a[i][j], T.getValue(j, i), "transpose");
+                        }
+                    }
+                    T.close();
+                    M.axpy(2.0, Float64Matrix.valueOf(a));
+                    M.timesInPlace(Float64.valueOf(0.5));
+                    M.plusInPlace(Float64Matrix.valueOf(a).opposite());
+                    assertNear(new double[][] { { 0.5 * a[m - 1][n - 1] } },
+                            M.getSubMatrix(m - 1, m, n - 1, n));
+                    assertNear(0.5 * a[200][3], M.getRow(200).getValue(3), "row");
+                    assertNear(0.5 * a[3][261], M.getColumn(261).getValue(3), "column");
+                } finally {
+                    M.close();
+                }
+            }
+        });
+    }
+
+    public void testDecomposition() {
+        info("  out-of-core LU");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() throws Exception {
+                double[][] a = random(50, 50, 8);
+                double[][] b = random(50, 2, 9);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Float64MappedMatrix M = Float64MappedMatrix.valueOf(newFile(), A);
+                try {
+                    assertNear(b, A.times(M.solve(Float64Matrix.valueOf(b))));
+                    assertNear(1.0, M.determinant().doubleValue() / A.determinant().doubleValue(), "determinant");
+                    Float64MappedMatrix inverse = M.inverse();
+                    double[][] identity = new double[50][50];
+                    for (int i = 0; i < 50; i++) {
+                        identity[i][i] = 1.0;
+                    }
+                    assertNear(identity, A.times(inverse));
+                    inverse.close();
+                } finally {
+                    M.close();
+                }
+            }
+        });
+    }
+
+    static File newFile() throws IOException {
+        File file = File.createTempFile("jscience", ".matrix");
+        file.deleteOnExit();
+        return file;
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                assertNear(expected[i][j], actual.get(i, j).doubleValue(), "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
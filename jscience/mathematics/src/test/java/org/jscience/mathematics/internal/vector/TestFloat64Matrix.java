@@ -0,0 +1,117 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the flat row-major storage of {@link Float64Matrix} and the
+ * row, column and diagonal views over it.
+ */
+public class TestFloat64Matrix extends AbstractJavolutionJUnitAdapter {
+
+    private static final double[][] ELEMENTS = { { 1, 2, 3 }, { 4, 5, 6 } };
+
+    public void testValueOf() {
+        info("  valueOf");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix M = Float64Matrix.valueOf(ELEMENTS);
+                TestContext.assertEquals(2, M.getNumberOfRows());
+                TestContext.assertEquals(3, M.getNumberOfColumns());
+                assertElements(ELEMENTS, M);
+                assertElements(ELEMENTS, Float64Matrix.valueOf(2, 3, 1, 2, 3, 4, 5, 6));
+                assertElements(ELEMENTS, Float64Matrix.valueOfVector(Float64Vector.valueOf(1, 2, 3),
+                        Float64Vector.valueOf(4, 5, 6)));
+                assertElements(ELEMENTS, Float64Matrix.valueOfMatrix(DenseMatrix.valueOf(M.getRow(0),
+                        M.getRow(1))));
+                TestContext.assertEquals(M, Float64Matrix.valueOf(2, 3, 1, 2, 3, 4, 5, 6));
+            }
+        });
+    }
+
+    public void testRowsAndColumns() {
+        info("  getRow, getColumn, getDiagonal");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix M = Float64Matrix.valueOf(ELEMENTS);
+                Float64Vector row = M.getRow(1);
+                Float64Vector column = M.getColumn(2);
+                Float64Vector diagonal = M.getDiagonal();
+                TestContext.assertEquals(3, row.getDimension());
+                TestContext.assertEquals(2, column.getDimension());
+                TestContext.assertEquals(2, diagonal.getDimension());
+                for (int j = 0; j < 3; j++) {
+                    TestContext.assertEquals(ELEMENTS[1][j], row.getValue(j));
+                }
+                TestContext.assertEquals(3.0, column.getValue(0));
+                TestContext.assertEquals(6.0, column.getValue(1));
+                TestContext.assertEquals(1.0, diagonal.getValue(0));
+                TestContext.assertEquals(5.0, diagonal.getValue(1));
+                TestContext.assertEquals(Float64Vector.valueOf(3, 6), column.copy());
+            }
+        });
+    }
+
+    public void testTranspose() {
+        info("  transpose");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix M = Float64Matrix.valueOf(ELEMENTS);
+                Matrix<Float64> T = M.transpose();
+                TestContext.assertEquals(3, T.getNumberOfRows());
+                for (int i = 0; i < 2; i++) {
+                    for (int j = 0; j < 3; j++) {
+                        TestContext.assertEquals(ELEMENTS[i][j], T.get(j, i).doubleValue());
+                    }
+                }
+                assertElements(ELEMENTS, T.transpose());
+                assertElements(ELEMENTS, Float64Matrix.valueOfMatrix(T).transpose());
+            }
+        });
+    }
+
+    public void testArithmetic() {
+        info("  opposite, plus, times");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix M = Float64Matrix.valueOf(ELEMENTS);
+                assertElements(new double[][] { { -1, -2, -3 }, { -4, -5, -6 } }, M.opposite());
+                assertElements(new double[][] { { 2, 4, 6 }, { 8, 10, 12 } }, M.plus(M));
+                assertElements(new double[][] { { 2, 4, 6 }, { 8, 10, 12 } }, M.times(2.0));
+                assertElements(new double[][] { { 14, 32 }, { 32, 77 } }, M.times(M.transpose()));
+                Float64Matrix C = M.copy();
+                assertElements(ELEMENTS, C);
+                TestContext.assertEquals(M, C);
+            }
+        });
+    }
+
+    static void assertElements(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                TestContext.assertEquals(expected[i][j], actual.get(i, j).doubleValue(),
+                        "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+}
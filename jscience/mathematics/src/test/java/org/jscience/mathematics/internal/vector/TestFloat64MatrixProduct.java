@@ -0,0 +1,135 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the blocked and concurrent {@link Float64Matrix#times(Matrix)
+ * product} against the textbook triple loop, for dimensions below and
+ * above the blocking thresholds and for transposed operands.
+ */
+public class TestFloat64MatrixProduct extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-10;
+
+    public void testSmall() {
+        info("  small product");
+        doTest(new ProductTest(3, 5, 2));
+        doTest(new ProductTest(1, 7, 1));
+        doTest(new ProductTest(7, 1, 6));
+    }
+
+    public void testBlocked() {
+        info("  blocked product");
+        doTest(new ProductTest(67, 53, 61));
+        doTest(new ProductTest(130, 5, 300));
+    }
+
+    public void testConcurrent() {
+        info("  concurrent product");
+        doTest(new ProductTest(211, 260, 150));
+    }
+
+    public void testTransposedOperands() {
+        info("  transposed operands");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(90, 70, 1);
+                double[][] b = random(90, 80, 2);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Float64Matrix B = Float64Matrix.valueOf(b);
+                assertNear(multiply(transpose(a), b), A.transpose().times(B));
+                assertNear(multiply(transpose(b), a), Float64Matrix.valueOf(transpose(b)).times(A));
+                assertNear(multiply(a, transpose(a)), A.times(A.transpose()));
+                assertNear(multiply(transpose(b), transpose(transpose(b))), B.transpose().times(B));
+            }
+        });
+    }
+
+    /** Compares the product of random m-by-k and k-by-n matrices. */
+    private static class ProductTest extends SimpleTestCase {
+
+        private final int _m, _k, _n;
+
+        ProductTest(int m, int k, int n) {
+            _m = m;
+            _k = k;
+            _n = n;
+        }
+
+        @Override
+        public void execute() {
+            double[][] a = random(_m, _k, _m);
+            double[][] b = random(_k, _n, _n);
+            assertNear(multiply(a, b), Float64Matrix.valueOf(a).times(Float64Matrix.valueOf(b)));
+        }
+
+        @Override
+        public String getName() {
+            return "Product " + _m + "x" + _k + " by " + _k + "x" + _n;
+        }
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int k = 0; k < b.length; k++) {
+                for (int j = 0; j < b[0].length; j++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+
+    static double[][] transpose(double[][] a) {
+        double[][] t = new double[a[0].length][a.length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[0].length; j++) {
+                t[j][i] = a[i][j];
+            }
+        }
+        return t;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                double value = actual.get(i, j).doubleValue();
+                TestContext.assertTrue(MathLib.abs(expected[i][j] - value) <= EPSILON,
+                        "(" + i + ", " + j + "): " + expected[i][j] + " expected but found " + value);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the Householder {@link Float64QRDecomposition}, its least-squares
+ * solutions, the rows appended through Givens rotations and the
+ * QR-based {@link Float64Matrix#pseudoInverse() pseudo-inverse}.
+ */
+public class TestFloat64QRDecomposition extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-10;
+
+    public void testFactors() {
+        info("  A = Q·R");
+        doTest(new QRTest(60, 25));
+        doTest(new QRTest(150, 90));
+    }
+
+    public void testLeastSquares() {
+        info("  least squares");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix A = Float64Matrix.valueOf(random(60, 25, 9));
+                Float64Matrix B = Float64Matrix.valueOf(random(60, 2, 10));
+                Float64Matrix X = Float64QRDecomposition.valueOf(A).solveLeastSquares(B);
+                // The residual is orthogonal to the columns of A.
+                assertNear(new double[25][2], A.transpose().times(A.times(X).minus(B)));
+            }
+        });
+    }
+
+    public void testAppendRows() {
+        info("  appended rows");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(40, 12, 11);
+                double[][] top = new double[30][];
+                double[][] bottom = new double[10][];
+                System.arraycopy(a, 0, top, 0, 30);
+                System.arraycopy(a, 30, bottom, 0, 10);
+                Float64Matrix B = Float64Matrix.valueOf(random(40, 3, 12));
+                Float64QRDecomposition qr = Float64QRDecomposition.valueOf(Float64Matrix.valueOf(top));
+                qr.appendRows(Float64Matrix.valueOf(bottom));
+                TestContext.assertEquals(40, qr.getNumberOfRows(), "rows");
+                assertNear(toArray(Float64QRDecomposition.valueOf(Float64Matrix.valueOf(a)).solveLeastSquares(B)),
+                        qr.solveLeastSquares(B));
+            }
+        });
+    }
+
+    public void testPseudoInverse() {
+        info("  pseudo-inverse");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix A = Float64Matrix.valueOf(random(30, 8, 13));
+                assertNear(identity(8), A.pseudoInverse().times(A));
+                Float64Matrix W = Float64Matrix.valueOf(random(8, 30, 14));
+                assertNear(identity(8), W.times(W.pseudoInverse()));
+            }
+        });
+    }
+
+    /** Checks the factors of a random m-by-n matrix. */
+    private static class QRTest extends SimpleTestCase {
+
+        private final int _m, _n;
+
+        QRTest(int m, int n) {
+            _m = m;
+            _n = n;
+        }
+
+        @Override
+        public void execute() {
+            double[][] a = random(_m, _n, _m + _n);
+            Float64QRDecomposition qr = Float64QRDecomposition.valueOf(Float64Matrix.valueOf(a));
+            Float64Matrix Q = qr.getQ();
+            Float64Matrix R = qr.getR();
+            for (int i = 0; i < _n; i++) {
+                for (int j = 0; j < i; j++) {
+                    TestContext.assertEquals(0.0, R.getValue(i, j), "upper");
+                }
+            }
+            assertNear(a, Q.times(R));
+            assertNear(identity(_n), Q.transpose().times(Q));
+        }
+
+        @Override
+        public String getName() {
+            return "QR " + _m + "x" + _n;
+        }
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static double[][] identity(int n) {
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            a[i][i] = 1.0;
+        }
+        return a;
+    }
+
+    static double[][] toArray(Matrix<Float64> M) {
+        double[][] a = new double[M.getNumberOfRows()][M.getNumberOfColumns()];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[0].length; j++) {
+                a[i][j] = M.get(i, j).doubleValue();
+            }
+        }
+        return a;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                double value = actual.get(i, j).doubleValue();
+                TestContext.assertTrue(MathLib.abs(expected[i][j] - value) <= EPSILON,
+                        "(" + i + ", " + j + "): " + expected[i][j] + " expected but found " + value);
+            }
+        }
+    }
+
+}
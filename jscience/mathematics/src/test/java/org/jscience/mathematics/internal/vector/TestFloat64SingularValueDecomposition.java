@@ -0,0 +1,139 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the thin and truncated {@link Float64SingularValueDecomposition}
+ * (A = U·diag(s)·V', U and V orthonormal, s sorted, numerical rank).
+ */
+public class TestFloat64SingularValueDecomposition extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-10;
+
+    public void testThin() {
+        info("  thin SVD");
+        doTest(new SVDTest(40, 30));
+        doTest(new SVDTest(30, 40));
+        doTest(new SVDTest(25, 25));
+    }
+
+    public void testRankDeficient() {
+        info("  rank deficient");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix B = Float64Matrix.valueOf(random(20, 3, 13));
+                Matrix<Float64> A = B.times(B.transpose());
+                TestContext.assertEquals(3, Float64SingularValueDecomposition.valueOf(A).getRank(), "rank");
+            }
+        });
+    }
+
+    public void testTruncated() {
+        info("  truncated SVD");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix A = Float64Matrix.valueOf(random(60, 5, 14)).times(
+                        Float64Matrix.valueOf(random(5, 40, 15)));
+                Float64SingularValueDecomposition svd = Float64SingularValueDecomposition.valueOf(A, 5);
+                TestContext.assertEquals(5, svd.getSingularValues().getDimension(), "dimension");
+                assertNear(A, svd);
+                Float64Vector s = Float64SingularValueDecomposition.valueOf(A).getSingularValues();
+                for (int j = 0; j < 5; j++) {
+                    assertNear(s.getValue(j), svd.getSingularValues().getValue(j), "singular value " + j);
+                }
+            }
+        });
+    }
+
+    /** Checks the decomposition of a random m-by-n matrix. */
+    private static class SVDTest extends SimpleTestCase {
+
+        private final int _m, _n;
+
+        SVDTest(int m, int n) {
+            _m = m;
+            _n = n;
+        }
+
+        @Override
+        public void execute() {
+            Float64Matrix A = Float64Matrix.valueOf(random(_m, _n, _m * _n));
+            Float64SingularValueDecomposition svd = Float64SingularValueDecomposition.valueOf(A);
+            Float64Vector s = svd.getSingularValues();
+            int k = MathLib.min(_m, _n);
+            TestContext.assertEquals(k, svd.getRank(), "rank");
+            assertNear(A, svd);
+            assertOrthonormal(svd.getU());
+            assertOrthonormal(svd.getV());
+            for (int j = 1; j < k; j++) {
+                TestContext.assertTrue(s.getValue(j - 1) >= s.getValue(j), "descending order");
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "SVD " + _m + "x" + _n;
+        }
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    /** Asserts that U·diag(s)·V' equals the specified matrix. */
+    static void assertNear(Matrix<Float64> A, Float64SingularValueDecomposition svd) {
+        Float64Matrix U = svd.getU();
+        Float64Matrix V = svd.getV();
+        Float64Vector s = svd.getSingularValues();
+        for (int i = 0; i < A.getNumberOfRows(); i++) {
+            for (int j = 0; j < A.getNumberOfColumns(); j++) {
+                double sum = 0.0;
+                for (int k = 0; k < s.getDimension(); k++) {
+                    sum += U.getValue(i, k) * s.getValue(k) * V.getValue(j, k);
+                }
+                assertNear(A.get(i, j).doubleValue(), sum, "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    static void assertOrthonormal(Float64Matrix Q) {
+        Matrix<Float64> QtQ = Q.transpose().times(Q);
+        for (int i = 0; i < QtQ.getNumberOfRows(); i++) {
+            for (int j = 0; j < QtQ.getNumberOfColumns(); j++) {
+                assertNear((i == j) ? 1.0 : 0.0, QtQ.get(i, j).doubleValue(), "orthonormal");
+            }
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
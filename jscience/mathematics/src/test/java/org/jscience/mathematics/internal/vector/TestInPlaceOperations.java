@@ -0,0 +1,245 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+import javolution.util.Index;
+
+import org.jscience.mathematics.number.Complex;
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the in-place (<code>plusInPlace</code>, <code>timesInPlace</code>,
+ * <code>axpy</code>) and destination-passing operations of dense matrices
+ * and vectors, and their visibility through views.
+ */
+public class TestInPlaceOperations extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-12;
+
+    public void testFloat64Matrix() {
+        info("  Float64Matrix in place");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(10, 8, 1);
+                double[][] b = random(10, 8, 2);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Float64Matrix B = Float64Matrix.valueOf(b);
+                Matrix<Float64> S = A.getSubMatrix(Index.valuesOf(new int[] { 7, 1 }),
+                        Index.valuesOf(new int[] { 5, 0 }));
+                Float64Matrix R = A.getSubMatrix(2, 5, 1, 4);
+                Float64Vector column = A.getColumn(6);
+                A.timesInPlace(2.0);
+                A.plusInPlace(B);
+                A.axpy(-0.5, B);
+                for (int i = 0; i < 10; i++) {
+                    for (int j = 0; j < 8; j++) {
+                        assertNear(2.0 * a[i][j] + 0.5 * b[i][j], A.getValue(i, j), "(" + i + ", " + j + ")");
+                    }
+                }
+                // Views read through.
+                assertNear(A.getValue(7, 5), S.get(0, 0).doubleValue(), "sub-matrix view");
+                assertNear(A.getValue(2, 1), R.getValue(0, 0), "range view");
+                assertNear(A.getValue(3, 6), column.getValue(3), "column view");
+                // Update through a view.
+                R.timesInPlace(0.0);
+                TestContext.assertEquals(0.0, A.getValue(4, 3), "updated through view");
+                assertNear(2.0 * a[5][3] + 0.5 * b[5][3], A.getValue(5, 3), "outside view");
+            }
+        });
+    }
+
+    public void testDestinationPassing() {
+        info("  destination passing");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(6, 5, 3);
+                double[][] b = random(5, 4, 4);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Float64Matrix B = Float64Matrix.valueOf(b);
+                Float64Matrix C = Float64Matrix.valueOf(new double[8][8]);
+                Float64Matrix out = C.getSubMatrix(1, 7, 2, 6);
+                TestContext.assertSame(out, A.times(B, out));
+                for (int i = 0; i < 6; i++) {
+                    for (int j = 0; j < 4; j++) {
+                        double sum = 0.0;
+                        for (int k = 0; k < 5; k++) {
+                            sum += a[i][k] * b[k][j];
+                        }
+                        assertNear(sum, C.getValue(i + 1, j + 2), "(" + i + ", " + j + ")");
+                    }
+                }
+                TestContext.assertEquals(0.0, C.getValue(0, 0), "outside destination");
+                A.plus(A, A);
+                A.times(0.25, A);
+                assertNear(0.5 * a[3][2], A.getValue(3, 2), "in-place destination");
+                final Float64Matrix M = Float64Matrix.valueOf(random(4, 4, 5));
+                TestContext.assertException(IllegalArgumentException.class, new Runnable() {
+                    public void run() {
+                        M.times(M, M);
+                    }
+                });
+                Float64Vector x = Float64Vector.valueOf(1, -1, 2, 0, 3);
+                Float64Vector y = Float64Vector.valueOf(new double[6]);
+                A.times(x, y);
+                for (int i = 0; i < 6; i++) {
+                    double sum = 0.5 * (a[i][0] - a[i][1] + 2 * a[i][2] + 3 * a[i][4]);
+                    assertNear(sum, y.getValue(i), "A·x");
+                }
+            }
+        });
+    }
+
+    public void testFloat64Vector() {
+        info("  Float64Vector in place");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[] x = random(1, 17, 6)[0];
+                double[] y = random(1, 17, 7)[0];
+                Float64Vector X = Float64Vector.valueOf(x);
+                Float64Vector Y = Float64Vector.valueOf(y);
+                Float64Vector out = Float64Vector.valueOf(new double[17]);
+                X.minus(Y, out);
+                X.timesInPlace(3.0);
+                X.plusInPlace(Y);
+                X.axpy(Float64.valueOf(-1.0), Y);
+                for (int i = 0; i < 17; i++) {
+                    assertNear(3.0 * x[i], X.getValue(i), "(" + i + ")");
+                    assertNear(x[i] - y[i], out.getValue(i), "minus");
+                }
+            }
+        });
+    }
+
+    public void testGeneric() {
+        info("  generic in place");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Rational[][] a = new Rational[3][3];
+                for (int i = 0; i < 3; i++) {
+                    for (int j = 0; j < 3; j++) {
+                        a[i][j] = Rational.valueOf(i + 1, j + 1);
+                    }
+                }
+                DenseMatrix<Rational> A = DenseMatrix.valueOf(a);
+                DenseMatrix<Rational> B = A.copy();
+                A.timesInPlace(Rational.valueOf(2, 1));
+                A.axpy(Rational.valueOf(-1, 1), B);
+                A.plusInPlace(B.transpose());
+                for (int i = 0; i < 3; i++) {
+                    for (int j = 0; j < 3; j++) {
+                        TestContext.assertEquals(a[i][j].plus(a[j][i]), A.get(i, j));
+                    }
+                }
+                DenseVector<Rational> v = DenseVector.valueOf(Rational.valueOf(1, 2), Rational.valueOf(1, 3));
+                v.axpy(Rational.valueOf(6, 1), DenseVector.valueOf(Rational.valueOf(1, 1), Rational.valueOf(0, 1)));
+                v.timesInPlace(Rational.valueOf(2, 1));
+                TestContext.assertEquals(Rational.valueOf(13, 1), v.get(0));
+                TestContext.assertEquals(Rational.valueOf(2, 3), v.get(1));
+            }
+        });
+    }
+
+    public void testViews() {
+        info("  in place through generic views");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Rational[][] a = new Rational[3][3];
+                for (int i = 0; i < 3; i++) {
+                    for (int j = 0; j < 3; j++) {
+                        a[i][j] = Rational.valueOf(i + 1, j + 1);
+                    }
+                }
+                DenseMatrix<Rational> A = DenseMatrix.valueOf(a);
+                DenseMatrix<Rational> S = A.getSubMatrix(Index.valuesOf(new int[] { 2, 0 }),
+                        Index.valuesOf(new int[] { 1, 2 }));
+                S.timesInPlace(Rational.valueOf(2, 1));
+                S.transpose().plusInPlace(S.transpose().copy());
+                A.getColumn(0).axpy(Rational.valueOf(-1, 1), DenseVector.valueOf(a[0][0], a[1][0], a[2][0]));
+                for (int i = 0; i < 3; i++) {
+                    TestContext.assertEquals(Rational.valueOf(0, 1), A.get(i, 0));
+                    for (int j = 1; j < 3; j++) {
+                        Rational k = Rational.valueOf((i != 1) ? 4 : 1, 1);
+                        TestContext.assertEquals(a[i][j].times(k), A.get(i, j));
+                    }
+                }
+                Float64Matrix F = Float64Matrix.valueOf(random(4, 4, 8));
+                double f31 = F.getValue(3, 1);
+                Matrix<Float64> T = F.getSubMatrix(Index.valuesOf(new int[] { 3, 0 }),
+                        Index.valuesOf(new int[] { 1, 2 }));
+                ((DenseMatrix<Float64>) T).axpy(Float64.valueOf(3.0), T.copy());
+                assertNear(4.0 * f31, F.getValue(3, 1), "Float64 view");
+                ComplexMatrix C = ComplexMatrix.valueOf(2, 2, 1, 2, 3, 4, 5, 6, 7, 8);
+                C.conjugateTranspose().plusInPlace(ComplexMatrix.valueOf(2, 2, 0, 0, 0, 1, 0, 0, 0, 0));
+                TestContext.assertEquals(Complex.valueOf(5, 5), C.get(1, 0));
+                final DenseMatrix<Float64> K = (DenseMatrix<Float64>) KroneckerMatrix.valueOf(
+                        Float64Matrix.valueOf(random(2, 2, 9)), Float64Matrix.valueOf(random(2, 2, 10)))
+                        .getSubMatrix(Index.valuesOf(new int[] { 0, 3 }), Index.valuesOf(new int[] { 1 }));
+                TestContext.assertException(UnsupportedOperationException.class, new Runnable() {
+                    public void run() {
+                        K.timesInPlace(Float64.ONE);
+                    }
+                });
+            }
+        });
+    }
+
+    public void testSharedRows() {
+        info("  in place on a matrix built from shared rows");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                DenseVector<Rational> v = DenseVector.valueOf(Rational.valueOf(1, 1), Rational.valueOf(2, 1));
+                DenseMatrix<Rational> M = DenseMatrix.valueOf(v, v);
+                M.plusInPlace(M.copy());
+                DenseMatrix<Rational> N = DenseMatrix.valueOf(Arrays.asList(v, v));
+                N.timesInPlace(Rational.valueOf(3, 1));
+                for (int i = 0; i < 2; i++) {
+                    TestContext.assertEquals(Rational.valueOf(2, 1), M.get(i, 0));
+                    TestContext.assertEquals(Rational.valueOf(4, 1), M.get(i, 1));
+                    TestContext.assertEquals(Rational.valueOf(3, 1), N.get(i, 0));
+                    TestContext.assertEquals(Rational.valueOf(6, 1), N.get(i, 1));
+                }
+                TestContext.assertEquals(Rational.valueOf(1, 1), v.get(0));
+                TestContext.assertEquals(Rational.valueOf(2, 1), v.get(1));
+            }
+        });
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the lazy {@link KroneckerMatrix} product against the explicit
+ * Kronecker product.
+ */
+public class TestKroneckerMatrix extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-9;
+
+    public void testElements() {
+        info("  elements");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(3, 4, 1);
+                double[][] b = random(5, 2, 2);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Float64Matrix B = Float64Matrix.valueOf(b);
+                KroneckerMatrix<Float64> K = KroneckerMatrix.valueOf(A, B);
+                assertNear(kronecker(a, b), K);
+                assertNear(transpose(kronecker(a, b)), K.transpose());
+                assertNear(kronecker(a, b), A.tensor(B));
+            }
+        });
+    }
+
+    public void testTimes() {
+        info("  products");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(4, 3, 3);
+                double[][] b = random(5, 6, 4);
+                double[][] k = kronecker(a, b);
+                KroneckerMatrix<Float64> K = KroneckerMatrix.valueOf(Float64Matrix.valueOf(a),
+                        Float64Matrix.valueOf(b));
+                double[][] x = random(18, 3, 6);
+                assertNear(multiply(k, x), K.times(Float64Matrix.valueOf(x)));
+                Vector<Float64> y = K.times(Float64Matrix.valueOf(x).getColumn(0));
+                for (int i = 0; i < k.length; i++) {
+                    double sum = 0.0;
+                    for (int j = 0; j < k[0].length; j++) {
+                        sum += k[i][j] * x[j][0];
+                    }
+                    assertNear(sum, y.get(i).doubleValue(), "K·x (" + i + ")");
+                }
+            }
+        });
+    }
+
+    public void testMixedProduct() {
+        info("  (A ⊗ B)·(C ⊗ D) = (A·C) ⊗ (B·D)");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(4, 3, 3);
+                double[][] b = random(5, 6, 4);
+                double[][] c = random(3, 2, 7);
+                double[][] d = random(6, 3, 8);
+                KroneckerMatrix<Float64> K = KroneckerMatrix.valueOf(Float64Matrix.valueOf(a),
+                        Float64Matrix.valueOf(b));
+                KroneckerMatrix<Float64> L = KroneckerMatrix.valueOf(Float64Matrix.valueOf(c),
+                        Float64Matrix.valueOf(d));
+                Matrix<Float64> KL = K.times(L);
+                TestContext.assertTrue(KL instanceof KroneckerMatrix, "Kronecker product expected");
+                assertNear(multiply(kronecker(a, b), kronecker(c, d)), KL);
+            }
+        });
+    }
+
+    public void testSolve() {
+        info("  factor-wise solve, inverse, determinant and trace");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = diagonallyDominant(random(4, 4, 9));
+                double[][] b = diagonallyDominant(random(6, 6, 10));
+                double[][] k = kronecker(a, b);
+                Float64Matrix Kd = Float64Matrix.valueOf(k);
+                KroneckerMatrix<Float64> K = KroneckerMatrix.valueOf(Float64Matrix.valueOf(a),
+                        Float64Matrix.valueOf(b));
+                double[][] y = random(24, 2, 11);
+                Float64Matrix Y = Float64Matrix.valueOf(y);
+                assertNear(y, Kd.times(K.factorize().solve(Y)));
+                assertNear(y, Kd.times(K.solve(Y)));
+                Vector<Float64> x = Kd.times(K.solve(Y.getColumn(0)));
+                for (int i = 0; i < y.length; i++) {
+                    assertNear(y[i][0], x.get(i).doubleValue(), "K·x (" + i + ")");
+                }
+                double[][] identity = new double[24][24];
+                for (int i = 0; i < 24; i++) {
+                    identity[i][i] = 1.0;
+                }
+                assertNear(identity, Kd.times(K.inverse()));
+                assertNear(1.0, K.determinant().doubleValue() / Kd.determinant().doubleValue(), "determinant");
+                double trace = 0.0;
+                for (int i = 0; i < 24; i++) {
+                    trace += k[i][i];
+                }
+                assertNear(trace, K.trace().doubleValue(), "trace");
+            }
+        });
+    }
+
+    public void testSnapshot() {
+        info("  tensor copies its operands, valueOf is a view");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(2, 3, 12);
+                double[][] b = random(3, 2, 13);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                Float64Matrix B = Float64Matrix.valueOf(b);
+                Matrix<Float64> T = A.tensor(B);
+                KroneckerMatrix<Float64> K = KroneckerMatrix.valueOf(A, B);
+                A.timesInPlace(2.0);
+                B.plusInPlace(B);
+                assertNear(kronecker(a, b), T);
+                for (int i = 0; i < 6; i++) {
+                    for (int j = 0; j < 6; j++) {
+                        assertNear(4.0 * kronecker(a, b)[i][j], K.get(i, j).doubleValue(), "view");
+                    }
+                }
+            }
+        });
+    }
+
+    /** Returns the explicit Kronecker product of the specified arrays. */
+    static double[][] kronecker(double[][] a, double[][] b) {
+        int p = b.length, q = b[0].length;
+        double[][] k = new double[a.length * p][a[0].length * q];
+        for (int i = 0; i < k.length; i++) {
+            for (int j = 0; j < k[0].length; j++) {
+                k[i][j] = a[i / p][j / q] * b[i % p][j % q];
+            }
+        }
+        return k;
+    }
+
+    static double[][] diagonallyDominant(double[][] a) {
+        for (int i = 0; i < a.length; i++) {
+            a[i][i] += a.length;
+        }
+        return a;
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int k = 0; k < b.length; k++) {
+                for (int j = 0; j < b[0].length; j++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+
+    static double[][] transpose(double[][] a) {
+        double[][] t = new double[a[0].length][a.length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[0].length; j++) {
+                t[j][i] = a[i][j];
+            }
+        }
+        return t;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                assertNear(expected[i][j], actual.get(i, j).doubleValue(), "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
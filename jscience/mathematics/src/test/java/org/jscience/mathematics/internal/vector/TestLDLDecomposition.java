@@ -0,0 +1,113 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the {@link LDLDecomposition} of symmetric indefinite matrices
+ * requiring 2x2 pivots.
+ */
+public class TestLDLDecomposition extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-12;
+
+    public void testZeroDiagonal() {
+        info("  zero diagonal");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix A = Float64Matrix.valueOf(new double[][] { { 0, 1 }, { 1, 0 } });
+                LDLDecomposition<Float64> ldl = LDLDecomposition.valueOf(A);
+                DenseVector<Float64> x = ldl.solve(Float64Vector.valueOf(1, 2));
+                assertNear(2.0, x.get(0).doubleValue(), "x0");
+                assertNear(1.0, x.get(1).doubleValue(), "x1");
+                assertNear(-1.0, ldl.determinant().doubleValue(), "determinant");
+                assertNear(0.0, ldl.logDeterminant(), "log-determinant");
+            }
+        });
+    }
+
+    public void testTinyDiagonal() {
+        info("  tiny diagonal");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64Matrix A = Float64Matrix.valueOf(new double[][] { { 1e-17, 1 }, { 1, 1e-17 } });
+                DenseVector<Float64> x = LDLDecomposition.valueOf(A).solve(Float64Vector.valueOf(1, 2));
+                assertNear(2.0, x.get(0).doubleValue(), "x0");
+                assertNear(1.0, x.get(1).doubleValue(), "x1");
+            }
+        });
+    }
+
+    public void testZeroDiagonalRational() {
+        info("  zero diagonal (rational)");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Rational zero = Rational.valueOf(0, 1);
+                Rational one = Rational.valueOf(1, 1);
+                DenseMatrix<Rational> A = DenseMatrix.valueOf(new Rational[][] { { zero, one }, { one, zero } });
+                LDLDecomposition<Rational> ldl = LDLDecomposition.valueOf(A);
+                DenseVector<Rational> x = ldl.solve(DenseVector.valueOf(one, Rational.valueOf(2, 1)));
+                TestContext.assertEquals(Rational.valueOf(2, 1), x.get(0));
+                TestContext.assertEquals(one, x.get(1));
+                TestContext.assertEquals(Rational.valueOf(-1, 1), ldl.determinant());
+                TestContext.assertEquals(A, ldl.inverse());
+            }
+        });
+    }
+
+    public void testIndefinite() {
+        info("  indefinite factors");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = { { 1, 2, 0, 3 }, { 2, 0, 4, 1 }, { 0, 4, 0, 5 }, { 3, 1, 5, -2 } };
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                LDLDecomposition<Float64> ldl = LDLDecomposition.valueOf(A);
+                DenseMatrix<Float64> L = ldl.getLower(Float64.ZERO, Float64.ONE);
+                DenseMatrix<Float64> D = ldl.getBlockDiagonal(Float64.ZERO);
+                Matrix<Float64> LDLt = L.times(D).times(L.transpose());
+                int n = a.length;
+                for (int i = 0; i < n; i++) {
+                    int pi = ldl.getPivots().get(i).intValue();
+                    for (int j = 0; j < n; j++) {
+                        int pj = ldl.getPivots().get(j).intValue();
+                        assertNear(a[pi][pj], LDLt.get(i, j).doubleValue(), "P·A·P'");
+                    }
+                }
+                Matrix<Float64> I = A.times(ldl.inverse());
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        assertNear((i == j) ? 1.0 : 0.0, I.get(i, j).doubleValue(), "A·inverse");
+                    }
+                }
+                double det = A.determinant().doubleValue();
+                assertNear(1.0, ldl.determinant().doubleValue() / det, "determinant");
+                assertNear(MathLib.log(MathLib.abs(det)), ldl.logDeterminant(), "log-determinant");
+            }
+        });
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the exact {@link MultiModularDecomposition} of rational matrices
+ * against the fraction-free {@link BareissDecomposition}.
+ */
+public class TestMultiModularDecomposition extends AbstractJavolutionJUnitAdapter {
+
+    private static final Rational ZERO = Rational.valueOf(0, 1);
+
+    private static final Rational ONE = Rational.valueOf(1, 1);
+
+    public void testRandom() {
+        info("  random rational matrix");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                int n = MultiModularDecomposition.THRESHOLD + 4;
+                DenseMatrix<Rational> A = random(n, n, 3);
+                DenseMatrix<Rational> B = random(n, 3, 4);
+                MultiModularDecomposition mmd = MultiModularDecomposition.valueOf(A);
+                Rational det = BareissDecomposition.valueOf(A).determinant();
+                TestContext.assertEquals(det, mmd.determinant());
+                TestContext.assertEquals(n, mmd.getRank(), "rank");
+                TestContext.assertFalse(mmd.isSingular());
+                TestContext.assertEquals(B, A.times(mmd.solve(B)));
+                TestContext.assertEquals(identity(n), A.times(mmd.inverse()));
+                // Default dispatch for large rational matrices.
+                TestContext.assertEquals(det, A.determinant());
+                TestContext.assertEquals(B, A.times(A.solve(B)));
+            }
+        });
+    }
+
+    public void testHilbert() {
+        info("  Hilbert matrix");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                int n = MultiModularDecomposition.THRESHOLD;
+                Rational[][] h = new Rational[n][n];
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        h[i][j] = Rational.valueOf(1, i + j + 1);
+                    }
+                }
+                DenseMatrix<Rational> H = DenseMatrix.valueOf(h);
+                MultiModularDecomposition mmd = MultiModularDecomposition.valueOf(H);
+                TestContext.assertEquals(BareissDecomposition.valueOf(H).determinant(), mmd.determinant());
+                TestContext.assertEquals(identity(n), H.times(mmd.inverse()));
+            }
+        });
+    }
+
+    public void testSingular() {
+        info("  singular matrix");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                int n = MultiModularDecomposition.THRESHOLD;
+                DenseMatrix<Rational> R = random(n, n, 5);
+                Rational[][] a = new Rational[n][n];
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        a[i][j] = R.get((i == n - 1) ? 0 : i, j); // Last row = first row.
+                    }
+                }
+                MultiModularDecomposition mmd = MultiModularDecomposition.valueOf(DenseMatrix.valueOf(a));
+                TestContext.assertTrue(mmd.isSingular());
+                TestContext.assertEquals(n - 1, mmd.getRank(), "rank");
+                TestContext.assertEquals(ZERO, mmd.determinant());
+            }
+        });
+    }
+
+    static DenseMatrix<Rational> random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        Rational[][] a = new Rational[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = Rational.valueOf(random.nextInt(21) - 10, 1 + random.nextInt(4));
+            }
+        }
+        return DenseMatrix.valueOf(a);
+    }
+
+    static DenseMatrix<Rational> identity(int n) {
+        Rational[][] a = new Rational[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = (i == j) ? ONE : ZERO;
+            }
+        }
+        return DenseMatrix.valueOf(a);
+    }
+
+}
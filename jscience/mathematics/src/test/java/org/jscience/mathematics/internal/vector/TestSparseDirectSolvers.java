@@ -0,0 +1,152 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the {@link SparseSymbolicAnalysis} and the sparse direct
+ * {@link Float64SparseLUDecomposition LU} and
+ * {@link Float64SparseCholeskyDecomposition Cholesky} factorizations
+ * on two-dimensional grid operators.
+ */
+public class TestSparseDirectSolvers extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-9;
+
+    private static final int GRID = 15;
+
+    public void testAnalysis() {
+        info("  symbolic analysis");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                int n = GRID * GRID;
+                SparseSymbolicAnalysis analysis = SparseSymbolicAnalysis.valueOf(
+                        Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(laplacian(GRID, 0.0))));
+                TestContext.assertEquals(n, analysis.getDimension(), "dimension");
+                boolean[] found = new boolean[n];
+                for (int i = 0; i < n; i++) {
+                    int p = analysis.getPermutation().get(i).intValue();
+                    TestContext.assertFalse(found[p], "permutation");
+                    found[p] = true;
+                }
+                TestContext.assertTrue(analysis.getNumberOfSupernodes() < n, "supernodes");
+                TestContext.assertTrue(analysis.getNumberOfFactorNonZeros() < (long) n * (n + 1) / 4, "fill");
+            }
+        });
+    }
+
+    public void testCholesky() {
+        info("  sparse Cholesky");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = laplacian(GRID, 0.0);
+                double[][] b = random(a.length, 2, 1);
+                Float64CSCMatrix A = Float64CSCMatrix.valueOfMatrix(Float64Matrix.valueOf(a));
+                Float64SparseCholeskyDecomposition cholesky = Float64SparseCholeskyDecomposition.valueOf(A);
+                assertNear(b, A.times(cholesky.solve(Float64Matrix.valueOf(b))));
+                double logDet = Float64CholeskyDecomposition.valueOf(Float64Matrix.valueOf(a)).logDeterminant();
+                assertNear(1.0, cholesky.logDeterminant() / logDet, "log-determinant");
+            }
+        });
+    }
+
+    public void testLU() {
+        info("  sparse LU");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = laplacian(GRID, 0.7);
+                double[][] b = random(a.length, 2, 2);
+                Float64CSRMatrix A = Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(a));
+                Float64SparseLUDecomposition lu = Float64SparseLUDecomposition.valueOf(A);
+                assertNear(b, A.times(lu.solve(Float64Matrix.valueOf(b))));
+                assertNear(b, A.times(A.solve(Float64Matrix.valueOf(b))));
+                // Same pattern, other values: reuses the symbolic analysis.
+                Float64CSRMatrix A2 = A.times(2.0);
+                Float64SparseLUDecomposition lu2 = Float64SparseLUDecomposition.valueOf(lu.getAnalysis(), A2);
+                assertNear(b, A2.times(lu2.solve(Float64Matrix.valueOf(b))));
+            }
+        });
+    }
+
+    public void testSmall() {
+        info("  inverse and determinant");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = laplacian(3, 0.7);
+                Float64CSRMatrix A = Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(a));
+                double[][] identity = new double[9][9];
+                for (int i = 0; i < 9; i++) {
+                    identity[i][i] = 1.0;
+                }
+                assertNear(identity, A.times(A.inverse()));
+                double det = Float64Matrix.valueOf(a).determinant().doubleValue();
+                assertNear(1.0, A.determinant().doubleValue() / det, "determinant");
+            }
+        });
+    }
+
+    /** Returns the five-point Laplacian of a k-by-k grid, with an optional convection term. */
+    static double[][] laplacian(int k, double convection) {
+        int n = k * k;
+        double[][] a = new double[n][n];
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) {
+                int p = i * k + j;
+                a[p][p] = 4.0;
+                if (j + 1 < k) {
+                    a[p][p + 1] = -1.0 + convection;
+                    a[p + 1][p] = -1.0;
+                }
+                if (i + 1 < k) {
+                    a[p][p + k] = a[p + k][p] = -1.0;
+                }
+            }
+        }
+        return a;
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                assertNear(expected[i][j], actual.get(i, j).doubleValue(), "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
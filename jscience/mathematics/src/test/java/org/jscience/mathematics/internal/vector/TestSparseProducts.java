@@ -0,0 +1,187 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the sparse matrix-vector, sparse-dense and sparse-sparse products
+ * of the compressed sparse matrices (sequential and concurrent sizes)
+ * against dense products.
+ */
+public class TestSparseProducts extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-12;
+
+    public void testMatrixVector() {
+        info("  sparse matrix times vector");
+        doTest(new MatrixVectorTest(200, 150));
+        doTest(new MatrixVectorTest(1200, 1000));
+    }
+
+    public void testMatrixDense() {
+        info("  sparse matrix times dense matrix");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = randomSparse(60, 50, 4);
+                double[][] b = random(50, 7, 5);
+                double[][] c = multiply(a, b);
+                Float64CSRMatrix A = Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(a));
+                assertNear(c, A.times(Float64Matrix.valueOf(b)));
+                assertNear(c, A.times(Float64Matrix.valueOf(transpose(b)).transpose()));
+                assertNear(c, Float64CSCMatrix.valueOfMatrix(A).times(Float64Matrix.valueOf(b)));
+                assertNear(c, CSRMatrix.valueOf(A).times(Float64Matrix.valueOf(b)));
+            }
+        });
+    }
+
+    public void testMatrixMatrix() {
+        info("  sparse matrix times sparse matrix");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = randomSparse(40, 60, 6);
+                double[][] b = randomSparse(60, 30, 7);
+                double[][] c = multiply(a, b);
+                Float64CSRMatrix A = Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(a));
+                Float64CSRMatrix B = Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(b));
+                Matrix<Float64> C = A.times(B);
+                TestContext.assertTrue(C instanceof SparseMatrix<?>, "sparse result");
+                assertNear(c, C);
+                assertNear(c, CSRMatrix.valueOf(A).times(CSRMatrix.valueOf(B)));
+                assertNear(c, CSCMatrix.valueOf(A).times(CSCMatrix.valueOf(B)));
+                assertNear(c, SparseMatrix.valueOf(Float64Matrix.valueOf(a)).times(
+                        SparseMatrix.valueOf(Float64Matrix.valueOf(b))));
+                double[][] large = randomSparse(700, 700, 8);
+                Float64CSRMatrix L = Float64CSRMatrix.valueOfMatrix(Float64Matrix.valueOf(large));
+                assertNear(multiply(large, large), L.times(L));
+            }
+        });
+    }
+
+    /** Checks A·x and A'·y for a random sparse m-by-n matrix. */
+    private static class MatrixVectorTest extends SimpleTestCase {
+
+        private final int _m, _n;
+
+        MatrixVectorTest(int m, int n) {
+            _m = m;
+            _n = n;
+        }
+
+        @Override
+        public void execute() {
+            double[][] a = randomSparse(_m, _n, _m);
+            double[] x = random(1, _n, _n)[0];
+            double[] y = random(1, _m, _m)[0];
+            double[] ax = new double[_m];
+            double[] aty = new double[_n];
+            for (int i = 0; i < _m; i++) {
+                for (int j = 0; j < _n; j++) {
+                    ax[i] += a[i][j] * x[j];
+                    aty[j] += a[i][j] * y[i];
+                }
+            }
+            Float64Matrix dense = Float64Matrix.valueOf(a);
+            Float64CSRMatrix csr = Float64CSRMatrix.valueOfMatrix(dense);
+            Float64CSCMatrix csc = Float64CSCMatrix.valueOfMatrix(dense);
+            assertNear(ax, csr.times(Float64Vector.valueOf(x)));
+            assertNear(ax, csc.times(Float64Vector.valueOf(x)));
+            assertNear(aty, csr.transpose().times(Float64Vector.valueOf(y)));
+            assertNear(aty, csc.transpose().times(Float64Vector.valueOf(y)));
+            assertNear(ax, CSRMatrix.valueOf(dense).times(Float64Vector.valueOf(x)));
+            assertNear(ax, CSCMatrix.valueOf(dense).times(Float64Vector.valueOf(x)));
+        }
+
+        @Override
+        public String getName() {
+            return "Sparse " + _m + "x" + _n + " times vector";
+        }
+    }
+
+    /** Returns a m-by-n matrix with about 10% non-zero elements. */
+    static double[][] randomSparse(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                if (random.nextInt(10) == 0) {
+                    a[i][j] = 2.0 * random.nextDouble() - 1.0;
+                }
+            }
+        }
+        return a;
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int k = 0; k < b.length; k++) {
+                for (int j = 0; j < b[0].length; j++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+
+    static double[][] transpose(double[][] a) {
+        double[][] t = new double[a[0].length][a.length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[0].length; j++) {
+                t[j][i] = a[i][j];
+            }
+        }
+        return t;
+    }
+
+    static void assertNear(double[] expected, Vector<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getDimension(), "dimension");
+        for (int i = 0; i < expected.length; i++) {
+            assertNear(expected[i], actual.get(i).doubleValue(), "(" + i + ")");
+        }
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                assertNear(expected[i][j], actual.get(i, j).doubleValue(), "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Complex;
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.LargeInteger;
+import org.jscience.mathematics.number.Rational;
+import org.jscience.mathematics.number.Real;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the {@link StrassenMultiplication Strassen-Winograd product} of
+ * exact matrices against the classical product (even and odd dimensions,
+ * several recursion depths).
+ */
+public class TestStrassenMultiplication extends AbstractJavolutionJUnitAdapter {
+
+    public void testRecursion() {
+        info("  recursion depths");
+        doTest(new StrassenTest(16, 16, 16, 2));
+        doTest(new StrassenTest(17, 13, 11, 2));
+        doTest(new StrassenTest(31, 30, 29, 4));
+        doTest(new StrassenTest(9, 40, 3, 2));
+    }
+
+    public void testDenseProduct() {
+        info("  dense product above threshold");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                int n = DenseMatrix.STRASSEN_THRESHOLD.get() + 3;
+                Rational[][] a = random(n, n, 1);
+                Rational[][] b = random(n, n, 2);
+                TestContext.assertEquals(DenseMatrix.valueOf(multiply(a, b)),
+                        DenseMatrix.valueOf(a).times(DenseMatrix.valueOf(b)));
+            }
+        });
+    }
+
+    public void testSelection() {
+        info("  algorithm selection from the elements cost");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                TestContext.assertTrue(DenseMatrixImpl.isStrassenWorthy(Rational.valueOf(1, 3)), "rational");
+                TestContext.assertTrue(DenseMatrixImpl.isStrassenWorthy(LargeInteger.valueOf(7)), "large integer");
+                TestContext.assertTrue(DenseMatrixImpl.isStrassenWorthy(Real.valueOf(
+                        LargeInteger.ONE.shiftLeft(256), 0)), "large significand");
+                TestContext.assertFalse(DenseMatrixImpl.isStrassenWorthy(Float64.ONE), "Float64");
+                TestContext.assertFalse(DenseMatrixImpl.isStrassenWorthy(Complex.I), "complex");
+                TestContext.assertFalse(DenseMatrixImpl.isStrassenWorthy(Real.valueOf(3, 0)), "small significand");
+            }
+        });
+    }
+
+    public void testFloat64Product() {
+        info("  generic Float64 product above threshold");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                int n = DenseMatrix.STRASSEN_THRESHOLD.get() + 3;
+                Random random = new Random(3);
+                Float64[][] a = new Float64[n][n];
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        a[i][j] = Float64.valueOf(random.nextInt(19) - 9);
+                    }
+                }
+                DenseMatrix<Float64> A = DenseMatrix.valueOf(a);
+                Matrix<Float64> C = A.times(A.transpose());
+                Float64Matrix D = Float64Matrix.valueOfMatrix(A).times(Float64Matrix.valueOfMatrix(A).transpose());
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        TestContext.assertEquals(D.getValue(i, j), C.get(i, j).doubleValue(), "exact integer product");
+                    }
+                }
+            }
+        });
+    }
+
+    /** Compares the products of random m-by-k and k-by-n rational matrices. */
+    private static class StrassenTest extends SimpleTestCase {
+
+        private final int _m, _k, _n, _threshold;
+
+        StrassenTest(int m, int k, int n, int threshold) {
+            _m = m;
+            _k = k;
+            _n = n;
+            _threshold = threshold;
+        }
+
+        @Override
+        public void execute() {
+            Rational[][] a = random(_m, _k, _m);
+            Rational[][] b = random(_k, _n, _n);
+            DenseMatrix<Rational> C = StrassenMultiplication.times(DenseMatrix.valueOf(a),
+                    DenseMatrix.valueOf(b), _threshold);
+            TestContext.assertEquals(DenseMatrix.valueOf(multiply(a, b)), C);
+        }
+
+        @Override
+        public String getName() {
+            return "Strassen " + _m + "x" + _k + " by " + _k + "x" + _n + " (threshold " + _threshold + ")";
+        }
+    }
+
+    static Rational[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        Rational[][] a = new Rational[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = Rational.valueOf(random.nextInt(19) - 9, 1 + random.nextInt(3));
+            }
+        }
+        return a;
+    }
+
+    static Rational[][] multiply(Rational[][] a, Rational[][] b) {
+        Rational[][] c = new Rational[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b[0].length; j++) {
+                Rational sum = a[i][0].times(b[0][j]);
+                for (int k = 1; k < b.length; k++) {
+                    sum = sum.plus(a[i][k].times(b[k][j]));
+                }
+                c[i][j] = sum;
+            }
+        }
+        return c;
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the {@link Float64StructuredMatrix structured matrices} (triangular,
+ * symmetric, band, Toeplitz, circulant) against their dense equivalent.
+ */
+public class TestStructuredMatrices extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-9;
+
+    private static final int N = 30;
+
+    public void testTriangular() {
+        info("  triangular");
+        double[][] a = diagonallyDominant(random(N, N, 1));
+        double[][] lower = new double[N][N];
+        double[][] upper = new double[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                (j <= i ? lower : upper)[i][j] = a[i][j];
+            }
+            upper[i][i] = a[i][i];
+        }
+        final Float64Matrix A = Float64Matrix.valueOf(a);
+        doTest(new StructuredTest("lower", Float64TriangularMatrix.valueOf(A, true), lower));
+        doTest(new StructuredTest("upper", Float64TriangularMatrix.valueOf(A, false), upper));
+        doTest(new StructuredTest("lower transposed", Float64TriangularMatrix.valueOf(A, true).transpose(),
+                transpose(lower)));
+    }
+
+    public void testSymmetric() {
+        info("  symmetric");
+        double[][] a = randomSPD(N, 2);
+        doTest(new StructuredTest("positive definite", Float64SymmetricMatrix.valueOf(Float64Matrix.valueOf(a)), a));
+        double[][] b = randomSPD(N, 3);
+        for (int i = 0; i < N; i++) {
+            b[i][i] -= 2 * N;
+        }
+        doTest(new StructuredTest("indefinite", Float64SymmetricMatrix.valueOf(Float64Matrix.valueOf(b)), b));
+    }
+
+    public void testBand() {
+        info("  band");
+        final double[][] a = diagonallyDominant(random(N, N, 3));
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if ((j < i - 2) || (j > i + 1)) {
+                    a[i][j] = 0.0;
+                }
+            }
+        }
+        final Float64BandMatrix B = Float64BandMatrix.valueOf(Float64Matrix.valueOf(a), 2, 1);
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                TestContext.assertEquals(2, B.getLowerBandwidth(), "lower bandwidth");
+                TestContext.assertEquals(1, B.getUpperBandwidth(), "upper bandwidth");
+            }
+        });
+        doTest(new StructuredTest("band (2, 1)", B, a));
+    }
+
+    public void testToeplitz() {
+        info("  Toeplitz");
+        double[] column = random(1, N, 4)[0];
+        double[] row = random(1, N, 5)[0];
+        column[0] = row[0] = N;
+        double[][] a = new double[N][N];
+        double[][] s = new double[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                a[i][j] = (i >= j) ? column[i - j] : row[j - i];
+                s[i][j] = column[MathLib.abs(i - j)];
+            }
+        }
+        doTest(new StructuredTest("general", Float64ToeplitzMatrix.valueOf(column, row), a));
+        doTest(new StructuredTest("symmetric", Float64ToeplitzMatrix.valueOf(column), s));
+    }
+
+    public void testCirculant() {
+        info("  circulant");
+        final double[] column = random(1, N, 6)[0];
+        column[0] = N;
+        final double[][] a = new double[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                a[i][j] = column[(i - j + N) % N];
+            }
+        }
+        doTest(new StructuredTest("circulant", Float64CirculantMatrix.valueOf(column), a));
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                Float64CirculantMatrix C = Float64CirculantMatrix.valueOf(column);
+                assertNear(multiply(a, a), C.times(C));
+                assertNear(multiply(a, a), Float64Matrix.valueOf(a).times(C));
+            }
+        });
+    }
+
+    /** Checks the product, solve, inverse and determinant of a structured matrix. */
+    private static class StructuredTest extends SimpleTestCase {
+
+        private final String _name;
+
+        private final Matrix<Float64> _S;
+
+        private final double[][] _a;
+
+        StructuredTest(String name, Matrix<Float64> S, double[][] a) {
+            _name = name;
+            _S = S;
+            _a = a;
+        }
+
+        @Override
+        public void execute() {
+            int n = _a.length;
+            Float64Matrix A = Float64Matrix.valueOf(_a);
+            double[][] b = random(n, 3, 42);
+            Float64Matrix B = Float64Matrix.valueOf(b);
+            assertNear(_a, _S);
+            assertNear(multiply(_a, b), _S.times(B));
+            Vector<Float64> Ax = A.times(B.getColumn(1));
+            Vector<Float64> Sx = _S.times(B.getColumn(1));
+            for (int i = 0; i < n; i++) {
+                assertNear(Ax.get(i).doubleValue(), Sx.get(i).doubleValue(), "S·x");
+            }
+            assertNear(b, A.times(_S.solve(B)));
+            double[][] identity = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                identity[i][i] = 1.0;
+            }
+            assertNear(identity, A.times(_S.inverse()));
+            assertNear(1.0, _S.determinant().doubleValue() / A.determinant().doubleValue(), "determinant");
+        }
+
+        @Override
+        public String getName() {
+            return "Structured (" + _name + ")";
+        }
+    }
+
+    static double[][] diagonallyDominant(double[][] a) {
+        for (int i = 0; i < a.length; i++) {
+            a[i][i] += a.length;
+        }
+        return a;
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    /** Returns B·B' + n·I for a random B. */
+    static double[][] randomSPD(int n, long seed) {
+        double[][] b = random(n, n, seed);
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double sum = (i == j) ? n : 0.0;
+                for (int k = 0; k < n; k++) {
+                    sum += b[i][k] * b[j][k];
+                }
+                a[i][j] = sum;
+            }
+        }
+        return a;
+    }
+
+    static double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int k = 0; k < b.length; k++) {
+                for (int j = 0; j < b[0].length; j++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+
+    static double[][] transpose(double[][] a) {
+        double[][] t = new double[a[0].length][a.length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[0].length; j++) {
+                t[j][i] = a[i][j];
+            }
+        }
+        return t;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                assertNear(expected[i][j], actual.get(i, j).doubleValue(), "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    static void assertNear(double expected, double actual, String message) {
+        TestContext.assertTrue(MathLib.abs(expected - actual) <= EPSILON,
+                message + ": " + expected + " expected but found " + actual);
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.mathematics.internal.vector;
+
+import static javolution.context.LogContext.info;
+
+import java.util.Random;
+
+import javolution.lang.MathLib;
+import javolution.testing.TestContext;
+import javolution.util.Index;
+
+import org.jscience.mathematics.number.Float64;
+import org.jscience.mathematics.number.SimpleTestCase;
+import org.jscience.util.AbstractJavolutionJUnitAdapter;
+
+/**
+ * Tests the sub-matrix views of dense and sparse matrices (index lists,
+ * ranges, views of views, transposition and materialization).
+ */
+public class TestSubMatrixViews extends AbstractJavolutionJUnitAdapter {
+
+    private static final double EPSILON = 1e-12;
+
+    public void testFloat64Views() {
+        info("  Float64Matrix views");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(10, 8, 1);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                int[] rows = { 7, 1, 4 };
+                int[] columns = { 0, 5 };
+                Matrix<Float64> S = A.getSubMatrix(Index.valuesOf(rows), Index.valuesOf(columns));
+                TestContext.assertTrue(S instanceof DenseSubMatrix<?>, "arbitrary indices view");
+                assertNear(gather(a, rows, columns), S);
+                assertNear(transpose(gather(a, rows, columns)), S.transpose());
+                assertNear(gather(a, rows, columns), S.copy());
+                Float64Matrix R = A.getSubMatrix(2, 5, 1, 4);
+                assertNear(gather(a, new int[] { 2, 3, 4 }, new int[] { 1, 2, 3 }), R);
+                int[] spaced = { 0, 3, 6, 9 };
+                Matrix<Float64> E = A.getSubMatrix(Index.valuesOf(spaced), Index.valuesOf(new int[] { 2, 3, 4 }));
+                TestContext.assertTrue(E instanceof Float64Matrix, "strided view");
+                assertNear(gather(a, spaced, new int[] { 2, 3, 4 }), E);
+                // View of a view.
+                Matrix<Float64> V = S.getSubMatrix(Index.valuesOf(new int[] { 2, 0 }), Index.valuesOf(new int[] { 1 }));
+                assertNear(new double[][] { { a[4][5] }, { a[7][5] } }, V);
+                assertNear(gather(a, new int[] { 3 }, new int[] { 2, 3 }), R.getSubMatrix(1, 2, 1, 3));
+            }
+        });
+    }
+
+    public void testOperations() {
+        info("  operations on views");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(12, 12, 2);
+                double[][] b = random(3, 4, 3);
+                Float64Matrix A = Float64Matrix.valueOf(a);
+                int[] rows = { 0, 3, 6, 9 };
+                int[] columns = { 2, 3, 4 };
+                Matrix<Float64> S = A.getSubMatrix(Index.valuesOf(rows), Index.valuesOf(columns));
+                assertNear(multiply(gather(a, rows, columns), b), S.times(Float64Matrix.valueOf(b)));
+                Matrix<Float64> T = A.transpose().getSubMatrix(Index.valuesOf(columns), Index.valuesOf(rows));
+                assertNear(transpose(gather(a, rows, columns)), T.copy());
+                assertNear(transpose(gather(a, rows, columns)), Float64CSRMatrix.valueOfMatrix(T));
+                int[] odd = { 5, 1, 11 };
+                Matrix<Float64> O = A.getSubMatrix(Index.valuesOf(odd), Index.valuesOf(odd));
+                assertNear(multiply(gather(a, odd, odd), gather(a, odd, odd)), O.times(O));
+            }
+        });
+    }
+
+    public void testGenericAndSparseViews() {
+        info("  generic and sparse views");
+        doTest(new SimpleTestCase() {
+            @Override
+            public void execute() {
+                double[][] a = random(9, 7, 4);
+                for (int i = 0; i < 9; i++) {
+                    a[i][(i + 2) % 7] = 0.0;
+                }
+                int[] rows = { 8, 0, 3 };
+                int[] columns = { 6, 2, 4, 1 };
+                DenseMatrix<Float64> D = DenseMatrixImpl.valueOf(Float64Matrix.valueOf(a));
+                Matrix<Float64> S = D.getSubMatrix(Index.valuesOf(rows), Index.valuesOf(columns));
+                assertNear(gather(a, rows, columns), S);
+                assertNear(gather(a, new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8 }, new int[] { 3 }),
+                        DenseMatrixImpl.valueOf(D.getColumn(3)).transpose());
+                SparseMatrix<Float64> P = SparseMatrix.valueOf(Float64Matrix.valueOf(a));
+                Matrix<Float64> Q = P.getSubMatrix(Index.valuesOf(rows), Index.valuesOf(columns));
+                TestContext.assertTrue(Q instanceof SparseMatrix<?>, "sparse view");
+                assertNear(gather(a, rows, columns), Q);
+                assertNear(transpose(gather(a, rows, columns)), Q.transpose());
+            }
+        });
+    }
+
+    static double[][] gather(double[][] a, int[] rows, int[] columns) {
+        double[][] g = new double[rows.length][columns.length];
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                g[i][j] = a[rows[i]][columns[j]];
+            }
+        }
+        return g;
+    }
+
+    static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    static double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int k = 0; k < b.length; k++) {
+                for (int j = 0; j < b[0].length; j++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+
+    static double[][] transpose(double[][] a) {
+        double[][] t = new double[a[0].length][a.length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[0].length; j++) {
+                t[j][i] = a[i][j];
+            }
+        }
+        return t;
+    }
+
+    static void assertNear(double[][] expected, Matrix<Float64> actual) {
+        TestContext.assertEquals(expected.length, actual.getNumberOfRows(), "rows");
+        TestContext.assertEquals(expected[0].length, actual.getNumberOfColumns(), "columns");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                double value = actual.get(i, j).doubleValue();
+                TestContext.assertTrue(MathLib.abs(expected[i][j] - value) <= EPSILON,
+                        "(" + i + ", " + j + "): " + expected[i][j] + " expected but found " + value);
+            }
+        }
+    }
+
+}